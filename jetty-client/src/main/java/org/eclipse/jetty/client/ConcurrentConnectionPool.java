@@ -0,0 +1,334 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.client;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.eclipse.jetty.client.api.Connection;
+import org.eclipse.jetty.client.api.Destination;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.thread.Sweeper;
+
+/**
+ * <p>A connection pool for duplex connections that does not use locks.</p>
+ * <p>Unlike {@link DuplexConnectionPool}, acquiring and releasing connections only
+ * performs atomic operations on the pooled entries, so that many threads sending
+ * requests to the same destination do not contend on a single lock.</p>
+ * <p>The connection to acquire is selected according to a {@link Strategy}.</p>
+ * <p>This pool can be configured with
+ * {@link HttpClientTransport#setConnectionPoolFactory(ConnectionPool.Factory)}, for example:</p>
+ * <pre>
+ * transport.setConnectionPoolFactory(destination -&gt;
+ *     new ConcurrentConnectionPool(destination, client.getMaxConnectionsPerDestination(), destination, Strategy.ROUND_ROBIN));
+ * </pre>
+ */
+@ManagedObject("The lock-free connection pool")
+public class ConcurrentConnectionPool extends AbstractConnectionPool implements Sweeper.Sweepable
+{
+    private static final Logger LOG = Log.getLogger(ConcurrentConnectionPool.class);
+
+    /**
+     * The strategy used to select the connection to acquire among the idle connections.
+     */
+    public enum Strategy
+    {
+        /**
+         * The most recently released connection is acquired first,
+         * so that a small number of "hot" connections are used.
+         */
+        LIFO,
+        /**
+         * The least recently released connection is acquired first,
+         * so that the load is spread over the connections.
+         */
+        FIFO,
+        /**
+         * Connections are acquired in turn, starting the search for
+         * an idle connection after the last connection acquired.
+         */
+        ROUND_ROBIN
+    }
+
+    private final Map<Connection, Entry> entries = new ConcurrentHashMap<>();
+    private final Deque<Entry> idleEntries = new ConcurrentLinkedDeque<>();
+    private final List<Entry> roundRobinEntries = new CopyOnWriteArrayList<>();
+    private final AtomicInteger roundRobinIndex = new AtomicInteger();
+    private final Strategy strategy;
+
+    public ConcurrentConnectionPool(Destination destination, int maxConnections, Callback requester)
+    {
+        this(destination, maxConnections, requester, Strategy.LIFO);
+    }
+
+    public ConcurrentConnectionPool(Destination destination, int maxConnections, Callback requester, Strategy strategy)
+    {
+        super(destination, maxConnections, requester);
+        this.strategy = strategy;
+    }
+
+    @ManagedAttribute(value = "The connection selection strategy", readonly = true)
+    public Strategy getStrategy()
+    {
+        return strategy;
+    }
+
+    @ManagedAttribute(value = "The number of idle connections", readonly = true)
+    public int getIdleConnectionCount()
+    {
+        return count(Entry.IDLE);
+    }
+
+    @ManagedAttribute(value = "The number of active connections", readonly = true)
+    public int getActiveConnectionCount()
+    {
+        return count(Entry.ACTIVE);
+    }
+
+    private int count(int state)
+    {
+        int result = 0;
+        for (Entry entry : entries.values())
+        {
+            if (entry.state.get() == state)
+                ++result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isActive(Connection connection)
+    {
+        Entry entry = entries.get(connection);
+        return entry != null && entry.state.get() == Entry.ACTIVE;
+    }
+
+    @Override
+    protected void onCreated(Connection connection)
+    {
+        Entry entry = new Entry(connection);
+        entries.put(connection, entry);
+        if (strategy == Strategy.ROUND_ROBIN)
+            roundRobinEntries.add(entry);
+        else
+            // Use "cold" new connections as last.
+            idleEntries.offerLast(entry);
+
+        idle(connection, false);
+    }
+
+    @Override
+    protected Connection activate()
+    {
+        Entry entry = strategy == Strategy.ROUND_ROBIN ? activateRoundRobin() : activateIdle();
+        if (entry == null)
+            return null;
+        return active(entry.connection);
+    }
+
+    private Entry activateIdle()
+    {
+        while (true)
+        {
+            Entry entry = idleEntries.pollFirst();
+            if (entry == null)
+                return null;
+            // Skip entries that have been removed concurrently.
+            if (entry.state.compareAndSet(Entry.IDLE, Entry.ACTIVE))
+                return entry;
+        }
+    }
+
+    private Entry activateRoundRobin()
+    {
+        // Iterate over a snapshot of the entries.
+        Object[] snapshot = roundRobinEntries.toArray();
+        int size = snapshot.length;
+        if (size == 0)
+            return null;
+        int start = Math.floorMod(roundRobinIndex.getAndIncrement(), size);
+        for (int i = 0; i < size; ++i)
+        {
+            Entry entry = (Entry)snapshot[(start + i) % size];
+            if (entry.state.compareAndSet(Entry.IDLE, Entry.ACTIVE))
+                return entry;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean release(Connection connection)
+    {
+        boolean closed = isClosed();
+        Entry entry = entries.get(connection);
+        if (entry == null)
+            return false;
+
+        if (closed)
+        {
+            if (!entry.state.compareAndSet(Entry.ACTIVE, Entry.REMOVED))
+                return false;
+            entries.remove(connection);
+        }
+        else
+        {
+            if (!entry.state.compareAndSet(Entry.ACTIVE, Entry.IDLE))
+                return false;
+            if (strategy == Strategy.LIFO)
+                // Make sure we use "hot" connections first.
+                idleEntries.offerFirst(entry);
+            else if (strategy == Strategy.FIFO)
+                idleEntries.offerLast(entry);
+        }
+
+        released(connection);
+        return idle(connection, closed);
+    }
+
+    @Override
+    public boolean remove(Connection connection)
+    {
+        return remove(connection, false);
+    }
+
+    protected boolean remove(Connection connection, boolean force)
+    {
+        boolean activeRemoved = false;
+        boolean idleRemoved = false;
+        Entry entry = entries.remove(connection);
+        if (entry != null)
+        {
+            int state = entry.state.getAndSet(Entry.REMOVED);
+            activeRemoved = state == Entry.ACTIVE;
+            idleRemoved = state == Entry.IDLE;
+            if (strategy == Strategy.ROUND_ROBIN)
+                roundRobinEntries.remove(entry);
+            else if (idleRemoved)
+                idleEntries.remove(entry);
+        }
+
+        if (activeRemoved || force)
+            released(connection);
+        boolean removed = activeRemoved || idleRemoved || force;
+        if (removed)
+            removed(connection);
+        return removed;
+    }
+
+    @Override
+    public void close()
+    {
+        super.close();
+
+        List<Connection> connections = new ArrayList<>();
+        for (Entry entry : entries.values())
+        {
+            if (entry.state.getAndSet(Entry.REMOVED) != Entry.REMOVED)
+                connections.add(entry.connection);
+        }
+        entries.clear();
+        idleEntries.clear();
+        roundRobinEntries.clear();
+
+        close(connections);
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        List<Entry> connections = new ArrayList<>(entries.values());
+        ContainerLifeCycle.dumpObject(out, this);
+        ContainerLifeCycle.dump(out, indent, connections);
+    }
+
+    @Override
+    public boolean sweep()
+    {
+        List<Connection> toSweep = entries.values().stream()
+                .filter(entry -> entry.state.get() == Entry.ACTIVE)
+                .map(entry -> entry.connection)
+                .filter(connection -> connection instanceof Sweeper.Sweepable)
+                .collect(Collectors.toList());
+
+        for (Connection connection : toSweep)
+        {
+            if (((Sweeper.Sweepable)connection).sweep())
+            {
+                boolean removed = remove(connection, true);
+                LOG.warn("Connection swept: {}{}{} from active connections{}{}",
+                        connection,
+                        System.lineSeparator(),
+                        removed ? "Removed" : "Not removed",
+                        System.lineSeparator(),
+                        dump());
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[%s,c=%d/%d,a=%d,i=%d]",
+                getClass().getSimpleName(),
+                hashCode(),
+                strategy,
+                getConnectionCount(),
+                getMaxConnectionCount(),
+                getActiveConnectionCount(),
+                getIdleConnectionCount());
+    }
+
+    private static class Entry
+    {
+        private static final int IDLE = 0;
+        private static final int ACTIVE = 1;
+        private static final int REMOVED = 2;
+
+        private final AtomicInteger state = new AtomicInteger(IDLE);
+        private final Connection connection;
+
+        private Entry(Connection connection)
+        {
+            this.connection = connection;
+        }
+
+        @Override
+        public String toString()
+        {
+            int state = this.state.get();
+            return String.format("%s(%s)", connection, state == IDLE ? "idle" : state == ACTIVE ? "active" : "removed");
+        }
+    }
+}
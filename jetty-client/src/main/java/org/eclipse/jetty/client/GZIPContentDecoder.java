@@ -19,6 +19,7 @@
 package org.eclipse.jetty.client;
 
 import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.util.compression.InflaterPool;
 
 /**
  * {@link ContentDecoder} for the "gzip" encoding.
@@ -41,7 +42,12 @@ public class GZIPContentDecoder extends org.eclipse.jetty.http.GZIPContentDecode
 
     public GZIPContentDecoder(ByteBufferPool byteBufferPool, int bufferSize)
     {
-        super(byteBufferPool, bufferSize);
+        this(null, byteBufferPool, bufferSize);
+    }
+
+    public GZIPContentDecoder(InflaterPool inflaterPool, ByteBufferPool byteBufferPool, int bufferSize)
+    {
+        super(inflaterPool, byteBufferPool, bufferSize);
     }
 
     /**
@@ -51,6 +57,7 @@ public class GZIPContentDecoder extends org.eclipse.jetty.http.GZIPContentDecode
     {
         private final int bufferSize;
         private final ByteBufferPool byteBufferPool;
+        private final InflaterPool inflaterPool;
 
         public Factory()
         {
@@ -68,8 +75,19 @@ public class GZIPContentDecoder extends org.eclipse.jetty.http.GZIPContentDecode
         }
 
         public Factory(ByteBufferPool byteBufferPool, int bufferSize)
+        {
+            this(null, byteBufferPool, bufferSize);
+        }
+
+        public Factory(InflaterPool inflaterPool, ByteBufferPool byteBufferPool)
+        {
+            this(inflaterPool, byteBufferPool, DEFAULT_BUFFER_SIZE);
+        }
+
+        public Factory(InflaterPool inflaterPool, ByteBufferPool byteBufferPool, int bufferSize)
         {
             super("gzip");
+            this.inflaterPool = inflaterPool;
             this.byteBufferPool = byteBufferPool;
             this.bufferSize = bufferSize;
         }
@@ -77,7 +95,7 @@ public class GZIPContentDecoder extends org.eclipse.jetty.http.GZIPContentDecode
         @Override
         public ContentDecoder newContentDecoder()
         {
-            return new GZIPContentDecoder(byteBufferPool, bufferSize);
+            return new GZIPContentDecoder(inflaterPool, byteBufferPool, bufferSize);
         }
     }
 }
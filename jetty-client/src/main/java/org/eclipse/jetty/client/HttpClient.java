@@ -67,6 +67,8 @@ import org.eclipse.jetty.util.SocketAddressResolver;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.compression.CompressionPool;
+import org.eclipse.jetty.util.compression.InflaterPool;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
@@ -127,6 +129,7 @@ public class HttpClient extends ContainerLifeCycle
     private volatile CookieStore cookieStore;
     private volatile Executor executor;
     private volatile ByteBufferPool byteBufferPool;
+    private volatile InflaterPool inflaterPool;
     private volatile Scheduler scheduler;
     private volatile SocketAddressResolver resolver;
     private volatile HttpField agentField = new HttpField(HttpHeader.USER_AGENT, "Jetty/" + Jetty.VERSION);
@@ -209,6 +212,10 @@ public class HttpClient extends ContainerLifeCycle
             byteBufferPool = new MappedByteBufferPool();
         addBean(byteBufferPool);
 
+        if (inflaterPool == null)
+            inflaterPool = new InflaterPool(CompressionPool.DEFAULT_CAPACITY, true);
+        addBean(inflaterPool);
+
         if (scheduler == null)
             scheduler = new ScheduledExecutorScheduler(name + "-scheduler", false);
         addBean(scheduler);
@@ -225,7 +232,7 @@ public class HttpClient extends ContainerLifeCycle
         handlers.put(new WWWAuthenticationProtocolHandler(this));
         handlers.put(new ProxyAuthenticationProtocolHandler(this));
 
-        decoderFactories.add(new GZIPContentDecoder.Factory(byteBufferPool));
+        decoderFactories.add(new GZIPContentDecoder.Factory(inflaterPool, byteBufferPool));
 
         cookieManager = newCookieManager();
         cookieStore = cookieManager.getCookieStore();
@@ -627,6 +634,22 @@ public class HttpClient extends ContainerLifeCycle
         this.byteBufferPool = byteBufferPool;
     }
 
+    /**
+     * @return the {@link InflaterPool} used to decode "gzip" encoded responses
+     */
+    public InflaterPool getInflaterPool()
+    {
+        return inflaterPool;
+    }
+
+    /**
+     * @param inflaterPool the {@link InflaterPool} used to decode "gzip" encoded responses
+     */
+    public void setInflaterPool(InflaterPool inflaterPool)
+    {
+        this.inflaterPool = inflaterPool;
+    }
+
     /**
      * @return the max time, in milliseconds, a connection can take to connect to destinations
      */
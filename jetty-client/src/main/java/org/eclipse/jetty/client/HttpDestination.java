@@ -26,6 +26,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.client.api.Connection;
 import org.eclipse.jetty.client.api.Destination;
@@ -40,11 +41,13 @@ import org.eclipse.jetty.util.HostPort;
 import org.eclipse.jetty.util.Promise;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.component.Dumpable;
 import org.eclipse.jetty.util.component.DumpableCollection;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
 import org.eclipse.jetty.util.thread.Sweeper;
 
 @ManagedObject
@@ -60,6 +63,7 @@ public abstract class HttpDestination extends ContainerLifeCycle implements Dest
     private final ProxyConfiguration.Proxy proxy;
     private final ClientConnectionFactory connectionFactory;
     private final HttpField hostField;
+    private final HistogramStatistic acquireLatency = new HistogramStatistic();
     private ConnectionPool connectionPool;
 
     public HttpDestination(HttpClient client, Origin origin)
@@ -215,6 +219,45 @@ public abstract class HttpDestination extends ContainerLifeCycle implements Dest
         return connectionPool;
     }
 
+    /**
+     * @return the histogram of the time, in nanoseconds, requests waited
+     * in the queue of this destination before being assigned a connection
+     */
+    public HistogramStatistic getAcquireLatency()
+    {
+        return acquireLatency;
+    }
+
+    @ManagedAttribute(value = "The mean time in microseconds requests waited for a connection", readonly = true)
+    public double getAcquireLatencyMean()
+    {
+        return acquireLatency.getMean() / 1000;
+    }
+
+    @ManagedAttribute(value = "The 50th percentile of the time in microseconds requests waited for a connection", readonly = true)
+    public long getAcquireLatency50thPercentile()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(acquireLatency.getValueAtPercentile(50));
+    }
+
+    @ManagedAttribute(value = "The 99th percentile of the time in microseconds requests waited for a connection", readonly = true)
+    public long getAcquireLatency99thPercentile()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(acquireLatency.getValueAtPercentile(99));
+    }
+
+    @ManagedAttribute(value = "The max time in microseconds requests waited for a connection", readonly = true)
+    public long getAcquireLatencyMax()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(acquireLatency.getMax());
+    }
+
+    @ManagedOperation(value = "Resets the connection acquire latency statistics", impact = "ACTION")
+    public void resetAcquireLatency()
+    {
+        acquireLatency.reset();
+    }
+
     @Override
     public void succeeded()
     {
@@ -329,6 +372,7 @@ public abstract class HttpDestination extends ContainerLifeCycle implements Dest
             }
             else
             {
+                acquireLatency.set(System.nanoTime() - exchange.getCreatedNanoTime());
                 SendFailure result = send(connection, exchange);
                 if (result != null)
                 {
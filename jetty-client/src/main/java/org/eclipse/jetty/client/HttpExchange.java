@@ -33,6 +33,7 @@ public class HttpExchange
     private final HttpRequest request;
     private final List<Response.ResponseListener> listeners;
     private final HttpResponse response;
+    private final long createdNanoTime = System.nanoTime();
     private State requestState = State.PENDING;
     private State responseState = State.PENDING;
     private HttpChannel _channel;
@@ -60,6 +61,14 @@ public class HttpExchange
         return request;
     }
 
+    /**
+     * @return the {@link System#nanoTime()} at which this exchange was created
+     */
+    public long getCreatedNanoTime()
+    {
+        return createdNanoTime;
+    }
+
     public Throwable getRequestFailure()
     {
         synchronized (this)
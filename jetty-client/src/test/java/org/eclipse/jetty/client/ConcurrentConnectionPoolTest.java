@@ -0,0 +1,250 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jetty.client.api.Connection;
+import org.eclipse.jetty.client.api.Destination;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.Promise;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConcurrentConnectionPoolTest
+{
+    private final List<Connection> created = new ArrayList<>();
+    private final Destination destination = new Destination()
+    {
+        @Override
+        public String getScheme()
+        {
+            return "http";
+        }
+
+        @Override
+        public String getHost()
+        {
+            return "localhost";
+        }
+
+        @Override
+        public int getPort()
+        {
+            return 80;
+        }
+
+        @Override
+        public void newConnection(Promise<Connection> promise)
+        {
+            Connection connection = new TestConnection();
+            synchronized (created)
+            {
+                created.add(connection);
+            }
+            promise.succeeded(connection);
+        }
+    };
+
+    private ConcurrentConnectionPool newConnectionPool(int maxConnections, ConcurrentConnectionPool.Strategy strategy)
+    {
+        return new ConcurrentConnectionPool(destination, maxConnections, Callback.NOOP, strategy);
+    }
+
+    private List<Connection> fill(ConcurrentConnectionPool pool, int count)
+    {
+        // Connections are created synchronously by the test destination.
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < count; ++i)
+        {
+            Connection connection = pool.acquire();
+            Assert.assertNotNull(connection);
+            connections.add(connection);
+        }
+        for (Connection connection : connections)
+            Assert.assertTrue(pool.release(connection));
+        return connections;
+    }
+
+    @Test
+    public void testLIFO() throws Exception
+    {
+        ConcurrentConnectionPool pool = newConnectionPool(3, ConcurrentConnectionPool.Strategy.LIFO);
+        List<Connection> connections = fill(pool, 3);
+
+        Connection connection = pool.acquire();
+        Assert.assertSame(connections.get(2), connection);
+        Assert.assertTrue(pool.isActive(connection));
+        Assert.assertTrue(pool.release(connection));
+        Assert.assertSame(connections.get(2), pool.acquire());
+    }
+
+    @Test
+    public void testFIFO() throws Exception
+    {
+        ConcurrentConnectionPool pool = newConnectionPool(3, ConcurrentConnectionPool.Strategy.FIFO);
+        List<Connection> connections = fill(pool, 3);
+
+        for (int i = 0; i < 6; ++i)
+        {
+            Connection connection = pool.acquire();
+            Assert.assertSame(connections.get(i % 3), connection);
+            Assert.assertTrue(pool.release(connection));
+        }
+    }
+
+    @Test
+    public void testRoundRobin() throws Exception
+    {
+        ConcurrentConnectionPool pool = newConnectionPool(3, ConcurrentConnectionPool.Strategy.ROUND_ROBIN);
+        List<Connection> connections = fill(pool, 3);
+
+        List<Connection> acquired = new ArrayList<>();
+        for (int i = 0; i < 3; ++i)
+        {
+            Connection connection = pool.acquire();
+            Assert.assertFalse(acquired.contains(connection));
+            acquired.add(connection);
+            Assert.assertTrue(pool.release(connection));
+        }
+        Assert.assertTrue(acquired.containsAll(connections));
+    }
+
+    @Test
+    public void testMaxConnections() throws Exception
+    {
+        ConcurrentConnectionPool pool = newConnectionPool(1, ConcurrentConnectionPool.Strategy.LIFO);
+        Connection connection = pool.acquire();
+        Assert.assertNotNull(connection);
+        Assert.assertNull(pool.acquire());
+        Assert.assertEquals(1, pool.getConnectionCount());
+        Assert.assertEquals(1, pool.getActiveConnectionCount());
+        Assert.assertEquals(0, pool.getIdleConnectionCount());
+    }
+
+    @Test
+    public void testRemove() throws Exception
+    {
+        for (ConcurrentConnectionPool.Strategy strategy : ConcurrentConnectionPool.Strategy.values())
+        {
+            ConcurrentConnectionPool pool = newConnectionPool(2, strategy);
+            List<Connection> connections = fill(pool, 2);
+
+            Assert.assertTrue(pool.remove(connections.get(0)));
+            Assert.assertFalse(pool.remove(connections.get(0)));
+            Assert.assertEquals(1, pool.getConnectionCount());
+
+            Connection connection = pool.acquire();
+            Assert.assertSame(strategy.toString(), connections.get(1), connection);
+            Assert.assertNotNull(pool.acquire());
+            Assert.assertNull(pool.acquire());
+        }
+    }
+
+    @Test
+    public void testClose() throws Exception
+    {
+        ConcurrentConnectionPool pool = newConnectionPool(2, ConcurrentConnectionPool.Strategy.LIFO);
+        List<Connection> connections = fill(pool, 2);
+        Connection active = pool.acquire();
+
+        pool.close();
+
+        Assert.assertTrue(pool.isClosed());
+        Assert.assertFalse(pool.release(active));
+        for (Connection connection : connections)
+            Assert.assertTrue(connection.isClosed());
+    }
+
+    @Test
+    public void testConcurrentAcquireRelease() throws Exception
+    {
+        for (ConcurrentConnectionPool.Strategy strategy : ConcurrentConnectionPool.Strategy.values())
+        {
+            int maxConnections = 4;
+            ConcurrentConnectionPool pool = newConnectionPool(maxConnections, strategy);
+            AtomicInteger active = new AtomicInteger();
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            int threads = 8;
+            CountDownLatch latch = new CountDownLatch(threads);
+            for (int t = 0; t < threads; ++t)
+            {
+                new Thread(() ->
+                {
+                    try
+                    {
+                        for (int i = 0; i < 10_000; ++i)
+                        {
+                            Connection connection = pool.acquire();
+                            if (connection == null)
+                                continue;
+                            if (active.incrementAndGet() > maxConnections)
+                                throw new IllegalStateException("Too many active connections");
+                            active.decrementAndGet();
+                            if (!pool.release(connection))
+                                throw new IllegalStateException("Could not release " + connection);
+                        }
+                    }
+                    catch (Throwable x)
+                    {
+                        failure.compareAndSet(null, x);
+                    }
+                    finally
+                    {
+                        latch.countDown();
+                    }
+                }).start();
+            }
+            Assert.assertTrue(latch.await(30, TimeUnit.SECONDS));
+            Assert.assertNull(String.valueOf(failure.get()), failure.get());
+            Assert.assertTrue(pool.getConnectionCount() <= maxConnections);
+            Assert.assertEquals(pool.getConnectionCount(), pool.getIdleConnectionCount());
+        }
+    }
+
+    private static class TestConnection implements Connection
+    {
+        private volatile boolean closed;
+
+        @Override
+        public void send(Request request, Response.CompleteListener listener)
+        {
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+
+        @Override
+        public boolean isClosed()
+        {
+            return closed;
+        }
+    }
+}
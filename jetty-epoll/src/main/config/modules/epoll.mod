@@ -0,0 +1,67 @@
+[description]
+Enables a HTTP connector that uses the Linux epoll API in
+edge-triggered mode instead of NIO. Each acceptor accepts
+from its own listening socket bound with SO_REUSEPORT, and
+the listening sockets may use TCP_FASTOPEN and TCP_DEFER_ACCEPT.
+On other platforms the connector falls back to NIO.
+
+[tags]
+connector
+http
+
+[depend]
+server
+
+[xml]
+etc/jetty-epoll.xml
+
+[files]
+maven://com.github.jnr/jnr-ffi/2.1.4|lib/jnr/jnr-ffi-2.1.4.jar
+maven://com.github.jnr/jffi/1.2.15|lib/jnr/jffi-1.2.15.jar
+maven://com.github.jnr/jffi/1.2.15/jar/native|lib/jnr/jffi-1.2.15-native.jar
+maven://org.ow2.asm/asm/5.0.3|lib/jnr/asm-5.0.3.jar
+maven://org.ow2.asm/asm-commons/5.0.3|lib/jnr/asm-commons-5.0.3.jar
+maven://org.ow2.asm/asm-analysis/5.0.3|lib/jnr/asm-analysis-5.0.3.jar
+maven://org.ow2.asm/asm-tree/5.0.3|lib/jnr/asm-tree-5.0.3.jar
+maven://org.ow2.asm/asm-util/5.0.3|lib/jnr/asm-util-5.0.3.jar
+maven://com.github.jnr/jnr-x86asm/1.0.2|lib/jnr/jnr-x86asm-1.0.2.jar
+
+[lib]
+lib/jetty-epoll-${jetty.version}.jar
+lib/jnr/*.jar
+
+[license]
+Jetty EPoll is implemented using the Java Native Runtime, which is an
+open source project hosted on Github and released under the Apache 2.0 license.
+https://github.com/jnr/jnr-ffi
+http://www.apache.org/licenses/LICENSE-2.0.html
+
+[ini-template]
+### EPoll HTTP Connector Configuration
+
+## Connector host/address to bind to
+# jetty.epoll.host=0.0.0.0
+
+## Connector port to listen on
+# jetty.epoll.port=8080
+
+## Connector idle timeout in milliseconds
+# jetty.epoll.idleTimeout=30000
+
+## Number of acceptors, each with its own listening socket (-1 picks default based on number of cores)
+# jetty.epoll.acceptors=-1
+
+## Number of selectors (-1 picks default based on number of cores)
+# jetty.epoll.selectors=-1
+
+## Listening sockets backlog (0 picks platform default)
+# jetty.epoll.acceptQueueSize=0
+
+## Whether each acceptor has its own listening socket bound with SO_REUSEPORT
+# jetty.epoll.reusePort=true
+
+## TCP Fast Open queue size (0 disables TCP_FASTOPEN)
+# jetty.epoll.fastOpenQueueSize=0
+
+## Seconds a connection may wait for its first data before being accepted (0 disables TCP_DEFER_ACCEPT)
+# jetty.epoll.deferAcceptSeconds=0
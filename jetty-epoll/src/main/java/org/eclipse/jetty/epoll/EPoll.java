@@ -0,0 +1,495 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.epoll;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+import com.kenai.jffi.MemoryIO;
+import jnr.ffi.LibraryLoader;
+import jnr.ffi.Platform;
+import jnr.ffi.Pointer;
+import jnr.ffi.Runtime;
+import jnr.ffi.annotations.In;
+import jnr.ffi.annotations.Out;
+import jnr.ffi.types.size_t;
+import jnr.ffi.types.ssize_t;
+
+/**
+ * <p>The Linux system calls used by the epoll transport, bound with the Java Native Runtime.</p>
+ * <p>The values of the constants are those of the Linux ABI, that is the same on all the
+ * architectures supported by the JVM; {@link #isAvailable()} returns false on other
+ * operating systems or when the C library cannot be loaded.</p>
+ */
+public class EPoll
+{
+    private static final Logger LOG = Log.getLogger(EPoll.class);
+
+    static final int EPOLLIN = 0x001;
+    static final int EPOLLOUT = 0x004;
+    static final int EPOLLERR = 0x008;
+    static final int EPOLLHUP = 0x010;
+    static final int EPOLLRDHUP = 0x2000;
+    static final int EPOLLET = 1 << 31;
+    static final int EPOLL_CTL_ADD = 1;
+    static final int EPOLL_CTL_DEL = 2;
+    static final int EPOLL_CLOEXEC = 02000000;
+
+    static final int AF_INET = 2;
+    static final int AF_INET6 = 10;
+    static final int SOCK_STREAM = 1;
+    static final int SOCK_NONBLOCK = 04000;
+    static final int SOCK_CLOEXEC = 02000000;
+    static final int SOL_SOCKET = 1;
+    static final int SO_REUSEADDR = 2;
+    static final int SO_LINGER = 13;
+    static final int SO_REUSEPORT = 15;
+    static final int IPPROTO_TCP = 6;
+    static final int IPPROTO_IPV6 = 41;
+    static final int TCP_NODELAY = 1;
+    static final int TCP_DEFER_ACCEPT = 9;
+    static final int TCP_FASTOPEN = 23;
+    static final int IPV6_V6ONLY = 26;
+    static final int SHUT_WR = 1;
+    static final int SHUT_RDWR = 2;
+    static final int F_GETFL = 3;
+    static final int F_SETFL = 4;
+    static final int O_NONBLOCK = 04000;
+    static final int EFD_NONBLOCK = 04000;
+    static final int EFD_CLOEXEC = 02000000;
+
+    static final int EINTR = 4;
+    // EWOULDBLOCK has the same value as EAGAIN on Linux.
+    static final int EAGAIN = 11;
+
+    private static final int SOCKADDR_IN6_SIZE = 28;
+
+    private static final LibC LIBC;
+    private static final Runtime RUNTIME;
+    /**
+     * The size of {@code struct epoll_event}, that is packed only on x86_64.
+     */
+    static final int EPOLL_EVENT_SIZE;
+    static final int EPOLL_EVENT_DATA_OFFSET;
+
+    static
+    {
+        LibC libc = null;
+        Runtime runtime = null;
+        try
+        {
+            Platform platform = Platform.getNativePlatform();
+            // The iovec arrays passed to writev(2) assume 64 bits pointers.
+            if (platform.getOS() == Platform.OS.LINUX && platform.addressSize() == 64)
+            {
+                libc = LibraryLoader.create(LibC.class).load(platform.getStandardCLibraryName());
+                runtime = Runtime.getRuntime(libc);
+                // Check that the calls can actually be made.
+                int epfd = libc.epoll_create1(EPOLL_CLOEXEC);
+                if (epfd < 0)
+                    throw new IOException("epoll_create1 failed, errno " + runtime.getLastError());
+                libc.close(epfd);
+            }
+        }
+        catch (Throwable x)
+        {
+            LOG.debug("epoll not available", x);
+            libc = null;
+            runtime = null;
+        }
+        LIBC = libc;
+        RUNTIME = runtime;
+        boolean packed = Platform.getNativePlatform().getCPU() == Platform.CPU.X86_64;
+        EPOLL_EVENT_SIZE = packed ? 12 : 16;
+        EPOLL_EVENT_DATA_OFFSET = packed ? 4 : 8;
+    }
+
+    /**
+     * @return whether the epoll transport can be used on this platform
+     */
+    public static boolean isAvailable()
+    {
+        return LIBC != null;
+    }
+
+    private EPoll()
+    {
+    }
+
+    static Runtime runtime()
+    {
+        return RUNTIME;
+    }
+
+    static int epollCreate() throws IOException
+    {
+        return check(LIBC.epoll_create1(EPOLL_CLOEXEC), "epoll_create1");
+    }
+
+    static void epollAdd(int epfd, int fd, int events) throws IOException
+    {
+        byte[] event = new byte[EPOLL_EVENT_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(event).order(ByteOrder.nativeOrder());
+        buffer.putInt(0, events);
+        buffer.putInt(EPOLL_EVENT_DATA_OFFSET, fd);
+        check(LIBC.epoll_ctl(epfd, EPOLL_CTL_ADD, fd, event), "epoll_ctl");
+    }
+
+    static boolean epollDelete(int epfd, int fd)
+    {
+        // The event argument is ignored, but must be non null before Linux 2.6.9.
+        return LIBC.epoll_ctl(epfd, EPOLL_CTL_DEL, fd, new byte[EPOLL_EVENT_SIZE]) == 0;
+    }
+
+    /**
+     * @return the number of events, or 0 if the wait was interrupted by a signal
+     */
+    static int epollWait(int epfd, Pointer events, int maxEvents, int timeout) throws IOException
+    {
+        int result = LIBC.epoll_wait(epfd, events, maxEvents, timeout);
+        if (result < 0 && errno() == EINTR)
+            return 0;
+        return check(result, "epoll_wait");
+    }
+
+    static int eventFd() throws IOException
+    {
+        return check(LIBC.eventfd(0, EFD_NONBLOCK | EFD_CLOEXEC), "eventfd");
+    }
+
+    static void eventFdWrite(int fd)
+    {
+        LIBC.eventfd_write(fd, 1);
+    }
+
+    static void eventFdRead(int fd)
+    {
+        LIBC.eventfd_read(fd, new long[1]);
+    }
+
+    /**
+     * @return the number of bytes read, 0 if no bytes are available, or -1 at end of stream
+     */
+    static int read(int fd, ByteBuffer buffer) throws IOException
+    {
+        int remaining = buffer.remaining();
+        if (remaining == 0)
+            return 0;
+        while (true)
+        {
+            long read = LIBC.read(fd, buffer, remaining);
+            if (read > 0)
+            {
+                buffer.position(buffer.position() + (int)read);
+                return (int)read;
+            }
+            if (read == 0)
+                return -1;
+            if (errno() != EINTR)
+                return checkAgain(read, "read");
+        }
+    }
+
+    /**
+     * @return the number of bytes written, 0 if the socket send buffer is full
+     */
+    static int write(int fd, ByteBuffer buffer) throws IOException
+    {
+        int remaining = buffer.remaining();
+        if (remaining == 0)
+            return 0;
+        while (true)
+        {
+            long written = LIBC.write(fd, buffer, remaining);
+            if (written >= 0)
+            {
+                buffer.position(buffer.position() + (int)written);
+                return (int)written;
+            }
+            if (errno() != EINTR)
+                return checkAgain(written, "write");
+        }
+    }
+
+    /**
+     * <p>Writes the given direct buffers with a single {@code writev(2)}.</p>
+     *
+     * @return the number of bytes written, 0 if the socket send buffer is full
+     */
+    static long writev(int fd, ByteBuffer[] buffers, int offset, int length) throws IOException
+    {
+        long[] iovec = new long[2 * length];
+        MemoryIO memory = MemoryIO.getInstance();
+        for (int i = 0; i < length; ++i)
+        {
+            ByteBuffer buffer = buffers[offset + i];
+            iovec[2 * i] = memory.getDirectBufferAddress(buffer) + buffer.position();
+            iovec[2 * i + 1] = buffer.remaining();
+        }
+        long written;
+        while ((written = LIBC.writev(fd, iovec, length)) < 0)
+        {
+            if (errno() != EINTR)
+                return checkAgain(written, "writev");
+        }
+        long left = written;
+        for (int i = 0; i < length && left > 0; ++i)
+        {
+            ByteBuffer buffer = buffers[offset + i];
+            int consumed = (int)Math.min(left, buffer.remaining());
+            buffer.position(buffer.position() + consumed);
+            left -= consumed;
+        }
+        return written;
+    }
+
+    static void setBlocking(int fd, boolean blocking) throws IOException
+    {
+        int flags = check(LIBC.fcntl(fd, F_GETFL, 0), "fcntl");
+        flags = blocking ? flags & ~O_NONBLOCK : flags | O_NONBLOCK;
+        check(LIBC.fcntl(fd, F_SETFL, flags), "fcntl");
+    }
+
+    static void setOption(int fd, int level, int name, int value) throws IOException
+    {
+        check(LIBC.setsockopt(fd, level, name, new int[]{value}, 4), "setsockopt");
+    }
+
+    static void setLinger(int fd, int seconds) throws IOException
+    {
+        int[] linger = seconds >= 0 ? new int[]{1, seconds} : new int[]{0, 0};
+        check(LIBC.setsockopt(fd, SOL_SOCKET, SO_LINGER, linger, 8), "setsockopt");
+    }
+
+    static int socket(int family, boolean blocking) throws IOException
+    {
+        int type = SOCK_STREAM | SOCK_CLOEXEC | (blocking ? 0 : SOCK_NONBLOCK);
+        return check(LIBC.socket(family, type, 0), "socket");
+    }
+
+    static void bind(int fd, int family, InetAddress address, int port) throws IOException
+    {
+        byte[] sockaddr = encode(family, address, port);
+        check(LIBC.bind(fd, sockaddr, sockaddr.length), "bind " + address + ":" + port);
+    }
+
+    static void listen(int fd, int backlog) throws IOException
+    {
+        check(LIBC.listen(fd, backlog), "listen");
+    }
+
+    /**
+     * <p>Accepts a connection from a blocking listening socket.</p>
+     *
+     * @return the non blocking socket of the accepted connection
+     */
+    static int accept(int fd) throws IOException
+    {
+        while (true)
+        {
+            int result = LIBC.accept4(fd, null, null, SOCK_NONBLOCK | SOCK_CLOEXEC);
+            if (result >= 0)
+                return result;
+            if (errno() != EINTR)
+                return check(result, "accept4");
+        }
+    }
+
+    static void shutdown(int fd, int how) throws IOException
+    {
+        check(LIBC.shutdown(fd, how), "shutdown");
+    }
+
+    static void close(int fd) throws IOException
+    {
+        check(LIBC.close(fd), "close");
+    }
+
+    static InetSocketAddress getLocalAddress(int fd)
+    {
+        byte[] sockaddr = new byte[SOCKADDR_IN6_SIZE];
+        int[] length = new int[]{sockaddr.length};
+        if (LIBC.getsockname(fd, sockaddr, length) < 0)
+            return null;
+        return decode(sockaddr);
+    }
+
+    static InetSocketAddress getRemoteAddress(int fd)
+    {
+        byte[] sockaddr = new byte[SOCKADDR_IN6_SIZE];
+        int[] length = new int[]{sockaddr.length};
+        if (LIBC.getpeername(fd, sockaddr, length) < 0)
+            return null;
+        return decode(sockaddr);
+    }
+
+    static byte[] encode(int family, InetAddress address, int port)
+    {
+        ByteBuffer sockaddr;
+        if (family == AF_INET)
+        {
+            // struct sockaddr_in.
+            sockaddr = ByteBuffer.allocate(16).order(ByteOrder.nativeOrder());
+            sockaddr.putShort(0, (short)AF_INET);
+            sockaddr.order(ByteOrder.BIG_ENDIAN).putShort(2, (short)port);
+            if (address != null)
+            {
+                sockaddr.position(4);
+                sockaddr.put(address.getAddress());
+            }
+        }
+        else
+        {
+            // struct sockaddr_in6.
+            sockaddr = ByteBuffer.allocate(SOCKADDR_IN6_SIZE).order(ByteOrder.nativeOrder());
+            sockaddr.putShort(0, (short)AF_INET6);
+            sockaddr.order(ByteOrder.BIG_ENDIAN).putShort(2, (short)port);
+            sockaddr.order(ByteOrder.nativeOrder());
+            if (address instanceof Inet6Address)
+            {
+                sockaddr.position(8);
+                sockaddr.put(address.getAddress());
+                sockaddr.putInt(24, ((Inet6Address)address).getScopeId());
+            }
+            else if (address instanceof Inet4Address)
+            {
+                // IPv4-mapped IPv6 address.
+                sockaddr.put(18, (byte)0xFF);
+                sockaddr.put(19, (byte)0xFF);
+                sockaddr.position(20);
+                sockaddr.put(address.getAddress());
+            }
+        }
+        return sockaddr.array();
+    }
+
+    static InetSocketAddress decode(byte[] bytes)
+    {
+        try
+        {
+            ByteBuffer sockaddr = ByteBuffer.wrap(bytes).order(ByteOrder.nativeOrder());
+            int family = sockaddr.getShort(0);
+            int port = sockaddr.order(ByteOrder.BIG_ENDIAN).getShort(2) & 0xFFFF;
+            byte[] address;
+            if (family == AF_INET)
+            {
+                address = new byte[4];
+                System.arraycopy(bytes, 4, address, 0, address.length);
+            }
+            else if (family == AF_INET6)
+            {
+                address = new byte[16];
+                System.arraycopy(bytes, 8, address, 0, address.length);
+            }
+            else
+            {
+                return null;
+            }
+            // IPv4-mapped IPv6 addresses are returned as Inet4Address.
+            return new InetSocketAddress(InetAddress.getByAddress(address), port);
+        }
+        catch (UnknownHostException x)
+        {
+            LOG.ignore(x);
+            return null;
+        }
+    }
+
+    static int errno()
+    {
+        return RUNTIME.getLastError();
+    }
+
+    private static int check(int result, String call) throws IOException
+    {
+        if (result < 0)
+            throw newIOException(call);
+        return result;
+    }
+
+    /**
+     * <p>Checks the errno of a failed non blocking call, that must be retried by the caller if it is EINTR.</p>
+     *
+     * @return 0 if the call would have blocked
+     */
+    private static int checkAgain(long result, String call) throws IOException
+    {
+        if (errno() == EAGAIN)
+            return 0;
+        throw newIOException(call);
+    }
+
+    private static IOException newIOException(String call)
+    {
+        int errno = errno();
+        return new IOException(call + " failed: " + LIBC.strerror(errno) + " (errno " + errno + ")");
+    }
+
+    public interface LibC
+    {
+        int epoll_create1(int flags);
+
+        int epoll_ctl(int epfd, int op, int fd, @In byte[] event);
+
+        int epoll_wait(int epfd, Pointer events, int maxEvents, int timeout);
+
+        int eventfd(int initial, int flags);
+
+        int eventfd_read(int fd, @Out long[] value);
+
+        int eventfd_write(int fd, long value);
+
+        int socket(int domain, int type, int protocol);
+
+        int setsockopt(int fd, int level, int name, @In int[] value, int length);
+
+        int bind(int fd, @In byte[] address, int length);
+
+        int listen(int fd, int backlog);
+
+        int accept4(int fd, @Out byte[] address, @In @Out int[] length, int flags);
+
+        int getsockname(int fd, @Out byte[] address, @In @Out int[] length);
+
+        int getpeername(int fd, @Out byte[] address, @In @Out int[] length);
+
+        @ssize_t long read(int fd, @Out ByteBuffer buffer, @size_t long count);
+
+        @ssize_t long write(int fd, @In ByteBuffer buffer, @size_t long count);
+
+        @ssize_t long writev(int fd, @In long[] iovec, int count);
+
+        int fcntl(int fd, int cmd, int arg);
+
+        int shutdown(int fd, int how);
+
+        int close(int fd);
+
+        String strerror(int errno);
+    }
+}
@@ -0,0 +1,431 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.epoll;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.concurrent.Executor;
+
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.ChannelEndPoint;
+import org.eclipse.jetty.io.ManagedSelector;
+import org.eclipse.jetty.io.SelectorManager;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.Name;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.thread.Scheduler;
+
+/**
+ * <p>A {@link ServerConnector} that uses the Linux epoll API in edge-triggered mode
+ * instead of the NIO selectors and channels.</p>
+ * <p>{@link #setReusePort(boolean) reusePort} is enabled by default: each acceptor
+ * thread accepts connections from its own listening socket, bound to the same address
+ * with {@code SO_REUSEPORT}, so that the kernel distributes the incoming connections
+ * among the acceptors rather than waking them all up on a shared socket.
+ * The listening sockets may also be configured with {@code TCP_FASTOPEN}
+ * and {@code TCP_DEFER_ACCEPT}.</p>
+ * <p>Selectors cannot accept from the native listening sockets, so when epoll is
+ * available this connector always has at least one acceptor, even if it was
+ * constructed with 0 acceptors.</p>
+ * <p>The selectors use {@link EPollSelector}s, that register each connection
+ * once for both reads and writes.</p>
+ * <p>When epoll is not available (see {@link EPoll#isAvailable()}), this connector
+ * falls back to the behavior of {@link ServerConnector} and the epoll specific
+ * options are ignored.</p>
+ */
+@ManagedObject("HTTP connector using Linux epoll")
+public class EPollConnector extends ServerConnector
+{
+    private static final Logger LOG = Log.getLogger(EPollConnector.class);
+
+    private final boolean _native = EPoll.isAvailable();
+    private volatile int[] _listeners;
+    private volatile int _localPort = -1;
+    private volatile int _fastOpenQueueSize = 0;
+    private volatile int _deferAcceptSeconds = 0;
+
+    /**
+     * <p>Construct an EPollConnector with a private instance of {@link HttpConnectionFactory} as the only factory.</p>
+     * @param server The {@link Server} this connector will accept connection for.
+     */
+    public EPollConnector(
+        @Name("server") Server server)
+    {
+        this(server,null,null,null,-1,-1,new HttpConnectionFactory());
+    }
+
+    /**
+     * <p>Construct an EPollConnector with a private instance of {@link HttpConnectionFactory} as the only factory.</p>
+     * @param server The {@link Server} this connector will accept connection for.
+     * @param acceptors
+     *          the number of acceptor threads to use, or -1 for a default value. Each acceptor accepts from its own
+     *          listening socket. With epoll, at least one acceptor is used.
+     * @param selectors
+     *          the number of selector threads, or &lt;=0 for a default value. Selectors notice and schedule established connection that can make IO progress.
+     */
+    public EPollConnector(
+        @Name("server") Server server,
+        @Name("acceptors") int acceptors,
+        @Name("selectors") int selectors)
+    {
+        this(server,null,null,null,acceptors,selectors,new HttpConnectionFactory());
+    }
+
+    /**
+     * <p>Construct an EPollConnector with the passed Connection factories.</p>
+     * @param server The {@link Server} this connector will accept connection for.
+     * @param acceptors
+     *          the number of acceptor threads to use, or -1 for a default value. Each acceptor accepts from its own
+     *          listening socket. With epoll, at least one acceptor is used.
+     * @param selectors
+     *          the number of selector threads, or &lt;=0 for a default value. Selectors notice and schedule established connection that can make IO progress.
+     * @param factories Zero or more {@link ConnectionFactory} instances used to create and configure connections.
+     */
+    public EPollConnector(
+        @Name("server") Server server,
+        @Name("acceptors") int acceptors,
+        @Name("selectors") int selectors,
+        @Name("factories") ConnectionFactory... factories)
+    {
+        this(server,null,null,null,acceptors,selectors,factories);
+    }
+
+    /**
+     * <p>Construct an EPollConnector with the passed Connection factories.</p>
+     * @param server The {@link Server} this connector will accept connection for.
+     * @param factories Zero or more {@link ConnectionFactory} instances used to create and configure connections.
+     */
+    public EPollConnector(
+        @Name("server") Server server,
+        @Name("factories") ConnectionFactory... factories)
+    {
+        this(server,null,null,null,-1,-1,factories);
+    }
+
+    /**
+     * @param server
+     *          The server this connector will be accept connection for.
+     * @param executor
+     *          An executor used to run tasks for handling requests, acceptors and selectors.
+     *          If null then use the servers executor
+     * @param scheduler
+     *          A scheduler used to schedule timeouts. If null then use the servers scheduler
+     * @param bufferPool
+     *          A ByteBuffer pool used to allocate buffers.  If null then create a private pool with default configuration.
+     * @param acceptors
+     *          the number of acceptor threads to use, or -1 for a default value. Each acceptor accepts from its own
+     *          listening socket. With epoll, at least one acceptor is used.
+     * @param selectors
+     *          the number of selector threads, or &lt;=0 for a default value. Selectors notice and schedule established connection that can make IO progress.
+     * @param factories
+     *          Zero or more {@link ConnectionFactory} instances used to create and configure connections.
+     */
+    public EPollConnector(
+        @Name("server") Server server,
+        @Name("executor") Executor executor,
+        @Name("scheduler") Scheduler scheduler,
+        @Name("bufferPool") ByteBufferPool bufferPool,
+        @Name("acceptors") int acceptors,
+        @Name("selectors") int selectors,
+        @Name("factories") ConnectionFactory... factories)
+    {
+        // Selectors cannot accept from the native listening sockets.
+        super(server,executor,scheduler,bufferPool,acceptors == 0 && EPoll.isAvailable() ? 1 : acceptors,selectors,factories);
+        setReusePort(true);
+    }
+
+    @Override
+    protected SelectorManager newSelectorManager(Executor executor, Scheduler scheduler, int selectors)
+    {
+        // Called from the super constructor, so it cannot use the fields.
+        if (EPoll.isAvailable())
+            return new EPollConnectorManager(executor, scheduler, selectors);
+        return super.newSelectorManager(executor, scheduler, selectors);
+    }
+
+    /**
+     * @return whether this connector uses epoll, or falls back to NIO
+     */
+    @ManagedAttribute("Whether epoll is used")
+    public boolean isNative()
+    {
+        return _native;
+    }
+
+    /**
+     * @return the {@code TCP_FASTOPEN} queue size of the listening sockets, or 0 if TCP Fast Open is disabled
+     */
+    @ManagedAttribute("TCP Fast Open queue size, or 0 if disabled")
+    public int getFastOpenQueueSize()
+    {
+        return _fastOpenQueueSize;
+    }
+
+    /**
+     * @param fastOpenQueueSize the maximum number of pending TCP Fast Open requests
+     * of each listening socket, or 0 to disable TCP Fast Open
+     */
+    public void setFastOpenQueueSize(int fastOpenQueueSize)
+    {
+        _fastOpenQueueSize = fastOpenQueueSize;
+    }
+
+    /**
+     * @return the {@code TCP_DEFER_ACCEPT} timeout in seconds, or 0 if disabled
+     */
+    @ManagedAttribute("TCP defer accept timeout in seconds, or 0 if disabled")
+    public int getDeferAcceptSeconds()
+    {
+        return _deferAcceptSeconds;
+    }
+
+    /**
+     * <p>Sets the time a connection may wait for its first data before being accepted.</p>
+     * <p>Connections are accepted only when data arrives, so that acceptors and selectors
+     * are not woken up for connections that have nothing to read yet.</p>
+     *
+     * @param deferAcceptSeconds the {@code TCP_DEFER_ACCEPT} timeout in seconds, or 0 to disable
+     */
+    public void setDeferAcceptSeconds(int deferAcceptSeconds)
+    {
+        _deferAcceptSeconds = deferAcceptSeconds;
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+        if (!_native)
+            return super.isOpen();
+        return _listeners != null;
+    }
+
+    @Override
+    public void open() throws IOException
+    {
+        if (!_native)
+        {
+            super.open();
+            return;
+        }
+
+        if (_listeners == null)
+        {
+            InetAddress address = getHost() == null ? null : InetAddress.getByName(getHost());
+            int family = address instanceof Inet4Address ? EPoll.AF_INET : EPoll.AF_INET6;
+            int[] listeners = new int[isReusePort() ? Math.max(1, getAcceptors()) : 1];
+            int opened = 0;
+            int port = getPort();
+            try
+            {
+                while (opened < listeners.length)
+                {
+                    int fd = openListener(family, address, port);
+                    listeners[opened++] = fd;
+                    // Bind the other sockets to the port chosen for the first.
+                    if (port <= 0)
+                        port = EPoll.getLocalAddress(fd).getPort();
+                }
+            }
+            catch (IOException x)
+            {
+                for (int i = 0; i < opened; ++i)
+                    closeListener(listeners[i]);
+                throw x;
+            }
+            _localPort = port;
+            _listeners = listeners;
+            if (LOG.isDebugEnabled())
+                LOG.debug("Opened {} listening sockets for {}", listeners.length, this);
+        }
+    }
+
+    private int openListener(int family, InetAddress address, int port) throws IOException
+    {
+        int fd = EPoll.socket(family, true);
+        try
+        {
+            if (getReuseAddress())
+                EPoll.setOption(fd, EPoll.SOL_SOCKET, EPoll.SO_REUSEADDR, 1);
+            if (isReusePort())
+                EPoll.setOption(fd, EPoll.SOL_SOCKET, EPoll.SO_REUSEPORT, 1);
+            if (family == EPoll.AF_INET6)
+                EPoll.setOption(fd, EPoll.IPPROTO_IPV6, EPoll.IPV6_V6ONLY, 0);
+            int deferAccept = getDeferAcceptSeconds();
+            if (deferAccept > 0)
+                setOptionalOption(fd, EPoll.TCP_DEFER_ACCEPT, deferAccept, "TCP_DEFER_ACCEPT");
+            EPoll.bind(fd, family, address, port);
+            int fastOpen = getFastOpenQueueSize();
+            if (fastOpen > 0)
+                setOptionalOption(fd, EPoll.TCP_FASTOPEN, fastOpen, "TCP_FASTOPEN");
+            // Same default backlog as ServerSocket.
+            EPoll.listen(fd, getAcceptQueueSize() > 0 ? getAcceptQueueSize() : 50);
+            return fd;
+        }
+        catch (IOException x)
+        {
+            EPoll.close(fd);
+            throw x;
+        }
+    }
+
+    private void setOptionalOption(int fd, int option, int value, String name)
+    {
+        try
+        {
+            EPoll.setOption(fd, EPoll.IPPROTO_TCP, option, value);
+        }
+        catch (IOException x)
+        {
+            LOG.warn("Could not set {} on {}: {}", name, this, x.getMessage());
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (!_native)
+        {
+            super.close();
+            return;
+        }
+
+        int[] listeners = _listeners;
+        _listeners = null;
+        if (listeners != null)
+        {
+            for (int fd : listeners)
+                closeListener(fd);
+        }
+        _localPort = -2;
+        super.close();
+    }
+
+    private void closeListener(int fd)
+    {
+        try
+        {
+            // Wakes up the acceptor blocked in accept(), that close() does not.
+            EPoll.shutdown(fd, EPoll.SHUT_RDWR);
+        }
+        catch (IOException x)
+        {
+            LOG.ignore(x);
+        }
+        try
+        {
+            EPoll.close(fd);
+        }
+        catch (IOException x)
+        {
+            LOG.warn(x);
+        }
+    }
+
+    @Override
+    public void accept(int acceptorID) throws IOException
+    {
+        if (!_native)
+        {
+            super.accept(acceptorID);
+            return;
+        }
+
+        int[] listeners = _listeners;
+        if (listeners != null)
+        {
+            int fd = EPoll.accept(listeners[acceptorID % listeners.length]);
+            EPollSocketChannel channel = new EPollSocketChannel(EPollSelectorProvider.getInstance(), fd);
+            try
+            {
+                configure(channel);
+                // With a listening socket per acceptor, each acceptor feeds its own subset of the selectors.
+                if (listeners.length > 1)
+                    getSelectorManager().accept(channel, null, acceptorID % listeners.length, listeners.length);
+                else
+                    getSelectorManager().accept(channel);
+            }
+            catch (Throwable x)
+            {
+                channel.close();
+                throw x;
+            }
+        }
+    }
+
+    protected void configure(EPollSocketChannel channel)
+    {
+        try
+        {
+            channel.setOption(EPoll.IPPROTO_TCP, EPoll.TCP_NODELAY, 1);
+            int lingerTime = getSoLingerTime();
+            if (lingerTime >= 0)
+                channel.setLinger(lingerTime / 1000);
+        }
+        catch (IOException x)
+        {
+            LOG.ignore(x);
+        }
+    }
+
+    @Override
+    @ManagedAttribute("local port")
+    public int getLocalPort()
+    {
+        if (!_native)
+            return super.getLocalPort();
+        return _localPort;
+    }
+
+    protected ChannelEndPoint newEndPoint(EPollSocketChannel channel, ManagedSelector selector, SelectionKey key)
+    {
+        EPollEndPoint endpoint = new EPollEndPoint(channel, selector, key, getScheduler());
+        endpoint.setIdleTimeout(getIdleTimeout());
+        return endpoint;
+    }
+
+    protected class EPollConnectorManager extends ServerConnectorManager
+    {
+        public EPollConnectorManager(Executor executor, Scheduler scheduler, int selectors)
+        {
+            super(executor, scheduler, selectors);
+        }
+
+        @Override
+        protected Selector newSelector() throws IOException
+        {
+            return EPollSelectorProvider.getInstance().openSelector();
+        }
+
+        @Override
+        protected ChannelEndPoint newEndPoint(SelectableChannel channel, ManagedSelector selector, SelectionKey key) throws IOException
+        {
+            return EPollConnector.this.newEndPoint((EPollSocketChannel)channel, selector, key);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.epoll;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+
+import org.eclipse.jetty.io.ChannelEndPoint;
+import org.eclipse.jetty.io.ManagedSelector;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.thread.Scheduler;
+
+/**
+ * <p>An {@link org.eclipse.jetty.io.EndPoint} for an {@link EPollSocketChannel}.</p>
+ */
+public class EPollEndPoint extends ChannelEndPoint
+{
+    private static final Logger LOG = Log.getLogger(EPollEndPoint.class);
+    private final EPollSocketChannel _channel;
+    private final InetSocketAddress _local;
+    private final InetSocketAddress _remote;
+
+    public EPollEndPoint(EPollSocketChannel channel, ManagedSelector selector, SelectionKey key, Scheduler scheduler)
+    {
+        super(channel, selector, key, scheduler);
+        _channel = channel;
+        _local = channel.getLocalAddress();
+        _remote = channel.getRemoteAddress();
+    }
+
+    public EPollSocketChannel getChannel()
+    {
+        return _channel;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress()
+    {
+        return _local;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress()
+    {
+        return _remote;
+    }
+
+    @Override
+    protected void doShutdownOutput()
+    {
+        try
+        {
+            if (!_channel.isOutputShutdown())
+                _channel.shutdownOutput();
+        }
+        catch (IOException e)
+        {
+            LOG.debug(e);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.epoll;
+
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.spi.AbstractSelectionKey;
+
+/**
+ * <p>A {@link SelectionKey} for a socket registered in edge-triggered mode.</p>
+ * <p>The socket is registered once for both reads and writes, and the interest
+ * set is kept in user space: changing it does not require a system call.</p>
+ * <p>Since edge-triggered notifications are delivered only when the socket state
+ * changes, the key remembers the readiness that has been notified until the channel
+ * observes that the socket would block ({@link EPollSocketChannel} does it on reads
+ * and writes), so that a readiness notified while there was no interest in it is not lost.</p>
+ */
+public class EPollSelectionKey extends AbstractSelectionKey
+{
+    private final EPollSelector _selector;
+    private final EPollSocketChannel _channel;
+    private int _interestOps;
+    private int _readiness;
+
+    EPollSelectionKey(EPollSelector selector, EPollSocketChannel channel)
+    {
+        _selector = selector;
+        _channel = channel;
+    }
+
+    @Override
+    public SelectableChannel channel()
+    {
+        return _channel;
+    }
+
+    @Override
+    public Selector selector()
+    {
+        return _selector;
+    }
+
+    @Override
+    public int interestOps()
+    {
+        checkValid();
+        synchronized (this)
+        {
+            return _interestOps;
+        }
+    }
+
+    @Override
+    public SelectionKey interestOps(int ops)
+    {
+        checkValid();
+        if ((ops & ~_channel.validOps()) != 0)
+            throw new IllegalArgumentException("Invalid interest ops " + ops);
+        boolean ready;
+        synchronized (this)
+        {
+            ready = (_readiness & ~_interestOps & ops) != 0;
+            _interestOps = ops;
+        }
+        // The readiness of the new interests has already been notified.
+        if (ready)
+            _selector.pending(this);
+        return this;
+    }
+
+    @Override
+    public int readyOps()
+    {
+        checkValid();
+        synchronized (this)
+        {
+            return _readiness & _interestOps;
+        }
+    }
+
+    int getFD()
+    {
+        return _channel.getFD();
+    }
+
+    /**
+     * @return whether the key has readiness for its interests
+     */
+    boolean isSelectable()
+    {
+        synchronized (this)
+        {
+            return (_readiness & _interestOps) != 0;
+        }
+    }
+
+    /**
+     * <p>Records the readiness notified by epoll.</p>
+     *
+     * @return whether the key has readiness for its interests
+     */
+    boolean notified(int ops)
+    {
+        synchronized (this)
+        {
+            _readiness |= ops;
+            return (_readiness & _interestOps) != 0;
+        }
+    }
+
+    /**
+     * <p>Clears the given readiness, before an operation that may find the socket not ready.</p>
+     */
+    void clearReady(int ops)
+    {
+        synchronized (this)
+        {
+            _readiness &= ~ops;
+        }
+    }
+
+    /**
+     * <p>Restores the given readiness, after an operation that did not find the socket not ready.</p>
+     */
+    void setReady(int ops)
+    {
+        boolean ready;
+        synchronized (this)
+        {
+            ready = (~_readiness & _interestOps & ops) != 0;
+            _readiness |= ops;
+        }
+        if (ready)
+            _selector.pending(this);
+    }
+
+    private void checkValid()
+    {
+        if (!isValid())
+            throw new CancelledKeyException();
+    }
+
+    @Override
+    public String toString()
+    {
+        synchronized (this)
+        {
+            return String.format("%s@%x{fd=%d,i=%d,r=%d}", getClass().getSimpleName(), hashCode(), _channel.getFD(), _interestOps, _readiness);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.epoll;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.IllegalSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.spi.AbstractSelectableChannel;
+import java.nio.channels.spi.AbstractSelector;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+import jnr.ffi.Memory;
+import jnr.ffi.Pointer;
+
+/**
+ * <p>A {@link Selector} based on Linux epoll in edge-triggered mode.</p>
+ * <p>Each {@link EPollSocketChannel} is added to the epoll set only once, when it is
+ * registered, for both reads and writes: interest changes and selections do not need
+ * further {@code epoll_ctl(2)} calls, so the selector thread performs one system call
+ * per select.</p>
+ * <p>A key is selected when epoll notifies readiness for one of its interests, or when
+ * its interests change to include a readiness that was notified earlier and not consumed
+ * yet (see {@link EPollSelectionKey}); in the latter case the select does not block.</p>
+ * <p>{@link #wakeup()} is implemented with an {@code eventfd(2)}.</p>
+ */
+public class EPollSelector extends AbstractSelector
+{
+    private static final Logger LOG = Log.getLogger(EPollSelector.class);
+    private static final int MAX_EVENTS = 1024;
+
+    private final Map<Integer, EPollSelectionKey> _fds = new ConcurrentHashMap<>();
+    private final Set<SelectionKey> _keys = ConcurrentHashMap.newKeySet();
+    private final Set<SelectionKey> _publicKeys = Collections.unmodifiableSet(_keys);
+    private final Set<SelectionKey> _selectedKeys = new HashSet<>();
+    private final Queue<EPollSelectionKey> _pending = new ConcurrentLinkedQueue<>();
+    private final int _epfd;
+    private final int _eventFd;
+    private final Pointer _events;
+    private volatile boolean _waiting;
+
+    EPollSelector(EPollSelectorProvider provider) throws IOException
+    {
+        super(provider);
+        _epfd = EPoll.epollCreate();
+        try
+        {
+            _eventFd = EPoll.eventFd();
+            // Level-triggered, until it is read.
+            EPoll.epollAdd(_epfd, _eventFd, EPoll.EPOLLIN);
+        }
+        catch (IOException x)
+        {
+            EPoll.close(_epfd);
+            throw x;
+        }
+        _events = Memory.allocateDirect(EPoll.runtime(), MAX_EVENTS * EPoll.EPOLL_EVENT_SIZE);
+    }
+
+    @Override
+    protected SelectionKey register(AbstractSelectableChannel ch, int ops, Object attachment)
+    {
+        if (!(ch instanceof EPollSocketChannel))
+            throw new IllegalSelectorException();
+        EPollSocketChannel channel = (EPollSocketChannel)ch;
+        EPollSelectionKey key = new EPollSelectionKey(this, channel);
+        key.attach(attachment);
+        _fds.put(channel.getFD(), key);
+        _keys.add(key);
+        try
+        {
+            EPoll.epollAdd(_epfd, channel.getFD(), EPoll.EPOLLIN | EPoll.EPOLLOUT | EPoll.EPOLLRDHUP | EPoll.EPOLLET);
+        }
+        catch (IOException x)
+        {
+            _fds.remove(channel.getFD(), key);
+            _keys.remove(key);
+            throw new UncheckedIOException(x);
+        }
+        channel.setKey(key);
+        key.interestOps(ops);
+        return key;
+    }
+
+    /**
+     * <p>Removes the socket of the given key from epoll, before it is closed.</p>
+     */
+    void forget(EPollSelectionKey key)
+    {
+        int fd = key.getFD();
+        if (_fds.remove(fd, key))
+            EPoll.epollDelete(_epfd, fd);
+    }
+
+    /**
+     * <p>Selects the given key at the next select, waking up a select in progress.</p>
+     */
+    void pending(EPollSelectionKey key)
+    {
+        _pending.offer(key);
+        if (_waiting)
+            wakeup();
+    }
+
+    @Override
+    public Set<SelectionKey> keys()
+    {
+        if (!isOpen())
+            throw new ClosedSelectorException();
+        return _publicKeys;
+    }
+
+    @Override
+    public Set<SelectionKey> selectedKeys()
+    {
+        if (!isOpen())
+            throw new ClosedSelectorException();
+        return _selectedKeys;
+    }
+
+    @Override
+    public int selectNow() throws IOException
+    {
+        return select(0);
+    }
+
+    @Override
+    public int select(long timeout) throws IOException
+    {
+        if (timeout < 0)
+            throw new IllegalArgumentException("Negative timeout");
+        return select(timeout == 0 ? -1 : (int)Math.min(timeout, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public int select() throws IOException
+    {
+        return select(-1);
+    }
+
+    private int select(int timeout) throws IOException
+    {
+        if (!isOpen())
+            throw new ClosedSelectorException();
+
+        synchronized (this)
+        {
+            processCancelledKeys();
+
+            int events;
+            _waiting = true;
+            try
+            {
+                // Must be checked after setting _waiting, see pending().
+                if (!_pending.isEmpty())
+                    timeout = 0;
+                begin();
+                events = EPoll.epollWait(_epfd, _events, MAX_EVENTS, timeout);
+            }
+            finally
+            {
+                end();
+                _waiting = false;
+            }
+
+            int selected = 0;
+            for (int i = 0; i < events; ++i)
+            {
+                long offset = (long)i * EPoll.EPOLL_EVENT_SIZE;
+                int flags = _events.getInt(offset);
+                int fd = _events.getInt(offset + EPoll.EPOLL_EVENT_DATA_OFFSET);
+                if (fd == _eventFd)
+                {
+                    EPoll.eventFdRead(_eventFd);
+                    continue;
+                }
+
+                EPollSelectionKey key = _fds.get(fd);
+                if (key == null)
+                    continue;
+
+                int ops = 0;
+                if ((flags & (EPoll.EPOLLIN | EPoll.EPOLLRDHUP | EPoll.EPOLLHUP | EPoll.EPOLLERR)) != 0)
+                    ops |= SelectionKey.OP_READ;
+                if ((flags & (EPoll.EPOLLOUT | EPoll.EPOLLHUP | EPoll.EPOLLERR)) != 0)
+                    ops |= SelectionKey.OP_WRITE;
+                if (key.notified(ops) && _selectedKeys.add(key))
+                    ++selected;
+            }
+
+            while (true)
+            {
+                EPollSelectionKey key = _pending.poll();
+                if (key == null)
+                    break;
+                if (key.isValid() && key.isSelectable() && _selectedKeys.add(key))
+                    ++selected;
+            }
+
+            processCancelledKeys();
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("Selected {}/{} keys from {} events", selected, _keys.size(), events);
+            return selected;
+        }
+    }
+
+    private void processCancelledKeys()
+    {
+        Set<SelectionKey> cancelled = cancelledKeys();
+        synchronized (cancelled)
+        {
+            for (SelectionKey k : cancelled)
+            {
+                EPollSelectionKey key = (EPollSelectionKey)k;
+                forget(key);
+                _keys.remove(key);
+                _selectedKeys.remove(key);
+                deregister(key);
+            }
+            cancelled.clear();
+        }
+    }
+
+    @Override
+    public Selector wakeup()
+    {
+        // The ManagedSelector already avoids redundant wakeups.
+        EPoll.eventFdWrite(_eventFd);
+        return this;
+    }
+
+    @Override
+    protected void implCloseSelector() throws IOException
+    {
+        wakeup();
+        synchronized (this)
+        {
+            List<SelectionKey> keys = new ArrayList<>(_keys);
+            for (SelectionKey key : keys)
+                key.cancel();
+            processCancelledKeys();
+            _pending.clear();
+            EPoll.close(_eventFd);
+            EPoll.close(_epfd);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{epfd=%d,keys=%d}", getClass().getSimpleName(), hashCode(), _epfd, _keys.size());
+    }
+}
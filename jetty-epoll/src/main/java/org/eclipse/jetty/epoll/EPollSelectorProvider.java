@@ -0,0 +1,85 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.epoll;
+
+import java.io.IOException;
+import java.net.ProtocolFamily;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.Pipe;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.AbstractSelector;
+import java.nio.channels.spi.SelectorProvider;
+
+/**
+ * <p>The provider of {@link EPollSelector}s and of the {@link EPollSocketChannel}s
+ * that can be registered with them.</p>
+ * <p>The standard NIO channels cannot be created by this provider.</p>
+ */
+public class EPollSelectorProvider extends SelectorProvider
+{
+    private static final EPollSelectorProvider INSTANCE = new EPollSelectorProvider();
+
+    public static EPollSelectorProvider getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private EPollSelectorProvider()
+    {
+    }
+
+    @Override
+    public AbstractSelector openSelector() throws IOException
+    {
+        if (!EPoll.isAvailable())
+            throw new UnsupportedOperationException("epoll not available");
+        return new EPollSelector(this);
+    }
+
+    @Override
+    public DatagramChannel openDatagramChannel() throws IOException
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public DatagramChannel openDatagramChannel(ProtocolFamily family) throws IOException
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Pipe openPipe() throws IOException
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ServerSocketChannel openServerSocketChannel() throws IOException
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SocketChannel openSocketChannel() throws IOException
+    {
+        throw new UnsupportedOperationException();
+    }
+}
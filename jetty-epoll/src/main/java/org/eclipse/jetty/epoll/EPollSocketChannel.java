@@ -0,0 +1,226 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.epoll;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.spi.AbstractSelectableChannel;
+
+/**
+ * <p>A connected socket, selectable with an {@link EPollSelector}.</p>
+ * <p>Reads and writes update the readiness of the {@link EPollSelectionKey}: the
+ * readiness is cleared before calling the system, and restored when the call did not
+ * find the socket not ready, so that a notification that arrives during the call is kept.</p>
+ */
+public class EPollSocketChannel extends AbstractSelectableChannel implements ByteChannel, GatheringByteChannel
+{
+    private final int _fd;
+    private volatile EPollSelectionKey _key;
+    private volatile boolean _outputShutdown;
+    private boolean _blocking;
+
+    /**
+     * @param provider the provider of the selectors this channel can be registered with
+     * @param fd the non blocking socket file descriptor
+     * @throws IOException if the channel cannot be made non blocking
+     */
+    public EPollSocketChannel(EPollSelectorProvider provider, int fd) throws IOException
+    {
+        super(provider);
+        _fd = fd;
+        // Only updates the state of the super class, the socket is already non blocking.
+        configureBlocking(false);
+    }
+
+    public int getFD()
+    {
+        return _fd;
+    }
+
+    void setKey(EPollSelectionKey key)
+    {
+        _key = key;
+    }
+
+    public InetSocketAddress getLocalAddress()
+    {
+        return EPoll.getLocalAddress(_fd);
+    }
+
+    public InetSocketAddress getRemoteAddress()
+    {
+        return EPoll.getRemoteAddress(_fd);
+    }
+
+    public void setOption(int level, int name, int value) throws IOException
+    {
+        EPoll.setOption(_fd, level, name, value);
+    }
+
+    public void setLinger(int seconds) throws IOException
+    {
+        EPoll.setLinger(_fd, seconds);
+    }
+
+    @Override
+    public int validOps()
+    {
+        return SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+    }
+
+    @Override
+    public int read(ByteBuffer buffer) throws IOException
+    {
+        checkOpen();
+        if (!buffer.hasRemaining())
+            return 0;
+        EPollSelectionKey key = _key;
+        if (key != null)
+            key.clearReady(SelectionKey.OP_READ);
+        int read = 0;
+        try
+        {
+            read = EPoll.read(_fd, buffer);
+            return read;
+        }
+        finally
+        {
+            if (key != null && read != 0)
+                key.setReady(SelectionKey.OP_READ);
+        }
+    }
+
+    @Override
+    public int write(ByteBuffer buffer) throws IOException
+    {
+        checkOpen();
+        EPollSelectionKey key = _key;
+        if (key != null)
+            key.clearReady(SelectionKey.OP_WRITE);
+        boolean flushed = false;
+        try
+        {
+            int written = EPoll.write(_fd, buffer);
+            flushed = !buffer.hasRemaining();
+            return written;
+        }
+        finally
+        {
+            if (key != null && flushed)
+                key.setReady(SelectionKey.OP_WRITE);
+        }
+    }
+
+    @Override
+    public long write(ByteBuffer[] buffers) throws IOException
+    {
+        return write(buffers, 0, buffers.length);
+    }
+
+    @Override
+    public long write(ByteBuffer[] buffers, int offset, int length) throws IOException
+    {
+        checkOpen();
+        for (int i = 0; i < length; ++i)
+        {
+            // Only direct buffers have a native address to pass to writev().
+            if (!buffers[offset + i].isDirect())
+                return writeEach(buffers, offset, length);
+        }
+
+        EPollSelectionKey key = _key;
+        if (key != null)
+            key.clearReady(SelectionKey.OP_WRITE);
+        boolean flushed = false;
+        try
+        {
+            long written = EPoll.writev(_fd, buffers, offset, length);
+            flushed = !buffers[offset + length - 1].hasRemaining();
+            return written;
+        }
+        finally
+        {
+            if (key != null && flushed)
+                key.setReady(SelectionKey.OP_WRITE);
+        }
+    }
+
+    private long writeEach(ByteBuffer[] buffers, int offset, int length) throws IOException
+    {
+        long written = 0;
+        for (int i = 0; i < length; ++i)
+        {
+            ByteBuffer buffer = buffers[offset + i];
+            written += write(buffer);
+            if (buffer.hasRemaining())
+                break;
+        }
+        return written;
+    }
+
+    public boolean isOutputShutdown()
+    {
+        return _outputShutdown;
+    }
+
+    public void shutdownOutput() throws IOException
+    {
+        checkOpen();
+        _outputShutdown = true;
+        EPoll.shutdown(_fd, EPoll.SHUT_WR);
+    }
+
+    @Override
+    protected void implConfigureBlocking(boolean block) throws IOException
+    {
+        if (block != _blocking)
+        {
+            EPoll.setBlocking(_fd, block);
+            _blocking = block;
+        }
+    }
+
+    @Override
+    protected void implCloseSelectableChannel() throws IOException
+    {
+        // Remove the socket from epoll before the file
+        // descriptor can be reused by another socket.
+        EPollSelectionKey key = _key;
+        if (key != null)
+            ((EPollSelector)key.selector()).forget(key);
+        EPoll.close(_fd);
+    }
+
+    private void checkOpen() throws ClosedChannelException
+    {
+        if (!isOpen())
+            throw new ClosedChannelException();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{fd=%d,open=%b}", getClass().getSimpleName(), hashCode(), _fd, isOpen());
+    }
+}
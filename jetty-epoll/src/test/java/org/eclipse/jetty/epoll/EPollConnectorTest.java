@@ -0,0 +1,254 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.epoll;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.IO;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class EPollConnectorTest
+{
+    private Server _server;
+    private EPollConnector _connector;
+
+    @BeforeClass
+    public static void assumeEPoll()
+    {
+        // Epoll is only available on 64-bit Linux.
+        Assume.assumeTrue(EPoll.isAvailable());
+    }
+
+    @Before
+    public void init() throws Exception
+    {
+        _server = new Server();
+        _connector = new EPollConnector(_server, 2, 1);
+        _connector.setFastOpenQueueSize(16);
+        _server.addConnector(_connector);
+        _server.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+            {
+                baseRequest.setHandled(true);
+                String content = IO.toString(request.getInputStream());
+                int length = request.getParameter("length") == null ? 0 : Integer.parseInt(request.getParameter("length"));
+                response.setContentType("text/plain");
+                OutputStream output = response.getOutputStream();
+                output.write(("content=" + content + "\n").getBytes(StandardCharsets.UTF_8));
+                byte[] chunk = new byte[1024];
+                Arrays.fill(chunk, (byte)'x');
+                for (int i = 0; i < length / chunk.length; ++i)
+                    output.write(chunk);
+            }
+        });
+        _server.start();
+    }
+
+    @After
+    public void destroy() throws Exception
+    {
+        if (_server != null)
+            _server.stop();
+    }
+
+    @Test
+    public void testNative() throws Exception
+    {
+        assertTrue(_connector.isNative());
+        assertTrue(_connector.getLocalPort() > 0);
+    }
+
+    @Test
+    public void testPersistentConnection() throws Exception
+    {
+        try (Socket socket = new Socket("localhost", _connector.getLocalPort()))
+        {
+            socket.setSoTimeout(10000);
+            OutputStream output = socket.getOutputStream();
+            InputStream input = socket.getInputStream();
+            for (int i = 0; i < 10; ++i)
+            {
+                String body = "hello" + i;
+                String request = "POST / HTTP/1.1\r\n" +
+                        "Host: localhost\r\n" +
+                        "Content-Length: " + body.length() + "\r\n" +
+                        "\r\n" +
+                        body;
+                output.write(request.getBytes(StandardCharsets.UTF_8));
+                output.flush();
+
+                String response = readResponse(input);
+                assertThat(response, containsString("HTTP/1.1 200 "));
+                assertThat(response, containsString("content=" + body + "\n"));
+            }
+        }
+    }
+
+    @Test
+    public void testLargeResponseToSlowReader() throws Exception
+    {
+        int length = 8 * 1024 * 1024;
+        try (Socket socket = new Socket("localhost", _connector.getLocalPort()))
+        {
+            socket.setSoTimeout(10000);
+            OutputStream output = socket.getOutputStream();
+            String request = "GET /?length=" + length + " HTTP/1.1\r\n" +
+                    "Host: localhost\r\n" +
+                    "Connection: close\r\n" +
+                    "\r\n";
+            output.write(request.getBytes(StandardCharsets.UTF_8));
+            output.flush();
+
+            // Let the server fill the socket buffers, so that it must wait to be writable.
+            Thread.sleep(500);
+
+            String response = IO.toString(socket.getInputStream());
+            assertThat(response, containsString("HTTP/1.1 200 "));
+            String content = "content=\n";
+            int count = 0;
+            for (int i = response.indexOf(content) + content.length(); i < response.length(); ++i)
+            {
+                if (response.charAt(i) == 'x')
+                    ++count;
+            }
+            // The response is chunked, but the chunk sizes contain no 'x'.
+            assertThat(count, is(length));
+        }
+    }
+
+    @Test
+    public void testConcurrentConnections() throws Exception
+    {
+        int connections = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try
+        {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < connections; ++i)
+            {
+                String body = "body" + i;
+                results.add(executor.submit(() ->
+                {
+                    try (Socket socket = new Socket("localhost", _connector.getLocalPort()))
+                    {
+                        socket.setSoTimeout(10000);
+                        String request = "POST / HTTP/1.1\r\n" +
+                                "Host: localhost\r\n" +
+                                "Content-Length: " + body.length() + "\r\n" +
+                                "Connection: close\r\n" +
+                                "\r\n" +
+                                body;
+                        OutputStream output = socket.getOutputStream();
+                        output.write(request.getBytes(StandardCharsets.UTF_8));
+                        output.flush();
+                        return IO.toString(socket.getInputStream());
+                    }
+                }));
+            }
+            for (int i = 0; i < connections; ++i)
+            {
+                String response = results.get(i).get(10, TimeUnit.SECONDS);
+                assertThat(response, containsString("HTTP/1.1 200 "));
+                assertThat(response, containsString("content=body" + i + "\n"));
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRestart() throws Exception
+    {
+        _server.stop();
+        assertTrue(!_connector.isOpen());
+        _server.start();
+
+        try (Socket socket = new Socket("localhost", _connector.getLocalPort()))
+        {
+            socket.setSoTimeout(10000);
+            String request = "GET / HTTP/1.1\r\n" +
+                    "Host: localhost\r\n" +
+                    "Connection: close\r\n" +
+                    "\r\n";
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.UTF_8));
+            assertThat(IO.toString(socket.getInputStream()), containsString("HTTP/1.1 200 "));
+        }
+    }
+
+    private String readResponse(InputStream input) throws IOException
+    {
+        // Reads the headers and then the number of bytes in the Content-Length.
+        ByteArrayOutputStream headers = new ByteArrayOutputStream();
+        int state = 0;
+        while (state < 4)
+        {
+            int b = input.read();
+            if (b < 0)
+                throw new IOException("EOF");
+            headers.write(b);
+            state = (b == '\r' && (state == 0 || state == 2)) || (b == '\n' && (state == 1 || state == 3)) ? state + 1 : 0;
+        }
+        String head = headers.toString("UTF-8");
+        int index = head.toLowerCase().indexOf("content-length:");
+        int end = head.indexOf('\r', index);
+        int length = Integer.parseInt(head.substring(index + "content-length:".length(), end).trim());
+        byte[] content = new byte[length];
+        int read = 0;
+        while (read < length)
+        {
+            int r = input.read(content, read, length - read);
+            if (r < 0)
+                throw new IOException("EOF");
+            read += r;
+        }
+        return head + new String(content, StandardCharsets.UTF_8);
+    }
+}
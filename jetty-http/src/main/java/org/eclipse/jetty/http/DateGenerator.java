@@ -52,6 +52,29 @@ public class DateGenerator
 
 
     public final static String __01Jan1970=DateGenerator.formatDate(0);
+
+    private static volatile DateField __dateField;
+
+    /**
+     * <p>Get the pre-encoded Date field for the current second.</p>
+     * <p>The field is created once per second and shared by all the connections,
+     * whatever their HTTP version, so that it is formatted and encoded only once.</p>
+     * @return the Date field for the current time
+     */
+    public static HttpField getDateField()
+    {
+        long now=System.currentTimeMillis();
+        long seconds=now/1000;
+        DateField df=__dateField;
+        if (df==null || df._seconds!=seconds)
+        {
+            // Threads racing at the start of a second may each create a field, which is harmless.
+            HttpField field=new PreEncodedHttpField(HttpHeader.DATE,formatDate(now));
+            __dateField=new DateField(seconds,field);
+            return field;
+        }
+        return df._field;
+    }
     
     /**
      * Format HTTP date "EEE, dd MMM yyyy HH:mm:ss 'GMT'"
@@ -170,4 +193,16 @@ public class DateGenerator
         StringUtil.append2digits(buf, seconds);
         buf.append(" GMT");
     }
+
+    private static class DateField
+    {
+        final long _seconds;
+        final HttpField _field;
+
+        DateField(long seconds, HttpField field)
+        {
+            _seconds = seconds;
+            _field = field;
+        }
+    }
 }
@@ -26,6 +26,7 @@ import java.util.zip.ZipException;
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.component.Destroyable;
+import org.eclipse.jetty.util.compression.InflaterPool;
 
 /**
  * Decoder for the "gzip" encoding.
@@ -35,7 +36,8 @@ import org.eclipse.jetty.util.component.Destroyable;
  */
 public class GZIPContentDecoder implements Destroyable
 {
-    private final Inflater _inflater = new Inflater(true);
+    private final InflaterPool _inflaterPool;
+    private Inflater _inflater;
     private final ByteBufferPool _pool;
     private final int _bufferSize;
     private State _state;
@@ -56,6 +58,19 @@ public class GZIPContentDecoder implements Destroyable
     
     public GZIPContentDecoder(ByteBufferPool pool, int bufferSize)
     {
+        this(null,pool,bufferSize);
+    }
+
+    /**
+     * @param inflaterPool the pool to acquire the {@link Inflater} from, and to release it to
+     * when this decoder is {@link #destroy() destroyed}, or null to create a new one
+     * @param pool the pool of the inflated buffers, or null to allocate them
+     * @param bufferSize the size of the inflated buffers
+     */
+    public GZIPContentDecoder(InflaterPool inflaterPool, ByteBufferPool pool, int bufferSize)
+    {
+        _inflaterPool = inflaterPool;
+        _inflater = inflaterPool==null?new Inflater(true):inflaterPool.acquire();
         _bufferSize = bufferSize;
         _pool = pool;
         reset();
@@ -387,7 +402,15 @@ public class GZIPContentDecoder implements Destroyable
     @Override
     public void destroy()
     {
-        _inflater.end();
+        // Only release once, as a pooled inflater released twice would be shared.
+        Inflater inflater = _inflater;
+        _inflater = null;
+        if (inflater==null)
+            return;
+        if (_inflaterPool==null)
+            inflater.end();
+        else
+            _inflaterPool.release(inflater);
     }
 
     public boolean isFinished()
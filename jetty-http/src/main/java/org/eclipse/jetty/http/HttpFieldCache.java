@@ -0,0 +1,227 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.jetty.util.ArrayTernaryTrie;
+import org.eclipse.jetty.util.Trie;
+
+/**
+ * <p>A bounded cache of the {@link HttpField}s parsed from a connection, so that
+ * the fields that are repeated by the messages of a persistent connection are
+ * parsed without allocating new fields and strings.</p>
+ * <p>Fields are learned with {@link #put(HttpField)}; the {@link HttpParser} puts
+ * the common fields whose values are not known statically (eg. Host, Cookie,
+ * User-Agent) when they are first seen, and any other field when it is seen
+ * {@link #isRepeated(String, CharSequence) repeated} with the same value.</p>
+ * <p>When the cache is full, it is rebuilt with only the fields that were hit since
+ * the previous rebuild, so that, like the entries of a HPACK dynamic table, the
+ * fields that are no longer sent are evicted to make room for new ones.</p>
+ * <p>Field names are looked up case insensitively, but values must match exactly.</p>
+ * <p>This class is not thread safe.</p>
+ */
+public class HttpFieldCache
+{
+    // A power of 2, to index the candidates table with a mask.
+    private static final int MAX_CANDIDATES = 64;
+
+    private final int _capacity;
+    private final Set<HttpField> _hit = Collections.newSetFromMap(new IdentityHashMap<>());
+    // A direct mapped table of the names and value hashes of the candidate fields.
+    private final String[] _candidateNames = new String[MAX_CANDIDATES];
+    private final int[] _candidateHashes = new int[MAX_CANDIDATES];
+    private final List<HttpField> _fields = new ArrayList<>();
+    private ArrayTernaryTrie<HttpField> _trie;
+    private long _hits;
+    private long _misses;
+    private long _evictions;
+
+    /**
+     * @param capacity the capacity in characters of the cache
+     */
+    public HttpFieldCache(int capacity)
+    {
+        _capacity = capacity;
+        _trie = new ArrayTernaryTrie<>(capacity);
+    }
+
+    /**
+     * @return the trie of the cached fields
+     */
+    public Trie<HttpField> getTrie()
+    {
+        return _trie;
+    }
+
+    /**
+     * @return the number of cached fields
+     */
+    public int size()
+    {
+        return _fields.size();
+    }
+
+    /**
+     * @return the number of lookups that found a cached field
+     */
+    public long getHits()
+    {
+        return _hits;
+    }
+
+    /**
+     * @return the number of lookups that did not find a cached field
+     */
+    public long getMisses()
+    {
+        return _misses;
+    }
+
+    /**
+     * @return the number of fields evicted from the cache
+     */
+    public long getEvictions()
+    {
+        return _evictions;
+    }
+
+    /**
+     * <p>Looks up the cached field with the longest {@code name: value} string
+     * that is a prefix of the given bytes.</p>
+     *
+     * @param buffer the buffer with the field bytes
+     * @param offset the offset of the field from the buffer position
+     * @param length the maximum number of bytes to look up
+     * @return the cached field or null if no cached field matches
+     * @see Trie#getBest(ByteBuffer, int, int)
+     */
+    public HttpField getBest(ByteBuffer buffer, int offset, int length)
+    {
+        HttpField field = _trie.getBest(buffer, offset, length);
+        if (field != null && isValue(buffer, buffer.position() + offset, field))
+        {
+            ++_hits;
+            _hit.add(field);
+            return field;
+        }
+        ++_misses;
+        return null;
+    }
+
+    private boolean isValue(ByteBuffer buffer, int index, HttpField field)
+    {
+        // The trie is case insensitive, but values are not.
+        String value = field.getValue();
+        if (value == null)
+            return true;
+        int start = index + field.getName().length() + 2;
+        for (int i = 0; i < value.length(); ++i)
+        {
+            if (buffer.get(start + i) != (byte)value.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * <p>Returns whether the given field was seen with the same value by the
+     * previous call to this method for the same name.</p>
+     * <p>Only the hash of the previous value is kept, so that values need not
+     * be strings; a collision just caches a field that may not be repeated.
+     * A bounded number of names is tracked, so a name may be forgotten when
+     * another name takes its place.</p>
+     *
+     * @param name the field name
+     * @param value the field value
+     * @return whether the field is repeated, and so is worth caching
+     */
+    public boolean isRepeated(String name, CharSequence value)
+    {
+        if (value == null || value.length() == 0 || name.length() + value.length() > _capacity / 4)
+            return false;
+        int hash = hash(value);
+        int h = name.hashCode();
+        int index = (h ^ (h >>> 16)) & (MAX_CANDIDATES - 1);
+        if (_candidateHashes[index] == hash && name.equals(_candidateNames[index]))
+            return true;
+        _candidateNames[index] = name;
+        _candidateHashes[index] = hash;
+        return false;
+    }
+
+    private static int hash(CharSequence value)
+    {
+        if (value instanceof String)
+            return value.hashCode();
+        // Same as String.hashCode().
+        int hash = 0;
+        for (int i = 0; i < value.length(); ++i)
+            hash = 31 * hash + value.charAt(i);
+        return hash;
+    }
+
+    /**
+     * <p>Caches the given field, evicting the fields that were not hit
+     * since the previous eviction if the cache is full.</p>
+     *
+     * @param field the field to cache
+     * @return whether the field was cached
+     */
+    public boolean put(HttpField field)
+    {
+        if (_trie.put(field))
+        {
+            _fields.add(field);
+            return true;
+        }
+
+        evict();
+        if (_trie.put(field))
+        {
+            _fields.add(field);
+            return true;
+        }
+        return false;
+    }
+
+    private void evict()
+    {
+        ArrayTernaryTrie<HttpField> trie = new ArrayTernaryTrie<>(_capacity);
+        int size = _fields.size();
+        _fields.removeIf(field -> !_hit.contains(field) || !trie.put(field));
+        _evictions += size - _fields.size();
+        _trie = trie;
+        _hit.clear();
+        Arrays.fill(_candidateNames, null);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{size=%d,hits=%d,misses=%d,evictions=%d}",
+                getClass().getSimpleName(), hashCode(), size(), _hits, _misses, _evictions);
+    }
+}
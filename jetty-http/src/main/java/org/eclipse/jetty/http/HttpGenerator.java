@@ -658,6 +658,19 @@ public class HttpGenerator
             for (int f=0;f<n;f++)
             {
                 HttpField field = fields.getField(f);
+
+                // A set of pre-encoded fields still complete and in order is put with a single copy
+                if (field instanceof PreEncodedHttpFieldSet.Field)
+                {
+                    PreEncodedHttpFieldSet set = ((PreEncodedHttpFieldSet.Field)field).getSet();
+                    if (set.isAt(fields,f))
+                    {
+                        set.putTo(header);
+                        f+=set.size()-1;
+                        continue;
+                    }
+                }
+
                 HttpHeader h = field.getHeader();
                 if (h==null)
                     putTo(field,header);
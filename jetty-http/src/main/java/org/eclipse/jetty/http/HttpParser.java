@@ -20,12 +20,13 @@ package org.eclipse.jetty.http;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Locale;
 
 import org.eclipse.jetty.http.HttpTokens.EndOfContent;
-import org.eclipse.jetty.util.ArrayTernaryTrie;
 import org.eclipse.jetty.util.ArrayTrie;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.StringUtil;
@@ -74,8 +75,8 @@ import static org.eclipse.jetty.http.HttpTokens.TAB;
  * is used to lookup common combinations of headers and values
  * (eg. "Connection: close"), or just header names (eg. "Connection:" ).
  * For headers who's value is not known statically (eg. Host, COOKIE) then a
- * per parser dynamic Trie of {@link HttpFields} from previous parsed messages
- * is used to help the parsing of subsequent messages.
+ * per parser {@link HttpFieldCache} of {@link HttpField}s from previous parsed
+ * messages is used to help the parsing of subsequent messages.
  * </p>
  * <p>
  * The parser can work in varying compliance modes:
@@ -180,7 +181,13 @@ public class HttpParser
     private boolean _headResponse;
     private boolean _cr;
     private ByteBuffer _contentChunk;
-    private Trie<HttpField> _connectionFields;
+    private HttpFieldCache _fieldCache;
+    private boolean _fieldCacheable=true;
+    private boolean _lazyFieldValues;
+    private boolean _lazyValue;
+    private ByteBuffer _valueBuffer;
+    private int _valueOffset=-1;
+    private final List<LazyHttpField> _lazyFields=new ArrayList<>();
 
     private int _length;
     private final StringBuilder _string=new StringBuilder();
@@ -842,10 +849,10 @@ public class HttpParser
                             throw new BadMessageException(HttpStatus.BAD_REQUEST_400,"Unknown Version");
 
                         // Should we try to cache header fields?
-                        if (_connectionFields==null && _version.getVersion()>=HttpVersion.HTTP_1_1.getVersion() && _handler.getHeaderCacheSize()>0)
+                        if (_fieldCache==null && _version.getVersion()>=HttpVersion.HTTP_1_1.getVersion() && _handler.getHeaderCacheSize()>0)
                         {
                             int header_cache = _handler.getHeaderCacheSize();
-                            _connectionFields=new ArrayTernaryTrie<>(header_cache);
+                            _fieldCache=new HttpFieldCache(header_cache);
                         }
 
                         setState(State.HEADER);
@@ -888,6 +895,14 @@ public class HttpParser
 
     private void parsedHeader()
     {
+        if (_lazyValue)
+        {
+            _lazyValue=false;
+            if (parsedLazyHeader())
+                return;
+            _valueString=takeString();
+        }
+
         // handler last header if any.  Delayed to here just in case there was a continuation line (above)
         if (_headerString!=null || _valueString!=null)
         {
@@ -932,14 +947,14 @@ public class HttpParser
                         if (!(_field instanceof HostPortHttpField) && _valueString!=null && !_valueString.isEmpty())
                         {
                             _field=new HostPortHttpField(_header,legacyString(_headerString,_header.asString()),_valueString);
-                            add_to_connection_trie=_connectionFields!=null;
+                            add_to_connection_trie=_fieldCache!=null;
                         }
                       break;
 
                     case CONNECTION:
-                        // Don't cache if not persistent
+                        // Don't cache if not persistent, but keep the cache statistics
                         if (_valueString!=null && _valueString.contains("close"))
-                            _connectionFields=null;
+                            _fieldCacheable=false;
 
                         break;
 
@@ -951,20 +966,29 @@ public class HttpParser
                     case COOKIE:
                     case CACHE_CONTROL:
                     case USER_AGENT:
-                        add_to_connection_trie=_connectionFields!=null && _field==null;
+                        add_to_connection_trie=_fieldCache!=null && _field==null;
                         break;
 
                     default: break;
 
                 }
 
-                if (add_to_connection_trie && !_connectionFields.isFull() && _header!=null && _valueString!=null)
+                // Other fields are cached when repeated with the same value
+                if (!add_to_connection_trie && _fieldCache!=null && _field==null)
+                    add_to_connection_trie=_fieldCache.isRepeated(_header.asString(),_valueString);
+
+                if (add_to_connection_trie && _fieldCacheable && _header!=null && _valueString!=null)
                 {
                     if (_field==null)
                         _field=new HttpField(_header,legacyString(_headerString,_header.asString()),_valueString);
-                    _connectionFields.put(_field);
+                    _fieldCache.put(_field);
                 }
             }
+            else if (_fieldCache!=null && _fieldCacheable && _field==null && _headerString!=null && _fieldCache.isRepeated(_headerString,_valueString))
+            {
+                _field=new HttpField(null,_headerString,_valueString);
+                _fieldCache.put(_field);
+            }
             _handler.parsedHeader(_field!=null?_field:new HttpField(_header,_headerString,_valueString));
         }
 
@@ -972,6 +996,75 @@ public class HttpParser
         _header=null;
         _value=null;
         _field=null;
+        _valueBuffer=null;
+        _valueOffset=-1;
+    }
+
+    /* ------------------------------------------------------------------------------- */
+    /*
+     * Passes a field with a value that is still in the buffer as a LazyHttpField, unless
+     * the value is interpreted by the parser or worth caching. The value is in _string.
+     */
+    private boolean parsedLazyHeader()
+    {
+        if (_header!=null)
+        {
+            switch (_header)
+            {
+                case CONTENT_LENGTH:
+                case TRANSFER_ENCODING:
+                case HOST:
+                case CONNECTION:
+                case EXPECT:
+                    return false;
+
+                case AUTHORIZATION:
+                case ACCEPT:
+                case ACCEPT_CHARSET:
+                case ACCEPT_ENCODING:
+                case ACCEPT_LANGUAGE:
+                case COOKIE:
+                case CACHE_CONTROL:
+                case USER_AGENT:
+                    if (_fieldCache!=null && _fieldCacheable)
+                        return false;
+                    break;
+
+                default:
+                    break;
+            }
+        }
+
+        if (_fieldCache!=null && _fieldCacheable)
+        {
+            _string.setLength(_length);
+            if (_fieldCache.isRepeated(_header==null?_headerString:_header.asString(),_string))
+                return false;
+        }
+
+        LazyHttpField field=new LazyHttpField(_header,_headerString,_valueBuffer,_valueOffset,_length);
+        _lazyFields.add(field);
+        _string.setLength(0);
+        _length=-1;
+        _handler.parsedHeader(field);
+
+        _headerString=null;
+        _header=null;
+        _value=null;
+        _field=null;
+        _valueBuffer=null;
+        _valueOffset=-1;
+        return true;
+    }
+
+    /* ------------------------------------------------------------------------------- */
+    private void takeLazyValue()
+    {
+        if (_lazyValue)
+        {
+            _lazyValue=false;
+            _valueString=takeString();
+        }
     }
 
     private void parsedTrailer()
@@ -1033,6 +1126,7 @@ public class HttpParser
                         {
                             if (complianceViolation(RFC7230,"header folding"))
                                 throw new BadMessageException(HttpStatus.BAD_REQUEST_400,"Header Folding");
+                            takeLazyValue();
 
                             // header value without name - continuation?
                             if (_valueString==null)
@@ -1141,7 +1235,7 @@ public class HttpParser
                             if (buffer.hasRemaining())
                             {
                                 // Try a look ahead for the known header name and value.
-                                HttpField field=_connectionFields==null?null:_connectionFields.getBest(buffer,-1,buffer.remaining());
+                                HttpField field=_fieldCache==null||!_fieldCacheable?null:_fieldCache.getBest(buffer,-1,buffer.remaining());
                                 if (field==null)
                                     field=CACHE.getBest(buffer,-1,buffer.remaining());
 
@@ -1274,6 +1368,14 @@ public class HttpParser
                 case VALUE:
                     if (b>HttpTokens.SPACE || b<0)
                     {
+                        // A value not continuing a previous line may be left in the buffer
+                        if (_lazyFieldValues && _state==State.HEADER && _string.length()==0)
+                        {
+                            _valueBuffer=buffer;
+                            _valueOffset=buffer.position()-1;
+                        }
+                        else
+                            _valueOffset=-1;
                         _string.append((char)(0xff&b));
                         _length=_string.length();
                         setState(FieldState.IN_VALUE);
@@ -1315,8 +1417,10 @@ public class HttpParser
                         if (_length > 0)
                         {
                             _value=null;
-                            _valueString=takeString();
-                            _length=-1;
+                            if (_valueOffset>=0)
+                                _lazyValue=true;
+                            else
+                                _valueString=takeString();
                         }
                         setState(FieldState.FIELD);
                         break;
@@ -1330,6 +1434,10 @@ public class HttpParser
             }
         }
 
+        // The buffer may be reused before the fields are complete
+        if (_state==State.HEADER)
+            detachFields();
+
         return false;
     }
 
@@ -1343,6 +1451,11 @@ public class HttpParser
     {
         if (DEBUG)
             LOG.debug("parseNext s={} {}",_state,BufferUtil.toDetailString(buffer));
+
+        // Bytes left in a buffer by a previous call may have moved since
+        takeLazyValue();
+        _valueOffset=-1;
+
         try
         {
             // Start a request/response
@@ -1471,6 +1584,7 @@ public class HttpParser
     {
         if (DEBUG)
             LOG.debug("Parse exception: " + this + " for " + _handler, x);
+        detachFields();
         setState(State.CLOSE);
         if (_headerComplete)
             _handler.earlyEOF();
@@ -1697,10 +1811,105 @@ public class HttpParser
         _fieldState=state;
     }
 
+    /* ------------------------------------------------------------------------------- */
+    /**
+     * @return whether the values of the fields that are not interpreted nor cached by the parser
+     * are decoded lazily from the parsed buffers
+     * @see #setLazyFieldValues(boolean)
+     */
+    public boolean isLazyFieldValues()
+    {
+        return _lazyFieldValues;
+    }
+
+    /* ------------------------------------------------------------------------------- */
+    /**
+     * <p>Sets whether the values of the fields that are not interpreted nor cached by the parser
+     * are passed to the handler as {@link LazyHttpField}s, which refer to the bytes of the parsed
+     * buffer rather than to a string.</p>
+     * <p>The bytes of a buffer passed to {@link #parseNext(ByteBuffer)} must then not be modified
+     * while {@link #hasLazyFields()} is true, unless {@link #detachFields()} is called first.
+     * Fields are always detached when {@link #parseNext(ByteBuffer)} returns before the fields of
+     * a message are complete, so only the buffer in which the fields were completed is referenced.</p>
+     *
+     * @param lazyFieldValues whether field values are decoded lazily
+     */
+    public void setLazyFieldValues(boolean lazyFieldValues)
+    {
+        _lazyFieldValues=lazyFieldValues;
+    }
+
+    /* ------------------------------------------------------------------------------- */
+    /**
+     * @return whether fields have been passed to the handler with values that may refer to a parsed buffer
+     * @see #detachFields()
+     */
+    public boolean hasLazyFields()
+    {
+        return !_lazyFields.isEmpty();
+    }
+
+    /* ------------------------------------------------------------------------------- */
+    /**
+     * <p>Detaches the {@link LazyHttpField}s passed to the handler from the parsed buffers, so that
+     * the buffers can be modified or released.</p>
+     * <p>The bytes of the values that have not been decoded yet are copied to a single array per
+     * buffer, so that fields that are never accessed are still not decoded.</p>
+     */
+    public void detachFields()
+    {
+        int size=_lazyFields.size();
+        int i=0;
+        while (i<size)
+        {
+            LazyHttpField first=_lazyFields.get(i);
+            ByteBuffer buffer=first.getBuffer();
+            int start=first.getOffset();
+            int end=start+first.getLength();
+            int next=i+1;
+            if (buffer!=null)
+            {
+                // The fields of the same buffer are consecutive, in buffer order.
+                while (next<size)
+                {
+                    LazyHttpField field=_lazyFields.get(next);
+                    if (field.getBuffer()!=buffer)
+                        break;
+                    end=field.getOffset()+field.getLength();
+                    ++next;
+                }
+
+                ByteBuffer slice=buffer.duplicate();
+                slice.limit(slice.capacity());
+                slice.position(start);
+                slice.limit(end);
+                ByteBuffer copy=ByteBuffer.allocate(end-start);
+                copy.put(slice).flip();
+
+                for (int f=i;f<next;f++)
+                {
+                    LazyHttpField field=_lazyFields.get(f);
+                    field.relocate(copy,field.getOffset()-start);
+                }
+            }
+            i=next;
+        }
+        _lazyFields.clear();
+    }
+
     /* ------------------------------------------------------------------------------- */
     public Trie<HttpField> getFieldCache()
     {
-        return _connectionFields;
+        return _fieldCache==null?null:_fieldCache.getTrie();
+    }
+
+    /* ------------------------------------------------------------------------------- */
+    /**
+     * @return the cache of the fields parsed from the connection, or null if fields are not cached
+     */
+    public HttpFieldCache getHttpFieldCache()
+    {
+        return _fieldCache;
     }
 
     /* ------------------------------------------------------------------------------- */
@@ -0,0 +1,115 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jetty.util.BufferUtil;
+
+/**
+ * <p>A {@link HttpField} with a value that is decoded from the bytes of the
+ * buffer it was parsed from only when it is first accessed.</p>
+ * <p>The bytes of the value must not be modified until the value is decoded,
+ * or until the field is detached from the buffer by {@link HttpParser#detachFields()},
+ * which moves the bytes of the values not yet decoded to a buffer of their own.</p>
+ */
+public class LazyHttpField extends HttpField
+{
+    private ByteBuffer _buffer;
+    private int _offset;
+    private final int _length;
+    private volatile String _value;
+
+    /**
+     * @param header the field header, or null
+     * @param name the field name
+     * @param buffer the buffer holding the value bytes
+     * @param offset the index of the value bytes in the buffer
+     * @param length the number of value bytes
+     */
+    public LazyHttpField(HttpHeader header, String name, ByteBuffer buffer, int offset, int length)
+    {
+        super(header,name,null);
+        _buffer=buffer;
+        _offset=offset;
+        _length=length;
+    }
+
+    @Override
+    public String getValue()
+    {
+        String value=_value;
+        if (value==null)
+        {
+            synchronized (this)
+            {
+                value=_value;
+                if (value==null)
+                {
+                    value=BufferUtil.toString(_buffer,_offset,_length,StandardCharsets.ISO_8859_1);
+                    _value=value;
+                    _buffer=null;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return whether the value has been decoded from the buffer
+     */
+    public boolean isDecoded()
+    {
+        return _value!=null;
+    }
+
+    /**
+     * @return the buffer holding the value bytes, or null if the value has been decoded
+     */
+    synchronized ByteBuffer getBuffer()
+    {
+        return _buffer;
+    }
+
+    synchronized int getOffset()
+    {
+        return _offset;
+    }
+
+    int getLength()
+    {
+        return _length;
+    }
+
+    /**
+     * <p>Moves the value to the given buffer, unless it has already been decoded.</p>
+     *
+     * @param buffer the buffer with a copy of the value bytes
+     * @param offset the index of the value bytes in the given buffer
+     */
+    synchronized void relocate(ByteBuffer buffer, int offset)
+    {
+        if (_value==null)
+        {
+            _buffer=buffer;
+            _offset=offset;
+        }
+    }
+}
@@ -101,7 +101,7 @@ public class PreEncodedHttpField extends HttpField
     {
         super(header,name, value);
         for (int i=0;i<__encoders.length;i++)
-            _encodedField[i]=__encoders[i].getEncodedField(header,header.asString(),value);
+            _encodedField[i]=__encoders[i].getEncodedField(header,header==null?name:header.asString(),value);
     }
     
     public PreEncodedHttpField(HttpHeader header,String value)
@@ -118,4 +118,9 @@ public class PreEncodedHttpField extends HttpField
     {
         bufferInFillMode.put(_encodedField[index(version)]);
     }
+
+    byte[] getEncodedField(HttpVersion version)
+    {
+        return _encodedField[index(version)];
+    }
 }
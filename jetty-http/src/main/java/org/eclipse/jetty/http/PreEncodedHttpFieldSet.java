@@ -0,0 +1,154 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>An immutable template of {@link PreEncodedHttpField}s that are added together to
+ * many messages, for example the constant response headers of a context.</p>
+ * <p>The fields are {@link #addTo(HttpFields) added} to the {@link HttpFields} of a message
+ * like any other field, so they can be read, replaced or removed. When they are still
+ * all present and in order, the {@link HttpGenerator} puts them with a single copy of
+ * their concatenated HTTP/1 encoding rather than field by field.</p>
+ * <p>The fields that the generator interprets to frame the message (Content-Length,
+ * Content-Type, Transfer-Encoding, Connection and Server) cannot be part of a set,
+ * nor can the Date field, which must not be frozen in a template.</p>
+ */
+public class PreEncodedHttpFieldSet
+{
+    private final Field[] _fields;
+    private final byte[] _http1;
+
+    public PreEncodedHttpFieldSet(HttpField... fields)
+    {
+        _fields=new Field[fields.length];
+        int length=0;
+        for (int i=0;i<fields.length;i++)
+        {
+            HttpField field=fields[i];
+            HttpHeader header=field.getHeader();
+            if (header!=null)
+            {
+                switch (header)
+                {
+                    case CONTENT_LENGTH:
+                    case CONTENT_TYPE:
+                    case TRANSFER_ENCODING:
+                    case CONNECTION:
+                    case SERVER:
+                    case DATE:
+                        throw new IllegalArgumentException("Cannot pre-encode "+header);
+                    default:
+                        break;
+                }
+            }
+            _fields[i]=new Field(this,header,field.getName(),field.getValue());
+            length+=_fields[i].getEncodedField(HttpVersion.HTTP_1_1).length;
+        }
+
+        _http1=new byte[length];
+        int offset=0;
+        for (Field field : _fields)
+        {
+            byte[] encoded=field.getEncodedField(HttpVersion.HTTP_1_1);
+            System.arraycopy(encoded,0,_http1,offset,encoded.length);
+            offset+=encoded.length;
+        }
+    }
+
+    public PreEncodedHttpFieldSet(HttpFields fields)
+    {
+        this(fields.stream().toArray(HttpField[]::new));
+    }
+
+    public int size()
+    {
+        return _fields.length;
+    }
+
+    /**
+     * @return the pre-encoded fields of this set
+     */
+    public List<HttpField> getFields()
+    {
+        return Collections.unmodifiableList(Arrays.asList(_fields));
+    }
+
+    /**
+     * <p>Adds the fields of this set, in order, to the given fields.</p>
+     *
+     * @param fields the fields of a message
+     */
+    public void addTo(HttpFields fields)
+    {
+        for (Field field : _fields)
+            fields.add(field);
+    }
+
+    /**
+     * @param fields the fields of a message
+     * @param index the index of a field of this set in the given fields
+     * @return whether all the fields of this set are at the given index, in order
+     */
+    boolean isAt(HttpFields fields, int index)
+    {
+        if (index+_fields.length>fields.size())
+            return false;
+        for (int i=0;i<_fields.length;i++)
+        {
+            if (fields.getField(index+i)!=_fields[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param bufferInFillMode the buffer to put the HTTP/1 encoding of all the fields of this set to
+     */
+    public void putTo(ByteBuffer bufferInFillMode)
+    {
+        bufferInFillMode.put(_http1);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x%s",getClass().getSimpleName(),hashCode(),Arrays.asList(_fields));
+    }
+
+    static class Field extends PreEncodedHttpField
+    {
+        private final PreEncodedHttpFieldSet _set;
+
+        private Field(PreEncodedHttpFieldSet set, HttpHeader header, String name, String value)
+        {
+            super(header,name,value);
+            _set=set;
+        }
+
+        PreEncodedHttpFieldSet getSet()
+        {
+            return _set;
+        }
+    }
+}
@@ -40,6 +40,10 @@ import org.eclipse.jetty.util.log.Logger;
  * Path Mappings of PathSpec to Resource.
  * <p>
  * Sorted into search order upon entry into the Set
+ * <p>
+ * {@link UriTemplatePathSpec}s are indexed by a trie of their segments, so that
+ * {@link #getMatch(String)} only evaluates the regular expressions of the other
+ * {@link RegexPathSpec}s.
  * 
  * @param <E> the type of mapping endpoint
  */
@@ -48,6 +52,8 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
 {
     private static final Logger LOG = Log.getLogger(PathMappings.class);
     private final Set<MappedResource<E>> _mappings = new TreeSet<>();
+    private final Set<MappedResource<E>> _unindexed = new TreeSet<>();
+    private final UriTemplateIndex<E> _templates = new UriTemplateIndex<>();
     
     private Trie<MappedResource<E>> _exactMap=new ArrayTernaryTrie<>(false);
     private Trie<MappedResource<E>> _prefixMap=new ArrayTernaryTrie<>(false);
@@ -80,13 +86,22 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
     public void reset()
     {
         _mappings.clear();
+        _unindexed.clear();
+        _templates.clear();
         _prefixMap.clear();
         _suffixMap.clear();
     }
     
     public void removeIf(Predicate<MappedResource<E>> predicate)
     {
-        _mappings.removeIf(predicate);
+        _mappings.removeIf(mr ->
+        {
+            if (!predicate.test(mr))
+                return false;
+            if (!_templates.remove(mr))
+                _unindexed.remove(mr);
+            return true;
+        });
     }
     
     /**
@@ -125,10 +140,16 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
     {
         PathSpecGroup last_group=null;
         
-        // Search all the mappings
-        for (MappedResource<E> mr : _mappings)
+        // The best indexed match, returned when the search reaches its position
+        final MappedResource<E> template=_templates.getMatch(path);
+        
+        // Search the mappings that are not indexed
+        for (MappedResource<E> mr : _unindexed)
         {
             PathSpecGroup group=mr.getPathSpec().getGroup();
+            if (template!=null && template.getPathSpec().getGroup().ordinal()<group.ordinal())
+                return template;
+            
             if (group!=last_group)
             {
                 // New group in list, so let's look for an optimization
@@ -183,13 +204,16 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
                 }
             }
             
+            if (template!=null && template.compareTo(mr)<0)
+                return template;
+            
             if (mr.getPathSpec().matches(path))
                 return mr;
             
             last_group=group;
         }
         
-        return null;
+        return template;
     }
 
     @Override
@@ -248,6 +272,8 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
         }
         
         boolean added =_mappings.add(entry);
+        if (added && !_templates.add(entry))
+            _unindexed.add(entry);
         if (LOG.isDebugEnabled())
             LOG.debug("{} {} to {}",added?"Added":"Ignored",entry,this);
         return added;
@@ -259,13 +285,16 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
         switch (pathSpec.group)
         {
             case EXACT:
-                _exactMap.remove(pathSpec.getPrefix());
+                if (pathSpec.getPrefix()!=null)
+                    _exactMap.remove(pathSpec.getPrefix());
                 break;
             case PREFIX_GLOB:
-                _prefixMap.remove(pathSpec.getPrefix());
+                if (pathSpec.getPrefix()!=null)
+                    _prefixMap.remove(pathSpec.getPrefix());
                 break;
             case SUFFIX_GLOB:
-                _suffixMap.remove(pathSpec.getSuffix());
+                if (pathSpec.getSuffix()!=null)
+                    _suffixMap.remove(pathSpec.getSuffix());
                 break;
         }
         
@@ -273,10 +302,13 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
         boolean removed=false;
         while (iter.hasNext())
         {
-            if (iter.next().getPathSpec().equals(pathSpec))
+            MappedResource<E> mr = iter.next();
+            if (mr.getPathSpec().equals(pathSpec))
             {
                 removed=true;
                 iter.remove();
+                if (!_templates.remove(mr))
+                    _unindexed.remove(mr);
                 break;
             }
         }
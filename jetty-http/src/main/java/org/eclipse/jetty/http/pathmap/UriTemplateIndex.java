@@ -0,0 +1,243 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http.pathmap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * A trie of the segments of {@link UriTemplatePathSpec}s.
+ * <p>
+ * Each literal segment of a template is a child keyed by the segment, and each
+ * variable segment is the single variable child of its parent node, so that the
+ * best match for a path is found by walking its segments, rather than by matching
+ * the regular expression of every template.
+ * <p>
+ * Only the templates whose regular expression is equivalent to the trie are indexed,
+ * see {@link #add(MappedResource)}; the others must be matched by {@link PathSpec#matches(String)}.
+ *
+ * @param <E> the type of mapping endpoint
+ */
+class UriTemplateIndex<E>
+{
+    /** Characters that are not escaped in the literal segments of the template regular expression */
+    private static final String REGEX_SYMBOLS = "^$|?+()";
+
+    private final Node<E> _root = new Node<>();
+    private int _size;
+
+    public int size()
+    {
+        return _size;
+    }
+
+    public void clear()
+    {
+        _root.clear();
+        _size = 0;
+    }
+
+    /**
+     * @param resource the mapped resource to index
+     * @return true if the resource is indexed, false if its path spec cannot be indexed
+     */
+    public boolean add(MappedResource<E> resource)
+    {
+        Node<E> node = find(resource.getPathSpec(), true);
+        if (node == null)
+            return false;
+        if (node.add(resource, isTrailingSlash(resource.getPathSpec())))
+            ++_size;
+        return true;
+    }
+
+    /**
+     * @param resource the mapped resource to remove
+     * @return true if the resource was indexed
+     */
+    public boolean remove(MappedResource<E> resource)
+    {
+        Node<E> node = find(resource.getPathSpec(), false);
+        if (node == null || !node.remove(resource, isTrailingSlash(resource.getPathSpec())))
+            return false;
+        --_size;
+        return true;
+    }
+
+    /**
+     * @param path the path to match, which may have a query
+     * @return the indexed resource with the first path spec, in {@link PathSpec} order, that
+     * matches the path, or null if no indexed path spec matches
+     */
+    public MappedResource<E> getMatch(String path)
+    {
+        if (_size == 0)
+            return null;
+
+        // Like RegexPathSpec.matches(), ignore the query.
+        int end = path.indexOf('?');
+        if (end < 0)
+            end = path.length();
+        if (end == 0 || path.charAt(0) != '/')
+            return null;
+
+        boolean slash = end > 1 && path.charAt(end - 1) == '/';
+        if (slash)
+            --end;
+        if (end == 1)
+            return _root.getEnd(slash);
+        return match(_root, path, 1, end, slash, null);
+    }
+
+    private MappedResource<E> match(Node<E> node, String path, int start, int end, boolean slash, MappedResource<E> best)
+    {
+        if (start > end)
+            return best(best, node.getEnd(slash));
+
+        int next = path.indexOf('/', start);
+        if (next < 0 || next > end)
+            next = end;
+        // Neither literals nor variables match empty segments.
+        if (next == start)
+            return best;
+
+        if (node._literals != null)
+        {
+            Node<E> literal = node._literals.get(path.substring(start, next));
+            if (literal != null)
+                best = match(literal, path, next + 1, end, slash, best);
+        }
+        if (node._variable != null)
+            best = match(node._variable, path, next + 1, end, slash, best);
+        return best;
+    }
+
+    private static <E> MappedResource<E> best(MappedResource<E> best, MappedResource<E> candidate)
+    {
+        if (best == null)
+            return candidate;
+        if (candidate == null)
+            return best;
+        return candidate.compareTo(best) < 0 ? candidate : best;
+    }
+
+    private Node<E> find(PathSpec pathSpec, boolean create)
+    {
+        // Subclasses may match differently.
+        if (pathSpec.getClass() != UriTemplatePathSpec.class)
+            return null;
+
+        String declaration = pathSpec.getDeclaration();
+        int end = declaration.length();
+        if (isTrailingSlash(pathSpec))
+            --end;
+
+        // Check all the segments before creating any node.
+        String[] segments = end <= 1 ? new String[0] : declaration.substring(1, end).split("/");
+        for (String segment : segments)
+        {
+            if (!isVariable(segment))
+            {
+                for (int i = 0; i < REGEX_SYMBOLS.length(); ++i)
+                {
+                    if (segment.indexOf(REGEX_SYMBOLS.charAt(i)) >= 0)
+                        return null;
+                }
+            }
+        }
+
+        Node<E> node = _root;
+        for (String segment : segments)
+        {
+            Node<E> child = isVariable(segment) ? node._variable : node._literals == null ? null : node._literals.get(segment);
+            if (child == null)
+            {
+                if (!create)
+                    return null;
+                child = new Node<>();
+                if (isVariable(segment))
+                {
+                    node._variable = child;
+                }
+                else
+                {
+                    if (node._literals == null)
+                        node._literals = new HashMap<>();
+                    node._literals.put(segment, child);
+                }
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    private static boolean isTrailingSlash(PathSpec pathSpec)
+    {
+        String declaration = pathSpec.getDeclaration();
+        return declaration.length() > 1 && declaration.charAt(declaration.length() - 1) == '/';
+    }
+
+    private static boolean isVariable(String segment)
+    {
+        // The UriTemplatePathSpec constructor has already validated the variables.
+        return segment.length() > 1 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}';
+    }
+
+    private static class Node<E>
+    {
+        private Map<String, Node<E>> _literals;
+        private Node<E> _variable;
+        private TreeSet<MappedResource<E>> _end;
+        private TreeSet<MappedResource<E>> _endSlash;
+
+        private MappedResource<E> getEnd(boolean slash)
+        {
+            TreeSet<MappedResource<E>> resources = slash ? _endSlash : _end;
+            return resources == null || resources.isEmpty() ? null : resources.first();
+        }
+
+        private boolean add(MappedResource<E> resource, boolean slash)
+        {
+            if (slash)
+            {
+                if (_endSlash == null)
+                    _endSlash = new TreeSet<>();
+                return _endSlash.add(resource);
+            }
+            if (_end == null)
+                _end = new TreeSet<>();
+            return _end.add(resource);
+        }
+
+        private boolean remove(MappedResource<E> resource, boolean slash)
+        {
+            TreeSet<MappedResource<E>> resources = slash ? _endSlash : _end;
+            return resources != null && resources.remove(resource);
+        }
+
+        private void clear()
+        {
+            _literals = null;
+            _variable = null;
+            _end = null;
+            _endSlash = null;
+        }
+    }
+}
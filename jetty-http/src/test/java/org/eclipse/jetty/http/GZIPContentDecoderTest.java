@@ -32,6 +32,7 @@ import java.util.zip.GZIPOutputStream;
 
 import org.eclipse.jetty.io.ArrayByteBufferPool;
 import org.eclipse.jetty.toolchain.test.TestTracker;
+import org.eclipse.jetty.util.compression.InflaterPool;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -349,4 +350,22 @@ public class GZIPContentDecoderTest
         assertTrue(buffer.hasRemaining());
         assertEquals(data2, StandardCharsets.UTF_8.decode(buffer).toString());
     }
+
+    @Test
+    public void testDestroyTwiceReleasesInflaterOnce() throws Exception
+    {
+        InflaterPool inflaterPool = new InflaterPool(4, true);
+        inflaterPool.start();
+        try
+        {
+            GZIPContentDecoder decoder = new GZIPContentDecoder(inflaterPool, pool, 64);
+            decoder.destroy();
+            decoder.destroy();
+            assertEquals(1, inflaterPool.getPooledCount());
+        }
+        finally
+        {
+            inflaterPool.stop();
+        }
+    }
 }
@@ -0,0 +1,82 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.nio.ByteBuffer;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HttpFieldCacheTest
+{
+    private HttpField lookup(HttpFieldCache cache, String field)
+    {
+        ByteBuffer buffer = BufferUtil.toBuffer(field + "\r\n");
+        return cache.getBest(buffer, 0, buffer.remaining());
+    }
+
+    @Test
+    public void testRepeated() throws Exception
+    {
+        HttpFieldCache cache = new HttpFieldCache(512);
+        Assert.assertFalse(cache.isRepeated("X-Custom", "one"));
+        Assert.assertFalse(cache.isRepeated("X-Custom", "two"));
+        Assert.assertTrue(cache.isRepeated("X-Custom", "two"));
+        Assert.assertFalse(cache.isRepeated("X-Other", ""));
+        Assert.assertFalse(cache.isRepeated("X-Other", ""));
+    }
+
+    @Test
+    public void testLookup() throws Exception
+    {
+        HttpFieldCache cache = new HttpFieldCache(512);
+        HttpField field = new HttpField("X-Custom", "Value");
+        Assert.assertTrue(cache.put(field));
+
+        Assert.assertSame(field, lookup(cache, "X-Custom: Value"));
+        Assert.assertSame(field, lookup(cache, "x-custom: Value"));
+        Assert.assertNull(lookup(cache, "X-Custom: value"));
+        Assert.assertNull(lookup(cache, "X-Other: Value"));
+
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testEvictsFieldsNotHit() throws Exception
+    {
+        HttpFieldCache cache = new HttpFieldCache(64);
+        HttpField hit = new HttpField("X-Hit", "0123456789");
+        HttpField idle = new HttpField("X-Idle", "0123456789");
+        Assert.assertTrue(cache.put(hit));
+        Assert.assertTrue(cache.put(idle));
+        Assert.assertSame(hit, lookup(cache, "X-Hit: 0123456789"));
+
+        // Does not fit until the idle field is evicted.
+        HttpField field = new HttpField("X-New", "abcdefghijklmnopqrstuvwxyz");
+        Assert.assertTrue(cache.put(field));
+
+        Assert.assertEquals(1, cache.getEvictions());
+        Assert.assertEquals(2, cache.size());
+        Assert.assertSame(hit, lookup(cache, "X-Hit: 0123456789"));
+        Assert.assertSame(field, lookup(cache, "X-New: abcdefghijklmnopqrstuvwxyz"));
+        Assert.assertNull(lookup(cache, "X-Idle: 0123456789"));
+    }
+}
@@ -293,6 +293,51 @@ public class HttpGeneratorServerTest
         assertThat(head, containsString("Content-Length: 0"));
     }
 
+    @Test
+    public void testResponsePreEncodedFieldSet() throws Exception
+    {
+        PreEncodedHttpFieldSet set = new PreEncodedHttpFieldSet(
+                new HttpField(HttpHeader.CACHE_CONTROL, "no-cache"),
+                new HttpField("X-Custom", "value"));
+        assertEquals(2, set.size());
+
+        ByteBuffer header = BufferUtil.allocate(8096);
+        HttpGenerator gen = new HttpGenerator();
+        MetaData.Response info = new MetaData.Response(HttpVersion.HTTP_1_1, 200, null, new HttpFields(), 0);
+        info.getFields().add(DateGenerator.getDateField());
+        set.addTo(info.getFields());
+        info.getFields().add("Last-Modified", DateGenerator.__01Jan1970);
+        assertEquals("value", info.getFields().get("X-Custom"));
+
+        HttpGenerator.Result result = gen.generateResponse(info, false, header, null, null, true);
+        assertEquals(HttpGenerator.Result.FLUSH, result);
+        String head = BufferUtil.toString(header);
+        assertThat(head, containsString("\r\nDate: "));
+        assertThat(head, containsString("GMT\r\nCache-Control: no-cache\r\nX-Custom: value\r\nLast-Modified: "));
+
+        // A set that is no longer complete is generated field by field.
+        BufferUtil.clear(header);
+        gen.reset();
+        info.getFields().remove(HttpHeader.CACHE_CONTROL);
+        result = gen.generateResponse(info, false, header, null, null, true);
+        assertEquals(HttpGenerator.Result.FLUSH, result);
+        head = BufferUtil.toString(header);
+        assertThat(head, not(containsString("Cache-Control")));
+        assertThat(head, containsString("\r\nX-Custom: value\r\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPreEncodedFieldSetRejectsFraming() throws Exception
+    {
+        new PreEncodedHttpFieldSet(new HttpField(HttpHeader.CONTENT_LENGTH, "10"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPreEncodedFieldSetRejectsDate() throws Exception
+    {
+        new PreEncodedHttpFieldSet(new HttpField(HttpHeader.DATE, DateGenerator.__01Jan1970));
+    }
+
     @Test
     public void testResponseKnownNoContentNotPersistent() throws Exception
     {
@@ -1921,6 +1921,155 @@ public class HttpParserTest
         Assert.assertTrue(field == _fields.get(0));
     }
 
+    @Test
+    public void testRepeatedFieldCached() throws Exception
+    {
+        ByteBuffer buffer = BufferUtil.toBuffer(
+                "GET / HTTP/1.1\r\n" +
+                        "Host: localhost\r\n" +
+                        "X-Custom: value\r\n" +
+                        "Referer: http://localhost/\r\n" +
+                        "\r\n");
+
+        HttpParser.RequestHandler handler = new Handler();
+        HttpParser parser = new HttpParser(handler);
+
+        // Not cached when first seen, as neither header is always cached.
+        parseAll(parser, buffer);
+        Assert.assertNull(parser.getFieldCache().get("X-Custom: value"));
+        Assert.assertNull(parser.getFieldCache().get("Referer: http://localhost/"));
+
+        // Cached when repeated.
+        buffer.position(0);
+        parseAll(parser, buffer);
+        HttpField custom = parser.getFieldCache().get("X-Custom: value");
+        Assert.assertEquals("value", custom.getValue());
+        HttpField referer = parser.getFieldCache().get("Referer: http://localhost/");
+        Assert.assertEquals(HttpHeader.REFERER, referer.getHeader());
+
+        buffer.position(0);
+        parseAll(parser, buffer);
+        Assert.assertSame(custom, _fields.get(1));
+        Assert.assertSame(referer, _fields.get(2));
+        // Host hit by the second request, all the fields by the third.
+        Assert.assertEquals(4, parser.getHttpFieldCache().getHits());
+    }
+
+    @Test
+    public void testCachedFieldValueCaseSensitive() throws Exception
+    {
+        HttpParser.RequestHandler handler = new Handler();
+        HttpParser parser = new HttpParser(handler);
+
+        parseAll(parser, BufferUtil.toBuffer(
+                "GET / HTTP/1.1\r\n" +
+                        "Host: localhost\r\n" +
+                        "Cookie: name=VALUE\r\n" +
+                        "\r\n"));
+        Assert.assertEquals("name=VALUE", parser.getFieldCache().get("Cookie: name=VALUE").getValue());
+
+        parseAll(parser, BufferUtil.toBuffer(
+                "GET / HTTP/1.1\r\n" +
+                        "Host: localhost\r\n" +
+                        "Cookie: name=value\r\n" +
+                        "\r\n"));
+        Assert.assertEquals("name=value", _fields.get(1).getValue());
+        // Only Host is hit.
+        Assert.assertEquals(1, parser.getHttpFieldCache().getHits());
+    }
+
+    @Test
+    public void testLazyFieldValues() throws Exception
+    {
+        ByteBuffer buffer = BufferUtil.toBuffer(
+                "GET / HTTP/1.1\r\n" +
+                        "Host: localhost\r\n" +
+                        "X-Custom:   value  one  \r\n" +
+                        "Content-Length: 0\r\n" +
+                        "Referer: http://localhost/\r\n" +
+                        "\r\n");
+
+        HttpParser.RequestHandler handler = new Handler()
+        {
+            @Override
+            public void parsedHeader(HttpField field)
+            {
+                // Do not access the value.
+                _fields.add(field);
+            }
+        };
+        HttpParser parser = new HttpParser(handler);
+        parser.setLazyFieldValues(true);
+        parseAll(parser, buffer);
+
+        Assert.assertThat(_fields.get(0), Matchers.instanceOf(HostPortHttpField.class));
+        Assert.assertThat(_fields.get(1), Matchers.instanceOf(LazyHttpField.class));
+        Assert.assertThat(_fields.get(2), Matchers.not(Matchers.instanceOf(LazyHttpField.class)));
+        Assert.assertThat(_fields.get(3), Matchers.instanceOf(LazyHttpField.class));
+        LazyHttpField custom = (LazyHttpField)_fields.get(1);
+        LazyHttpField referer = (LazyHttpField)_fields.get(3);
+        Assert.assertFalse(custom.isDecoded());
+        Assert.assertEquals("http://localhost/", referer.getValue());
+        Assert.assertTrue(referer.isDecoded());
+
+        // The buffer can be overwritten once the fields are detached.
+        Assert.assertTrue(parser.hasLazyFields());
+        parser.detachFields();
+        Assert.assertFalse(parser.hasLazyFields());
+        buffer.clear();
+        while (buffer.hasRemaining())
+            buffer.put((byte)'X');
+
+        Assert.assertFalse(custom.isDecoded());
+        Assert.assertEquals("value  one", custom.getValue());
+        Assert.assertEquals("X-Custom", custom.getName());
+        Assert.assertEquals("http://localhost/", referer.getValue());
+        Assert.assertEquals(HttpHeader.REFERER, referer.getHeader());
+    }
+
+    @Test
+    public void testLazyFieldValuesDetachedBetweenBuffers() throws Exception
+    {
+        ByteBuffer buffer1 = BufferUtil.toBuffer(
+                "GET / HTTP/1.1\r\n" +
+                        "Host: localhost\r\n" +
+                        "X-One: one\r\n" +
+                        "X-Two: tw");
+        ByteBuffer buffer2 = BufferUtil.toBuffer(
+                "o\r\n" +
+                        "X-Three: three\r\n" +
+                        "\r\n");
+
+        HttpParser.RequestHandler handler = new Handler()
+        {
+            @Override
+            public void parsedHeader(HttpField field)
+            {
+                _fields.add(field);
+            }
+        };
+        HttpParser parser = new HttpParser(handler);
+        parser.setLazyFieldValues(true);
+
+        parser.parseNext(buffer1);
+        // The fields are incomplete, so the buffer may be reused.
+        Assert.assertFalse(parser.hasLazyFields());
+        buffer1.clear();
+        while (buffer1.hasRemaining())
+            buffer1.put((byte)'X');
+
+        parser.parseNext(buffer2);
+        Assert.assertTrue(parser.isState(State.END));
+        Assert.assertEquals(4, _fields.size());
+        Assert.assertThat(_fields.get(1), Matchers.instanceOf(LazyHttpField.class));
+        Assert.assertEquals("one", _fields.get(1).getValue());
+        // The value spanning the buffers is decoded while parsing.
+        Assert.assertThat(_fields.get(2), Matchers.not(Matchers.instanceOf(LazyHttpField.class)));
+        Assert.assertEquals("two", _fields.get(2).getValue());
+        Assert.assertThat(_fields.get(3), Matchers.instanceOf(LazyHttpField.class));
+        Assert.assertEquals("three", _fields.get(3).getValue());
+    }
+
     @Test
     public void testParseRequest() throws Exception
     {
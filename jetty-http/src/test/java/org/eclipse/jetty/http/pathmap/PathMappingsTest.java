@@ -288,4 +288,76 @@ public class PathMappingsTest
         try{new ServletPathSpec("*/foo");Assert.fail();}catch(IllegalArgumentException e){}
         try{new ServletPathSpec("*.foo/*");Assert.fail();}catch(IllegalArgumentException e){}
     }
+
+    /**
+     * Test that the indexed URI Template specs match like their regular expressions,
+     * in the order of the path specs.
+     */
+    @Test
+    public void testUriTemplateIndexMatchesRegex()
+    {
+        PathMappings<String> p = new PathMappings<>();
+        String[] specs = {
+                "/",
+                "/a",
+                "/a/",
+                "/a/b",
+                "/a/{x}",
+                "/a/{x}/",
+                "/{x}/b",
+                "/{x}/{y}",
+                "/a/{x}/c",
+                "/a/b/{x}",
+                "/{x}/b/c",
+                "/a.b/{x}",
+                "/a+b/{x}",
+                "/{x}/{y}/{z}/d"
+        };
+        for (String spec : specs)
+            p.put(new UriTemplatePathSpec(spec),spec);
+        p.put(new RegexPathSpec("^/a/b/c$"),"regex");
+        p.put(new RegexPathSpec("^/z/.*$"),"regexPrefix");
+
+        String[] paths = {
+                "/", "//", "/a", "/a/", "/a//", "/b", "/a/b", "/a/b/", "/a/c", "/c/b",
+                "/a/b/c", "/b/b/c", "/a/x/c", "/a/b/x", "/a.b/x", "/aXb/x", "/a+b/x",
+                "/aab/x", "/a/b/c/d", "/z/b", "/z/b/c", "/a/b?q=1", "/a?q=/b", "/a//b", "no/slash"
+        };
+        for (String path : paths)
+        {
+            // The first path spec in order that matches, without any index.
+            MappedResource<String> expected = null;
+            for (MappedResource<String> mr : p)
+            {
+                if (mr.getPathSpec().matches(path))
+                {
+                    expected = mr;
+                    break;
+                }
+            }
+            assertEquals(".getMatch(\"" + path + "\")",expected,p.getMatch(path));
+        }
+    }
+
+    @Test
+    public void testUriTemplateIndexRemove()
+    {
+        PathMappings<String> p = new PathMappings<>();
+        p.put(new UriTemplatePathSpec("/a/{x}"),"variable");
+        p.put(new UriTemplatePathSpec("/a/b"),"exact");
+        p.put(new UriTemplatePathSpec("/{x}/{y}"),"variables");
+
+        assertMatch(p,"/a/b","exact");
+        assertMatch(p,"/a/c","variable");
+
+        assertTrue(p.remove(new UriTemplatePathSpec("/a/b")));
+        assertMatch(p,"/a/b","variable");
+
+        p.removeIf(mr -> "variable".equals(mr.getResource()));
+        assertMatch(p,"/a/b","variables");
+        assertEquals(1,p.size());
+
+        p.reset();
+        assertEquals(null,p.getMatch("/a/b"));
+    }
 }
@@ -22,10 +22,14 @@ import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
+import java.util.Set;
 
 import org.eclipse.jetty.http2.frames.Frame;
+import org.eclipse.jetty.http2.frames.FrameType;
 import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.EofException;
@@ -34,17 +38,30 @@ import org.eclipse.jetty.util.IteratingCallback;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 
+/**
+ * <p>Writes the frames of a session.</p>
+ * <p>Control frames are written in the order they are queued, while DATA frames,
+ * and the frames queued after them for the same stream, are scheduled according
+ * to the stream priorities (see {@link PriorityTree}), one DATA frame at a time.
+ * The DATA bytes of a single write are bounded, so that the data of higher
+ * priority streams queued in the meantime is not delayed by a long write.</p>
+ */
 public class HTTP2Flusher extends IteratingCallback
 {
     private static final Logger LOG = Log.getLogger(HTTP2Flusher.class);
+    private static final int MAX_DATA_BYTES_PER_WRITE = 64 * 1024;
 
     private final Queue<WindowEntry> windows = new ArrayDeque<>();
     private final Deque<Entry> frames = new ArrayDeque<>();
     private final Queue<Entry> entries = new ArrayDeque<>();
     private final List<Entry> actives = new ArrayList<>();
+    private final List<Entry> scheduled = new ArrayList<>();
+    private final List<Entry> candidates = new ArrayList<>();
+    private final List<Integer> candidateIds = new ArrayList<>();
+    private final Set<Integer> streamIds = new HashSet<>();
+    private final Set<Integer> stalled = new HashSet<>();
     private final HTTP2Session session;
     private final ByteBufferPool.Lease lease;
-    private Entry stalled;
     private Throwable terminated;
 
     public HTTP2Flusher(HTTP2Session session)
@@ -134,15 +151,21 @@ public class HTTP2Flusher extends IteratingCallback
             {
                 for (Entry entry : frames)
                 {
-                    entries.offer(entry);
-                    actives.add(entry);
+                    if (isScheduled(entry))
+                    {
+                        scheduled.add(entry);
+                    }
+                    else
+                    {
+                        entries.offer(entry);
+                        actives.add(entry);
+                    }
                 }
                 frames.clear();
             }
         }
 
-
-        if (entries.isEmpty())
+        if (entries.isEmpty() && scheduled.isEmpty())
         {
             if (LOG.isDebugEnabled())
                 LOG.debug("Flushed {}", session);
@@ -165,16 +188,7 @@ public class HTTP2Flusher extends IteratingCallback
 
             try
             {
-                if (entry.generate(lease))
-                {
-                    if (entry.dataRemaining() > 0)
-                        entries.offer(entry);
-                }
-                else
-                {
-                    if (stalled == null)
-                        stalled = entry;
-                }
+                entry.generate(lease);
             }
             catch (Throwable failure)
             {
@@ -186,6 +200,22 @@ public class HTTP2Flusher extends IteratingCallback
             }
         }
 
+        if (!scheduled.isEmpty())
+        {
+            try
+            {
+                generateScheduled();
+            }
+            catch (Throwable failure)
+            {
+                // Failure to generate the entry is catastrophic.
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Failure generating scheduled frames", failure);
+                failed(failure);
+                return Action.SUCCEEDED;
+            }
+        }
+
         List<ByteBuffer> byteBuffers = lease.getByteBuffers();
         if (byteBuffers.isEmpty())
         {
@@ -199,6 +229,92 @@ public class HTTP2Flusher extends IteratingCallback
         return Action.SCHEDULED;
     }
 
+    /**
+     * <p>Entries that must honor the stream priorities: DATA frames and the
+     * frames queued after a DATA frame of the same stream, so that the order
+     * of the frames of a stream is preserved.</p>
+     * <p>Protocol frames such as RST_STREAM are never scheduled, so that
+     * they are not delayed by data waiting for the flow control window.</p>
+     */
+    private boolean isScheduled(Entry entry)
+    {
+        if (entry.stream == null || entry.isProtocol())
+            return false;
+        if (entry.frame.getType() == FrameType.DATA)
+            return true;
+        for (Entry item : scheduled)
+        {
+            if (item.stream == entry.stream)
+                return true;
+        }
+        return false;
+    }
+
+    private void generateScheduled()
+    {
+        PriorityTree priorityTree = session.getPriorityTree();
+        // The stalled streams cannot send data in this iteration.
+        long length = lease.getTotalLength();
+        long limit = length + MAX_DATA_BYTES_PER_WRITE;
+        while (length < limit)
+        {
+            // The first scheduled entry of each stream is a candidate.
+            candidates.clear();
+            candidateIds.clear();
+            streamIds.clear();
+            for (Iterator<Entry> iterator = scheduled.iterator(); iterator.hasNext();)
+            {
+                Entry entry = iterator.next();
+                if (entry.reset())
+                {
+                    // Completed (and failed) when the write completes.
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Resetting {}", entry);
+                    iterator.remove();
+                    if (!actives.contains(entry))
+                        actives.add(entry);
+                    continue;
+                }
+                Integer streamId = entry.stream.getId();
+                if (streamIds.add(streamId) && !stalled.contains(streamId))
+                {
+                    candidates.add(entry);
+                    candidateIds.add(streamId);
+                }
+            }
+
+            int index = priorityTree.select(candidateIds);
+            if (index < 0)
+                break;
+
+            Entry entry = candidates.get(index);
+            int streamId = candidateIds.get(index);
+            if (LOG.isDebugEnabled())
+                LOG.debug("Processing {} selected among {}", entry, candidates);
+
+            if (entry.generate(lease))
+            {
+                long total = lease.getTotalLength();
+                priorityTree.sent(streamId, (int)(total - length));
+                length = total;
+                if (!actives.contains(entry))
+                    actives.add(entry);
+                if (entry.dataRemaining() == 0)
+                    scheduled.remove(entry);
+            }
+            else
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Stalled {}", entry);
+                stalled.add(streamId);
+            }
+        }
+        candidates.clear();
+        candidateIds.clear();
+        streamIds.clear();
+        stalled.clear();
+    }
+
     @Override
     public void succeeded()
     {
@@ -214,30 +330,8 @@ public class HTTP2Flusher extends IteratingCallback
     {
         lease.recycle();
 
+        // Entries with data remaining stay scheduled.
         actives.forEach(Entry::complete);
-
-        if (stalled != null)
-        {
-            // We have written part of the frame, but there is more to write.
-            // The API will not allow to send two data frames for the same
-            // stream so we append the unfinished frame at the end to allow
-            // better interleaving with other streams.
-            int index = actives.indexOf(stalled);
-            for (int i = index; i < actives.size(); ++i)
-            {
-                Entry entry = actives.get(i);
-                if (entry.dataRemaining() > 0)
-                    append(entry);
-            }
-            for (int i = 0; i < index; ++i)
-            {
-                Entry entry = actives.get(i);
-                if (entry.dataRemaining() > 0)
-                    append(entry);
-            }
-            stalled = null;
-        }
-
         actives.clear();
     }
 
@@ -258,7 +352,13 @@ public class HTTP2Flusher extends IteratingCallback
             closed = terminated;
             terminated = x;
             if (LOG.isDebugEnabled())
-                LOG.debug("{}, active/queued={}/{}", closed != null ? "Closing" : "Failing", actives.size(), frames.size());
+                LOG.debug("{}, active/scheduled/queued={}/{}/{}", closed != null ? "Closing" : "Failing", actives.size(), scheduled.size(), frames.size());
+            for (Entry entry : scheduled)
+            {
+                if (!actives.contains(entry))
+                    actives.add(entry);
+            }
+            scheduled.clear();
             actives.addAll(frames);
             frames.clear();
         }
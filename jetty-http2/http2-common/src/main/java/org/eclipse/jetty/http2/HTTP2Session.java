@@ -67,6 +67,9 @@ import org.eclipse.jetty.util.thread.Scheduler;
 public abstract class HTTP2Session extends ContainerLifeCycle implements ISession, Parser.Listener
 {
     private static final Logger LOG = Log.getLogger(HTTP2Session.class);
+    // Bounds the memory used by the stream dependency tree; the nodes of streams
+    // that are prioritized but never opened, or closed, are evicted when it is full.
+    private static final int MAX_PRIORITY_NODES = 1024;
 
     private final ConcurrentMap<Integer, IStream> streams = new ConcurrentHashMap<>();
     private final AtomicInteger streamIds = new AtomicInteger();
@@ -83,6 +86,7 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
     private final Session.Listener listener;
     private final FlowControlStrategy flowControl;
     private final HTTP2Flusher flusher;
+    private final PriorityTree priorityTree = new PriorityTree(MAX_PRIORITY_NODES);
     private int maxLocalStreams;
     private int maxRemoteStreams;
     private long streamIdleTimeout;
@@ -276,6 +280,24 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
     {
         if (LOG.isDebugEnabled())
             LOG.debug("Received {}", frame);
+        prioritize(frame);
+    }
+
+    /**
+     * <p>Updates the stream dependency tree used to schedule the DATA frames
+     * sent by this session with the given priority information.</p>
+     *
+     * @param frame the priority information, either received or sent
+     */
+    protected void prioritize(PriorityFrame frame)
+    {
+        if (frame != null)
+            priorityTree.prioritize(frame.getStreamId(), frame.getParentStreamId(), frame.getWeight(), frame.isExclusive());
+    }
+
+    PriorityTree getPriorityTree()
+    {
+        return priorityTree;
     }
 
     @Override
@@ -499,6 +521,7 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
             if (stream == null)
                 return;
             stream.setListener(listener);
+            prioritize(frame.getPriority());
 
             ControlEntry entry = new ControlEntry(frame, stream, new PromiseCallback<>(promise, stream));
             queued = flusher.append(entry);
@@ -519,6 +542,7 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
             frame = new PriorityFrame(streamId, frame.getParentStreamId(),
                     frame.getWeight(), frame.isExclusive());
         }
+        prioritize(frame);
         control(stream, callback, frame);
         return streamId;
     }
@@ -538,6 +562,8 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
             if (pushStream == null)
                 return;
             pushStream.setListener(listener);
+            // Pushed streams depend on the stream they are associated with.
+            priorityTree.prioritize(streamId, stream.getId(), PriorityTree.DEFAULT_WEIGHT, false);
 
             ControlEntry entry = new ControlEntry(frame, pushStream, new PromiseCallback<>(promise, pushStream));
             queued = flusher.append(entry);
@@ -701,6 +727,7 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
         {
             stream.setIdleTimeout(getStreamIdleTimeout());
             flowControl.onStreamCreated(stream);
+            priorityTree.open(streamId);
             if (LOG.isDebugEnabled())
                 LOG.debug("Created local {}", stream);
             return stream;
@@ -736,6 +763,7 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
             updateLastStreamId(streamId);
             stream.setIdleTimeout(getStreamIdleTimeout());
             flowControl.onStreamCreated(stream);
+            priorityTree.open(streamId);
             if (LOG.isDebugEnabled())
                 LOG.debug("Created remote {}", stream);
             return stream;
@@ -768,6 +796,8 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
 
             onStreamClosed(stream);
 
+            priorityTree.close(stream.getId());
+
             flowControl.onStreamDestroyed(stream);
 
             if (LOG.isDebugEnabled())
@@ -1271,13 +1301,15 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
 
             int length = Math.min(dataRemaining, window);
 
-            // Only one DATA frame is generated.
-            bytes = generator.data(lease, (DataFrame)frame, length);
-            int written = bytes - Frame.HEADER_LENGTH;
+            // Only one DATA frame is generated; the flusher may call this
+            // method again, in the same write, to generate more DATA frames.
+            int generated = generator.data(lease, (DataFrame)frame, length);
+            int written = generated - Frame.HEADER_LENGTH;
             if (LOG.isDebugEnabled())
                 LOG.debug("Generated {}, length/window/data={}/{}/{}", frame, written, window, dataRemaining);
 
-            this.dataWritten = written;
+            this.bytes += generated;
+            this.dataWritten += written;
             this.dataRemaining -= written;
 
             flowControl.onDataSending(stream, written);
@@ -1290,6 +1322,8 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
         {
             bytesWritten.addAndGet(bytes);
             flowControl.onDataSent(stream, dataWritten);
+            bytes = 0;
+            dataWritten = 0;
 
             // Do we have more to send ?
             DataFrame dataFrame = (DataFrame)frame;
@@ -0,0 +1,358 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.http2;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>The stream dependency tree of a session, as defined by
+ * <a href="https://tools.ietf.org/html/rfc7540#section-5.3">RFC 7540, section 5.3</a>.</p>
+ * <p>The tree is updated by PRIORITY frames and by the priority information carried by
+ * HEADERS frames, and it is used by {@link HTTP2Flusher} to decide which stream should
+ * send the next DATA frame: a stream is served before the streams that depend on it,
+ * and sibling streams share the connection in proportion to their weights.</p>
+ * <p>Sibling streams are scheduled with start-time fair queuing: each node accumulates a
+ * virtual time that grows by the bytes sent by its subtree divided by its weight, and the
+ * active sibling with the smallest virtual time is served next.</p>
+ * <p>The tree also holds nodes that are not associated with an open stream: streams
+ * prioritized by PRIORITY frames but never opened, and closed streams that other streams
+ * still depend on. These idle nodes are evicted, least recently prioritized first, to make
+ * room for new nodes when the tree is full, as allowed by
+ * <a href="https://tools.ietf.org/html/rfc7540#section-5.3.4">RFC 7540, section 5.3.4</a>.</p>
+ */
+class PriorityTree
+{
+    public static final int DEFAULT_WEIGHT = 16;
+    public static final int MAX_WEIGHT = 256;
+
+    private final Map<Integer, Node> nodes = new HashMap<>();
+    // The nodes not associated with an open stream, least recently prioritized first.
+    private final Map<Integer, Node> idles = new LinkedHashMap<>();
+    private final Node root = new Node(0);
+    private final int maxNodes;
+    private long selections;
+
+    PriorityTree(int maxNodes)
+    {
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * <p>Updates the position of a stream in the tree.</p>
+     *
+     * @param streamId the stream id
+     * @param parentStreamId the id of the stream the stream depends on, or 0 for the root
+     * @param weight the weight of the stream, from 1 to 256
+     * @param exclusive whether the stream becomes the sole dependency of its parent
+     * @return whether the tree has been updated
+     */
+    public synchronized boolean prioritize(int streamId, int parentStreamId, int weight, boolean exclusive)
+    {
+        if (streamId <= 0 || streamId == parentStreamId)
+            return false;
+
+        Node node = nodes.get(streamId);
+        if (node == null)
+        {
+            node = newNode(streamId);
+            if (node == null)
+                return false;
+            idles.put(streamId, node);
+        }
+        else if (idles.remove(streamId) != null)
+        {
+            idles.put(streamId, node);
+        }
+
+        Node parent = parentStreamId == 0 ? root : nodes.get(parentStreamId);
+        if (parent == null)
+        {
+            // SPEC: a dependency on a stream not in the tree results in the default priority.
+            parent = root;
+            weight = DEFAULT_WEIGHT;
+            exclusive = false;
+        }
+
+        // SPEC: if the new parent depends on the stream, it is first
+        // moved to be a dependency of the former parent of the stream.
+        if (parent.dependsOn(node))
+        {
+            parent.parent.detach(parent);
+            node.parent.attach(parent);
+        }
+
+        node.parent.detach(node);
+        if (exclusive)
+        {
+            for (Node child : new ArrayList<>(parent.children))
+            {
+                parent.detach(child);
+                node.attach(child);
+            }
+        }
+        parent.attach(node);
+        node.weight = Math.max(1, Math.min(MAX_WEIGHT, weight));
+        return true;
+    }
+
+    /**
+     * <p>Marks a stream as open, so that its node is not evicted until the stream is closed.</p>
+     *
+     * @param streamId the id of the stream that has been opened
+     */
+    public synchronized void open(int streamId)
+    {
+        Node node = nodes.get(streamId);
+        if (node == null)
+            node = newNode(streamId);
+        else
+            idles.remove(streamId);
+        if (node != null)
+            node.open = true;
+    }
+
+    /**
+     * <p>Marks a stream as closed; its node is removed from the tree, unless other
+     * streams depend on it, in which case it is kept as an idle node so that the
+     * priority of its dependencies is preserved.</p>
+     *
+     * @param streamId the id of the stream that has been closed
+     */
+    public synchronized void close(int streamId)
+    {
+        Node node = nodes.get(streamId);
+        if (node == null)
+            return;
+        node.open = false;
+        if (node.children.isEmpty())
+            remove(streamId);
+        else
+            idles.put(streamId, node);
+    }
+
+    /**
+     * <p>Removes a stream from the tree; the streams that depend on it become
+     * dependencies of its parent, sharing its weight in proportion to their weights.</p>
+     *
+     * @param streamId the id of the stream to remove
+     */
+    public synchronized void remove(int streamId)
+    {
+        Node node = nodes.remove(streamId);
+        if (node == null)
+            return;
+        idles.remove(streamId);
+
+        Node parent = node.parent;
+        parent.detach(node);
+        int totalWeight = 0;
+        for (Node child : node.children)
+            totalWeight += child.weight;
+        for (Node child : new ArrayList<>(node.children))
+        {
+            node.detach(child);
+            child.weight = Math.max(1, node.weight * child.weight / totalWeight);
+            parent.attach(child);
+        }
+    }
+
+    /**
+     * @param streamId the stream id
+     * @return the id of the stream the given stream depends on, 0 for the root,
+     * or -1 if the stream is not in the tree
+     */
+    public synchronized int getParentStreamId(int streamId)
+    {
+        Node node = nodes.get(streamId);
+        return node == null ? -1 : node.parent.streamId;
+    }
+
+    /**
+     * @param streamId the stream id
+     * @return the weight of the stream, or the default weight if the stream is not in the tree
+     */
+    public synchronized int getWeight(int streamId)
+    {
+        Node node = nodes.get(streamId);
+        return node == null ? DEFAULT_WEIGHT : node.weight;
+    }
+
+    public synchronized int size()
+    {
+        return nodes.size();
+    }
+
+    /**
+     * <p>Selects the stream that should send the next DATA frame.</p>
+     * <p>Streams that are not in the tree are treated as dependencies
+     * of the root with the default weight.</p>
+     *
+     * @param streamIds the ids of the streams ready to send data
+     * @return the index in {@code streamIds} of the selected stream, or -1 if the list is empty
+     */
+    public synchronized int select(List<Integer> streamIds)
+    {
+        if (streamIds.isEmpty())
+            return -1;
+        if (streamIds.size() == 1)
+            return 0;
+
+        // Mark the nodes that have ready streams in their subtree; the marks
+        // are stamped with the selection number, so they need no clearing.
+        long selection = ++selections;
+        for (int i = 0; i < streamIds.size(); ++i)
+        {
+            Node node = nodeFor(streamIds.get(i));
+            node.ready = selection;
+            node.readyIndex = i;
+            while (node != null && node.active != selection)
+            {
+                node.active = selection;
+                node = node.parent;
+            }
+        }
+
+        Node node = root;
+        while (true)
+        {
+            if (node != root && node.ready == selection)
+                return node.readyIndex;
+
+            Node selected = null;
+            for (Node child : node.children)
+            {
+                if (child.active != selection)
+                    continue;
+                // A child that becomes active starts at the current virtual time of
+                // its siblings, so that it cannot claim the time it was inactive.
+                if (child.virtualTime < node.childrenVirtualTime)
+                    child.virtualTime = node.childrenVirtualTime;
+                if (selected == null || child.virtualTime < selected.virtualTime)
+                    selected = child;
+            }
+            if (selected == null)
+                return root.ready == selection ? root.readyIndex : -1;
+            node.childrenVirtualTime = selected.virtualTime;
+            node = selected;
+        }
+    }
+
+    /**
+     * <p>Accounts the given bytes as sent by the given stream and its ancestors.</p>
+     *
+     * @param streamId the id of the stream that sent the bytes
+     * @param bytes the number of bytes sent
+     */
+    public synchronized void sent(int streamId, int bytes)
+    {
+        for (Node node = nodes.get(streamId); node != null && node != root; node = node.parent)
+            node.virtualTime += (long)bytes * MAX_WEIGHT / node.weight;
+    }
+
+    private Node nodeFor(int streamId)
+    {
+        Node node = nodes.get(streamId);
+        if (node != null)
+            return node;
+        // Streams without priority information are scheduled as if they had
+        // the default priority, without tracking them if the tree is full.
+        node = newNode(streamId);
+        if (node == null)
+            return root;
+        node.open = true;
+        return node;
+    }
+
+    private Node newNode(int streamId)
+    {
+        if (nodes.size() >= maxNodes)
+        {
+            // Evict the least recently prioritized idle node.
+            Iterator<Integer> iterator = idles.keySet().iterator();
+            if (!iterator.hasNext())
+                return null;
+            remove(iterator.next());
+        }
+        Node node = new Node(streamId);
+        nodes.put(streamId, node);
+        root.attach(node);
+        return node;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return String.format("%s@%x{nodes=%d,idles=%d}", getClass().getSimpleName(), hashCode(), nodes.size(), idles.size());
+    }
+
+    private static class Node
+    {
+        private final int streamId;
+        private final List<Node> children = new ArrayList<>();
+        private Node parent;
+        private int weight = DEFAULT_WEIGHT;
+        private boolean open;
+        private long virtualTime;
+        private long childrenVirtualTime;
+        // The selection in which this node has a ready stream in its subtree.
+        private long active;
+        // The selection in which this node is ready, and its index in the ready streams.
+        private long ready;
+        private int readyIndex;
+
+        private Node(int streamId)
+        {
+            this.streamId = streamId;
+        }
+
+        private void attach(Node child)
+        {
+            children.add(child);
+            child.parent = this;
+        }
+
+        private void detach(Node child)
+        {
+            children.remove(child);
+            child.parent = null;
+        }
+
+        private boolean dependsOn(Node ancestor)
+        {
+            for (Node node = parent; node != null; node = node.parent)
+            {
+                if (node == ancestor)
+                    return true;
+            }
+            return false;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("#%d{weight=%d,vt=%d}", streamId, weight, virtualTime);
+        }
+    }
+}
@@ -22,6 +22,8 @@ import org.eclipse.jetty.http2.frames.DataFrame;
 import org.eclipse.jetty.http2.frames.Frame;
 import org.eclipse.jetty.http2.frames.FrameType;
 import org.eclipse.jetty.http2.hpack.HpackEncoder;
+import org.eclipse.jetty.http2.hpack.HpackIndexPolicy;
+import org.eclipse.jetty.http2.hpack.HpackValueCache;
 import org.eclipse.jetty.io.ByteBufferPool;
 
 public class Generator
@@ -70,6 +72,16 @@ public class Generator
         hpackEncoder.setRemoteMaxDynamicTableSize(headerTableSize);
     }
 
+    public void setHpackIndexPolicy(HpackIndexPolicy indexPolicy)
+    {
+        hpackEncoder.setIndexPolicy(indexPolicy);
+    }
+
+    public void setHpackValueCache(HpackValueCache valueCache)
+    {
+        hpackEncoder.setValueCache(valueCache);
+    }
+
     public void setMaxFrameSize(int maxFrameSize)
     {
         headerGenerator.setMaxFrameSize(maxFrameSize);
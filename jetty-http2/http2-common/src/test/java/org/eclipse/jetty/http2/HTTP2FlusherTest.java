@@ -0,0 +1,164 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.http2;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import org.eclipse.jetty.http.HostPortHttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpScheme;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.api.Stream;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.PriorityFrame;
+import org.eclipse.jetty.http2.frames.PushPromiseFrame;
+import org.eclipse.jetty.http2.generator.Generator;
+import org.eclipse.jetty.http2.parser.Parser;
+import org.eclipse.jetty.io.ByteArrayEndPoint;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.FuturePromise;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HTTP2FlusherTest
+{
+    private static final int WINDOW = 16 * 1024 * 1024;
+
+    private final ByteBufferPool byteBufferPool = new MappedByteBufferPool();
+    private final Queue<Callback> writes = new ArrayDeque<>();
+    private final long[] received = new long[8];
+    private ScheduledExecutorScheduler scheduler;
+    private HTTP2Session session;
+    private long receivedWhenFirstEnded = -1;
+
+    @Before
+    public void prepare() throws Exception
+    {
+        scheduler = new ScheduledExecutorScheduler();
+        scheduler.start();
+
+        Parser parser = new Parser(byteBufferPool, new Parser.Listener.Adapter()
+        {
+            @Override
+            public void onData(DataFrame frame)
+            {
+                received[frame.getStreamId()] += frame.remaining();
+                if (frame.isEndStream() && receivedWhenFirstEnded < 0)
+                    receivedWhenFirstEnded = frame.getStreamId() == 1 ? received[3] : received[1];
+            }
+        }, 4096, 8192);
+
+        // Writes are parsed but only completed by the test,
+        // so that the frames of the streams queue in the flusher.
+        ByteArrayEndPoint endPoint = new ByteArrayEndPoint(scheduler, 30000)
+        {
+            @Override
+            public void write(Callback callback, ByteBuffer... buffers)
+            {
+                for (ByteBuffer buffer : buffers)
+                {
+                    while (buffer.hasRemaining())
+                        parser.parse(buffer);
+                }
+                writes.offer(callback);
+            }
+        };
+
+        session = new HTTP2Session(scheduler, endPoint, new Generator(byteBufferPool), new Session.Listener.Adapter(), new SimpleFlowControlStrategy(WINDOW), 1)
+        {
+            @Override
+            public void onHeaders(HeadersFrame frame)
+            {
+            }
+
+            @Override
+            public void onPushPromise(PushPromiseFrame frame)
+            {
+            }
+        };
+        session.updateSendWindow(WINDOW);
+    }
+
+    @After
+    public void dispose() throws Exception
+    {
+        scheduler.stop();
+    }
+
+    @Test
+    public void testSiblingsInterleaveByWeight() throws Exception
+    {
+        newStream();
+        newStream();
+        session.priority(new PriorityFrame(1, 0, 192, false), Callback.NOOP);
+        session.priority(new PriorityFrame(3, 0, 64, false), Callback.NOOP);
+
+        int length = 1024 * 1024;
+        session.getStream(1).data(new DataFrame(1, ByteBuffer.allocate(length), true), Callback.NOOP);
+        session.getStream(3).data(new DataFrame(3, ByteBuffer.allocate(length), true), Callback.NOOP);
+        flush();
+
+        Assert.assertEquals(length, received[1]);
+        Assert.assertEquals(length, received[3]);
+        // Stream 1 completes first, when stream 3 has received a third of its bytes.
+        Assert.assertEquals(3.0, (double)length / receivedWhenFirstEnded, 0.3);
+    }
+
+    @Test
+    public void testDependencyIsServedFirst() throws Exception
+    {
+        newStream();
+        newStream();
+        session.priority(new PriorityFrame(3, 1, 256, false), Callback.NOOP);
+
+        int length = 256 * 1024;
+        session.getStream(3).data(new DataFrame(3, ByteBuffer.allocate(length), true), Callback.NOOP);
+        session.getStream(1).data(new DataFrame(1, ByteBuffer.allocate(length), true), Callback.NOOP);
+        flush();
+
+        Assert.assertEquals(length, received[1]);
+        Assert.assertEquals(length, received[3]);
+        // Stream 3 does not send data until stream 1 completes.
+        Assert.assertEquals(0, receivedWhenFirstEnded);
+    }
+
+    private void newStream() throws Exception
+    {
+        MetaData.Request request = new MetaData.Request("GET", HttpScheme.HTTP, new HostPortHttpField("localhost"), "/", HttpVersion.HTTP_2, new HttpFields());
+        session.newStream(new HeadersFrame(request, null, false), new FuturePromise<>(), new Stream.Listener.Adapter());
+    }
+
+    private void flush()
+    {
+        Callback callback;
+        while ((callback = writes.poll()) != null)
+            callback.succeeded();
+    }
+}
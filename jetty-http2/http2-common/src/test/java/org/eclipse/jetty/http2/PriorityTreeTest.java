@@ -0,0 +1,178 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.http2;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PriorityTreeTest
+{
+    private final PriorityTree tree = new PriorityTree(1024);
+
+    @Test
+    public void testDependencyIsServedFirst() throws Exception
+    {
+        tree.prioritize(1, 0, 16, false);
+        tree.prioritize(3, 1, 256, false);
+
+        List<Integer> ready = Arrays.asList(3, 1);
+        for (int i = 0; i < 10; ++i)
+        {
+            Assert.assertEquals(1, (int)ready.get(tree.select(ready)));
+            tree.sent(1, 1024);
+        }
+        Assert.assertEquals(0, tree.select(Arrays.asList(3)));
+    }
+
+    @Test
+    public void testSiblingsShareByWeight() throws Exception
+    {
+        tree.prioritize(1, 0, 192, false);
+        tree.prioritize(3, 0, 64, false);
+
+        List<Integer> ready = Arrays.asList(1, 3);
+        int[] sent = new int[2];
+        for (int i = 0; i < 400; ++i)
+        {
+            int index = tree.select(ready);
+            sent[index] += 1024;
+            tree.sent(ready.get(index), 1024);
+        }
+        Assert.assertEquals(3.0, (double)sent[0] / sent[1], 0.1);
+    }
+
+    @Test
+    public void testExclusiveDependency() throws Exception
+    {
+        tree.prioritize(1, 0, 16, false);
+        tree.prioritize(3, 0, 16, false);
+        tree.prioritize(5, 0, 16, true);
+
+        Assert.assertEquals(0, tree.getParentStreamId(5));
+        Assert.assertEquals(5, tree.getParentStreamId(1));
+        Assert.assertEquals(5, tree.getParentStreamId(3));
+    }
+
+    @Test
+    public void testDependencyOnDescendant() throws Exception
+    {
+        tree.prioritize(1, 0, 16, false);
+        tree.prioritize(3, 1, 16, false);
+        tree.prioritize(5, 3, 16, false);
+
+        // Stream 1 now depends on its descendant 5,
+        // which is first moved to depend on the root.
+        tree.prioritize(1, 5, 16, false);
+
+        Assert.assertEquals(0, tree.getParentStreamId(5));
+        Assert.assertEquals(5, tree.getParentStreamId(1));
+        Assert.assertEquals(1, tree.getParentStreamId(3));
+    }
+
+    @Test
+    public void testDependencyOnUnknownStreamUsesDefaultPriority() throws Exception
+    {
+        tree.prioritize(1, 7, 200, true);
+
+        Assert.assertEquals(0, tree.getParentStreamId(1));
+        Assert.assertEquals(PriorityTree.DEFAULT_WEIGHT, tree.getWeight(1));
+    }
+
+    @Test
+    public void testRemoveRedistributesWeight() throws Exception
+    {
+        tree.prioritize(1, 0, 64, false);
+        tree.prioritize(3, 1, 30, false);
+        tree.prioritize(5, 1, 10, false);
+
+        tree.remove(1);
+
+        Assert.assertEquals(2, tree.size());
+        Assert.assertEquals(0, tree.getParentStreamId(3));
+        Assert.assertEquals(0, tree.getParentStreamId(5));
+        Assert.assertEquals(48, tree.getWeight(3));
+        Assert.assertEquals(16, tree.getWeight(5));
+        Assert.assertEquals(-1, tree.getParentStreamId(1));
+    }
+
+    @Test
+    public void testMaxNodes() throws Exception
+    {
+        PriorityTree tree = new PriorityTree(2);
+        tree.open(1);
+        tree.open(3);
+        Assert.assertTrue(tree.prioritize(1, 0, 16, false));
+        Assert.assertTrue(tree.prioritize(3, 0, 16, false));
+        // Open streams are not evicted.
+        Assert.assertFalse(tree.prioritize(5, 0, 16, false));
+
+        // Streams that are not tracked can still be selected.
+        Assert.assertTrue(tree.select(Arrays.asList(1, 5)) >= 0);
+    }
+
+    @Test
+    public void testIdleNodesAreEvicted() throws Exception
+    {
+        PriorityTree tree = new PriorityTree(3);
+        tree.open(1);
+        // PRIORITY frames for streams that are never opened.
+        Assert.assertTrue(tree.prioritize(3, 0, 16, false));
+        Assert.assertTrue(tree.prioritize(5, 0, 16, false));
+        // Prioritizing stream 3 again makes stream 5 the least recently used.
+        Assert.assertTrue(tree.prioritize(3, 0, 32, false));
+
+        Assert.assertTrue(tree.prioritize(7, 0, 16, false));
+        Assert.assertEquals(3, tree.size());
+        Assert.assertEquals(-1, tree.getParentStreamId(5));
+        Assert.assertEquals(32, tree.getWeight(3));
+
+        for (int streamId = 9; streamId < 2048; streamId += 2)
+            Assert.assertTrue(tree.prioritize(streamId, 0, 16, false));
+        Assert.assertEquals(3, tree.size());
+        Assert.assertEquals(0, tree.getParentStreamId(1));
+    }
+
+    @Test
+    public void testClosedStreamWithDependenciesIsRetained() throws Exception
+    {
+        PriorityTree tree = new PriorityTree(3);
+        tree.open(1);
+        tree.open(3);
+        tree.prioritize(3, 1, 16, false);
+
+        // Stream 1 is kept while stream 3 depends on it.
+        tree.close(1);
+        Assert.assertEquals(1, tree.getParentStreamId(3));
+
+        // But it is evicted, before open streams, when the tree is full.
+        tree.open(5);
+        tree.open(7);
+        Assert.assertEquals(0, tree.getParentStreamId(3));
+        Assert.assertEquals(-1, tree.getParentStreamId(1));
+        Assert.assertEquals(0, tree.getParentStreamId(7));
+
+        // Streams without dependencies are removed when closed.
+        tree.close(7);
+        Assert.assertEquals(2, tree.size());
+    }
+}
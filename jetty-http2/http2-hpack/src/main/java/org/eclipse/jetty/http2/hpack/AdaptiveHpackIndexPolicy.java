@@ -0,0 +1,72 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http2.hpack;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpHeader;
+
+/**
+ * <p>A {@link HpackIndexPolicy} that indexes a field only when its connection
+ * sends it a second time with the same value.</p>
+ * <p>Fields sent once, such as most request paths or per-request identifiers, are
+ * then sent as literals rather than evicting the repeated fields from the dynamic
+ * table. Fields with values that change for most messages (eg. Date, Content-Length,
+ * ETag) are never indexed.</p>
+ */
+public class AdaptiveHpackIndexPolicy implements HpackIndexPolicy
+{
+    private static final int MAX_CANDIDATES = 64;
+
+    private final Map<String, Integer> _candidates = new HashMap<>();
+
+    @Override
+    public boolean isIndexed(HpackContext context, HttpField field)
+    {
+        HttpHeader header = field.getHeader();
+        if (header != null && HpackEncoder.__HIGH_ENTROPY.contains(header))
+            return false;
+
+        String value = field.getValue();
+        if (field.getName().length() + value.length() + 32 > context.getMaxDynamicTableSize() / 4)
+            return false;
+
+        // Only the hash of the previous value is kept; a collision just indexes a field once more.
+        String name = header == null ? field.getName() : header.asString();
+        int hash = value.hashCode();
+        Integer previous = _candidates.get(name);
+        if (previous != null && previous == hash)
+        {
+            _candidates.remove(name);
+            return true;
+        }
+        if (previous == null && _candidates.size() >= MAX_CANDIDATES)
+            _candidates.clear();
+        _candidates.put(name, hash);
+        return false;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{candidates=%d}", getClass().getSimpleName(), hashCode(), _candidates.size());
+    }
+}
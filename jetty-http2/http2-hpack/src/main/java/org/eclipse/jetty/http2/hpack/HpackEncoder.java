@@ -77,10 +77,36 @@ public class HpackEncoder
                     HttpHeader.SET_COOKIE,
                     HttpHeader.SET_COOKIE2);
 
+    final static EnumSet<HttpHeader> __HIGH_ENTROPY =
+            EnumSet.of(
+                    HttpHeader.AGE,
+                    HttpHeader.AUTHORIZATION,
+                    HttpHeader.CONTENT_LENGTH,
+                    HttpHeader.CONTENT_MD5,
+                    HttpHeader.CONTENT_RANGE,
+                    HttpHeader.DATE,
+                    HttpHeader.ETAG,
+                    HttpHeader.EXPIRES,
+                    HttpHeader.IF_MATCH,
+                    HttpHeader.IF_MODIFIED_SINCE,
+                    HttpHeader.IF_NONE_MATCH,
+                    HttpHeader.IF_RANGE,
+                    HttpHeader.IF_UNMODIFIED_SINCE,
+                    HttpHeader.LAST_MODIFIED,
+                    HttpHeader.RANGE,
+                    HttpHeader.SET_COOKIE,
+                    HttpHeader.SET_COOKIE2);
+
+    // Values that are per request or per user are not worth sharing between connections
+    final static EnumSet<HttpHeader> __DO_NOT_CACHE = EnumSet.of(HttpHeader.C_PATH,HttpHeader.COOKIE,HttpHeader.LOCATION);
+
     static
     {
         for (HttpStatus.Code code : HttpStatus.Code.values())
             __status[code.getCode()]=new PreEncodedHttpField(HttpHeader.C_STATUS,Integer.toString(code.getCode()));
+        __DO_NOT_CACHE.addAll(__HIGH_ENTROPY);
+        __DO_NOT_CACHE.addAll(__DO_NOT_INDEX);
+        __DO_NOT_CACHE.addAll(__DO_NOT_HUFFMAN);
     }
 
     private final HpackContext _context;
@@ -89,6 +115,8 @@ public class HpackEncoder
     private int _localMaxDynamicTableSize;
     private int _maxHeaderListSize;
     private int _headerListSize;
+    private HpackIndexPolicy _indexPolicy;
+    private HpackValueCache _valueCache;
 
     public HpackEncoder()
     {
@@ -139,6 +167,35 @@ public class HpackEncoder
         _localMaxDynamicTableSize=localMaxDynamicTableSize;
     }
 
+    public HpackIndexPolicy getIndexPolicy()
+    {
+        return _indexPolicy;
+    }
+
+    /**
+     * @param indexPolicy the policy deciding which literal fields are added to the
+     * dynamic table, or null for the fixed rules of this encoder.
+     * Pre-encoded fields keep the indexing they were encoded with.
+     */
+    public void setIndexPolicy(HpackIndexPolicy indexPolicy)
+    {
+        _indexPolicy=indexPolicy;
+    }
+
+    public HpackValueCache getValueCache()
+    {
+        return _valueCache;
+    }
+
+    /**
+     * @param valueCache the cache of the encoded values of known headers,
+     * usually shared with other encoders, or null to encode all values
+     */
+    public void setValueCache(HpackValueCache valueCache)
+    {
+        _valueCache=valueCache;
+    }
+
     public void encode(ByteBuffer buffer, MetaData metadata)
     {
         if (LOG.isDebugEnabled())
@@ -240,7 +297,24 @@ public class HpackEncoder
             HttpHeader header = field.getHeader();
 
             // Select encoding strategy
-            if (header==null)
+            if (_indexPolicy!=null && !(field instanceof PreEncodedHttpField))
+            {
+                boolean never_index=header!=null && __NEVER_INDEX.contains(header);
+                // A field that cannot fit the dynamic table is never added, whatever the policy
+                boolean fits=field_size+32<=_context.getMaxDynamicTableSize();
+                indexed=!never_index && fits && _indexPolicy.isIndexed(_context,field);
+                boolean huffman=header==null || !__DO_NOT_HUFFMAN.contains(header);
+                Entry name = header==null?_context.get(field.getName()):_context.get(header);
+                if (indexed)
+                    encodeName(buffer,(byte)0x40,6,field.getName(),name);
+                else
+                    encodeName(buffer,never_index?(byte)0x10:(byte)0x00,4,field.getName(),name);
+                encodeValue(buffer,huffman,header,field.getValue());
+                if (_debug)
+                    encoding="Policy"+((name==null)?"HuffN":"IdxN")+(huffman?"HuffV":"LitV")+
+                            (indexed?"Idx":(never_index?"!!Idx":"!Idx"));
+            }
+            else if (header==null)
             {
                 // Select encoding strategy for unknown header names
                 Entry name = _context.get(field.getName());
@@ -299,7 +373,7 @@ public class HpackEncoder
                     boolean never_index=__NEVER_INDEX.contains(header);
                     boolean huffman=!__DO_NOT_HUFFMAN.contains(header);
                     encodeName(buffer,never_index?(byte)0x10:(byte)0x00,4,header.asString(),name);
-                    encodeValue(buffer,huffman,field.getValue());
+                    encodeValue(buffer,huffman,header,field.getValue());
 
                     if (_debug)
                         encoding="Lit"+
@@ -312,7 +386,7 @@ public class HpackEncoder
                     // Non indexed if field too large or a content length for 3 digits or more
                     indexed=false;
                     encodeName(buffer,(byte)0x00,4,header.asString(),name);
-                    encodeValue(buffer,true,field.getValue());
+                    encodeValue(buffer,true,header,field.getValue());
                     if (_debug)
                         encoding="LitIdxNS"+(1+NBitInteger.octectsNeeded(4,_context.index(name)))+"HuffV!Idx";
                 }
@@ -322,7 +396,7 @@ public class HpackEncoder
                     indexed=true;
                     boolean huffman=!__DO_NOT_HUFFMAN.contains(header);
                     encodeName(buffer,(byte)0x40,6,header.asString(),name);
-                    encodeValue(buffer,huffman,field.getValue());
+                    encodeValue(buffer,huffman,header,field.getValue());
                     if (_debug)
                         encoding=((name==null)?"LitHuffN":("LitIdxN"+(name.isStatic()?"S":"")+(1+NBitInteger.octectsNeeded(6,_context.index(name)))))+
                                 (huffman?"HuffVIdx":"LitVIdx");
@@ -361,6 +435,14 @@ public class HpackEncoder
         }
     }
 
+    private void encodeValue(ByteBuffer buffer, boolean huffman, HttpHeader header, String value)
+    {
+        if (huffman && _valueCache!=null && header!=null && !__DO_NOT_CACHE.contains(header))
+            _valueCache.encodeValue(buffer,value);
+        else
+            encodeValue(buffer,huffman,value);
+    }
+
     static void encodeValue(ByteBuffer buffer, boolean huffman, String value)
     {
         if (huffman)
@@ -0,0 +1,44 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http2.hpack;
+
+import org.eclipse.jetty.http.HttpField;
+
+/**
+ * <p>Decides whether a {@link HpackEncoder} adds a field to the dynamic table
+ * of its connection, in place of the encoder's fixed rules.</p>
+ * <p>The policy is only asked about fields that are not already in the static or
+ * dynamic tables, and never for the fields that must never be indexed (eg. Authorization).
+ * A policy instance is used by a single encoder, so it may learn from the fields
+ * of its connection.</p>
+ */
+public interface HpackIndexPolicy
+{
+    /**
+     * @param context the compression context of the encoder
+     * @param field the field to encode as a literal
+     * @return whether the field should be added to the dynamic table
+     */
+    public boolean isIndexed(HpackContext context, HttpField field);
+
+    public interface Factory
+    {
+        public HpackIndexPolicy newHpackIndexPolicy();
+    }
+}
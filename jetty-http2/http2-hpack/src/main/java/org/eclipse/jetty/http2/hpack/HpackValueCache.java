@@ -0,0 +1,129 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http2.hpack;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A cache of the Huffman encoded literals of field values, shared by the
+ * {@link HpackEncoder}s of many connections.</p>
+ * <p>Values such as content types, cache controls or server names are sent by most
+ * responses of most connections, but the dynamic table of each connection must still
+ * learn them with a literal. This cache saves the Huffman encoding of those literals,
+ * which is the bulk of the CPU cost of a literal.</p>
+ * <p>The cache is bounded by its number of entries and by the length of the values
+ * it holds, and is simply cleared when full.</p>
+ */
+public class HpackValueCache
+{
+    private final ConcurrentMap<String, byte[]> _cache = new ConcurrentHashMap<>();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final int _maxEntries;
+    private final int _maxValueLength;
+
+    public HpackValueCache()
+    {
+        this(512, 128);
+    }
+
+    /**
+     * @param maxEntries the max number of values held by the cache
+     * @param maxValueLength the max length of the values held by the cache
+     */
+    public HpackValueCache(int maxEntries, int maxValueLength)
+    {
+        _maxEntries = maxEntries;
+        _maxValueLength = maxValueLength;
+    }
+
+    public int getMaxEntries()
+    {
+        return _maxEntries;
+    }
+
+    public int getMaxValueLength()
+    {
+        return _maxValueLength;
+    }
+
+    /**
+     * <p>Puts the Huffman encoded literal of the given value, as
+     * {@link HpackEncoder} would, to the given buffer.</p>
+     *
+     * @param buffer the buffer to encode to
+     * @param value the value to encode
+     */
+    public void encodeValue(ByteBuffer buffer, String value)
+    {
+        if (value.length() > _maxValueLength)
+        {
+            HpackEncoder.encodeValue(buffer, true, value);
+            return;
+        }
+
+        byte[] encoded = _cache.get(value);
+        if (encoded == null)
+        {
+            _misses.increment();
+            int length = Huffman.octetsNeeded(value);
+            encoded = new byte[1 + NBitInteger.octectsNeeded(7, length) + length];
+            HpackEncoder.encodeValue(ByteBuffer.wrap(encoded), true, value);
+            if (_cache.size() >= _maxEntries)
+                _cache.clear();
+            _cache.put(value, encoded);
+        }
+        else
+        {
+            _hits.increment();
+        }
+        buffer.put(encoded);
+    }
+
+    public int size()
+    {
+        return _cache.size();
+    }
+
+    public long getHits()
+    {
+        return _hits.longValue();
+    }
+
+    public long getMisses()
+    {
+        return _misses.longValue();
+    }
+
+    public void clear()
+    {
+        _cache.clear();
+        _hits.reset();
+        _misses.reset();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{size=%d,hits=%d,misses=%d}", getClass().getSimpleName(), hashCode(), size(), getHits(), getMisses());
+    }
+}
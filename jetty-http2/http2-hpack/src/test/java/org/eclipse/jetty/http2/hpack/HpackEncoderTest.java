@@ -27,6 +27,7 @@ import java.nio.ByteBuffer;
 
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.util.BufferUtil;
@@ -250,6 +251,113 @@ public class HpackEncoderTest
         
     }
 
-    
+    @Test
+    public void testAdaptiveIndexPolicy()
+    {
+        HpackEncoder encoder = new HpackEncoder();
+        encoder.setIndexPolicy(new AdaptiveHpackIndexPolicy());
+        HpackDecoder decoder = new HpackDecoder(4096,8192);
+
+        HttpFields fields = new HttpFields();
+        fields.add("Content-Type","application/json");
+        fields.add("X-Api-Version","3");
+        fields.add("Date","Mon, 01 Jan 2018 00:00:00 GMT");
+        fields.add("Content-Length","12");
+
+        // First sighting, nothing is indexed
+        assertThat(encodeDecode(encoder,decoder,fields),equalTo(fields));
+        Assert.assertEquals(0,encoder.getHpackContext().size());
+
+        // Second sighting, the repeated fields are indexed
+        assertThat(encodeDecode(encoder,decoder,fields),equalTo(fields));
+        Assert.assertEquals(2,encoder.getHpackContext().size());
+        Assert.assertNotNull(encoder.getHpackContext().get(new HttpField("Content-Type","application/json")));
+        Assert.assertNotNull(encoder.getHpackContext().get(new HttpField("X-Api-Version","3")));
+
+        // Date and Content-Length are never indexed
+        for (int i=0;i<4;i++)
+            assertThat(encodeDecode(encoder,decoder,fields),equalTo(fields));
+        Assert.assertEquals(2,encoder.getHpackContext().size());
+        Assert.assertNull(encoder.getHpackContext().get(new HttpField(HttpHeader.DATE,"Mon, 01 Jan 2018 00:00:00 GMT")));
+        Assert.assertNull(encoder.getHpackContext().get(new HttpField("Content-Length","12")));
+    }
+
+    @Test
+    public void testAdaptiveIndexPolicyNeverIndexSetCookie()
+    {
+        HpackEncoder encoder = new HpackEncoder();
+        encoder.setIndexPolicy(new AdaptiveHpackIndexPolicy());
+        HpackDecoder decoder = new HpackDecoder(4096,8192);
+
+        HttpFields fields = new HttpFields();
+        fields.add("Set-Cookie","some cookie value");
 
+        for (int i=0;i<3;i++)
+        {
+            ByteBuffer buffer = encode(encoder,fields);
+            // Literal field never indexed
+            assertThat(buffer.get(0)&0xF0,equalTo(0x10));
+            assertThat(decoder.decode(buffer).getFields(),equalTo(fields));
+        }
+        Assert.assertEquals(0,encoder.getHpackContext().size());
+    }
+
+    @Test
+    public void testIndexPolicyFieldLargerThanTable()
+    {
+        HpackEncoder encoder = new HpackEncoder(128,128);
+        encoder.setIndexPolicy((context,field)->true);
+        HpackDecoder decoder = new HpackDecoder(128,8192);
+
+        HttpFields fields = new HttpFields();
+        fields.add("X-Small","value");
+        fields.add("X-Large",String.format("%0200d",0));
+
+        assertThat(encodeDecode(encoder,decoder,fields),equalTo(fields));
+        Assert.assertEquals(1,encoder.getHpackContext().size());
+        Assert.assertNull(encoder.getHpackContext().get("X-Large"));
+    }
+
+    @Test
+    public void testValueCache()
+    {
+        HpackValueCache cache = new HpackValueCache();
+
+        HttpFields fields = new HttpFields();
+        fields.add("Content-Type","application/json");
+        fields.add("Cache-Control","no-cache, no-store");
+        fields.add("Content-Length","1234");
+
+        HpackEncoder plain = new HpackEncoder();
+        ByteBuffer expected = encode(plain,fields);
+
+        for (int i=0;i<3;i++)
+        {
+            // Each encoder is a new connection sharing the cache
+            HpackEncoder encoder = new HpackEncoder();
+            encoder.setValueCache(cache);
+            ByteBuffer buffer = encode(encoder,fields);
+            assertThat(buffer,equalTo(expected));
+            assertThat(new HpackDecoder(4096,8192).decode(buffer).getFields(),equalTo(fields));
+        }
+
+        // Content-Length is not cached
+        Assert.assertEquals(2,cache.size());
+        Assert.assertEquals(2,cache.getMisses());
+        Assert.assertEquals(4,cache.getHits());
+    }
+
+    private static ByteBuffer encode(HpackEncoder encoder, HttpFields fields)
+    {
+        ByteBuffer buffer = BufferUtil.allocate(4096);
+        int pos = BufferUtil.flipToFill(buffer);
+        encoder.encode(buffer,new MetaData(HttpVersion.HTTP_2,fields));
+        BufferUtil.flipToFlush(buffer,pos);
+        return buffer;
+    }
+
+    private static HttpFields encodeDecode(HpackEncoder encoder, HpackDecoder decoder, HttpFields fields)
+    {
+        return decoder.decode(encode(encoder,fields)).getFields();
+    }
 }
@@ -31,3 +31,6 @@ etc/jetty-http2.xml
 ## Reserve threads for high priority tasks (-1 use number of Selectors, 0 no reserved threads)
 # jetty.http2.reservedThreads=-1
 
+## Whether HPACK indexes only the fields repeated by a connection
+# jetty.http2.adaptiveHpackIndexing=false
+
@@ -25,6 +25,9 @@ import org.eclipse.jetty.http2.FlowControlStrategy;
 import org.eclipse.jetty.http2.HTTP2Connection;
 import org.eclipse.jetty.http2.api.server.ServerSessionListener;
 import org.eclipse.jetty.http2.generator.Generator;
+import org.eclipse.jetty.http2.hpack.AdaptiveHpackIndexPolicy;
+import org.eclipse.jetty.http2.hpack.HpackIndexPolicy;
+import org.eclipse.jetty.http2.hpack.HpackValueCache;
 import org.eclipse.jetty.http2.parser.ServerParser;
 import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.EndPoint;
@@ -48,6 +51,8 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
     private int maxConcurrentStreams = 128;
     private int maxHeaderBlockFragment = 0;
     private FlowControlStrategy.Factory flowControlStrategyFactory = () -> new BufferingFlowControlStrategy(0.5F);
+    private HpackIndexPolicy.Factory hpackIndexPolicyFactory;
+    private HpackValueCache hpackValueCache;
     private long streamIdleTimeout;
     private int reservedThreads;
 
@@ -131,6 +136,43 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         this.flowControlStrategyFactory = flowControlStrategyFactory;
     }
 
+    public HpackIndexPolicy.Factory getHpackIndexPolicyFactory()
+    {
+        return hpackIndexPolicyFactory;
+    }
+
+    /**
+     * @param hpackIndexPolicyFactory the factory of the HPACK indexing policy of each connection,
+     * or null to use the fixed indexing rules of the HPACK encoder
+     * @see AdaptiveHpackIndexPolicy
+     */
+    public void setHpackIndexPolicyFactory(HpackIndexPolicy.Factory hpackIndexPolicyFactory)
+    {
+        this.hpackIndexPolicyFactory = hpackIndexPolicyFactory;
+    }
+
+    /**
+     * <p>Uses a {@link AdaptiveHpackIndexPolicy} for each connection.</p>
+     *
+     * @param adaptive whether HPACK indexing adapts to the fields repeated by each connection
+     */
+    public void setAdaptiveHpackIndexing(boolean adaptive)
+    {
+        setHpackIndexPolicyFactory(adaptive ? AdaptiveHpackIndexPolicy::new : null);
+    }
+
+    @ManagedAttribute("The cache of HPACK encoded values shared by the connections")
+    public HpackValueCache getHpackValueCache()
+    {
+        return hpackValueCache;
+    }
+
+    public void setHpackValueCache(HpackValueCache hpackValueCache)
+    {
+        updateBean(this.hpackValueCache, hpackValueCache);
+        this.hpackValueCache = hpackValueCache;
+    }
+
     @ManagedAttribute("The stream idle timeout in milliseconds")
     public long getStreamIdleTimeout()
     {
@@ -170,6 +212,10 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         ServerSessionListener listener = newSessionListener(connector, endPoint);
 
         Generator generator = new Generator(connector.getByteBufferPool(), getMaxDynamicTableSize(), getMaxHeaderBlockFragment());
+        HpackIndexPolicy.Factory hpackIndexPolicyFactory = getHpackIndexPolicyFactory();
+        if (hpackIndexPolicyFactory != null)
+            generator.setHpackIndexPolicy(hpackIndexPolicyFactory.newHpackIndexPolicy());
+        generator.setHpackValueCache(getHpackValueCache());
         FlowControlStrategy flowControl = getFlowControlStrategyFactory().newFlowControlStrategy();
         HTTP2ServerSession session = new HTTP2ServerSession(connector.getScheduler(), endPoint, generator, listener, flowControl);
         session.setMaxLocalStreams(getMaxConcurrentStreams());
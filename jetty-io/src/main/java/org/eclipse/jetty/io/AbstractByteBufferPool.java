@@ -0,0 +1,348 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.annotation.Name;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.eclipse.jetty.util.thread.Scheduler;
+
+/**
+ * <p>Base class for {@link ByteBufferPool}s that pool buffers in {@link ByteBufferPool.Bucket}s.</p>
+ * <p>The memory retained by the pool is bounded in bytes, separately for heap and direct
+ * buffers: a released buffer that would exceed the bound is discarded rather than pooled.</p>
+ * <p>When an {@link #setIdleTimeout(long) idle timeout} is configured, a periodic task run by
+ * the {@link #setScheduler(Scheduler) scheduler} evicts the pooled buffers that have not been
+ * acquired for at least the idle timeout, so that the memory retained after a traffic spike
+ * is eventually returned to the system.</p>
+ */
+@ManagedObject
+public abstract class AbstractByteBufferPool extends ContainerLifeCycle implements ByteBufferPool
+{
+    private static final Logger LOG = Log.getLogger(AbstractByteBufferPool.class);
+
+    private final int _factor;
+    private final int _maxQueueLength;
+    private final long _maxHeapMemory;
+    private final long _maxDirectMemory;
+    private final AtomicLong _heapMemory = new AtomicLong();
+    private final AtomicLong _directMemory = new AtomicLong();
+    private final LongAdder _discarded = new LongAdder();
+    private final LongAdder _evicted = new LongAdder();
+    private Scheduler _scheduler;
+    private long _idleTimeout;
+    private volatile Scheduler.Task _sweeper;
+
+    /**
+     * @param factor the capacity factor of the buckets
+     * @param maxQueueLength the max number of buffers per bucket, or -1 for unlimited
+     * @param maxHeapMemory the max heap memory in bytes retained by the pool,
+     * 0 for a heuristic value, or -1 for unlimited
+     * @param maxDirectMemory the max direct memory in bytes retained by the pool,
+     * 0 for a heuristic value, or -1 for unlimited
+     */
+    protected AbstractByteBufferPool(int factor, int maxQueueLength, long maxHeapMemory, long maxDirectMemory)
+    {
+        _factor = factor;
+        _maxQueueLength = maxQueueLength;
+        _maxHeapMemory = maxHeapMemory == 0 ? Runtime.getRuntime().maxMemory() / 4 : maxHeapMemory;
+        _maxDirectMemory = maxDirectMemory == 0 ? Runtime.getRuntime().maxMemory() / 4 : maxDirectMemory;
+    }
+
+    /**
+     * @param direct whether to return the direct buckets or the heap buckets
+     * @return the buckets of this pool
+     */
+    protected abstract Iterable<Bucket> getBuckets(boolean direct);
+
+    /**
+     * <p>Acquires a buffer from the given bucket, allocating a new one if the bucket is empty.</p>
+     *
+     * @param bucket the bucket to acquire from
+     * @param direct whether the buffer must be direct
+     * @return the acquired buffer
+     */
+    protected ByteBuffer acquireFrom(Bucket bucket, boolean direct)
+    {
+        ByteBuffer buffer = bucket.poll();
+        if (buffer == null)
+            return newByteBuffer(bucket.getCapacity(), direct);
+        updateMemory(-buffer.capacity(), direct);
+        return buffer;
+    }
+
+    /**
+     * <p>Releases a buffer to the given bucket, unless the bucket is full or
+     * pooling the buffer would exceed the max memory.</p>
+     *
+     * @param bucket the bucket to release to
+     * @param buffer the buffer to release
+     */
+    protected void releaseTo(Bucket bucket, ByteBuffer buffer)
+    {
+        int capacity = buffer.capacity();
+        boolean direct = buffer.isDirect();
+        if (reserveMemory(capacity, direct))
+        {
+            if (bucket.offer(buffer))
+                return;
+            freeMemory(capacity, direct);
+        }
+        _discarded.increment();
+    }
+
+    /**
+     * <p>Accounts for memory retained by the pool outside of its buckets.</p>
+     *
+     * @param bytes the number of bytes to retain
+     * @param direct whether the bytes are direct or heap memory
+     * @return true if the bytes were accounted, false if retaining them would exceed the max memory
+     * @see #freeMemory(long, boolean)
+     */
+    protected boolean reserveMemory(long bytes, boolean direct)
+    {
+        long maxMemory = direct ? _maxDirectMemory : _maxHeapMemory;
+        long memory = updateMemory(bytes, direct);
+        if (maxMemory >= 0 && memory > maxMemory)
+        {
+            updateMemory(-bytes, direct);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * <p>Accounts for memory no longer retained by the pool outside of its buckets.</p>
+     *
+     * @param bytes the number of bytes no longer retained
+     * @param direct whether the bytes are direct or heap memory
+     * @see #reserveMemory(long, boolean)
+     */
+    protected void freeMemory(long bytes, boolean direct)
+    {
+        updateMemory(-bytes, direct);
+    }
+
+    /**
+     * <p>Removes all the buffers from the given bucket.</p>
+     *
+     * @param bucket the bucket to clear
+     */
+    protected void clear(Bucket bucket)
+    {
+        bucket.clear(buffer -> updateMemory(-buffer.capacity(), buffer.isDirect()));
+    }
+
+    private long updateMemory(long bytes, boolean direct)
+    {
+        return (direct ? _directMemory : _heapMemory).addAndGet(bytes);
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        if (_idleTimeout > 0 && _scheduler == null)
+        {
+            _scheduler = new ScheduledExecutorScheduler(String.format("ByteBufferPool@%x-sweeper", hashCode()), true);
+            addBean(_scheduler);
+        }
+        super.doStart();
+        if (_idleTimeout > 0)
+            scheduleSweep();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        Scheduler.Task sweeper = _sweeper;
+        _sweeper = null;
+        if (sweeper != null)
+            sweeper.cancel();
+        super.doStop();
+    }
+
+    private void scheduleSweep()
+    {
+        _sweeper = _scheduler.schedule(this::sweep, _idleTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * <p>Evicts the pooled buffers that have not been acquired since the previous sweep.</p>
+     */
+    protected void sweep()
+    {
+        try
+        {
+            int evicted = 0;
+            for (Bucket bucket : getBuckets(false))
+                evicted += bucket.evictIdle(buffer -> updateMemory(-buffer.capacity(), false));
+            for (Bucket bucket : getBuckets(true))
+                evicted += bucket.evictIdle(buffer -> updateMemory(-buffer.capacity(), true));
+            _evicted.add(evicted);
+            if (LOG.isDebugEnabled())
+                LOG.debug("Evicted {} idle buffers from {}", evicted, this);
+        }
+        catch (Throwable x)
+        {
+            LOG.warn(x);
+        }
+        finally
+        {
+            if (isRunning())
+                scheduleSweep();
+        }
+    }
+
+    @ManagedAttribute("The capacity factor of the buckets")
+    public int getFactor()
+    {
+        return _factor;
+    }
+
+    @ManagedAttribute("The max number of buffers per bucket")
+    public int getMaxQueueLength()
+    {
+        return _maxQueueLength;
+    }
+
+    @ManagedAttribute("The max heap memory in bytes retained by the pool")
+    public long getMaxHeapMemory()
+    {
+        return _maxHeapMemory;
+    }
+
+    @ManagedAttribute("The max direct memory in bytes retained by the pool")
+    public long getMaxDirectMemory()
+    {
+        return _maxDirectMemory;
+    }
+
+    @ManagedAttribute("The heap memory in bytes retained by the pool")
+    public long getHeapMemory()
+    {
+        return _heapMemory.get();
+    }
+
+    @ManagedAttribute("The direct memory in bytes retained by the pool")
+    public long getDirectMemory()
+    {
+        return _directMemory.get();
+    }
+
+    @ManagedAttribute("The number of released buffers discarded because the pool was full")
+    public long getDiscardedBuffers()
+    {
+        return _discarded.sum();
+    }
+
+    @ManagedAttribute("The number of idle buffers evicted from the pool")
+    public long getEvictedBuffers()
+    {
+        return _evicted.sum();
+    }
+
+    /**
+     * @param direct whether to report the direct buckets or the heap buckets
+     * @return the bytes retained by each bucket, keyed by bucket capacity
+     */
+    @ManagedOperation(value = "The bytes retained by each bucket, keyed by bucket capacity", impact = "INFO")
+    public Map<Integer, Long> getRetainedBytes(@Name("direct") boolean direct)
+    {
+        Map<Integer, Long> result = new TreeMap<>();
+        for (Bucket bucket : getBuckets(direct))
+        {
+            long bytes = bucket.getRetainedBytes();
+            if (bytes > 0)
+                result.merge(bucket.getCapacity(), bytes, Long::sum);
+        }
+        return result;
+    }
+
+    public Scheduler getScheduler()
+    {
+        return _scheduler;
+    }
+
+    /**
+     * @param scheduler the scheduler used to evict idle buffers;
+     * if null, a scheduler is created when needed
+     */
+    public void setScheduler(Scheduler scheduler)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        updateBean(_scheduler, scheduler);
+        _scheduler = scheduler;
+    }
+
+    @ManagedAttribute("The idle timeout in ms after which pooled buffers are evicted")
+    public long getIdleTimeout()
+    {
+        return _idleTimeout;
+    }
+
+    /**
+     * @param idleTimeout the time in ms a pooled buffer may remain unused before
+     * being evicted, or a non-positive value to never evict idle buffers
+     */
+    public void setIdleTimeout(long idleTimeout)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        _idleTimeout = idleTimeout;
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        List<Bucket> heap = new ArrayList<>();
+        getBuckets(false).forEach(heap::add);
+        List<Bucket> direct = new ArrayList<>();
+        getBuckets(true).forEach(direct::add);
+        dumpBeans(out, indent, heap, direct);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{heap=%d/%d,direct=%d/%d}",
+                getClass().getSimpleName(),
+                hashCode(),
+                getHeapMemory(),
+                getMaxHeapMemory(),
+                getDirectMemory(),
+                getMaxDirectMemory());
+    }
+}
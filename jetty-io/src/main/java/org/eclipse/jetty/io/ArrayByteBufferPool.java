@@ -19,14 +19,22 @@
 package org.eclipse.jetty.io;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
-public class ArrayByteBufferPool implements ByteBufferPool
+import org.eclipse.jetty.util.annotation.ManagedObject;
+
+/**
+ * <p>A ByteBuffer pool where ByteBuffers are held in queues that are held in array elements.</p>
+ * <p>Given a capacity {@code factor} of 1024, the first array element holds a queue of ByteBuffers
+ * each of capacity 1024, the second array element holds a queue of ByteBuffers each of capacity
+ * 2048, and so on.</p>
+ */
+@ManagedObject
+public class ArrayByteBufferPool extends AbstractByteBufferPool
 {
     private final int _min;
-    private final int _maxQueue;
     private final ByteBufferPool.Bucket[] _direct;
     private final ByteBufferPool.Bucket[] _indirect;
-    private final int _inc;
 
     public ArrayByteBufferPool()
     {
@@ -40,10 +48,25 @@ public class ArrayByteBufferPool implements ByteBufferPool
     
     public ArrayByteBufferPool(int minSize, int increment, int maxSize, int maxQueue)
     {
+        this(minSize,increment,maxSize,maxQueue,-1,-1);
+    }
+
+    /**
+     * @param minSize the minimum ByteBuffer capacity
+     * @param increment the ByteBuffer capacity increment
+     * @param maxSize the maximum ByteBuffer capacity
+     * @param maxQueue the maximum number of ByteBuffers in each bucket, or -1 for unlimited
+     * @param maxHeapMemory the max heap memory in bytes retained by this pool,
+     * 0 for a heuristic value, or -1 for unlimited
+     * @param maxDirectMemory the max direct memory in bytes retained by this pool,
+     * 0 for a heuristic value, or -1 for unlimited
+     */
+    public ArrayByteBufferPool(int minSize, int increment, int maxSize, int maxQueue, long maxHeapMemory, long maxDirectMemory)
+    {
+        super(increment<=0?1024:increment,maxQueue,maxHeapMemory,maxDirectMemory);
+        increment=getFactor();
         if (minSize<=0)
             minSize=0;
-        if (increment<=0)
-            increment=1024;
         if (maxSize<=0)
             maxSize=64*1024;
         if (minSize>=increment)
@@ -51,18 +74,16 @@ public class ArrayByteBufferPool implements ByteBufferPool
         if ((maxSize%increment)!=0 || increment>=maxSize)
             throw new IllegalArgumentException("increment must be a divisor of maxSize");
         _min=minSize;
-        _inc=increment;
 
         _direct=new ByteBufferPool.Bucket[maxSize/increment];
         _indirect=new ByteBufferPool.Bucket[maxSize/increment];
-        _maxQueue=maxQueue;
 
         int size=0;
         for (int i=0;i<_direct.length;i++)
         {
-            size+=_inc;
-            _direct[i]=new ByteBufferPool.Bucket(this,size,_maxQueue);
-            _indirect[i]=new ByteBufferPool.Bucket(this,size,_maxQueue);
+            size+=increment;
+            _direct[i]=new ByteBufferPool.Bucket(this,size,maxQueue);
+            _indirect[i]=new ByteBufferPool.Bucket(this,size,maxQueue);
         }
     }
 
@@ -73,8 +94,7 @@ public class ArrayByteBufferPool implements ByteBufferPool
         if (bucket==null)
             return newByteBuffer(size,direct);
             
-        return bucket.acquire(direct);
-            
+        return acquireFrom(bucket,direct);
     }
 
     @Override
@@ -84,7 +104,7 @@ public class ArrayByteBufferPool implements ByteBufferPool
         {    
             ByteBufferPool.Bucket bucket = bucketFor(buffer.capacity(),buffer.isDirect());
             if (bucket!=null)
-                bucket.release(buffer);
+                releaseTo(bucket,buffer);
         }
     }
 
@@ -92,8 +112,8 @@ public class ArrayByteBufferPool implements ByteBufferPool
     {
         for (int i=0;i<_direct.length;i++)
         {
-            _direct[i].clear();
-            _indirect[i].clear();
+            clear(_direct[i]);
+            clear(_indirect[i]);
         }
     }
 
@@ -101,7 +121,7 @@ public class ArrayByteBufferPool implements ByteBufferPool
     {
         if (size<=_min)
             return null;
-        int b=(size-1)/_inc;
+        int b=(size-1)/getFactor();
         if (b>=_direct.length)
             return null;
         ByteBufferPool.Bucket bucket = direct?_direct[b]:_indirect[b];
@@ -109,6 +129,12 @@ public class ArrayByteBufferPool implements ByteBufferPool
         return bucket;
     }
 
+    @Override
+    protected Iterable<ByteBufferPool.Bucket> getBuckets(boolean direct)
+    {
+        return Arrays.asList(bucketsFor(direct));
+    }
+
     // Package local for testing
     ByteBufferPool.Bucket[] bucketsFor(boolean direct)
     {
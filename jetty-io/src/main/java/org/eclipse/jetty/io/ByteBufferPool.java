@@ -24,6 +24,7 @@ import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import org.eclipse.jetty.util.BufferUtil;
 
@@ -129,66 +130,124 @@ public interface ByteBufferPool
         private final Deque<ByteBuffer> _queue = new ConcurrentLinkedDeque<>();
         private final ByteBufferPool _pool;
         private final int _capacity;
-        private final AtomicInteger _space;
+        private final int _maxSize;
+        private final AtomicInteger _size = new AtomicInteger();
+        private final AtomicInteger _lowWaterMark = new AtomicInteger();
 
         public Bucket(ByteBufferPool pool, int bufferSize, int maxSize)
         {
             _pool = pool;
             _capacity = bufferSize;
-            _space = maxSize > 0 ? new AtomicInteger(maxSize) : null;
+            _maxSize = maxSize;
         }
 
         public ByteBuffer acquire(boolean direct)
         {
-            ByteBuffer buffer = queuePoll();
+            ByteBuffer buffer = poll();
             if (buffer == null)
                 return _pool.newByteBuffer(_capacity, direct);
-            if (_space != null)
-                _space.incrementAndGet();
             return buffer;
         }
 
         public void release(ByteBuffer buffer)
         {
-            BufferUtil.clear(buffer);
-            if (_space == null)
-                queueOffer(buffer);
-            else if (_space.decrementAndGet() >= 0)
-                queueOffer(buffer);
-            else
-                _space.incrementAndGet();
+            offer(buffer);
         }
 
         public void clear()
         {
-            if (_space == null)
-            {
-                queueClear();
-            }
-            else
+            clear(null);
+        }
+
+        public int getCapacity()
+        {
+            return _capacity;
+        }
+
+        /**
+         * @return the approximate number of bytes retained by this bucket
+         */
+        public long getRetainedBytes()
+        {
+            return (long)_size.get() * _capacity;
+        }
+
+        /**
+         * @return a pooled buffer, or null if this bucket is empty
+         */
+        ByteBuffer poll()
+        {
+            ByteBuffer buffer = _queue.poll();
+            if (buffer != null)
             {
-                int s = _space.getAndSet(0);
-                while (s-- > 0)
+                int size = _size.decrementAndGet();
+                // Track the smallest size since the last eviction:
+                // that many buffers at the tail of the queue have not been used since.
+                while (true)
                 {
-                    if (queuePoll() == null)
-                        _space.incrementAndGet();
+                    int low = _lowWaterMark.get();
+                    if (size >= low || _lowWaterMark.compareAndSet(low, size))
+                        break;
                 }
             }
+            return buffer;
         }
 
-        private void queueOffer(ByteBuffer buffer)
+        /**
+         * @param buffer the buffer to pool
+         * @return whether the buffer was pooled, or false if this bucket is full
+         */
+        boolean offer(ByteBuffer buffer)
         {
+            BufferUtil.clear(buffer);
+            int size = _size.incrementAndGet();
+            if (_maxSize > 0 && size > _maxSize)
+            {
+                _size.decrementAndGet();
+                return false;
+            }
             _queue.offerFirst(buffer);
+            return true;
         }
 
-        private ByteBuffer queuePoll()
+        /**
+         * <p>Evicts the buffers that have not been acquired since the previous call to this method.</p>
+         * <p>Buffers are acquired from the head of the queue and released to the head of the queue,
+         * so the buffers that remained unused are those at the tail of the queue.</p>
+         *
+         * @param onEvicted the function invoked for each evicted buffer, or null
+         * @return the number of evicted buffers
+         */
+        int evictIdle(Consumer<ByteBuffer> onEvicted)
         {
-            return _queue.poll();
+            int idle = _lowWaterMark.get();
+            int evicted = 0;
+            while (evicted < idle)
+            {
+                ByteBuffer buffer = _queue.pollLast();
+                if (buffer == null)
+                    break;
+                _size.decrementAndGet();
+                ++evicted;
+                if (onEvicted != null)
+                    onEvicted.accept(buffer);
+            }
+            _lowWaterMark.set(_size.get());
+            return evicted;
         }
 
-        private void queueClear()
+        void clear(Consumer<ByteBuffer> onCleared)
         {
-            _queue.clear();
+            while (true)
+            {
+                ByteBuffer buffer = _queue.poll();
+                if (buffer == null)
+                    break;
+                _size.decrementAndGet();
+                if (onCleared != null)
+                    onCleared.accept(buffer);
+            }
+            _lowWaterMark.set(0);
         }
 
         boolean isEmpty()
@@ -31,8 +31,9 @@ import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.AbstractLifeCycle;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.component.Dumpable;
-import org.eclipse.jetty.util.statistic.CounterStatistic;
-import org.eclipse.jetty.util.statistic.SampleStatistic;
+import org.eclipse.jetty.util.statistic.StripedCounterStatistic;
+import org.eclipse.jetty.util.statistic.StripedHistogramStatistic;
+import org.eclipse.jetty.util.statistic.StripedSampleStatistic;
 
 /**
  * <p>A {@link Connection.Listener} that tracks connection statistics.</p>
@@ -40,12 +41,18 @@ import org.eclipse.jetty.util.statistic.SampleStatistic;
  * (for the server) or to HttpClient (for the client) will trigger the
  * tracking of the connection statistics for all connections managed
  * by the server Connector or by HttpClient.</p>
+ * <p>The durations of connections and the bytes received and sent by each
+ * connection are also recorded in {@link StripedHistogramStatistic}s, so that their
+ * percentiles are available.</p>
  */
 @ManagedObject("Tracks statistics on connections")
 public class ConnectionStatistics extends AbstractLifeCycle implements Connection.Listener, Dumpable
 {
-    private final CounterStatistic _connections = new CounterStatistic();
-    private final SampleStatistic _connectionsDuration = new SampleStatistic();
+    private final StripedCounterStatistic _connections = new StripedCounterStatistic();
+    private final StripedSampleStatistic _connectionsDuration = new StripedSampleStatistic();
+    private final StripedHistogramStatistic _connectionsDurationHistogram = new StripedHistogramStatistic();
+    private final StripedHistogramStatistic _rcvdBytesHistogram = new StripedHistogramStatistic();
+    private final StripedHistogramStatistic _sentBytesHistogram = new StripedHistogramStatistic();
     private final LongAdder _rcvdBytes = new LongAdder();
     private final AtomicLong _bytesInStamp = new AtomicLong();
     private final LongAdder _sentBytes = new LongAdder();
@@ -55,11 +62,14 @@ public class ConnectionStatistics extends AbstractLifeCycle implements Connectio
     private final LongAdder _messagesOut = new LongAdder();
     private final AtomicLong _messagesOutStamp = new AtomicLong();
 
-    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    @ManagedOperation(value = "Resets the statistics, not atomically with respect to connections closed concurrently", impact = "ACTION")
     public void reset()
     {
         _connections.reset();
         _connectionsDuration.reset();
+        _connectionsDurationHistogram.reset();
+        _rcvdBytesHistogram.reset();
+        _sentBytesHistogram.reset();
         _rcvdBytes.reset();
         _bytesInStamp.set(System.nanoTime());
         _sentBytes.reset();
@@ -95,13 +105,19 @@ public class ConnectionStatistics extends AbstractLifeCycle implements Connectio
 
         long elapsed = System.currentTimeMillis() - connection.getCreatedTimeStamp();
         _connectionsDuration.set(elapsed);
+        _connectionsDurationHistogram.set(elapsed);
 
         long bytesIn = connection.getBytesIn();
         if (bytesIn > 0)
             _rcvdBytes.add(bytesIn);
+        // Connections that do not count bytes return -1.
+        if (bytesIn >= 0)
+            _rcvdBytesHistogram.set(bytesIn);
         long bytesOut = connection.getBytesOut();
         if (bytesOut > 0)
             _sentBytes.add(bytesOut);
+        if (bytesOut >= 0)
+            _sentBytesHistogram.set(bytesOut);
 
         long messagesIn = connection.getMessagesIn();
         if (messagesIn > 0)
@@ -159,6 +175,63 @@ public class ConnectionStatistics extends AbstractLifeCycle implements Connectio
         return _connectionsDuration.getStdDev();
     }
 
+    @ManagedAttribute("The median duration of a connection in ms")
+    public long getConnectionDurationP50()
+    {
+        return _connectionsDurationHistogram.getValueAtPercentile(50);
+    }
+
+    @ManagedAttribute("The 99th percentile of the duration of a connection in ms")
+    public long getConnectionDurationP99()
+    {
+        return _connectionsDurationHistogram.getValueAtPercentile(99);
+    }
+
+    @ManagedAttribute("The 99.9th percentile of the duration of a connection in ms")
+    public long getConnectionDurationP999()
+    {
+        return _connectionsDurationHistogram.getValueAtPercentile(99.9);
+    }
+
+    public StripedHistogramStatistic getConnectionDurationHistogram()
+    {
+        return _connectionsDurationHistogram;
+    }
+
+    @ManagedAttribute("The median number of bytes received by a connection")
+    public long getReceivedBytesP50()
+    {
+        return _rcvdBytesHistogram.getValueAtPercentile(50);
+    }
+
+    @ManagedAttribute("The 99th percentile of the number of bytes received by a connection")
+    public long getReceivedBytesP99()
+    {
+        return _rcvdBytesHistogram.getValueAtPercentile(99);
+    }
+
+    public StripedHistogramStatistic getReceivedBytesHistogram()
+    {
+        return _rcvdBytesHistogram;
+    }
+
+    @ManagedAttribute("The median number of bytes sent by a connection")
+    public long getSentBytesP50()
+    {
+        return _sentBytesHistogram.getValueAtPercentile(50);
+    }
+
+    @ManagedAttribute("The 99th percentile of the number of bytes sent by a connection")
+    public long getSentBytesP99()
+    {
+        return _sentBytesHistogram.getValueAtPercentile(99);
+    }
+
+    public StripedHistogramStatistic getSentBytesHistogram()
+    {
+        return _sentBytesHistogram;
+    }
+
     @ManagedAttribute("The total number of connections opened")
     public long getConnectionsTotal()
     {
@@ -220,6 +293,8 @@ public class ConnectionStatistics extends AbstractLifeCycle implements Connectio
         List<String> children = new ArrayList<>();
         children.add(String.format("connections=%s", _connections));
         children.add(String.format("durations=%s", _connectionsDuration));
+        children.add(String.format("durations histogram=%s", _connectionsDurationHistogram));
+        children.add(String.format("bytes in/out histograms=%s/%s", _rcvdBytesHistogram, _sentBytesHistogram));
         children.add(String.format("bytes in/out=%s/%s", getReceivedBytes(), getSentBytes()));
         children.add(String.format("messages in/out=%s/%s", getReceivedMessages(), getSentMessages()));
         ContainerLifeCycle.dump(out, indent, children);
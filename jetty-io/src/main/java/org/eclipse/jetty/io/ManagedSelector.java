@@ -26,18 +26,22 @@ import java.nio.channels.CancelledKeyException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.component.Dumpable;
 import org.eclipse.jetty.util.log.Log;
@@ -45,9 +49,9 @@ import org.eclipse.jetty.util.log.Logger;
 import org.eclipse.jetty.util.thread.ExecutionStrategy;
 import org.eclipse.jetty.util.thread.Invocable;
 import org.eclipse.jetty.util.thread.Invocable.InvocationType;
-import org.eclipse.jetty.util.thread.Locker;
 import org.eclipse.jetty.util.thread.ReservedThreadExecutor;
 import org.eclipse.jetty.util.thread.Scheduler;
+import org.eclipse.jetty.util.thread.strategy.AdaptiveExecutionStrategy;
 import org.eclipse.jetty.util.thread.strategy.EatWhatYouKill;
 
 /**
@@ -55,14 +59,19 @@ import org.eclipse.jetty.util.thread.strategy.EatWhatYouKill;
  * <p>{@link ManagedSelector} runs the select loop, which waits on {@link Selector#select()} until events
  * happen for registered channels. When events happen, it notifies the {@link EndPoint} associated
  * with the channel.</p>
+ * <p>Other threads submit actions, such as the registration of channels or the update of the interest
+ * operations of keys, to a lock-free queue, and wake up the selector only if it is blocked in select.</p>
  */
+@ManagedObject("Manager of a NIO Selector")
 public class ManagedSelector extends ContainerLifeCycle implements Dumpable
 {
     private static final Logger LOG = Log.getLogger(ManagedSelector.class);
 
-    private final Locker _locker = new Locker();
-    private boolean _selecting = false;
-    private final Queue<Runnable> _actions = new ArrayDeque<>();
+    private final AtomicBoolean _selecting = new AtomicBoolean();
+    private final Queue<Runnable> _actions = new ConcurrentLinkedQueue<>();
+    private final LongAdder _actionsProcessed = new LongAdder();
+    private final LongAdder _wakeups = new LongAdder();
+    private final LongAdder _selects = new LongAdder();
     private final SelectorManager _selectorManager;
     private final int _id;
     private final ExecutionStrategy _strategy;
@@ -74,7 +83,12 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         _id = id;
         SelectorProducer producer = new SelectorProducer();
         Executor executor = selectorManager.getExecutor();
-        _strategy = new EatWhatYouKill(producer,executor,_selectorManager.getBean(ReservedThreadExecutor.class));            
+        ReservedThreadExecutor reserved = _selectorManager.getBean(ReservedThreadExecutor.class);
+        boolean virtualThreads = _selectorManager.isUseVirtualThreads();
+        if (_selectorManager.isAdaptiveExecutionStrategy())
+            _strategy = new AdaptiveExecutionStrategy(producer,executor,reserved,virtualThreads);
+        else
+            _strategy = new EatWhatYouKill(producer,executor,reserved,virtualThreads);
         addBean(_strategy,true);
         setStopTimeout(5000);
     }
@@ -125,24 +139,61 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
             LOG.debug("Stopped {}", this);
     }
 
+    /**
+     * <p>Queues an action to be run by the selector thread.</p>
+     * <p>The selector is woken up only if it is blocked in select,
+     * and only by the first action queued while it is blocked,
+     * so that many concurrent submissions cause a single wakeup.</p>
+     *
+     * @param change the action to run
+     */
     public void submit(Runnable change)
     {
         if (LOG.isDebugEnabled())
             LOG.debug("Queued change {} on {}", change, this);
 
-        Selector selector = null;
-        try (Locker.Lock lock = _locker.lock())
+        _actions.offer(change);
+        if (_selecting.compareAndSet(true, false))
         {
-            _actions.offer(change);
-            if (_selecting)
+            Selector selector = _selector;
+            if (selector != null)
             {
-                selector = _selector;
-                // To avoid the extra select wakeup.
-                _selecting = false;
+                _wakeups.increment();
+                selector.wakeup();
             }
         }
-        if (selector != null)
-            selector.wakeup();
+    }
+
+    @ManagedAttribute(value = "The number of actions run by the selector", readonly = true)
+    public long getActionsProcessed()
+    {
+        return _actionsProcessed.sum();
+    }
+
+    @ManagedAttribute(value = "The number of actions waiting to be run by the selector", readonly = true)
+    public int getActionsPending()
+    {
+        return _actions.size();
+    }
+
+    @ManagedAttribute(value = "The number of wakeups of the selector to run actions", readonly = true)
+    public long getWakeups()
+    {
+        return _wakeups.sum();
+    }
+
+    @ManagedAttribute(value = "The number of iterations of the select loop", readonly = true)
+    public long getSelects()
+    {
+        return _selects.sum();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _actionsProcessed.reset();
+        _wakeups.reset();
+        _selects.reset();
     }
 
     private Runnable processConnect(SelectionKey key, final Connect connect)
@@ -305,18 +356,20 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         {
             while (true)
             {
-                Runnable action;
-                try (Locker.Lock lock = _locker.lock())
+                Runnable action = _actions.poll();
+                if (action == null)
                 {
-                    action = _actions.poll();
-                    if (action == null)
-                    {
-                        // No more actions, so we need to select
-                        _selecting = true;
+                    // No more actions, so we need to select.
+                    _selecting.set(true);
+                    // An action queued before the flag was set did not wake up the
+                    // selector, so it must be run now, unless a submitter has already
+                    // cleared the flag to wake up the select that is about to happen.
+                    if (_actions.isEmpty() || !_selecting.compareAndSet(true, false))
                         return null;
-                    }
+                    continue;
                 }
 
+                _actionsProcessed.increment();
                 if (Invocable.getInvocationType(action)==InvocationType.BLOCKING)
                     return action;
 
@@ -347,11 +400,9 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
                     if (LOG.isDebugEnabled())
                         LOG.debug("Selector loop woken up from select, {}/{} selected", selected, selector.keys().size());
 
-                    try (Locker.Lock lock = _locker.lock())
-                    {
-                        // finished selecting
-                        _selecting = false;
-                    }
+                    // Finished selecting, submitters need not wake up the selector.
+                    _selecting.set(false);
+                    _selects.increment();
 
                     _keys = selector.selectedKeys();
                     _cursor = _keys.iterator();
@@ -504,11 +555,23 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
     class Acceptor extends NonBlockingAction implements Selectable, Closeable
     {
         private final SelectableChannel _channel;
+        private final boolean _owner;
         private SelectionKey _key;
 
         public Acceptor(SelectableChannel channel)
+        {
+            this(channel, false);
+        }
+
+        /**
+         * @param channel the server channel
+         * @param owner whether this selector owns the accepted channels
+         * @see SelectorManager#acceptor(SelectableChannel, int)
+         */
+        public Acceptor(SelectableChannel channel, boolean owner)
         {
             this._channel = channel;
+            this._owner = owner;
         }
 
         @Override
@@ -543,7 +606,10 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
                     channel = _selectorManager.doAccept(server);
                     if (channel==null)
                         break;
-                    _selectorManager.accepted(channel);
+                    if (_owner)
+                        _selectorManager.accepted(channel, _id);
+                    else
+                        _selectorManager.accepted(channel);
                 }
             }
             catch (Throwable x)
@@ -25,13 +25,19 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.annotation.ManagedObject;
 
-public class MappedByteBufferPool implements ByteBufferPool
+/**
+ * <p>A ByteBuffer pool where ByteBuffers are held in queues that are held in a Map.</p>
+ * <p>Given a capacity {@code factor} of 1024, the Map entry with key {@code 1} holds a
+ * queue of ByteBuffers each of capacity 1024, the Map entry with key {@code 2} holds a
+ * queue of ByteBuffers each of capacity 2048, and so on.</p>
+ */
+@ManagedObject
+public class MappedByteBufferPool extends AbstractByteBufferPool
 {
     private final ConcurrentMap<Integer, Bucket> directBuffers = new ConcurrentHashMap<>();
     private final ConcurrentMap<Integer, Bucket> heapBuffers = new ConcurrentHashMap<>();
-    private final int _factor;
-    private final int _maxQueue;
     private final Function<Integer, Bucket> _newBucket;
 
     public MappedByteBufferPool()
@@ -51,9 +57,22 @@ public class MappedByteBufferPool implements ByteBufferPool
     
     public MappedByteBufferPool(int factor,int maxQueue,Function<Integer, Bucket> newBucket)
     {
-        _factor = factor<=0?1024:factor;
-        _maxQueue = maxQueue;
-        _newBucket = newBucket!=null?newBucket:i->new Bucket(this,i*_factor,_maxQueue);
+        this(factor,maxQueue,newBucket,-1,-1);
+    }
+
+    /**
+     * @param factor the capacity factor
+     * @param maxQueue the maximum number of ByteBuffers in each bucket, or -1 for unlimited
+     * @param newBucket the function that creates a Bucket, or null for the default
+     * @param maxHeapMemory the max heap memory in bytes retained by this pool,
+     * 0 for a heuristic value, or -1 for unlimited
+     * @param maxDirectMemory the max direct memory in bytes retained by this pool,
+     * 0 for a heuristic value, or -1 for unlimited
+     */
+    public MappedByteBufferPool(int factor,int maxQueue,Function<Integer, Bucket> newBucket,long maxHeapMemory,long maxDirectMemory)
+    {
+        super(factor<=0?1024:factor,maxQueue,maxHeapMemory,maxDirectMemory);
+        _newBucket = newBucket!=null?newBucket:i->new Bucket(this,i*getFactor(),maxQueue);
     }
 
     @Override
@@ -64,8 +83,8 @@ public class MappedByteBufferPool implements ByteBufferPool
 
         Bucket bucket = buffers.get(b);
         if (bucket==null)
-            return newByteBuffer(b*_factor, direct);
-        return bucket.acquire(direct);
+            return newByteBuffer(b*getFactor(), direct);
+        return acquireFrom(bucket,direct);
     }
 
     @Override
@@ -75,31 +94,38 @@ public class MappedByteBufferPool implements ByteBufferPool
             return; // nothing to do
         
         // validate that this buffer is from this pool
-        assert((buffer.capacity() % _factor) == 0);
+        assert((buffer.capacity() % getFactor()) == 0);
         
         int b = bucketFor(buffer.capacity());
         ConcurrentMap<Integer, Bucket> buckets = bucketsFor(buffer.isDirect());
 
         Bucket bucket = buckets.computeIfAbsent(b,_newBucket);
-        bucket.release(buffer);
+        releaseTo(bucket,buffer);
     }
 
     public void clear()
     {
-        directBuffers.values().forEach(Bucket::clear);
+        directBuffers.values().forEach(this::clear);
         directBuffers.clear();
-        heapBuffers.values().forEach(Bucket::clear);
+        heapBuffers.values().forEach(this::clear);
         heapBuffers.clear();
     }
 
     private int bucketFor(int size)
     {
-        int bucket = size / _factor;
-        if (size % _factor > 0)
+        int factor = getFactor();
+        int bucket = size / factor;
+        if (size % factor > 0)
             ++bucket;
         return bucket;
     }
 
+    @Override
+    protected Iterable<Bucket> getBuckets(boolean direct)
+    {
+        return bucketsFor(direct).values();
+    }
+
     // Package local for testing
     ConcurrentMap<Integer, Bucket> bucketsFor(boolean direct)
     {
@@ -39,6 +39,8 @@ import org.eclipse.jetty.util.log.Logger;
 import org.eclipse.jetty.util.thread.ReservedThreadExecutor;
 import org.eclipse.jetty.util.thread.Scheduler;
 import org.eclipse.jetty.util.thread.ThreadPool;
+import org.eclipse.jetty.util.thread.VirtualThreads;
+import org.eclipse.jetty.util.thread.strategy.AdaptiveExecutionStrategy;
 import org.eclipse.jetty.util.thread.strategy.EatWhatYouKill;
 
 /**
@@ -59,7 +61,10 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
     private final ManagedSelector[] _selectors;
     private long _connectTimeout = DEFAULT_CONNECT_TIMEOUT;
     private long _selectorIndex;
+    private final long[] _shardIndexes;
     private int _reservedThreads = -1;
+    private boolean _adaptiveExecutionStrategy;
+    private boolean _useVirtualThreads;
 
     public static int defaultSchedulers(Executor executor)
     {
@@ -91,6 +96,7 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
         this.executor = executor;
         this.scheduler = scheduler;
         _selectors = new ManagedSelector[selectors];
+        _shardIndexes = new long[selectors];
     }
 
     @ManagedAttribute("The Executor")
@@ -157,6 +163,55 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
         _reservedThreads = threads;
     }
     
+    /**
+     * @return whether the selectors use an {@link AdaptiveExecutionStrategy}
+     * @see #setAdaptiveExecutionStrategy(boolean)
+     */
+    @ManagedAttribute("Whether the selectors adapt their execution strategy to the load")
+    public boolean isAdaptiveExecutionStrategy()
+    {
+        return _adaptiveExecutionStrategy;
+    }
+
+    /**
+     * <p>Sets whether the selectors use an {@link AdaptiveExecutionStrategy},
+     * which measures the cost of consuming tasks in the selector thread versus
+     * executing them in the thread pool, rather than an {@link EatWhatYouKill}
+     * strategy, which consumes tasks whenever a reserved thread is available.</p>
+     * <p>Each selector adapts independently to the load of its connections.
+     * This setting is applied when the selectors are started.</p>
+     *
+     * @param adaptive whether the selectors use an {@link AdaptiveExecutionStrategy}
+     */
+    public void setAdaptiveExecutionStrategy(boolean adaptive)
+    {
+        _adaptiveExecutionStrategy = adaptive;
+    }
+
+    /**
+     * @return whether the selectors execute the tasks that may block in virtual threads
+     * @see #setUseVirtualThreads(boolean)
+     */
+    @ManagedAttribute("Whether the selectors execute the tasks that may block in virtual threads")
+    public boolean isUseVirtualThreads()
+    {
+        return _useVirtualThreads;
+    }
+
+    /**
+     * <p>Sets whether the selectors execute the tasks that may block, such as the
+     * reads of the connections, in the virtual threads of the executor, when the
+     * executor is {@link VirtualThreads#isUseVirtualThreads(Executor) configured} with them.
+     * The selector threads remain platform threads.</p>
+     * <p>This setting is applied when the selectors are started.</p>
+     *
+     * @param useVirtualThreads whether to execute the tasks that may block in virtual threads
+     */
+    public void setUseVirtualThreads(boolean useVirtualThreads)
+    {
+        _useVirtualThreads = useVirtualThreads;
+    }
+
     /**
      * Executes the given task in a different thread.
      *
@@ -261,6 +316,60 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
         selector.submit(selector.new Accept(channel, attachment));
     }
 
+    /**
+     * <p>Registers a channel to perform non-blocking read/write operations on the given
+     * selector, rather than on a selector chosen by this manager.</p>
+     * <p>This method is used when the connections are sharded among the selectors, for
+     * example when each selector accepts from its own server channel and owns the
+     * connections it accepts.</p>
+     *
+     * @param channel    the channel to register
+     * @param attachment the attachment object
+     * @param selector   the index of the selector, modulo the number of selectors
+     * @see #accept(SelectableChannel, Object)
+     */
+    public void accept(SelectableChannel channel, Object attachment, int selector)
+    {
+        final ManagedSelector managed = _selectors[Math.floorMod(selector, getSelectorCount())];
+        managed.submit(managed.new Accept(channel, attachment));
+    }
+
+    /**
+     * <p>Registers a channel to perform non-blocking read/write operations on one of the
+     * selectors of the given shard.</p>
+     * <p>The selectors are partitioned among the shards: a shard owns the selectors whose
+     * index modulo the number of shards is the shard, and spreads its channels over them
+     * in turn. This is used when the connections are accepted from several server channels,
+     * for example one per acceptor, so that each selector is fed by a single server channel
+     * and all the selectors are used even if there are fewer server channels than selectors.
+     * When there are more shards than selectors, a selector is shared by several shards.</p>
+     *
+     * @param channel    the channel to register
+     * @param attachment the attachment object
+     * @param shard      the index of the shard
+     * @param shards     the number of shards
+     */
+    public void accept(SelectableChannel channel, Object attachment, int shard, int shards)
+    {
+        final ManagedSelector managed = chooseSelector(shard, shards);
+        managed.submit(managed.new Accept(channel, attachment));
+    }
+
+    private ManagedSelector chooseSelector(int shard, int shards)
+    {
+        int count = getSelectorCount();
+        shard = Math.floorMod(shard, shards);
+        if (shards >= count)
+            return _selectors[shard % count];
+
+        // The selectors with index shard, shard+shards, shard+2*shards, ...
+        int owned = (count - shard + shards - 1) / shards;
+        // As for _selectorIndex the ++ is not atomic, but a shard is
+        // usually used by a single acceptor thread anyway.
+        long s = _shardIndexes[shard]++;
+        return _selectors[shard + shards * (int)(s % owned)];
+    }
+
     /**
      * <p>Registers a server channel for accept operations.
      * When a {@link SocketChannel} is accepted from the given {@link ServerSocketChannel}
@@ -278,6 +387,23 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
         return acceptor;
     }
 
+    /**
+     * <p>Registers a server channel for accept operations on the given selector,
+     * that owns the channels it accepts: they are passed to
+     * {@link #accepted(SelectableChannel, int)} with the index of the selector.</p>
+     *
+     * @param server the server channel to register
+     * @param selector the index of the selector, modulo the number of selectors
+     * @return A Closable that allows the acceptor to be cancelled
+     */
+    public Closeable acceptor(SelectableChannel server, int selector)
+    {
+        final ManagedSelector managed = _selectors[Math.floorMod(selector, getSelectorCount())];
+        ManagedSelector.Acceptor acceptor = managed.new Acceptor(server, true);
+        managed.submit(acceptor);
+        return acceptor;
+    }
+
     /**
      * Callback method when a channel is accepted from the {@link ServerSocketChannel}
      * passed to {@link #acceptor(SelectableChannel)}.
@@ -292,6 +418,22 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Callback method when a channel is accepted from the {@link ServerSocketChannel}
+     * passed to {@link #acceptor(SelectableChannel, int)}.
+     * The default impl calls {@link #accepted(SelectableChannel)}; subclasses may override
+     * it to register the channel with {@link #accept(SelectableChannel, Object, int)}, so
+     * that the connection stays on the selector that accepted it.
+     *
+     * @param channel the accepted channel
+     * @param selector the index of the selector that accepted the channel
+     * @throws IOException if unable to accept channel
+     */
+    protected void accepted(SelectableChannel channel, int selector) throws IOException
+    {
+        accepted(channel);
+    }
+
     @Override
     protected void doStart() throws Exception
     {
@@ -0,0 +1,477 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+
+/**
+ * <p>A {@link ByteBufferPool} that avoids a single shared queue per buffer size.</p>
+ * <p>Released buffers are first kept in a small cache private to the releasing thread,
+ * so that a thread (typically a selector or a pooled thread serving a connection) that
+ * acquires and releases buffers in a loop never contends with other threads.
+ * When the thread cache is full, buffers are released to one of several lock-free
+ * global stripes, selected by thread, and an acquire that misses the thread cache
+ * polls its own stripe first and then the others before allocating a new buffer.</p>
+ * <p>The memory retained by the pool, thread caches included, is bounded in bytes,
+ * separately for heap and direct buffers, as for the other {@link AbstractByteBufferPool}s.
+ * A thread cache reserves memory from these bounds in chunks of {@link #getMaxCapacity()}
+ * bytes, so that it does not update the shared accounting on every acquire and release;
+ * the memory reported by the pool therefore includes the unused part of these chunks.
+ * Each thread cache also retains at most {@link #getMaxThreadCacheMemory()} bytes.</p>
+ * <p>Buffers have a capacity that is a multiple of the {@link #getFactor() factor},
+ * up to {@link #getMaxCapacity() maxCapacity}; larger buffers are neither pooled nor retained.</p>
+ * <p>{@link #clear()} empties the thread caches as well as the stripes. Stopping the pool
+ * clears it and detaches the thread caches from their threads, and the caches of threads
+ * that have terminated are discarded when another thread first uses the pool and by
+ * the periodic {@link #setIdleTimeout(long) eviction of idle buffers}.</p>
+ */
+@ManagedObject("A ByteBufferPool with per-thread caches and striped global buckets")
+public class StripedByteBufferPool extends AbstractByteBufferPool
+{
+    private final int _maxCapacity;
+    private final int _threadCacheSize;
+    private final long _maxThreadCacheMemory;
+    private final Stripe[] _stripes;
+    private final List<Bucket> _heapBuckets = new ArrayList<>();
+    private final List<Bucket> _directBuckets = new ArrayList<>();
+    private final Set<ThreadCache> _threadCaches = ConcurrentHashMap.newKeySet();
+    private final LongAdder _threadCacheHits = new LongAdder();
+    private final LongAdder _stripeHits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private volatile ThreadLocal<ThreadCache> _threadCache = ThreadLocal.withInitial(this::newThreadCache);
+
+    /**
+     * Creates a pool with default configuration.
+     */
+    public StripedByteBufferPool()
+    {
+        this(-1, -1, -1, -1, 0, 0);
+    }
+
+    /**
+     * @param factor the capacity factor of pooled buffers, or -1 for the default (1024)
+     * @param maxCapacity the max capacity of pooled buffers, or -1 for the default (64 KiB)
+     * @param stripes the number of global stripes, or -1 for the default (based on the number of processors)
+     * @param threadCacheSize the max number of buffers per size cached by each thread, or -1 for the default (4);
+     * each thread cache also retains at most {@code threadCacheSize * maxCapacity} bytes
+     * @param maxHeapMemory the max heap memory in bytes retained by the pool,
+     * 0 for a heuristic value, or -1 for unlimited
+     * @param maxDirectMemory the max direct memory in bytes retained by the pool,
+     * 0 for a heuristic value, or -1 for unlimited
+     */
+    public StripedByteBufferPool(int factor, int maxCapacity, int stripes, int threadCacheSize, long maxHeapMemory, long maxDirectMemory)
+    {
+        super(factor <= 0 ? 1024 : factor, -1, maxHeapMemory, maxDirectMemory);
+        factor = getFactor();
+        _maxCapacity = maxCapacity <= 0 ? 64 * 1024 : maxCapacity;
+        if (_maxCapacity % factor != 0 || factor > _maxCapacity)
+            throw new IllegalArgumentException("factor must be a divisor of maxCapacity");
+        _threadCacheSize = threadCacheSize < 0 ? 4 : threadCacheSize;
+        _maxThreadCacheMemory = (long)_threadCacheSize * _maxCapacity;
+
+        if (stripes <= 0)
+            stripes = Runtime.getRuntime().availableProcessors();
+        // Round up to a power of 2 so that the stripe can be selected with a mask.
+        int length = Integer.highestOneBit(stripes);
+        if (length < stripes)
+            length <<= 1;
+        int buckets = _maxCapacity / factor;
+        _stripes = new Stripe[length];
+        for (int i = 0; i < length; ++i)
+        {
+            Stripe stripe = new Stripe(this, buckets, factor);
+            _stripes[i] = stripe;
+            _heapBuckets.addAll(stripe._heap);
+            _directBuckets.addAll(stripe._direct);
+        }
+    }
+
+    @Override
+    public ByteBuffer acquire(int size, boolean direct)
+    {
+        int bucket = bucketFor(size);
+        if (bucket < 0)
+        {
+            _misses.increment();
+            return newByteBuffer(size, direct);
+        }
+
+        ByteBuffer buffer = _threadCache.get().poll(bucket, direct);
+        if (buffer != null)
+        {
+            _threadCacheHits.increment();
+            return buffer;
+        }
+
+        buffer = pollStripes(bucket, direct);
+        if (buffer != null)
+        {
+            _stripeHits.increment();
+            return buffer;
+        }
+
+        _misses.increment();
+        return newByteBuffer(capacityFor(bucket), direct);
+    }
+
+    @Override
+    public void release(ByteBuffer buffer)
+    {
+        if (buffer == null)
+            return;
+
+        int capacity = buffer.capacity();
+        // Only pool buffers that could have been allocated by this pool.
+        if (capacity == 0 || capacity % getFactor() != 0 || capacity > _maxCapacity)
+            return;
+
+        BufferUtil.clear(buffer);
+        int bucket = capacity / getFactor() - 1;
+        boolean direct = buffer.isDirect();
+        if (_threadCache.get().offer(bucket, direct, buffer))
+            return;
+
+        releaseTo(stripeFor(Thread.currentThread()).bucketFor(bucket, direct), buffer);
+    }
+
+    /**
+     * <p>Discards all the buffers retained by this pool, including those cached by threads.</p>
+     */
+    @ManagedOperation(value = "Discards all the pooled buffers", impact = "ACTION")
+    public void clear()
+    {
+        for (ThreadCache threadCache : _threadCaches)
+        {
+            if (threadCache.isTerminated())
+                remove(threadCache);
+            else
+                threadCache.clear();
+        }
+        _heapBuckets.forEach(this::clear);
+        _directBuckets.forEach(this::clear);
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        // Threads that use this pool again after it is stopped get new caches.
+        _threadCache = ThreadLocal.withInitial(this::newThreadCache);
+        for (ThreadCache threadCache : _threadCaches)
+            remove(threadCache);
+        clear();
+        super.doStop();
+    }
+
+    @Override
+    protected void sweep()
+    {
+        removeTerminatedThreadCaches();
+        super.sweep();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _threadCacheHits.reset();
+        _stripeHits.reset();
+        _misses.reset();
+    }
+
+    private ThreadCache newThreadCache()
+    {
+        removeTerminatedThreadCaches();
+        ThreadCache threadCache = new ThreadCache(Thread.currentThread());
+        _threadCaches.add(threadCache);
+        return threadCache;
+    }
+
+    private void removeTerminatedThreadCaches()
+    {
+        for (ThreadCache threadCache : _threadCaches)
+        {
+            if (threadCache.isTerminated())
+                remove(threadCache);
+        }
+    }
+
+    private void remove(ThreadCache threadCache)
+    {
+        if (_threadCaches.remove(threadCache))
+            threadCache.close();
+    }
+
+    private ByteBuffer pollStripes(int bucket, boolean direct)
+    {
+        int mask = _stripes.length - 1;
+        int start = stripeIndex(Thread.currentThread());
+        for (int i = 0; i < _stripes.length; ++i)
+        {
+            ByteBuffer buffer = _stripes[(start + i) & mask].bucketFor(bucket, direct).poll();
+            if (buffer != null)
+            {
+                freeMemory(buffer.capacity(), direct);
+                return buffer;
+            }
+        }
+        return null;
+    }
+
+    private Stripe stripeFor(Thread thread)
+    {
+        return _stripes[stripeIndex(thread)];
+    }
+
+    private int stripeIndex(Thread thread)
+    {
+        long id = thread.getId();
+        // Spread the bits, as thread ids are often allocated sequentially in groups.
+        int hash = (int)(id ^ (id >>> 32));
+        hash ^= (hash >>> 16);
+        return hash & (_stripes.length - 1);
+    }
+
+    private int bucketFor(int size)
+    {
+        if (size <= 0 || size > _maxCapacity)
+            return -1;
+        return (size - 1) / getFactor();
+    }
+
+    private int capacityFor(int bucket)
+    {
+        return (bucket + 1) * getFactor();
+    }
+
+    @Override
+    protected Iterable<Bucket> getBuckets(boolean direct)
+    {
+        return direct ? _directBuckets : _heapBuckets;
+    }
+
+    @ManagedAttribute("The max capacity of pooled buffers")
+    public int getMaxCapacity()
+    {
+        return _maxCapacity;
+    }
+
+    @ManagedAttribute("The number of global stripes")
+    public int getStripes()
+    {
+        return _stripes.length;
+    }
+
+    @ManagedAttribute("The max number of buffers per size cached by each thread")
+    public int getThreadCacheSize()
+    {
+        return _threadCacheSize;
+    }
+
+    @ManagedAttribute("The max memory in bytes cached by each thread")
+    public long getMaxThreadCacheMemory()
+    {
+        return _maxThreadCacheMemory;
+    }
+
+    @ManagedAttribute("The number of thread caches")
+    public int getThreadCaches()
+    {
+        return _threadCaches.size();
+    }
+
+    @ManagedAttribute("The number of acquires satisfied by the thread cache")
+    public long getThreadCacheHits()
+    {
+        return _threadCacheHits.sum();
+    }
+
+    @ManagedAttribute("The number of acquires satisfied by the global stripes")
+    public long getStripeHits()
+    {
+        return _stripeHits.sum();
+    }
+
+    @ManagedAttribute("The number of acquires that allocated a new buffer")
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{stripes=%d,threads=%d,heap=%d/%d,direct=%d/%d,hits=%d/%d,misses=%d,discarded=%d}",
+                getClass().getSimpleName(),
+                hashCode(),
+                _stripes.length,
+                getThreadCaches(),
+                getHeapMemory(),
+                getMaxHeapMemory(),
+                getDirectMemory(),
+                getMaxDirectMemory(),
+                getThreadCacheHits(),
+                getStripeHits(),
+                getMisses(),
+                getDiscardedBuffers());
+    }
+
+    private static class Stripe
+    {
+        private final List<Bucket> _heap = new ArrayList<>();
+        private final List<Bucket> _direct = new ArrayList<>();
+
+        private Stripe(ByteBufferPool pool, int buckets, int factor)
+        {
+            for (int i = 0; i < buckets; ++i)
+            {
+                _heap.add(new Bucket(pool, (i + 1) * factor, -1));
+                _direct.add(new Bucket(pool, (i + 1) * factor, -1));
+            }
+        }
+
+        private Bucket bucketFor(int bucket, boolean direct)
+        {
+            return direct ? _direct.get(bucket) : _heap.get(bucket);
+        }
+    }
+
+    /**
+     * <p>The per-thread cache, used by its owning thread and cleared by other threads.</p>
+     * <p>Its lock is only contended while the pool is cleared or stopped.</p>
+     */
+    private class ThreadCache
+    {
+        private final WeakReference<Thread> _owner;
+        private final ByteBuffer[][] _heap = new ByteBuffer[_maxCapacity / getFactor()][];
+        private final ByteBuffer[][] _direct = new ByteBuffer[_maxCapacity / getFactor()][];
+        private final int[] _heapSizes = new int[_heap.length];
+        private final int[] _directSizes = new int[_direct.length];
+        // The bytes cached and the bytes reserved from the pool, for heap (0) and direct (1) buffers.
+        private final long[] _memory = new long[2];
+        private final long[] _reserved = new long[2];
+        private boolean _closed;
+
+        private ThreadCache(Thread owner)
+        {
+            _owner = new WeakReference<>(owner);
+        }
+
+        private synchronized ByteBuffer poll(int bucket, boolean direct)
+        {
+            int[] sizes = direct ? _directSizes : _heapSizes;
+            int size = sizes[bucket];
+            if (size == 0)
+                return null;
+            ByteBuffer[] buffers = (direct ? _direct : _heap)[bucket];
+            ByteBuffer buffer = buffers[--size];
+            buffers[size] = null;
+            sizes[bucket] = size;
+
+            int index = direct ? 1 : 0;
+            _memory[index] -= buffer.capacity();
+            // Return the reserved memory that is unlikely to be used again soon.
+            long unused = _reserved[index] - _memory[index];
+            if (unused > 2L * _maxCapacity)
+            {
+                long free = unused - _maxCapacity;
+                _reserved[index] -= free;
+                freeMemory(free, direct);
+            }
+            return buffer;
+        }
+
+        private synchronized boolean offer(int bucket, boolean direct, ByteBuffer buffer)
+        {
+            if (_closed)
+                return false;
+            int capacity = buffer.capacity();
+            if (_memory[0] + _memory[1] + capacity > _maxThreadCacheMemory)
+                return false;
+            int[] sizes = direct ? _directSizes : _heapSizes;
+            int size = sizes[bucket];
+            if (size >= _threadCacheSize)
+                return false;
+
+            int index = direct ? 1 : 0;
+            if (_memory[index] + capacity > _reserved[index])
+            {
+                long reserve = Math.max(capacity, _maxCapacity);
+                if (!reserveMemory(reserve, direct))
+                    return false;
+                _reserved[index] += reserve;
+            }
+
+            ByteBuffer[][] buckets = direct ? _direct : _heap;
+            ByteBuffer[] buffers = buckets[bucket];
+            if (buffers == null)
+                buffers = buckets[bucket] = new ByteBuffer[_threadCacheSize];
+            buffers[size] = buffer;
+            sizes[bucket] = size + 1;
+            _memory[index] += capacity;
+            return true;
+        }
+
+        private boolean isTerminated()
+        {
+            Thread owner = _owner.get();
+            return owner == null || !owner.isAlive();
+        }
+
+        private synchronized void clear()
+        {
+            clear(_heap, _heapSizes);
+            clear(_direct, _directSizes);
+            for (int index = 0; index < 2; ++index)
+            {
+                freeMemory(_reserved[index], index == 1);
+                _reserved[index] = 0;
+                _memory[index] = 0;
+            }
+        }
+
+        private synchronized void close()
+        {
+            _closed = true;
+            clear();
+        }
+
+        private void clear(ByteBuffer[][] buckets, int[] sizes)
+        {
+            for (int i = 0; i < buckets.length; ++i)
+            {
+                if (buckets[i] != null)
+                {
+                    for (int j = 0; j < sizes[i]; ++j)
+                        buckets[i][j] = null;
+                }
+                sizes[i] = 0;
+            }
+        }
+    }
+}
@@ -24,7 +24,11 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.io.ByteBufferPool.Bucket;
 import org.junit.Test;
@@ -169,4 +173,94 @@ public class ArrayByteBufferPoolTest
         assertEquals(2, bucket.size());
     }
 
+    @Test
+    public void testMaxMemory() throws Exception
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(-1,1024,16*1024,-1,3*1024,-1);
+
+        ByteBuffer buffer1 = bufferPool.acquire(1024, false);
+        ByteBuffer buffer2 = bufferPool.acquire(1024, false);
+        ByteBuffer buffer3 = bufferPool.acquire(2048, false);
+
+        bufferPool.release(buffer1);
+        bufferPool.release(buffer2);
+        assertEquals(2048, bufferPool.getHeapMemory());
+
+        // Would exceed the max heap memory.
+        bufferPool.release(buffer3);
+        assertEquals(2048, bufferPool.getHeapMemory());
+        assertEquals(1, bufferPool.getDiscardedBuffers());
+
+        bufferPool.acquire(1024, false);
+        assertEquals(1024, bufferPool.getHeapMemory());
+
+        bufferPool.clear();
+        assertEquals(0, bufferPool.getHeapMemory());
+    }
+
+    @Test
+    public void testRetainedBytes() throws Exception
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(-1,1024,16*1024);
+
+        bufferPool.release(bufferPool.acquire(1000, true));
+        bufferPool.release(bufferPool.acquire(1000, true));
+        bufferPool.release(bufferPool.acquire(4000, true));
+        bufferPool.release(bufferPool.acquire(4000, false));
+
+        Map<Integer, Long> retained = bufferPool.getRetainedBytes(true);
+        assertEquals(2, retained.size());
+        assertEquals(1024L, (long)retained.get(1024));
+        assertEquals(4096L, (long)retained.get(4096));
+        assertEquals(5120, bufferPool.getDirectMemory());
+        assertEquals(4096, bufferPool.getHeapMemory());
+    }
+
+    @Test
+    public void testIdleEviction() throws Exception
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(-1,1024,16*1024);
+
+        // A traffic spike leaves 4 buffers in the pool.
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int i=0;i<4;i++)
+            buffers.add(bufferPool.acquire(1024, false));
+        buffers.forEach(bufferPool::release);
+        assertEquals(4*1024, bufferPool.getHeapMemory());
+
+        // Only one buffer is used after the spike.
+        bufferPool.sweep();
+        bufferPool.release(bufferPool.acquire(1024, false));
+        bufferPool.sweep();
+
+        assertEquals(3, bufferPool.getEvictedBuffers());
+        assertEquals(1024, bufferPool.getHeapMemory());
+
+        // The remaining buffer is evicted when unused for a whole period.
+        bufferPool.sweep();
+        assertEquals(4, bufferPool.getEvictedBuffers());
+        assertEquals(0, bufferPool.getHeapMemory());
+    }
+
+    @Test
+    public void testIdleEvictionScheduled() throws Exception
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(-1,1024,16*1024);
+        bufferPool.setIdleTimeout(100);
+        bufferPool.start();
+        try
+        {
+            bufferPool.release(bufferPool.acquire(1024, true));
+            assertEquals(1024, bufferPool.getDirectMemory());
+
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (bufferPool.getDirectMemory() > 0 && System.nanoTime() < end)
+                Thread.sleep(50);
+            assertEquals(0, bufferPool.getDirectMemory());
+        }
+        finally
+        {
+            bufferPool.stop();
+        }
+    }
 }
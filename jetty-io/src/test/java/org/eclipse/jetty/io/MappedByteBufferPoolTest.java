@@ -159,4 +159,43 @@ public class MappedByteBufferPoolTest
         assertEquals(2, bucket.size());
 
     }
+
+    @Test
+    public void testMaxMemory() throws Exception
+    {
+        MappedByteBufferPool bufferPool = new MappedByteBufferPool(1024,-1,null,-1,2048);
+        ConcurrentMap<Integer,Bucket> buckets = bufferPool.bucketsFor(true);
+
+        ByteBuffer buffer1 = bufferPool.acquire(1024, true);
+        ByteBuffer buffer2 = bufferPool.acquire(1024, true);
+        ByteBuffer buffer3 = bufferPool.acquire(1024, true);
+        bufferPool.release(buffer1);
+        bufferPool.release(buffer2);
+        bufferPool.release(buffer3);
+
+        assertEquals(2, buckets.get(1).size());
+        assertEquals(2048, bufferPool.getDirectMemory());
+        assertEquals(1, bufferPool.getDiscardedBuffers());
+    }
+
+    @Test
+    public void testIdleEviction() throws Exception
+    {
+        MappedByteBufferPool bufferPool = new MappedByteBufferPool();
+        ConcurrentMap<Integer,Bucket> buckets = bufferPool.bucketsFor(false);
+
+        ByteBuffer buffer1 = bufferPool.acquire(512, false);
+        ByteBuffer buffer2 = bufferPool.acquire(4096, false);
+        bufferPool.release(buffer1);
+        bufferPool.release(buffer2);
+
+        bufferPool.sweep();
+        // Keep the small bucket in use.
+        bufferPool.release(bufferPool.acquire(512, false));
+        bufferPool.sweep();
+
+        assertEquals(1, buckets.get(1).size());
+        assertEquals(0, buckets.get(4).size());
+        assertEquals(1024, bufferPool.getHeapMemory());
+    }
 }
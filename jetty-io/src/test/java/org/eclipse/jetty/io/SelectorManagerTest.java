@@ -31,8 +31,10 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.jetty.toolchain.test.annotation.Slow;
 import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.thread.Invocable;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.util.thread.TimerScheduler;
+import org.hamcrest.Matchers;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -161,4 +163,77 @@ public class SelectorManagerTest
             selectorManager.stop();
         }
     }
+
+    @Test
+    public void testConcurrentSubmitsCoalesceWakeups() throws Exception
+    {
+        SelectorManager selectorManager = new SelectorManager(executor, scheduler, 1)
+        {
+            @Override
+            protected EndPoint newEndPoint(SelectableChannel channel, ManagedSelector selector, SelectionKey key) throws IOException
+            {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Connection newConnection(SelectableChannel channel, EndPoint endpoint, Object attachment) throws IOException
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+        selectorManager.start();
+
+        try
+        {
+            ManagedSelector selector = selectorManager.getBean(ManagedSelector.class);
+            int threads = 8;
+            int actions = 1000;
+            CountDownLatch latch = new CountDownLatch(threads * actions);
+            Runnable action = new NonBlockingAction(latch);
+            Thread[] submitters = new Thread[threads];
+            for (int i = 0; i < threads; ++i)
+            {
+                submitters[i] = new Thread(() ->
+                {
+                    for (int j = 0; j < actions; ++j)
+                        selector.submit(action);
+                });
+                submitters[i].start();
+            }
+            for (Thread submitter : submitters)
+                submitter.join();
+
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(threads * actions, selector.getActionsProcessed());
+            // Only submissions that find the selector blocked wake it up.
+            Assert.assertThat(selector.getWakeups(), Matchers.lessThan((long)threads * actions));
+            Assert.assertThat(selector.getSelects(), Matchers.greaterThanOrEqualTo(selector.getWakeups()));
+        }
+        finally
+        {
+            selectorManager.stop();
+        }
+    }
+
+    private static class NonBlockingAction implements Runnable, Invocable
+    {
+        private final CountDownLatch latch;
+
+        private NonBlockingAction(CountDownLatch latch)
+        {
+            this.latch = latch;
+        }
+
+        @Override
+        public void run()
+        {
+            latch.countDown();
+        }
+
+        @Override
+        public InvocationType getInvocationType()
+        {
+            return InvocationType.NON_BLOCKING;
+        }
+    }
 }
@@ -0,0 +1,260 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.junit.Test;
+
+public class StripedByteBufferPoolTest
+{
+    @Test
+    public void testAcquireCapacity() throws Exception
+    {
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(100, 1000, 2, 4, -1, -1);
+
+        ByteBuffer buffer = bufferPool.acquire(1, true);
+        assertTrue(buffer.isDirect());
+        assertEquals(100, buffer.capacity());
+        assertEquals(0, buffer.remaining());
+
+        buffer = bufferPool.acquire(101, false);
+        assertEquals(200, buffer.capacity());
+
+        // Too large to be pooled.
+        buffer = bufferPool.acquire(1001, false);
+        assertEquals(1001, buffer.capacity());
+        assertEquals(3, bufferPool.getMisses());
+    }
+
+    @Test
+    public void testThreadCacheHit() throws Exception
+    {
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(100, 1000, 2, 4, -1, -1);
+
+        ByteBuffer buffer = bufferPool.acquire(150, true);
+        bufferPool.release(buffer);
+        // The thread cache reserves memory in chunks of maxCapacity bytes.
+        assertEquals(1000, bufferPool.getDirectMemory());
+
+        assertSame(buffer, bufferPool.acquire(150, true));
+        assertEquals(1, bufferPool.getThreadCacheHits());
+        assertEquals(1, bufferPool.getMisses());
+
+        // Heap and direct buffers are cached separately.
+        bufferPool.release(buffer);
+        assertNotSame(buffer, bufferPool.acquire(150, false));
+    }
+
+    @Test
+    public void testStripeHitFromOtherThread() throws Exception
+    {
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(100, 1000, 2, 0, -1, -1);
+
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 4; ++i)
+            buffers.add(bufferPool.acquire(100, false));
+        // With no thread cache, released buffers go to the stripes.
+        buffers.forEach(bufferPool::release);
+        assertEquals(400, bufferPool.getHeapMemory());
+
+        CountDownLatch latch = new CountDownLatch(1);
+        List<ByteBuffer> acquired = new ArrayList<>();
+        new Thread(() ->
+        {
+            for (int i = 0; i < 4; ++i)
+                acquired.add(bufferPool.acquire(100, false));
+            latch.countDown();
+        }).start();
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        for (ByteBuffer buffer : acquired)
+            assertTrue(buffers.contains(buffer));
+        assertEquals(4, bufferPool.getStripeHits());
+        assertEquals(0, bufferPool.getHeapMemory());
+    }
+
+    @Test
+    public void testMaxMemory() throws Exception
+    {
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(100, 1000, 1, 0, 250, 1000);
+
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 5; ++i)
+            buffers.add(bufferPool.acquire(100, false));
+        buffers.forEach(bufferPool::release);
+
+        assertEquals(200, bufferPool.getHeapMemory());
+        assertEquals(3, bufferPool.getDiscardedBuffers());
+    }
+
+    @Test
+    public void testThreadCacheMaxMemory() throws Exception
+    {
+        // Each thread caches at most 2 * 1000 bytes.
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(100, 1000, 1, 2, -1, -1);
+
+        ByteBuffer buffer1 = bufferPool.acquire(1000, false);
+        ByteBuffer buffer2 = bufferPool.acquire(1000, false);
+        ByteBuffer buffer3 = bufferPool.acquire(500, false);
+        bufferPool.release(buffer1);
+        bufferPool.release(buffer2);
+        bufferPool.release(buffer3);
+
+        // 2 * 1000 bytes reserved by the thread cache and 500 bytes in the stripe.
+        assertEquals(2500, bufferPool.getHeapMemory());
+        assertSame(buffer3, bufferPool.acquire(500, false));
+        assertEquals(1, bufferPool.getStripeHits());
+    }
+
+    @Test
+    public void testThreadCacheCountsAgainstMaxMemory() throws Exception
+    {
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(100, 1000, 1, 4, 2500, -1);
+
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 3; ++i)
+            buffers.add(bufferPool.acquire(1000, false));
+        buffers.forEach(bufferPool::release);
+
+        // The third buffer fits the thread cache, but not the max memory.
+        assertEquals(2000, bufferPool.getHeapMemory());
+        assertEquals(1, bufferPool.getDiscardedBuffers());
+    }
+
+    @Test
+    public void testReleaseEmptyBuffer() throws Exception
+    {
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(100, 1000, 1, 4, -1, -1);
+
+        bufferPool.release(BufferUtil.EMPTY_BUFFER);
+        bufferPool.release(ByteBuffer.allocateDirect(0));
+
+        assertEquals(0, bufferPool.getHeapMemory());
+        assertEquals(0, bufferPool.getDirectMemory());
+    }
+
+    @Test
+    public void testReleaseForeignBuffer() throws Exception
+    {
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(100, 1000, 1, 0, -1, -1);
+
+        bufferPool.release(ByteBuffer.allocate(150));
+        bufferPool.release(ByteBuffer.allocate(2000));
+        bufferPool.release(null);
+
+        assertEquals(0, bufferPool.getHeapMemory());
+    }
+
+    @Test
+    public void testClear() throws Exception
+    {
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(100, 1000, 2, 4, -1, -1);
+
+        ByteBuffer cached = bufferPool.acquire(100, true);
+        bufferPool.release(cached);
+        bufferPool.clear();
+
+        assertNotSame(cached, bufferPool.acquire(100, true));
+        assertEquals(0, bufferPool.getThreadCacheHits());
+        assertEquals(0, bufferPool.getDirectMemory());
+    }
+
+    @Test
+    public void testClearThreadCacheOfOtherThread() throws Exception
+    {
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(100, 1000, 1, 4, -1, -1);
+
+        CountDownLatch released = new CountDownLatch(1);
+        CountDownLatch cleared = new CountDownLatch(1);
+        AtomicReference<ByteBuffer> cached = new AtomicReference<>();
+        AtomicReference<ByteBuffer> acquired = new AtomicReference<>();
+        Thread thread = new Thread(() ->
+        {
+            try
+            {
+                cached.set(bufferPool.acquire(100, false));
+                bufferPool.release(cached.get());
+                released.countDown();
+                cleared.await();
+                acquired.set(bufferPool.acquire(100, false));
+            }
+            catch (InterruptedException x)
+            {
+                throw new RuntimeException(x);
+            }
+        });
+        thread.start();
+        assertTrue(released.await(5, TimeUnit.SECONDS));
+        assertEquals(1000, bufferPool.getHeapMemory());
+
+        bufferPool.clear();
+        assertEquals(0, bufferPool.getHeapMemory());
+        cleared.countDown();
+        thread.join(5000);
+
+        assertNotSame(cached.get(), acquired.get());
+        assertEquals(0, bufferPool.getThreadCacheHits());
+    }
+
+    @Test
+    public void testTerminatedThreadCacheIsRemoved() throws Exception
+    {
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(100, 1000, 1, 4, -1, -1);
+
+        Thread thread = new Thread(() -> bufferPool.release(bufferPool.acquire(100, false)));
+        thread.start();
+        thread.join(5000);
+        assertEquals(1, bufferPool.getThreadCaches());
+        assertEquals(1000, bufferPool.getHeapMemory());
+
+        // A new thread cache removes those of terminated threads.
+        bufferPool.acquire(100, false);
+        assertEquals(1, bufferPool.getThreadCaches());
+        assertEquals(0, bufferPool.getHeapMemory());
+    }
+
+    @Test
+    public void testStopDetachesThreadCaches() throws Exception
+    {
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(100, 1000, 1, 4, -1, -1);
+        bufferPool.start();
+
+        ByteBuffer cached = bufferPool.acquire(100, false);
+        bufferPool.release(cached);
+        assertEquals(1, bufferPool.getThreadCaches());
+
+        bufferPool.stop();
+        assertEquals(0, bufferPool.getThreadCaches());
+        assertEquals(0, bufferPool.getHeapMemory());
+        assertNotSame(cached, bufferPool.acquire(100, false));
+    }
+}
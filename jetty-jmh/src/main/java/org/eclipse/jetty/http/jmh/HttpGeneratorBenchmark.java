@@ -0,0 +1,128 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.http.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpGenerator;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http.PreEncodedHttpField;
+import org.eclipse.jetty.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Thread)
+@Fork(value = 1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class HttpGeneratorBenchmark
+{
+    private static final PreEncodedHttpField CONTENT_TYPE = new PreEncodedHttpField(HttpHeader.CONTENT_TYPE, "text/html;charset=utf-8");
+
+    @Param({"true", "false"})
+    public boolean chunked;
+
+    @Param({"1024"})
+    public int contentSize;
+
+    private HttpGenerator generator;
+    private MetaData.Response response;
+    private ByteBuffer header;
+    private ByteBuffer chunk;
+    private ByteBuffer content;
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        generator = new HttpGenerator(true, false);
+        HttpFields fields = new HttpFields();
+        fields.put(CONTENT_TYPE);
+        fields.put(HttpHeader.DATE, "Thu, 01 Jun 2017 10:00:00 GMT");
+        fields.put(HttpHeader.CACHE_CONTROL, "no-cache");
+        fields.put("X-Request-Id", "6f1c9a3e-2b4d-4c1f-9b3e-1f2a3b4c5d6e");
+        response = new MetaData.Response(HttpVersion.HTTP_1_1, 200, fields, chunked ? -1 : contentSize);
+        header = BufferUtil.allocate(8192);
+        chunk = BufferUtil.allocate(HttpGenerator.CHUNK_SIZE);
+        byte[] bytes = new byte[contentSize];
+        Arrays.fill(bytes, (byte)'x');
+        content = BufferUtil.toBuffer(bytes);
+    }
+
+    @Benchmark
+    public void testGenerateResponse(Blackhole blackhole) throws Exception
+    {
+        generator.reset();
+        BufferUtil.clear(header);
+        BufferUtil.clear(chunk);
+        ByteBuffer body = content.slice();
+
+        while (true)
+        {
+            HttpGenerator.Result result = generator.generateResponse(response, false, header, chunk, body, true);
+            switch (result)
+            {
+                case FLUSH:
+                    blackhole.consume(header.remaining() + chunk.remaining() + body.remaining());
+                    BufferUtil.clear(header);
+                    BufferUtil.clear(chunk);
+                    BufferUtil.clear(body);
+                    break;
+                case CONTINUE:
+                    break;
+                case DONE:
+                    return;
+                case SHUTDOWN_OUT:
+                    return;
+                default:
+                    throw new IllegalStateException(result.toString());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(HttpGeneratorBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,193 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.http.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpParser;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Thread)
+@Fork(value = 1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class HttpParserBenchmark
+{
+    private static final String SIMPLE =
+        "GET /index.html HTTP/1.1\r\n" +
+        "Host: localhost\r\n" +
+        "\r\n";
+
+    private static final String BROWSER =
+        "GET /static/css/site.css?v=12345 HTTP/1.1\r\n" +
+        "Host: www.example.com\r\n" +
+        "Connection: keep-alive\r\n" +
+        "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/59.0.3071.115 Safari/537.36\r\n" +
+        "Accept: text/css,*/*;q=0.1\r\n" +
+        "Referer: http://www.example.com/index.html\r\n" +
+        "Accept-Encoding: gzip, deflate\r\n" +
+        "Accept-Language: en-US,en;q=0.8\r\n" +
+        "Cookie: JSESSIONID=node01x2bq4q0h9v3j1wbjwxd1r9mhu0.node0; _ga=GA1.2.1447219385.1499350215; _gid=GA1.2.1108911386.1499350215\r\n" +
+        "If-Modified-Since: Thu, 01 Jun 2017 10:00:00 GMT\r\n" +
+        "\r\n";
+
+    private static final String POST =
+        "POST /api/v1/orders HTTP/1.1\r\n" +
+        "Host: api.example.com\r\n" +
+        "Content-Type: application/json\r\n" +
+        "Content-Length: 22\r\n" +
+        "Accept: application/json\r\n" +
+        "X-Request-Id: 6f1c9a3e-2b4d-4c1f-9b3e-1f2a3b4c5d6e\r\n" +
+        "\r\n" +
+        "{\"id\":42,\"qty\":1000}\r\n";
+
+    @Param({"SIMPLE", "BROWSER", "POST"})
+    public String type;
+
+    private ByteBuffer request;
+    private HttpParser parser;
+    private Handler handler;
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        String raw;
+        switch (type)
+        {
+            case "SIMPLE":
+                raw = SIMPLE;
+                break;
+            case "BROWSER":
+                raw = BROWSER;
+                break;
+            case "POST":
+                raw = POST;
+                break;
+            default:
+                throw new IllegalStateException(type);
+        }
+        request = BufferUtil.toBuffer(raw);
+        handler = new Handler();
+        parser = new HttpParser(handler);
+    }
+
+    @Benchmark
+    public void testParse(Blackhole blackhole)
+    {
+        ByteBuffer buffer = request.slice();
+        handler.blackhole = blackhole;
+        parser.reset();
+        while (!parser.isState(HttpParser.State.END) && buffer.hasRemaining())
+            parser.parseNext(buffer);
+        if (!parser.isState(HttpParser.State.END))
+            throw new IllegalStateException("Incomplete parse: " + parser);
+    }
+
+    private static class Handler implements HttpParser.RequestHandler
+    {
+        private Blackhole blackhole;
+
+        @Override
+        public boolean startRequest(String method, String uri, HttpVersion version)
+        {
+            blackhole.consume(method);
+            blackhole.consume(uri);
+            return false;
+        }
+
+        @Override
+        public void parsedHeader(HttpField field)
+        {
+            blackhole.consume(field);
+        }
+
+        @Override
+        public boolean headerComplete()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean content(ByteBuffer item)
+        {
+            blackhole.consume(item.remaining());
+            return false;
+        }
+
+        @Override
+        public boolean contentComplete()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean messageComplete()
+        {
+            return true;
+        }
+
+        @Override
+        public void earlyEOF()
+        {
+        }
+
+        @Override
+        public void badMessage(int status, String reason)
+        {
+            throw new IllegalStateException(status + " " + reason);
+        }
+
+        @Override
+        public int getHeaderCacheSize()
+        {
+            return 4096;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(HttpParserBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,154 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.http.pathmap.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.pathmap.MappedResource;
+import org.eclipse.jetty.http.pathmap.PathMappings;
+import org.eclipse.jetty.http.pathmap.PathSpec;
+import org.eclipse.jetty.http.pathmap.RegexPathSpec;
+import org.eclipse.jetty.http.pathmap.ServletPathSpec;
+import org.eclipse.jetty.http.pathmap.UriTemplatePathSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Thread)
+@Fork(value = 1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PathMappingsBenchmark
+{
+    private static final long SEED = 0x5EED;
+
+    @Param({"SERVLET", "REGEX", "URI_TEMPLATE"})
+    public String type;
+
+    @Param({"10", "1000", "10000"})
+    public int mappings;
+
+    private PathMappings<String> pathMappings;
+    private String[] paths;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        pathMappings = new PathMappings<>();
+        for (int i = 0; i < mappings; i++)
+        {
+            for (PathSpec spec : newPathSpecs(i))
+                pathMappings.put(spec, spec.getDeclaration());
+        }
+
+        Random random = new Random(SEED);
+        paths = new String[1024];
+        for (int i = 0; i < paths.length; i++)
+            paths[i] = newPath(random.nextInt(mappings), random);
+    }
+
+    private PathSpec[] newPathSpecs(int i)
+    {
+        switch (type)
+        {
+            case "SERVLET":
+                return new PathSpec[]
+                {
+                    new ServletPathSpec("/exact/" + i),
+                    new ServletPathSpec("/prefix/" + i + "/*"),
+                    new ServletPathSpec("*.ext" + i)
+                };
+            case "REGEX":
+                return new PathSpec[]
+                {
+                    new RegexPathSpec("^/api/resource" + i + "/([^/]+)$"),
+                    new RegexPathSpec("^/api/resource" + i + "/([^/]+)/items/([0-9]+)$")
+                };
+            case "URI_TEMPLATE":
+                return new PathSpec[]
+                {
+                    new UriTemplatePathSpec("/api/resource" + i + "/{id}"),
+                    new UriTemplatePathSpec("/api/resource" + i + "/{id}/items/{item}")
+                };
+            default:
+                throw new IllegalStateException(type);
+        }
+    }
+
+    private String newPath(int i, Random random)
+    {
+        switch (type)
+        {
+            case "SERVLET":
+                switch (random.nextInt(3))
+                {
+                    case 0:
+                        return "/exact/" + i;
+                    case 1:
+                        return "/prefix/" + i + "/some/path/info";
+                    default:
+                        return "/some/file.ext" + i;
+                }
+            case "REGEX":
+            case "URI_TEMPLATE":
+                if (random.nextBoolean())
+                    return "/api/resource" + i + "/id" + random.nextInt(1000);
+                return "/api/resource" + i + "/id" + random.nextInt(1000) + "/items/" + random.nextInt(1000);
+            default:
+                throw new IllegalStateException(type);
+        }
+    }
+
+    @Benchmark
+    public MappedResource<String> testGetMatch()
+    {
+        String path = paths[index];
+        index = (index + 1) % paths.length;
+        MappedResource<String> match = pathMappings.getMatch(path);
+        if (match == null)
+            throw new IllegalStateException("No match for " + path);
+        return match;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(PathMappingsBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
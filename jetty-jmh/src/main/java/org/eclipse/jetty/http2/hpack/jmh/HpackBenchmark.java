@@ -0,0 +1,135 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.http2.hpack.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.hpack.HpackDecoder;
+import org.eclipse.jetty.http2.hpack.HpackEncoder;
+import org.eclipse.jetty.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Thread)
+@Fork(value = 1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class HpackBenchmark
+{
+    private MetaData.Request request;
+    private MetaData.Response response;
+    private ByteBuffer buffer;
+    private ByteBuffer encodedRequest;
+    private HpackEncoder encoder;
+    private HpackDecoder decoder;
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        HttpFields requestFields = new HttpFields();
+        requestFields.put(HttpHeader.USER_AGENT, "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/59.0.3071.115 Safari/537.36");
+        requestFields.put(HttpHeader.ACCEPT, "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8");
+        requestFields.put(HttpHeader.ACCEPT_ENCODING, "gzip, deflate, br");
+        requestFields.put(HttpHeader.ACCEPT_LANGUAGE, "en-US,en;q=0.8");
+        requestFields.put(HttpHeader.COOKIE, "JSESSIONID=node01x2bq4q0h9v3j1wbjwxd1r9mhu0.node0; _ga=GA1.2.1447219385.1499350215");
+        request = new MetaData.Request("GET", new HttpURI("https://www.example.com/static/css/site.css?v=12345"), HttpVersion.HTTP_2, requestFields);
+
+        HttpFields responseFields = new HttpFields();
+        responseFields.put(HttpHeader.SERVER, "Jetty(9.4.x)");
+        responseFields.put(HttpHeader.DATE, "Thu, 01 Jun 2017 10:00:00 GMT");
+        responseFields.put(HttpHeader.CONTENT_TYPE, "text/css");
+        responseFields.put(HttpHeader.CONTENT_LENGTH, "12345");
+        responseFields.put(HttpHeader.CACHE_CONTROL, "max-age=3600");
+        responseFields.put(HttpHeader.LAST_MODIFIED, "Thu, 01 Jun 2017 09:00:00 GMT");
+        response = new MetaData.Response(HttpVersion.HTTP_2, 200, responseFields);
+
+        buffer = BufferUtil.allocate(16 * 1024);
+        encoder = new HpackEncoder();
+        decoder = new HpackDecoder(4096, 8192);
+
+        // A header block as the first request of a connection would produce it.
+        ByteBuffer encoded = BufferUtil.allocate(16 * 1024);
+        int pos = BufferUtil.flipToFill(encoded);
+        new HpackEncoder().encode(encoded, request);
+        BufferUtil.flipToFlush(encoded, pos);
+        encodedRequest = encoded;
+    }
+
+    @Benchmark
+    public ByteBuffer testEncodeResponse()
+    {
+        BufferUtil.clearToFill(buffer);
+        encoder.encode(buffer, response);
+        return buffer;
+    }
+
+    @Benchmark
+    public ByteBuffer testEncodeRequest()
+    {
+        BufferUtil.clearToFill(buffer);
+        encoder.encode(buffer, request);
+        return buffer;
+    }
+
+    @Benchmark
+    public MetaData testDecodeFirstRequest()
+    {
+        return new HpackDecoder(4096, 8192).decode(encodedRequest.slice());
+    }
+
+    @Benchmark
+    public MetaData testEncodeDecodeRequest()
+    {
+        // Encoder and decoder share the same sequence of blocks, so their dynamic tables stay in sync.
+        BufferUtil.clearToFill(buffer);
+        encoder.encode(buffer, request);
+        buffer.flip();
+        return decoder.decode(buffer);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(HpackBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
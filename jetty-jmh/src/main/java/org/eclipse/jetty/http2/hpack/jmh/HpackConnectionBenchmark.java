@@ -0,0 +1,134 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http2.hpack.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.hpack.AdaptiveHpackIndexPolicy;
+import org.eclipse.jetty.http2.hpack.HpackEncoder;
+import org.eclipse.jetty.http2.hpack.HpackValueCache;
+import org.eclipse.jetty.util.BufferUtil;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Encodes the responses of short HTTP/2 API connections, each with a new
+ * {@link HpackEncoder}, and reports both the encoding time and, as the {@code bytes}
+ * counter, the total header block bytes of the iteration, which divided by the number
+ * of operations gives the bytes per connection.</p>
+ */
+@State(Scope.Thread)
+@Fork(value = 1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HpackConnectionBenchmark
+{
+    private static final int RESPONSES = 32;
+
+    @Param({"FIXED", "ADAPTIVE"})
+    public String policy;
+
+    @Param({"false", "true"})
+    public boolean valueCache;
+
+    private MetaData.Response[] responses;
+    private HpackValueCache cache;
+    private ByteBuffer buffer;
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        responses = new MetaData.Response[RESPONSES];
+        for (int i = 0; i < RESPONSES; ++i)
+        {
+            HttpFields fields = new HttpFields();
+            fields.put(HttpHeader.SERVER, "Jetty(9.4.x)");
+            fields.put(HttpHeader.DATE, "Thu, 01 Jun 2017 10:00:0" + (i / 8) + " GMT");
+            fields.put(HttpHeader.CONTENT_TYPE, "application/json;charset=utf-8");
+            fields.put(HttpHeader.CONTENT_LENGTH, Integer.toString(100 + 37 * i));
+            fields.put(HttpHeader.CACHE_CONTROL, "no-cache, no-store, must-revalidate");
+            fields.put(HttpHeader.VARY, "Accept-Encoding, Origin");
+            fields.put("Access-Control-Allow-Origin", "https://app.example.com");
+            fields.put("X-Api-Version", "2017-06-01");
+            fields.put("X-Request-Id", String.format("5f0c2a1e-%04x-4b7d-9c3e-%012x", i, 31L * i * i));
+            responses[i] = new MetaData.Response(HttpVersion.HTTP_2, 200, fields);
+        }
+        cache = valueCache ? new HpackValueCache() : null;
+        buffer = BufferUtil.allocate(16 * 1024);
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Bytes
+    {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset()
+        {
+            bytes = 0;
+        }
+    }
+
+    @Benchmark
+    public HpackEncoder testEncodeConnection(Bytes bytes)
+    {
+        HpackEncoder encoder = new HpackEncoder();
+        if ("ADAPTIVE".equals(policy))
+            encoder.setIndexPolicy(new AdaptiveHpackIndexPolicy());
+        encoder.setValueCache(cache);
+        for (MetaData.Response response : responses)
+        {
+            BufferUtil.clearToFill(buffer);
+            encoder.encode(buffer, response);
+            bytes.bytes += buffer.position();
+        }
+        return encoder;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(HpackConnectionBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,134 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.io.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.io.StripedByteBufferPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Benchmark)
+@Threads(4)
+@Fork(value = 1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ByteBufferPoolBenchmark
+{
+    private static final int[] SIZES = {512, 1024, 2048, 4096, 8192, 16384, 32768};
+
+    @Param({"ARRAY", "MAPPED", "STRIPED"})
+    public String type;
+
+    @Param({"true", "false"})
+    public boolean direct;
+
+    private ByteBufferPool pool;
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        pool = newByteBufferPool(type);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial()
+    {
+        pool = null;
+    }
+
+    protected ByteBufferPool newByteBufferPool(String type)
+    {
+        switch (type)
+        {
+            case "ARRAY":
+                return new ArrayByteBufferPool();
+            case "MAPPED":
+                return new MappedByteBufferPool();
+            case "STRIPED":
+                return new StripedByteBufferPool();
+            default:
+                throw new IllegalStateException(type);
+        }
+    }
+
+    @Benchmark
+    public void testAcquireRelease(Sizes sizes)
+    {
+        ByteBuffer buffer = pool.acquire(sizes.next(), direct);
+        pool.release(buffer);
+    }
+
+    @Benchmark
+    public void testAcquireReleaseBurst()
+    {
+        // Holds several buffers at once, as a connection reading, parsing and writing would.
+        ByteBuffer input = pool.acquire(8192, direct);
+        ByteBuffer header = pool.acquire(1024, direct);
+        ByteBuffer output = pool.acquire(32768, direct);
+        pool.release(header);
+        pool.release(output);
+        pool.release(input);
+    }
+
+    @State(Scope.Thread)
+    public static class Sizes
+    {
+        private int index;
+
+        public int next()
+        {
+            // Cycle deterministically so every run touches the same buckets in the same order.
+            int size = SIZES[index];
+            index = (index + 1) % SIZES.length;
+            return size;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(ByteBufferPoolBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,161 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.server.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.ResourceHandler;
+import org.eclipse.jetty.util.IO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Downloads a static file over a persistent clear-text HTTP/1.1 connection,
+ * with and without zero-copy file transfer.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FileTransferBenchmark
+{
+    @Param({"10485760", "104857600", "1073741824"})
+    public long size;
+
+    @Param({"true", "false"})
+    public boolean transfer;
+
+    private File directory;
+    private Server server;
+    private SocketChannel client;
+    private ByteBuffer request;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(256 * 1024);
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception
+    {
+        directory = Files.createTempDirectory("jmh").toFile();
+        try (RandomAccessFile file = new RandomAccessFile(new File(directory, "file.bin"), "rw"))
+        {
+            file.setLength(size);
+        }
+
+        server = new Server();
+        HttpConfiguration config = new HttpConfiguration();
+        config.setFileTransferThreshold(transfer ? 0 : -1);
+        ServerConnector connector = new ServerConnector(server, new HttpConnectionFactory(config));
+        server.addConnector(connector);
+        ResourceHandler handler = new ResourceHandler();
+        handler.setResourceBase(directory.getAbsolutePath());
+        handler.setDirectoriesListed(false);
+        server.setHandler(handler);
+        server.start();
+
+        client = SocketChannel.open(new InetSocketAddress("localhost", connector.getLocalPort()));
+        request = StandardCharsets.US_ASCII.encode("GET /file.bin HTTP/1.1\r\nHost: localhost\r\n\r\n");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws Exception
+    {
+        client.close();
+        server.stop();
+        IO.delete(directory);
+    }
+
+    @Benchmark
+    public long testDownload() throws IOException
+    {
+        request.rewind();
+        while (request.hasRemaining())
+            client.write(request);
+
+        // Read the response headers.
+        StringBuilder headers = new StringBuilder();
+        long content = -1;
+        buffer.clear();
+        while (content < 0)
+        {
+            if (client.read(buffer) < 0)
+                throw new IOException("Unexpected EOF");
+            buffer.flip();
+            while (buffer.hasRemaining() && content < 0)
+            {
+                headers.append((char)buffer.get());
+                if (headers.length() > 4 && headers.lastIndexOf("\r\n\r\n") == headers.length() - 4)
+                    content = buffer.remaining();
+            }
+            buffer.compact();
+        }
+
+        String length = "Content-Length: ";
+        int index = headers.indexOf(length);
+        if (index < 0 || Long.parseLong(headers.substring(index + length.length(), headers.indexOf("\r\n", index))) != size)
+            throw new IOException("Unexpected response " + headers);
+
+        // Read and discard the content.
+        while (content < size)
+        {
+            buffer.clear();
+            int read = client.read(buffer);
+            if (read < 0)
+                throw new IOException("Unexpected EOF");
+            content += read;
+        }
+        return content;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(FileTransferBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
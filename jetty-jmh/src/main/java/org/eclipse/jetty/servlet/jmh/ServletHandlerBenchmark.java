@@ -0,0 +1,158 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.servlet.jmh;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServlet;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Thread)
+@Fork(value = 1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ServletHandlerBenchmark
+{
+    @Param({"true", "false"})
+    public boolean cached;
+
+    @Param({"1", "10"})
+    public int filters;
+
+    private Server server;
+    private BenchmarkServletHandler servletHandler;
+    private ServletHolder servletHolder;
+    private Request request;
+    private String[] paths;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception
+    {
+        server = new Server();
+        servletHandler = new BenchmarkServletHandler();
+        servletHandler.setFilterChainsCached(cached);
+        ServletContextHandler context = new ServletContextHandler(server, "/", null, null, servletHandler, null);
+
+        servletHolder = context.addServlet(NoopServlet.class, "/*");
+        EnumSet<DispatcherType> dispatches = EnumSet.of(DispatcherType.REQUEST);
+        for (int i = 0; i < filters; i++)
+        {
+            context.addFilter(NoopFilter.class, "/*", dispatches);
+            context.addFilter(NoopFilter.class, "/path" + i + "/*", dispatches);
+            context.addFilter(NoopFilter.class, "*.ext" + i, dispatches);
+        }
+        server.start();
+
+        request = new Request(null, null);
+        request.setDispatcherType(DispatcherType.REQUEST);
+
+        paths = new String[64];
+        for (int i = 0; i < paths.length; i++)
+            paths[i] = "/path" + (i % filters) + "/resource" + i + ".ext" + (i % filters);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws Exception
+    {
+        server.stop();
+    }
+
+    @Benchmark
+    public FilterChain testGetFilterChain()
+    {
+        String path = paths[index];
+        index = (index + 1) % paths.length;
+        return servletHandler.getFilterChain(request, path, servletHolder);
+    }
+
+    private static class BenchmarkServletHandler extends ServletHandler
+    {
+        @Override
+        protected FilterChain getFilterChain(Request baseRequest, String pathInContext, ServletHolder servletHolder)
+        {
+            return super.getFilterChain(baseRequest, pathInContext, servletHolder);
+        }
+    }
+
+    public static class NoopServlet extends HttpServlet
+    {
+    }
+
+    public static class NoopFilter implements Filter
+    {
+        @Override
+        public void init(FilterConfig filterConfig) throws ServletException
+        {
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException
+        {
+            chain.doFilter(request, response);
+        }
+
+        @Override
+        public void destroy()
+        {
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(ServletHandlerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
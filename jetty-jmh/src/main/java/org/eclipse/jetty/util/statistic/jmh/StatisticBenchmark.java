@@ -0,0 +1,138 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util.statistic.jmh;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.statistic.CounterStatistic;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
+import org.eclipse.jetty.util.statistic.StripedCounterStatistic;
+import org.eclipse.jetty.util.statistic.StripedHistogramStatistic;
+import org.eclipse.jetty.util.statistic.StripedSampleStatistic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the statistics updated by StatisticsHandler for every request:
+ * a counter incremented and decremented around the request and a sample
+ * of the request time, also recorded in a histogram, from many threads at once.
+ * Run {@link #main(String[])} to compare how the plain and striped
+ * statistics scale from 1 to 64 threads.
+ */
+@State(Scope.Benchmark)
+@Threads(64)
+@Fork(1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class StatisticBenchmark
+{
+    private final CounterStatistic counter = new CounterStatistic();
+    private final SampleStatistic sample = new SampleStatistic();
+    private final StripedCounterStatistic stripedCounter = new StripedCounterStatistic();
+    private final StripedSampleStatistic stripedSample = new StripedSampleStatistic();
+    private final HistogramStatistic histogram = new HistogramStatistic();
+    private final StripedHistogramStatistic stripedHistogram = new StripedHistogramStatistic();
+
+    @Benchmark
+    public long testCounter()
+    {
+        counter.increment();
+        return counter.decrement();
+    }
+
+    @Benchmark
+    public long testStripedCounter()
+    {
+        stripedCounter.increment();
+        return stripedCounter.decrement();
+    }
+
+    @Benchmark
+    public void testSample()
+    {
+        sample.set(ThreadLocalRandom.current().nextInt(1000));
+    }
+
+    @Benchmark
+    public void testStripedSample()
+    {
+        stripedSample.set(ThreadLocalRandom.current().nextInt(1000));
+    }
+
+    @Benchmark
+    public void testHistogram()
+    {
+        histogram.set(ThreadLocalRandom.current().nextInt(1000));
+    }
+
+    @Benchmark
+    public void testStripedHistogram()
+    {
+        stripedHistogram.set(ThreadLocalRandom.current().nextInt(1000));
+    }
+
+    @Benchmark
+    public long testRequest()
+    {
+        counter.increment();
+        int time = ThreadLocalRandom.current().nextInt(1000);
+        sample.set(time);
+        histogram.set(time);
+        return counter.decrement();
+    }
+
+    @Benchmark
+    public long testStripedRequest()
+    {
+        stripedCounter.increment();
+        int time = ThreadLocalRandom.current().nextInt(1000);
+        stripedSample.set(time);
+        stripedHistogram.set(time);
+        return stripedCounter.decrement();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        for (int threads : new int[]{1, 4, 16, 64})
+        {
+            Options opt = new OptionsBuilder()
+                    .include(StatisticBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(opt).run();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util.thread.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.eclipse.jetty.util.thread.HashedWheelScheduler;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the cost of the schedule/cancel pattern of idle timeouts,
+ * with a large number of pending tasks already in the scheduler.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SchedulerBenchmark
+{
+    private static final Runnable NOOP = () -> {};
+
+    @Param({"SES", "HWS"})
+    public String type;
+
+    @Param({"100000", "1000000"})
+    public int pending;
+
+    private Scheduler scheduler;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception
+    {
+        scheduler = newScheduler(type);
+        LifeCycle.start(scheduler);
+        // Timeouts spread over 30 to 60 minutes, so that they do not expire during the benchmark.
+        for (int i = 0; i < pending; ++i)
+            scheduler.schedule(NOOP, 1800 + i % 1800, TimeUnit.SECONDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws Exception
+    {
+        LifeCycle.stop(scheduler);
+        scheduler = null;
+    }
+
+    protected Scheduler newScheduler(String type)
+    {
+        switch (type)
+        {
+            case "SES":
+                return new ScheduledExecutorScheduler();
+            case "HWS":
+                return new HashedWheelScheduler();
+            default:
+                throw new IllegalStateException(type);
+        }
+    }
+
+    @Benchmark
+    public boolean testScheduleCancel()
+    {
+        // An idle timeout rescheduled by activity on the connection.
+        Scheduler.Task task = scheduler.schedule(NOOP, 30, TimeUnit.SECONDS);
+        return task.cancel();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(SchedulerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
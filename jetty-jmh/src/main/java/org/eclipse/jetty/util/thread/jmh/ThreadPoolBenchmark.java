@@ -0,0 +1,122 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util.thread.jmh;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.eclipse.jetty.util.thread.ExecutorThreadPool;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.eclipse.jetty.util.thread.WorkStealingThreadPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Benchmark)
+@Threads(4)
+@Fork(value = 1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ThreadPoolBenchmark
+{
+    @Param({"QTP", "ETP", "WSTP"})
+    public String type;
+
+    @Param({"200"})
+    public int size;
+
+    @Param({"100"})
+    public int jobs;
+
+    private ThreadPool pool;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception
+    {
+        pool = newThreadPool(type, size);
+        LifeCycle.start(pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws Exception
+    {
+        LifeCycle.stop(pool);
+        pool = null;
+    }
+
+    protected ThreadPool newThreadPool(String type, int size)
+    {
+        switch (type)
+        {
+            case "QTP":
+                return new QueuedThreadPool(size, size);
+            case "ETP":
+                return new ExecutorThreadPool(size, size, 60, TimeUnit.SECONDS);
+            case "WSTP":
+                return new WorkStealingThreadPool(size, size);
+            default:
+                throw new IllegalStateException(type);
+        }
+    }
+
+    @Benchmark
+    public void testDispatch() throws Exception
+    {
+        CountDownLatch latch = new CountDownLatch(jobs);
+        for (int i = 0; i < jobs; i++)
+        {
+            pool.execute(() ->
+            {
+                Blackhole.consumeCPU(2);
+                latch.countDown();
+            });
+        }
+        if (!latch.await(30, TimeUnit.SECONDS))
+            throw new IllegalStateException("Jobs not completed: " + latch.getCount());
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(ThreadPoolBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
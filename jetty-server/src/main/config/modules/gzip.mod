@@ -27,6 +27,14 @@ etc/jetty-gzip.xml
 ## Inflate request buffer size, or 0 for no request inflation
 # jetty.gzip.inflateBufferSize=0
 
+## Max number of pooled Deflaters (response compression), or -1 for no limit
+## (defaults to twice the number of CPUs, and at least 8)
+# jetty.gzip.deflaterPoolCapacity=16
+
+## Max number of pooled Inflaters (request inflation), or -1 for no limit
+## (defaults to twice the number of CPUs, and at least 8)
+# jetty.gzip.inflaterPoolCapacity=16
+
 ## Comma separated list of included methods
 # jetty.gzip.includedMethodList=GET
 
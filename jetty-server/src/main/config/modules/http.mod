@@ -37,6 +37,10 @@ etc/jetty-http.xml
 ## ServerSocketChannel backlog (0 picks platform default)
 # jetty.http.acceptorQueueSize=0
 
+## Whether each acceptor, or selector if there are no acceptors, has its own
+## channel bound with SO_REUSEPORT (Linux with Java 9 or later)
+# jetty.http.reusePort=false
+
 ## Thread priority delta to give to acceptor threads
 # jetty.http.acceptorPriorityDelta=0
 
@@ -30,6 +30,9 @@ etc/jetty.xml
 ## Thread idle timeout (in milliseconds)
 # jetty.threadPool.idleTimeout=60000
 
+## Whether to run blocking request handling in virtual threads, if supported by the JVM
+# jetty.threadPool.useVirtualThreads=false
+
 ### Common HTTP configuration
 ## Scheme to use to build URIs for secure redirects
 # jetty.httpConfig.secureScheme=https
@@ -43,6 +46,9 @@ etc/jetty.xml
 ## Max response content write length that is buffered (in bytes)
 # jetty.httpConfig.outputAggregationSize=8192
 
+## Min length of static file content written with zero-copy file transfer (in bytes, -1 to disable)
+# jetty.httpConfig.fileTransferThreshold=-1
+
 ## Max request headers size (in bytes)
 # jetty.httpConfig.requestHeaderSize=8192
 
@@ -58,6 +64,9 @@ etc/jetty.xml
 ## Max per-connection header cache size (in nodes)
 # jetty.httpConfig.headerCacheSize=512
 
+## Whether request header values are decoded only when accessed
+# jetty.httpConfig.lazyFieldValues=false
+
 ## Whether, for requests with content, delay dispatch until some content has arrived
 # jetty.httpConfig.delayDispatchUntilContent=true
 
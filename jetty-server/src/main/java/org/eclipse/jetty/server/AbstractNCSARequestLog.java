@@ -81,6 +81,21 @@ public abstract class AbstractNCSARequestLog extends AbstractLifeCycle implement
      */
     public abstract void write(String requestEntry) throws IOException;
 
+    /* ------------------------------------------------------------ */
+    /**
+     * Writes the request log entry formatted by {@link #log(Request, Response)}.
+     * <p>The entry is converted to a String and passed to {@link #write(String)};
+     * implementations able to encode the entry directly may override this method
+     * to avoid the conversion. The buffer is reused once this method returns.</p>
+     *
+     * @param requestEntry the request entry
+     * @throws IOException if unable to write the entry
+     */
+    protected void write(StringBuilder requestEntry) throws IOException
+    {
+        write(requestEntry.toString());
+    }
+
     /* ------------------------------------------------------------ */
 
     private void append(StringBuilder buf,String s)
@@ -212,8 +227,7 @@ public abstract class AbstractNCSARequestLog extends AbstractLifeCycle implement
                 }
             }
 
-            String log = buf.toString();
-            write(log);
+            write(buf);
         }
         catch (IOException e)
         {
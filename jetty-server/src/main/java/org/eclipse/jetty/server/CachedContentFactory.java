@@ -22,17 +22,22 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.SortedSet;
-import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
 
 import org.eclipse.jetty.http.CompressedContentFormat;
 import org.eclipse.jetty.http.DateGenerator;
@@ -45,6 +50,11 @@ import org.eclipse.jetty.http.PreEncodedHttpField;
 import org.eclipse.jetty.http.PrecompressedHttpContent;
 import org.eclipse.jetty.http.ResourceHttpContent;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.ByteArrayOutputStream2;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 import org.eclipse.jetty.util.resource.Resource;
@@ -52,11 +62,30 @@ import org.eclipse.jetty.util.resource.ResourceFactory;
 
 /**
  * Caching HttpContent.Factory
+ * <p>
+ * When the cache exceeds its limits, entries are evicted with a segmented LRU policy:
+ * new entries are admitted to a probationary segment and promoted to a protected
+ * segment when they are accessed again, so that a scan of content that is accessed
+ * only once does not flush the content that is accessed frequently. Entries are
+ * evicted from the least recently used end of the probationary segment first.
+ * Access bookkeeping is O(1) and is skipped, rather than waited for, when another
+ * thread is updating the segments.
+ * <p>
+ * If {@link #setCompressCachedContent(boolean) enabled} and the gzip format is one of the
+ * precompressed formats, cached content that has no precompressed resource is compressed
+ * in memory, once, by the first request that accepts gzip. Concurrent requests are served the
+ * uncompressed content until the compressed variant is available. Only content of at most
+ * {@link #getMaxCompressibleFileSize()} bytes is compressed. The compressed variant is cached
+ * with the content, accounted in the same size limits, and served by {@link ResourceService}
+ * with the same Vary and ETag handling as precompressed resources.
  */
+@ManagedObject("Cache of static content")
 public class CachedContentFactory implements HttpContent.ContentFactory
 {
     private static final Logger LOG = Log.getLogger(CachedContentFactory.class);
-    private final static Map<CompressedContentFormat, CachedPrecompressedHttpContent> NO_PRECOMPRESSED = Collections.unmodifiableMap(Collections.emptyMap());
+    private static final Object COMPRESSING = new Object();
+    private static final Object NOT_COMPRESSED = new Object();
+    private final static Map<CompressedContentFormat, PrecompressedHttpContent> NO_PRECOMPRESSED = Collections.unmodifiableMap(Collections.emptyMap());
 
     private final ConcurrentMap<String,CachedHttpContent> _cache;
     private final AtomicInteger _cachedSize;
@@ -67,7 +96,16 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     private final boolean _etags;
     private final CompressedContentFormat[] _precompressedFormats;
     private final boolean  _useFileMappedBuffer;
+    private final Lock _lock = new ReentrantLock();
+    private final Map<CachedHttpContent,Boolean> _probation = new LinkedHashMap<>(16,0.75f,true);
+    private final Map<CachedHttpContent,Boolean> _protected = new LinkedHashMap<>(16,0.75f,true);
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+    private final LongAdder _compressions = new LongAdder();
     
+    private boolean _compressCachedContent;
+    private int _maxCompressibleFileSize = 1024*1024;
     private int _maxCachedFileSize = 128*1024*1024;
     private int _maxCachedFiles= 2048;
     private int _maxCacheSize = 256*1024*1024;
@@ -95,18 +133,102 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     }
 
     /* ------------------------------------------------------------ */
+    @ManagedAttribute("bytes of cached content")
     public int getCachedSize()
     {
         return _cachedSize.get();
     }
     
     /* ------------------------------------------------------------ */
+    @ManagedAttribute("number of cached files")
     public int getCachedFiles()
     {
         return _cachedFiles.get();
     }
-    
+
+    /* ------------------------------------------------------------ */
+    @ManagedAttribute("number of lookups that found valid cached content")
+    public long getHits()
+    {
+        return _hits.sum();
+    }
+
+    /* ------------------------------------------------------------ */
+    @ManagedAttribute("number of lookups that did not find valid cached content")
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    /* ------------------------------------------------------------ */
+    @ManagedAttribute("ratio of lookups that found valid cached content")
+    public double getHitRatio()
+    {
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        return lookups == 0 ? 0.0 : (double)hits / lookups;
+    }
+
+    /* ------------------------------------------------------------ */
+    @ManagedAttribute("number of entries evicted to respect the cache limits")
+    public long getEvictions()
+    {
+        return _evictions.sum();
+    }
+
+    /* ------------------------------------------------------------ */
+    @ManagedOperation(value="resets statistics", impact="ACTION")
+    public void resetStats()
+    {
+        _hits.reset();
+        _misses.reset();
+        _evictions.reset();
+        _compressions.reset();
+    }
+
+    /* ------------------------------------------------------------ */
+    @ManagedAttribute("number of cached contents compressed in memory")
+    public long getCompressions()
+    {
+        return _compressions.sum();
+    }
+
+    /* ------------------------------------------------------------ */
+    @ManagedAttribute("whether cached content is compressed in memory")
+    public boolean isCompressCachedContent()
+    {
+        return _compressCachedContent;
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @param compressCachedContent true to compress in memory the cached content that
+     * has no precompressed gzip resource, if gzip is one of the precompressed formats
+     */
+    public void setCompressCachedContent(boolean compressCachedContent)
+    {
+        _compressCachedContent = compressCachedContent;
+    }
+
     /* ------------------------------------------------------------ */
+    @ManagedAttribute("maximum size of a cached file compressed in memory")
+    public int getMaxCompressibleFileSize()
+    {
+        return _maxCompressibleFileSize;
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @param maxCompressibleFileSize the maximum size of a cached file compressed in memory,
+     * as the compression is done by the thread of the first request that accepts gzip
+     */
+    public void setMaxCompressibleFileSize(int maxCompressibleFileSize)
+    {
+        _maxCompressibleFileSize = maxCompressibleFileSize;
+    }
+
+    /* ------------------------------------------------------------ */
+    @ManagedAttribute("maximum size of a cached file")
     public int getMaxCachedFileSize()
     {
         return _maxCachedFileSize;
@@ -120,6 +242,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     }
 
     /* ------------------------------------------------------------ */
+    @ManagedAttribute("maximum bytes of cached content")
     public int getMaxCacheSize()
     {
         return _maxCacheSize;
@@ -136,6 +259,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     /**
      * @return Returns the maxCachedFiles.
      */
+    @ManagedAttribute("maximum number of cached files")
     public int getMaxCachedFiles()
     {
         return _maxCachedFiles;
@@ -158,6 +282,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     }
 
     /* ------------------------------------------------------------ */
+    @ManagedOperation(value="flushes the cache", impact="ACTION")
     public void flushCache()
     {
         if (_cache!=null)
@@ -202,7 +327,11 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         // Is the content in this cache?
         CachedHttpContent content =_cache.get(pathInContext);
         if (content!=null && (content).isValid())
+        {
+            _hits.increment();
             return content;
+        }
+        _misses.increment();
        
         // try loading the content from our factory.
         Resource resource=_factory.getResource(pathInContext);
@@ -274,6 +403,8 @@ public class CachedContentFactory implements HttpContent.ContentFactory
                                 compressedContent.invalidate();
                                 compressedContent = added;
                             }
+                            else
+                                admit(compressedContent);
                         }
                     }
                     if (compressedContent != null)
@@ -291,6 +422,8 @@ public class CachedContentFactory implements HttpContent.ContentFactory
                 content.invalidate();
                 content = added;
             }
+            else
+                admit(content);
 
             return content;
         }
@@ -326,40 +459,155 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     private void shrinkCache()
     {
         // While we need to shrink
-        while (_cache.size()>0 && (_cachedFiles.get()>_maxCachedFiles || _cachedSize.get()>_maxCacheSize))
+        while (_cachedFiles.get()>_maxCachedFiles || _cachedSize.get()>_maxCacheSize)
         {
-            // Scan the entire cache and generate an ordered list by last accessed time.
-            SortedSet<CachedHttpContent> sorted= new TreeSet<CachedHttpContent>(
-                    new Comparator<CachedHttpContent>()
-                    {
-                        public int compare(CachedHttpContent c1, CachedHttpContent c2)
-                        {
-                            if (c1._lastAccessed<c2._lastAccessed)
-                                return -1;
-                            
-                            if (c1._lastAccessed>c2._lastAccessed)
-                                return 1;
-
-                            if (c1._contentLengthValue<c2._contentLengthValue)
-                                return -1;
-                            
-                            return c1._key.compareTo(c2._key);
-                        }
-                    });
-            for (CachedHttpContent content : _cache.values())
-                sorted.add(content);
-            
-            // Invalidate least recently used first
-            for (CachedHttpContent content : sorted)
+            CachedHttpContent content = nextVictim();
+            if (content==null)
+                break;
+            if (content==_cache.remove(content.getKey()))
             {
-                if (_cachedFiles.get()<=_maxCachedFiles && _cachedSize.get()<=_maxCacheSize)
-                    break;
-                if (content==_cache.remove(content.getKey()))
-                    content.invalidate();
+                content.invalidate();
+                _evictions.increment();
             }
         }
     }
+
+    /* ------------------------------------------------------------ */
+    private void admit(CachedHttpContent content)
+    {
+        _lock.lock();
+        try
+        {
+            // The content may have been invalidated concurrently.
+            if (!content._invalidated)
+                _probation.put(content,Boolean.TRUE);
+        }
+        finally
+        {
+            _lock.unlock();
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    private void accessed(CachedHttpContent content)
+    {
+        // Recording the access is best effort, don't contend with other threads.
+        if (!_lock.tryLock())
+            return;
+        try
+        {
+            if (_probation.remove(content)!=null)
+            {
+                _protected.put(content,Boolean.TRUE);
+                // Demote the least recently used protected entries.
+                int maxProtected = _maxCachedFiles-_maxCachedFiles/5;
+                Iterator<CachedHttpContent> iterator = _protected.keySet().iterator();
+                while (_protected.size()>maxProtected && iterator.hasNext())
+                {
+                    CachedHttpContent demoted = iterator.next();
+                    iterator.remove();
+                    _probation.put(demoted,Boolean.TRUE);
+                }
+            }
+            else
+            {
+                // Moves the entry to the most recently used end.
+                _protected.get(content);
+            }
+        }
+        finally
+        {
+            _lock.unlock();
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    private void removed(CachedHttpContent content)
+    {
+        _lock.lock();
+        try
+        {
+            if (_probation.remove(content)==null)
+                _protected.remove(content);
+        }
+        finally
+        {
+            _lock.unlock();
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    private CachedHttpContent nextVictim()
+    {
+        _lock.lock();
+        try
+        {
+            Map<CachedHttpContent,Boolean> segment = _probation.isEmpty()?_protected:_probation;
+            Iterator<CachedHttpContent> iterator = segment.keySet().iterator();
+            if (!iterator.hasNext())
+                return null;
+            CachedHttpContent victim = iterator.next();
+            iterator.remove();
+            return victim;
+        }
+        finally
+        {
+            _lock.unlock();
+        }
+    }
     
+    /* ------------------------------------------------------------ */
+    /**
+     * @param pathInContext the path of the content
+     * @param mimeType the mime type of the content, or null if unknown
+     * @return True if the content should be compressed in memory. The default implementation
+     * excludes images (but SVG), audio, video and already compressed content types.
+     */
+    protected boolean isCompressible(String pathInContext, String mimeType)
+    {
+        if (pathInContext.endsWith(".svgz"))
+            return false;
+        if (mimeType==null)
+            return true;
+        if (mimeType.startsWith("image/"))
+            return mimeType.startsWith("image/svg+xml");
+        if (mimeType.startsWith("audio/") || mimeType.startsWith("video/"))
+            return false;
+        switch (MimeTypes.getContentTypeWithoutCharset(mimeType))
+        {
+            case "application/compress":
+            case "application/zip":
+            case "application/gzip":
+            case "application/bzip2":
+            case "application/brotli":
+            case "application/x-xz":
+            case "application/x-rar-compressed":
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @param resource the resource to compress
+     * @return the resource gzip compressed, or null if the compressed resource is not smaller
+     * @throws IOException if the resource cannot be read
+     */
+    protected ByteBuffer getGzipBuffer(Resource resource) throws IOException
+    {
+        long length = resource.length();
+        ByteArrayOutputStream2 out = new ByteArrayOutputStream2((int)Math.min(length/2+64,Integer.MAX_VALUE));
+        try (InputStream in = resource.getInputStream();
+             GZIPOutputStream gzip = new GZIPOutputStream(out,8192))
+        {
+            IO.copy(in,gzip);
+        }
+        if (out.getCount()>=length)
+            return null;
+        return ByteBuffer.wrap(out.getBuf(),0,out.getCount()).slice();
+    }
+
     /* ------------------------------------------------------------ */
     protected ByteBuffer getIndirectBuffer(Resource resource)
     {
@@ -428,9 +676,11 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         final HttpField _lastModified;
         final long _lastModifiedValue;
         final HttpField _etag;
-        final Map<CompressedContentFormat, CachedPrecompressedHttpContent> _precompressed;
+        final Map<CompressedContentFormat, PrecompressedHttpContent> _precompressed;
+        final AtomicReference<Object> _compressed;
+        volatile Map<CompressedContentFormat, PrecompressedHttpContent> _precompressedContents;
         
-        volatile long _lastAccessed;
+        volatile boolean _invalidated;
         AtomicReference<ByteBuffer> _indirectBuffer=new AtomicReference<ByteBuffer>();
         AtomicReference<ByteBuffer> _directBuffer=new AtomicReference<ByteBuffer>();
 
@@ -456,8 +706,6 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             if (_cachedFiles.incrementAndGet()>_maxCachedFiles)
                 shrinkCache();
             
-            _lastAccessed=System.currentTimeMillis();
-            
             _etag=CachedContentFactory.this._etags?new PreEncodedHttpField(HttpHeader.ETAG,resource.getWeakETag()):null;
 
             if (precompressedResources != null)
@@ -472,6 +720,15 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             {
                 _precompressed = NO_PRECOMPRESSED;
             }
+
+            // The gzip variant is compressed lazily, only if there is no gzip resource.
+            boolean compress = _compressCachedContent && precompressedResources != null && 
+                !_precompressed.containsKey(CompressedContentFormat.GZIP) && 
+                Arrays.asList(_precompressedFormats).contains(CompressedContentFormat.GZIP) &&
+                _contentLengthValue>0 && _contentLengthValue<=_maxCompressibleFileSize &&
+                isCompressible(pathInContext,contentType);
+            _compressed = compress?new AtomicReference<>():null;
+            _precompressedContents = _precompressed;
         }
         
 
@@ -519,7 +776,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         {
             if (_lastModifiedValue==_resource.lastModified() && _contentLengthValue==_resource.length())
             {
-                _lastAccessed=System.currentTimeMillis();
+                accessed(this);
                 return true;
             }
 
@@ -531,6 +788,9 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         /* ------------------------------------------------------------ */
         protected void invalidate()
         {
+            _invalidated=true;
+            removed(this);
+
             ByteBuffer indirect=_indirectBuffer.get();
             if (indirect!=null && _indirectBuffer.compareAndSet(indirect,null))
                 _cachedSize.addAndGet(-BufferUtil.length(indirect));
@@ -540,10 +800,72 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             if (direct!=null && !BufferUtil.isMappedBuffer(direct) && _directBuffer.compareAndSet(direct,null))
                 _cachedSize.addAndGet(-BufferUtil.length(direct));
             
+            if (_compressed!=null)
+            {
+                _precompressedContents=_precompressed;
+                Object compressed=_compressed.getAndSet(NOT_COMPRESSED);
+                if (compressed instanceof CachedCompressedHttpContent)
+                    ((CachedCompressedHttpContent)compressed).invalidate();
+            }
+
             _cachedFiles.decrementAndGet();
             _resource.close();
         }
 
+        /* ------------------------------------------------------------ */
+        /**
+         * @return whether this content may be compressed in memory by {@link #compress()}
+         */
+        boolean canCompress()
+        {
+            return _compressed!=null;
+        }
+
+        /* ------------------------------------------------------------ */
+        /**
+         * <p>Compresses this content in memory, if it is compressible and has not been compressed yet.</p>
+         * <p>Only the first caller compresses: concurrent callers return immediately, and the
+         * compressed variant is returned by {@link #getPrecompressedContents()} once available.</p>
+         */
+        void compress()
+        {
+            if (_compressed==null || !_compressed.compareAndSet(null,COMPRESSING))
+                return;
+
+            CachedCompressedHttpContent content=null;
+            try
+            {
+                ByteBuffer buffer=getGzipBuffer(_resource);
+                if (buffer!=null)
+                    content=new CachedCompressedHttpContent(this,buffer,CompressedContentFormat.GZIP);
+            }
+            catch(IOException|IllegalArgumentException e)
+            {
+                LOG.warn(e);
+            }
+
+            if (content==null)
+            {
+                _compressed.compareAndSet(COMPRESSING,NOT_COMPRESSED);
+                return;
+            }
+
+            // Account the variant before publishing it, so that a concurrent invalidation releases it.
+            int size=_cachedSize.addAndGet(BufferUtil.length(content._buffer));
+            if (!_compressed.compareAndSet(COMPRESSING,content))
+            {
+                _cachedSize.addAndGet(-BufferUtil.length(content._buffer));
+                return;
+            }
+
+            _compressions.increment();
+            Map<CompressedContentFormat, PrecompressedHttpContent> contents=new HashMap<>(_precompressed);
+            contents.put(content.getFormat(),content);
+            _precompressedContents=contents;
+            if (size>_maxCacheSize)
+                shrinkCache();
+        }
+
         /* ------------------------------------------------------------ */
         @Override
         public HttpField getLastModified()
@@ -700,15 +1022,16 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         @Override
         public Map<CompressedContentFormat,? extends HttpContent> getPrecompressedContents()
         {
-            if (_precompressed.size()==0)
+            Map<CompressedContentFormat, PrecompressedHttpContent> contents=_precompressedContents;
+            if (contents.size()==0)
                 return null;
-            Map<CompressedContentFormat, CachedPrecompressedHttpContent> ret=_precompressed;
-            for (Map.Entry<CompressedContentFormat, CachedPrecompressedHttpContent> entry:_precompressed.entrySet())
+            Map<CompressedContentFormat, PrecompressedHttpContent> ret=contents;
+            for (Map.Entry<CompressedContentFormat, PrecompressedHttpContent> entry:_precompressed.entrySet())
             {
-                if (!entry.getValue().isValid())
+                if (!((CachedPrecompressedHttpContent)entry.getValue()).isValid())
                 {
-                    if (ret == _precompressed)
-                        ret = new HashMap<>(_precompressed);
+                    if (ret == contents)
+                        ret = new HashMap<>(contents);
                     ret.remove(entry.getKey());
                 }
             }
@@ -762,4 +1085,116 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         }
     }
 
+    /* ------------------------------------------------------------ */
+    /* ------------------------------------------------------------ */
+    /* ------------------------------------------------------------ */
+    /** A variant of a {@link CachedHttpContent} compressed in memory.
+     */
+    public class CachedCompressedHttpContent extends PrecompressedHttpContent
+    {
+        private final CachedHttpContent _content;
+        private final CompressedContentFormat _format;
+        private final ByteBuffer _buffer;
+        private final HttpField _contentLength;
+        private final HttpField _etag;
+        private final AtomicReference<ByteBuffer> _directBuffer=new AtomicReference<>();
+
+        CachedCompressedHttpContent(CachedHttpContent content, ByteBuffer buffer, CompressedContentFormat format)
+        {
+            // The compressed bytes are held by this instance rather than by a precompressed content.
+            super(content,content,format);
+            _content=content;
+            _format=format;
+            _buffer=buffer;
+            _contentLength=new PreEncodedHttpField(HttpHeader.CONTENT_LENGTH,Long.toString(buffer.remaining()));
+            _etag=(CachedContentFactory.this._etags)?new PreEncodedHttpField(HttpHeader.ETAG,_content.getResource().getWeakETag(format._etag)):null;
+        }
+
+        public CompressedContentFormat getFormat()
+        {
+            return _format;
+        }
+
+        @Override
+        public HttpField getETag()
+        {
+            if (_etag!=null)
+                return _etag;
+            return super.getETag();
+        }
+
+        @Override
+        public String getETagValue()
+        {
+            if (_etag!=null)
+                return _etag.getValue();
+            return super.getETagValue();
+        }
+
+        @Override
+        public ByteBuffer getIndirectBuffer()
+        {
+            return _buffer.slice();
+        }
+
+        @Override
+        public ByteBuffer getDirectBuffer()
+        {
+            ByteBuffer buffer=_directBuffer.get();
+            if (buffer==null)
+            {
+                ByteBuffer direct=BufferUtil.allocateDirect(_buffer.remaining());
+                BufferUtil.append(direct,_buffer.slice());
+                if (_directBuffer.compareAndSet(null,direct))
+                {
+                    buffer=direct;
+                    if (_cachedSize.addAndGet(BufferUtil.length(buffer))>_maxCacheSize)
+                        shrinkCache();
+                }
+                else
+                    buffer=_directBuffer.get();
+            }
+            if (buffer==null)
+                return null;
+            return buffer.asReadOnlyBuffer();
+        }
+
+        private void invalidate()
+        {
+            _cachedSize.addAndGet(-BufferUtil.length(_buffer));
+            ByteBuffer direct=_directBuffer.getAndSet(null);
+            if (direct!=null)
+                _cachedSize.addAndGet(-BufferUtil.length(direct));
+        }
+
+        @Override
+        public HttpField getContentLength()
+        {
+            return _contentLength;
+        }
+
+        @Override
+        public long getContentLengthValue()
+        {
+            return _buffer.remaining();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException
+        {
+            return new ByteArrayInputStream(_buffer.array(),_buffer.arrayOffset()+_buffer.position(),_buffer.remaining());
+        }
+
+        @Override
+        public ReadableByteChannel getReadableByteChannel() throws IOException
+        {
+            return Channels.newChannel(getInputStream());
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("CachedCompressedHttpContent@%x{e=%s,r=%s,l=%d}",hashCode(),_format._encoding,_content.getResource(),_buffer.remaining());
+        }
+    }
 }
@@ -35,8 +35,8 @@ import org.eclipse.jetty.util.component.AbstractLifeCycle;
 import org.eclipse.jetty.util.component.Container;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.component.Dumpable;
-import org.eclipse.jetty.util.statistic.CounterStatistic;
-import org.eclipse.jetty.util.statistic.SampleStatistic;
+import org.eclipse.jetty.util.statistic.StripedCounterStatistic;
+import org.eclipse.jetty.util.statistic.StripedSampleStatistic;
 
 
 /* ------------------------------------------------------------ */
@@ -52,10 +52,10 @@ public class ConnectorStatistics extends AbstractLifeCycle implements Dumpable,
 {
     private final static Sample ZERO=new Sample();
     private final AtomicLong _startMillis = new AtomicLong(-1L);
-    private final CounterStatistic _connectionStats = new CounterStatistic();
-    private final SampleStatistic _messagesIn = new SampleStatistic();
-    private final SampleStatistic _messagesOut = new SampleStatistic();
-    private final SampleStatistic _connectionDurationStats = new SampleStatistic();
+    private final StripedCounterStatistic _connectionStats = new StripedCounterStatistic();
+    private final StripedSampleStatistic _messagesIn = new StripedSampleStatistic();
+    private final StripedSampleStatistic _messagesOut = new StripedSampleStatistic();
+    private final StripedSampleStatistic _connectionDurationStats = new StripedSampleStatistic();
     private final ConcurrentMap<Connection, Sample> _samples = new ConcurrentHashMap<>();
     private final LongAdder _closedIn = new LongAdder();
     private final LongAdder _closedOut = new LongAdder();
@@ -52,6 +52,7 @@ import org.eclipse.jetty.util.SharedBlockingCallback.Blocker;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 import org.eclipse.jetty.util.thread.Scheduler;
+import org.eclipse.jetty.util.thread.VirtualThreads;
 
 /**
  * HttpChannel represents a single endpoint for HTTP semantic processing.
@@ -786,6 +787,16 @@ public class HttpChannel implements Runnable, HttpOutput.Interceptor
         sendResponse(null,content,complete,callback);
     }
 
+    /**
+     * <p>Accounts response content that has been written directly
+     * to the endpoint, bypassing {@link #write(ByteBuffer, boolean, Callback)}.</p>
+     * @param bytes the number of content bytes written
+     */
+    void onContentTransferred(long bytes)
+    {
+        _written+=bytes;
+    }
+
     @Override
     public void resetBuffer()
     {
@@ -800,7 +811,12 @@ public class HttpChannel implements Runnable, HttpOutput.Interceptor
 
     protected void execute(Runnable task)
     {
-        _executor.execute(task);
+        // Handling may block, so it is dispatched to a virtual thread if configured.
+        Executor virtualThreads = VirtualThreads.getVirtualThreadsExecutor(_executor);
+        if (virtualThreads == null)
+            _executor.execute(task);
+        else
+            virtualThreads.execute(task);
     }
 
     public Scheduler getScheduler()
@@ -119,7 +119,6 @@ public class HttpChannelOverHttp extends HttpChannel implements HttpParser.Reque
     public void parsedHeader(HttpField field)
     {
         HttpHeader header = field.getHeader();
-        String value = field.getValue();
         if (header != null)
         {
             switch (header)
@@ -140,7 +139,7 @@ public class HttpChannelOverHttp extends HttpChannel implements HttpParser.Reque
                 {
                     if (_metadata.getHttpVersion() == HttpVersion.HTTP_1_1)
                     {
-                        HttpHeaderValue expect = HttpHeaderValue.CACHE.get(value);
+                        HttpHeaderValue expect = HttpHeaderValue.CACHE.get(field.getValue());
                         switch (expect == null ? HttpHeaderValue.UNKNOWN : expect)
                         {
                             case CONTINUE:
@@ -53,9 +53,11 @@ public class HttpConfiguration
     private final Trie<Boolean> _formEncodedMethods = new TreeTrie<>();
     private int _outputBufferSize=32*1024;
     private int _outputAggregationSize=_outputBufferSize/4;
+    private long _fileTransferThreshold=-1;
     private int _requestHeaderSize=8*1024;
     private int _responseHeaderSize=8*1024;
     private int _headerCacheSize=512;
+    private boolean _lazyFieldValues=false;
     private int _securePort;
     private long _idleTimeout=-1;
     private long _blockingTimeout=-1;
@@ -112,9 +114,11 @@ public class HttpConfiguration
             _formEncodedMethods.put(s,Boolean.TRUE);
         _outputBufferSize=config._outputBufferSize;
         _outputAggregationSize=config._outputAggregationSize;
+        _fileTransferThreshold=config._fileTransferThreshold;
         _requestHeaderSize=config._requestHeaderSize;
         _responseHeaderSize=config._responseHeaderSize;
         _headerCacheSize=config._headerCacheSize;
+        _lazyFieldValues=config._lazyFieldValues;
         _secureScheme=config._secureScheme;
         _securePort=config._securePort;
         _idleTimeout=config._idleTimeout;
@@ -171,6 +175,13 @@ public class HttpConfiguration
         return _outputAggregationSize;
     }
 
+    /* ------------------------------------------------------------ */
+    @ManagedAttribute("The minimum length in bytes of static file content written with zero-copy file transfer")
+    public long getFileTransferThreshold()
+    {
+        return _fileTransferThreshold;
+    }
+
     /* ------------------------------------------------------------ */
     @ManagedAttribute("The maximum allowed size in bytes for a HTTP request header")
     public int getRequestHeaderSize()
@@ -192,6 +203,13 @@ public class HttpConfiguration
         return _headerCacheSize;
     }
 
+    /* ------------------------------------------------------------ */
+    @ManagedAttribute("Whether request header field values are decoded lazily from the request buffer")
+    public boolean isLazyFieldValues()
+    {
+        return _lazyFieldValues;
+    }
+
     /* ------------------------------------------------------------ */
     @ManagedAttribute("The port to which Integral or Confidential security constraints are redirected")
     public int getSecurePort()
@@ -380,6 +398,20 @@ public class HttpConfiguration
         _outputAggregationSize = outputAggregationSize;
     }
 
+    /* ------------------------------------------------------------ */
+    /**
+     * Set the minimum length of static file content written with zero-copy file transfer.
+     * <p>File content of at least this length is written with {@link java.nio.channels.FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}
+     * directly to the socket, without copying it through user space buffers. Zero-copy transfer is only used
+     * for clear-text HTTP/1 responses that are not transformed by an output interceptor (e.g. gzip); other
+     * responses fall back to the normal write path.</p>
+     * @param fileTransferThreshold the minimum content length in bytes, or -1 to disable zero-copy transfer
+     */
+    public void setFileTransferThreshold(long fileTransferThreshold)
+    {
+        _fileTransferThreshold = fileTransferThreshold;
+    }
+
     /* ------------------------------------------------------------ */
     /** Set the maximum size of a request header.
      * <p>Larger headers will allow for more and/or larger cookies plus larger form content encoded 
@@ -413,6 +445,18 @@ public class HttpConfiguration
         _headerCacheSize = headerCacheSize;
     }
 
+    /* ------------------------------------------------------------ */
+    /** Set whether request header field values are decoded lazily.
+     * <p>When true, the values of the fields that are not interpreted nor cached by the
+     * parser are only decoded to strings when accessed. The request buffer holding them is
+     * retained until the request completes, when the values never accessed are copied aside.</p>
+     * @param lazyFieldValues True if field values are decoded lazily from the request buffer.
+     */
+    public void setLazyFieldValues(boolean lazyFieldValues)
+    {
+        _lazyFieldValues = lazyFieldValues;
+    }
+
     /* ------------------------------------------------------------ */
     /** Set the TCP/IP port used for CONFIDENTIAL and INTEGRAL redirections.
      * @param securePort the secure port to redirect to.
@@ -67,6 +67,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
     private final HttpParser _parser;
     private final AtomicInteger _contentBufferReferences=new AtomicInteger();
     private volatile ByteBuffer _requestBuffer = null;
+    private volatile ByteBuffer _headerBuffer = null;
     private volatile ByteBuffer _chunk = null;
     private final BlockingReadCallback _blockingReadCallback = new BlockingReadCallback();
     private final AsyncReadCallback _asyncReadCallback = new AsyncReadCallback();
@@ -129,7 +130,9 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
 
     protected HttpParser newHttpParser(HttpCompliance compliance)
     {
-        return new HttpParser(newRequestHandler(), getHttpConfiguration().getRequestHeaderSize(), compliance);
+        HttpParser parser = new HttpParser(newRequestHandler(), getHttpConfiguration().getRequestHeaderSize(), compliance);
+        parser.setLazyFieldValues(getHttpConfiguration().isLazyFieldValues());
+        return parser;
     }
 
     protected HttpParser.RequestHandler newRequestHandler()
@@ -185,6 +188,8 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
     {
         if (BufferUtil.hasContent(_requestBuffer))
         {
+            // The next connection may reuse the buffer
+            _parser.detachFields();
             ByteBuffer buffer = _requestBuffer;
             _requestBuffer=null;
             return buffer;
@@ -200,6 +205,21 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
                 LOG.debug("releaseRequestBuffer {}",this);
             ByteBuffer buffer=_requestBuffer;
             _requestBuffer=null;
+            // Lazy field values may still refer to the buffer the header was parsed from
+            if (_headerBuffer==null && _parser.hasLazyFields())
+                _headerBuffer=buffer;
+            else
+                _bufferPool.release(buffer);
+        }
+    }
+
+    private void releaseHeaderBuffer()
+    {
+        _parser.detachFields();
+        ByteBuffer buffer=_headerBuffer;
+        if (buffer!=null)
+        {
+            _headerBuffer=null;
             _bufferPool.release(buffer);
         }
     }
@@ -375,6 +395,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
                 _channel.getState().upgrade();
                 getEndPoint().upgrade(connection);
                 _channel.recycle();
+                releaseHeaderBuffer();
                 _parser.reset();
                 _generator.reset();
                 if (_contentBufferReferences.get()==0)
@@ -417,6 +438,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
 
         // Reset the channel, parsers and generator
         _channel.recycle();
+        releaseHeaderBuffer();
         if (!_parser.isClosed())
         {
             if (_generator.isPersistent())
@@ -18,20 +18,34 @@
 
 package org.eclipse.jetty.server;
 
+import java.util.concurrent.atomic.LongAdder;
+
 import org.eclipse.jetty.http.HttpCompliance;
+import org.eclipse.jetty.http.HttpFieldCache;
 import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.annotation.Name;
 
 /** A Connection Factory for HTTP Connections.
  * <p>Accepts connections either directly or via SSL and/or ALPN chained connection factories.  The accepted
  * {@link HttpConnection}s are configured by a {@link HttpConfiguration} instance that is either created by
  * default or passed in to the constructor.
+ * <p>The statistics of the {@link HttpFieldCache} of each connection, see
+ * {@link HttpConfiguration#setHeaderCacheSize(int)}, are added to the header
+ * cache statistics of this factory when the connection is closed.
  */
+@ManagedObject("HTTP/1.1 connection factory")
 public class HttpConnectionFactory extends AbstractConnectionFactory implements HttpConfiguration.ConnectionFactory
 {
     private final HttpConfiguration _config;
+    private final LongAdder _headerCacheHits = new LongAdder();
+    private final LongAdder _headerCacheMisses = new LongAdder();
+    private final LongAdder _headerCacheEvictions = new LongAdder();
+    private final Connection.Listener _headerCacheListener = new HeaderCacheListener();
     private HttpCompliance _httpCompliance;
     private boolean _recordHttpComplianceViolations = false;
 
@@ -83,12 +97,63 @@ public class HttpConnectionFactory extends AbstractConnectionFactory implements
     public Connection newConnection(Connector connector, EndPoint endPoint)
     {
         HttpConnection conn = new HttpConnection(_config, connector, endPoint, _httpCompliance,isRecordHttpComplianceViolations());
+        if (_config.getHeaderCacheSize()>0)
+            conn.addListener(_headerCacheListener);
         return configure(conn, connector, endPoint);
     }
+
+    @ManagedAttribute("number of header lookups that found a field cached by the connection")
+    public long getHeaderCacheHits()
+    {
+        return _headerCacheHits.sum();
+    }
+
+    @ManagedAttribute("number of header lookups that did not find a field cached by the connection")
+    public long getHeaderCacheMisses()
+    {
+        return _headerCacheMisses.sum();
+    }
+
+    @ManagedAttribute("ratio of header lookups that found a field cached by the connection")
+    public double getHeaderCacheHitRatio()
+    {
+        long hits = getHeaderCacheHits();
+        long lookups = hits + getHeaderCacheMisses();
+        return lookups == 0 ? 0.0 : (double)hits / lookups;
+    }
+
+    @ManagedAttribute("number of fields evicted from the connection header caches")
+    public long getHeaderCacheEvictions()
+    {
+        return _headerCacheEvictions.sum();
+    }
+
+    @ManagedOperation(value="resets the header cache statistics", impact="ACTION")
+    public void resetHeaderCacheStats()
+    {
+        _headerCacheHits.reset();
+        _headerCacheMisses.reset();
+        _headerCacheEvictions.reset();
+    }
     
     
     public void setRecordHttpComplianceViolations(boolean recordHttpComplianceViolations)
     {
         this._recordHttpComplianceViolations = recordHttpComplianceViolations;
     }
+
+    private class HeaderCacheListener extends Connection.Listener.Adapter
+    {
+        @Override
+        public void onClosed(Connection connection)
+        {
+            HttpFieldCache cache = ((HttpConnection)connection).getParser().getHttpFieldCache();
+            if (cache != null)
+            {
+                _headerCacheHits.add(cache.getHits());
+                _headerCacheMisses.add(cache.getMisses());
+                _headerCacheEvictions.add(cache.getEvictions());
+            }
+        }
+    }
 }
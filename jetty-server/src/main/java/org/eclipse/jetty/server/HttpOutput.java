@@ -19,9 +19,12 @@
 package org.eclipse.jetty.server;
 
 import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritePendingException;
 import java.util.concurrent.atomic.AtomicReference;
@@ -33,6 +36,7 @@ import javax.servlet.ServletResponse;
 import javax.servlet.WriteListener;
 
 import org.eclipse.jetty.http.HttpContent;
+import org.eclipse.jetty.io.ChannelEndPoint;
 import org.eclipse.jetty.io.EofException;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
@@ -873,6 +877,13 @@ public class HttpOutput extends ServletOutputStream implements Runnable
 
         try
         {
+            File file = getTransferableFile(httpContent);
+            if (file != null)
+            {
+                new FileTransferringCB(FileChannel.open(file.toPath()), httpContent.getContentLengthValue(), callback).iterate();
+                return;
+            }
+
             ReadableByteChannel rbc = httpContent.getReadableByteChannel();
             if (rbc != null)
             {
@@ -897,6 +908,38 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         }
     }
 
+    /**
+     * @param httpContent the content to send
+     * @return the file of the content, if it can be written with a zero-copy
+     * file transfer, or null if the content must be written normally
+     * @throws IOException if the file of the content cannot be obtained
+     * @see HttpConfiguration#setFileTransferThreshold(long)
+     */
+    private File getTransferableFile(HttpContent httpContent) throws IOException
+    {
+        long threshold = _channel.getHttpConfiguration().getFileTransferThreshold();
+        long length = httpContent.getContentLengthValue();
+        if (threshold < 0 || length <= 0 || length < threshold)
+            return null;
+
+        // The file bytes are written directly to the socket, so they must not
+        // be transformed by interceptors, encrypted or framed by the transport.
+        if (_interceptor != _channel ||
+                !(_channel.getHttpTransport() instanceof HttpConnection) ||
+                !(_channel.getEndPoint() instanceof ChannelEndPoint))
+            return null;
+
+        // The file bytes must be exactly the content of the response.
+        if (_channel.getRequest().isHead() || _channel.getResponse().getLongContentLength() != length)
+            return null;
+
+        // The resource of a precompressed content is the uncompressed file.
+        File file = httpContent.getResource().getFile();
+        if (file == null || httpContent.getContentEncoding() != null || file.length() != length)
+            return null;
+        return file;
+    }
+
     public int getBufferSize()
     {
         return _bufferSize;
@@ -1359,6 +1402,103 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         }
     }
 
+    /**
+     * An iterating callback that will transfer the content of a file
+     * directly to the {@link ChannelEndPoint} of the {@link HttpChannel}.
+     * The response is committed with an empty write, then the file is written
+     * with {@link ChannelEndPoint#transferFrom(FileChannel, long, long)}, bypassing
+     * the generator, and the response is completed with an empty last write.
+     * When the socket cannot accept more bytes, a buffer of size {@link HttpOutput#getBufferSize()}
+     * is read from the file and written normally, so that the endpoint can wait for the
+     * socket to be writable again.
+     */
+    private class FileTransferringCB extends IteratingNestedCallback
+    {
+        private final FileChannel _file;
+        private final long _length;
+        private final ChannelEndPoint _endPoint;
+        private ByteBuffer _buffer;
+        private long _position;
+        private boolean _committed;
+        private boolean _eof;
+
+        public FileTransferringCB(FileChannel file, long length, Callback callback)
+        {
+            super(callback);
+            _file = file;
+            _length = length;
+            _endPoint = (ChannelEndPoint)_channel.getEndPoint();
+        }
+
+        @Override
+        protected Action process() throws Exception
+        {
+            if (_eof)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("EOF of {}", this);
+                _file.close();
+                closed();
+                release();
+                return Action.SUCCEEDED;
+            }
+
+            if (!_committed)
+            {
+                _committed = true;
+                write(BufferUtil.EMPTY_BUFFER, false, this);
+                return Action.SCHEDULED;
+            }
+
+            while (_position < _length)
+            {
+                long transferred = _endPoint.transferFrom(_file, _position, _length - _position);
+                if (transferred == 0)
+                {
+                    if (_buffer == null)
+                        _buffer = _channel.getByteBufferPool().acquire(getBufferSize(), true);
+                    BufferUtil.clearToFill(_buffer);
+                    _buffer.limit((int)Math.min(_buffer.capacity(), _length - _position));
+                    int read = _file.read(_buffer, _position);
+                    if (read < 0)
+                        throw new EOFException("Unexpected end of " + _file);
+                    BufferUtil.flipToFlush(_buffer, 0);
+                    transferred(read);
+                    _endPoint.write(this, _buffer);
+                    return Action.SCHEDULED;
+                }
+                transferred(transferred);
+            }
+
+            _eof = true;
+            write(BufferUtil.EMPTY_BUFFER, true, this);
+            return Action.SCHEDULED;
+        }
+
+        private void transferred(long bytes)
+        {
+            _position += bytes;
+            _written += bytes;
+            _channel.onContentTransferred(bytes);
+        }
+
+        private void release()
+        {
+            if (_buffer != null)
+                _channel.getByteBufferPool().release(_buffer);
+            _buffer = null;
+        }
+
+        @Override
+        public void onCompleteFailure(Throwable x)
+        {
+            abort(x);
+            release();
+            HttpOutput.this.close(_file);
+            super.onCompleteFailure(x);
+        }
+    }
+
     private static class WriteBlocker extends SharedBlockingCallback
     {
         private final HttpChannel _channel;
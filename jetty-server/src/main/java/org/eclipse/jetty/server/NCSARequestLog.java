@@ -123,6 +123,17 @@ public class NCSARequestLog extends AbstractNCSARequestLog
         return null;
     }
 
+    /* ------------------------------------------------------------ */
+    /**
+     * Retrieve the stream the request log is written to.
+     *
+     * @return the output stream of the request log, or null if the log is not started
+     */
+    protected OutputStream getOutputStream()
+    {
+        return _out;
+    }
+
     /* ------------------------------------------------------------ */
     @Override
     protected boolean isEnabled()
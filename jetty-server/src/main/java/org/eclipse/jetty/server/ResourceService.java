@@ -28,6 +28,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
@@ -68,6 +69,7 @@ public class ResourceService
     private static final Logger LOG = Log.getLogger(ResourceService.class);
     
     private static final PreEncodedHttpField ACCEPT_RANGES = new PreEncodedHttpField(HttpHeader.ACCEPT_RANGES, "bytes");
+    private static final Collection<CompressedContentFormat> GZIP_FORMAT = Collections.singletonList(CompressedContentFormat.GZIP);
     
     private HttpContent.ContentFactory _contentFactory;
     private WelcomeFactory _welcomeFactory;
@@ -268,13 +270,21 @@ public class ResourceService
                 return;
                 
             // Precompressed variant available?
+            List<String> preferredEncodings = checkPrecompressedVariants?getPreferredEncodingOrder(request):null;
+            boolean compressible = checkPrecompressedVariants && content instanceof CachedContentFactory.CachedHttpContent &&
+                ((CachedContentFactory.CachedHttpContent)content).canCompress();
+            // Cached content is compressed in memory only for a request that accepts gzip.
+            if (compressible && getBestPrecompressedContent(preferredEncodings,GZIP_FORMAT)!=null)
+                ((CachedContentFactory.CachedHttpContent)content).compress();
             Map<CompressedContentFormat,? extends HttpContent> precompressedContents = checkPrecompressedVariants?content.getPrecompressedContents():null;
-            if (precompressedContents!=null && precompressedContents.size()>0)
-            {
-                // Tell caches that response may vary by accept-encoding
+            boolean hasPrecompressedContents = precompressedContents!=null && precompressedContents.size()>0;
+
+            // Tell caches that response may vary by accept-encoding
+            if (compressible || hasPrecompressedContents)
                 response.addHeader(HttpHeader.VARY.asString(),HttpHeader.ACCEPT_ENCODING.asString());
 
-                List<String> preferredEncodings = getPreferredEncodingOrder(request);
+            if (hasPrecompressedContents)
+            {
                 CompressedContentFormat precompressedContentEncoding = getBestPrecompressedContent(preferredEncodings, precompressedContents.keySet());
                 if (precompressedContentEncoding!=null)
                 {
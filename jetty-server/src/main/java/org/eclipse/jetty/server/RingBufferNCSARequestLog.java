@@ -0,0 +1,550 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.RolloverFileOutputStream;
+import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+/**
+ * <p>An asynchronously writing NCSA request log that does not allocate per request.</p>
+ * <p>Request threads encode the formatted entry in the platform default charset, as
+ * {@link NCSARequestLog} does, directly into the reused byte buffer of a slot of a
+ * bounded, lock-free ring buffer. The slot buffers are acquired from, and released to,
+ * a {@link ByteBufferPool}. A single writer thread drains the published slots in batches and writes each batch with a single gathering write
+ * to the {@link RolloverFileOutputStream}, so the log file is rolled over as for
+ * {@link NCSARequestLog}.</p>
+ * <p>When the ring buffer is full the entry is dropped rather than blocking the
+ * request thread; the number of dropped entries is available via JMX and is
+ * periodically reported in the server log.</p>
+ */
+@ManagedObject("NCSA request log written asynchronously in batches")
+public class RingBufferNCSARequestLog extends NCSARequestLog
+{
+    private static final Logger LOG = Log.getLogger(RingBufferNCSARequestLog.class);
+    private static final byte[] LINE_SEPARATOR = StringUtil.__LINE_SEPARATOR.getBytes(StandardCharsets.US_ASCII);
+    private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long DROPPED_REPORT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final AtomicLong _tail = new AtomicLong();
+    // The number of producers that may be claiming or encoding a slot.
+    private final AtomicInteger _producers = new AtomicInteger();
+    private final LongAdder _dropped = new LongAdder();
+    private final LongAdder _written = new LongAdder();
+    private final LongAdder _batches = new LongAdder();
+    private int _capacity = 1024;
+    private int _maxBatchSize = 64;
+    private int _slotSize = 512;
+    private ByteBufferPool _byteBufferPool;
+    private transient Charset _charset;
+    private transient Slot[] _ring;
+    private transient ByteBuffer[] _batch;
+    private transient long _head;
+    private transient long _droppedReported;
+    private transient long _droppedReportTime;
+    private transient volatile Thread _thread;
+    private transient volatile boolean _stopping;
+    private transient volatile boolean _waiting;
+
+    public RingBufferNCSARequestLog()
+    {
+    }
+
+    public RingBufferNCSARequestLog(String filename)
+    {
+        super(filename);
+    }
+
+    /**
+     * @return the number of slots of the ring buffer
+     */
+    @ManagedAttribute("number of entries that can be queued before entries are dropped")
+    public int getCapacity()
+    {
+        return _capacity;
+    }
+
+    /**
+     * @param capacity the number of slots of the ring buffer, rounded up to a power of two
+     */
+    public void setCapacity(int capacity)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        _capacity = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+    }
+
+    /**
+     * @return the max number of entries written by a single gathering write
+     */
+    @ManagedAttribute("max number of entries written by a single write")
+    public int getMaxBatchSize()
+    {
+        return _maxBatchSize;
+    }
+
+    /**
+     * @param maxBatchSize the max number of entries written by a single gathering write
+     */
+    public void setMaxBatchSize(int maxBatchSize)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        if (maxBatchSize <= 0)
+            throw new IllegalArgumentException("Invalid max batch size " + maxBatchSize);
+        _maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @return the initial size in bytes of the buffer of each slot
+     */
+    @ManagedAttribute("initial size in bytes of the buffer of each slot")
+    public int getSlotSize()
+    {
+        return _slotSize;
+    }
+
+    /**
+     * <p>Sets the initial size in bytes of the buffer of each slot.</p>
+     * <p>The buffer of a slot is replaced by a larger one when an entry does not fit,
+     * and the larger buffer is released once the entry is written.</p>
+     *
+     * @param slotSize the initial size in bytes of the buffer of each slot
+     */
+    public void setSlotSize(int slotSize)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        if (slotSize <= 0)
+            throw new IllegalArgumentException("Invalid slot size " + slotSize);
+        _slotSize = slotSize;
+    }
+
+    public ByteBufferPool getByteBufferPool()
+    {
+        return _byteBufferPool;
+    }
+
+    /**
+     * @param byteBufferPool the pool of the slot buffers, by default an {@link ArrayByteBufferPool}
+     */
+    public void setByteBufferPool(ByteBufferPool byteBufferPool)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        _byteBufferPool = byteBufferPool;
+    }
+
+    @ManagedAttribute("number of entries dropped because the ring buffer was full")
+    public long getDroppedCount()
+    {
+        return _dropped.sum();
+    }
+
+    @ManagedAttribute("number of entries written")
+    public long getWrittenCount()
+    {
+        return _written.sum();
+    }
+
+    @ManagedAttribute("number of writes")
+    public long getBatchCount()
+    {
+        return _batches.sum();
+    }
+
+    @ManagedAttribute("number of entries waiting to be written")
+    public int getPendingCount()
+    {
+        Slot[] ring = _ring;
+        if (ring == null)
+            return 0;
+        int pending = (int)(_tail.get() - _head);
+        return Math.max(0, Math.min(ring.length, pending));
+    }
+
+    @ManagedOperation(value = "resets the statistics", impact = "ACTION")
+    public void resetStats()
+    {
+        _dropped.reset();
+        _written.reset();
+        _batches.reset();
+        _droppedReported = 0;
+    }
+
+    @Override
+    protected synchronized void doStart() throws Exception
+    {
+        if (_byteBufferPool == null)
+            _byteBufferPool = new ArrayByteBufferPool();
+        // The charset of the writer of NCSARequestLog.
+        _charset = Charset.defaultCharset();
+        Slot[] ring = new Slot[_capacity];
+        for (int i = 0; i < ring.length; ++i)
+            ring[i] = new Slot(i);
+        _ring = ring;
+        _batch = new ByteBuffer[Math.min(_maxBatchSize, _capacity)];
+        _head = 0;
+        _tail.set(0);
+        _stopping = false;
+
+        super.doStart();
+
+        Thread thread = new Thread(this::writeEntries, "RingBufferNCSARequestLog@" + Integer.toHexString(hashCode()));
+        thread.setDaemon(true);
+        _thread = thread;
+        thread.start();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        // Stop new claims, then wait for the claimed slots to be published.
+        _stopping = true;
+        while (_producers.get() > 0)
+            Thread.yield();
+
+        Thread thread = _thread;
+        if (thread != null)
+        {
+            LockSupport.unpark(thread);
+            thread.join();
+            _thread = null;
+        }
+        // Write the entries published after the writer thread exited.
+        while (flush() > 0)
+        {
+        }
+        reportDropped(true);
+        super.doStop();
+        // No producer uses the slots anymore, so their buffers can return to the pool.
+        for (Slot slot : _ring)
+            slot.release();
+        _ring = null;
+        _batch = null;
+    }
+
+    @Override
+    public void write(String requestEntry) throws IOException
+    {
+        offer(requestEntry);
+    }
+
+    @Override
+    protected void write(StringBuilder requestEntry) throws IOException
+    {
+        offer(requestEntry);
+    }
+
+    private void offer(CharSequence entry)
+    {
+        _producers.incrementAndGet();
+        try
+        {
+            // Checked after registering as a producer, so that doStop()
+            // either sees this producer or this producer sees the stop.
+            if (!_stopping)
+                offer(_ring, entry);
+        }
+        finally
+        {
+            _producers.decrementAndGet();
+        }
+    }
+
+    private void offer(Slot[] ring, CharSequence entry)
+    {
+        if (ring == null)
+            return;
+
+        int mask = ring.length - 1;
+        long position = _tail.get();
+        Slot slot;
+        while (true)
+        {
+            slot = ring[(int)(position & mask)];
+            long difference = slot.sequence - position;
+            if (difference == 0)
+            {
+                if (_tail.compareAndSet(position, position + 1))
+                    break;
+                position = _tail.get();
+            }
+            else if (difference < 0)
+            {
+                // The writer has not yet released the slot: the ring is full.
+                _dropped.increment();
+                return;
+            }
+            else
+            {
+                position = _tail.get();
+            }
+        }
+
+        slot.encode(entry, _slotSize);
+        // Publish the slot to the writer thread.
+        slot.sequence = position + 1;
+
+        if (_waiting)
+            LockSupport.unpark(_thread);
+    }
+
+    private void writeEntries()
+    {
+        while (true)
+        {
+            int flushed = flush();
+            reportDropped(false);
+            if (flushed > 0)
+                continue;
+            if (_stopping)
+                break;
+
+            _waiting = true;
+            if (!isPublished(_head))
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            _waiting = false;
+        }
+    }
+
+    private boolean isPublished(long position)
+    {
+        Slot[] ring = _ring;
+        return ring[(int)(position & (ring.length - 1))].sequence == position + 1;
+    }
+
+    /**
+     * <p>Writes a batch of published entries.</p>
+     * <p>Only called by the writer thread, or by {@link #doStop()} after the writer thread exited.</p>
+     *
+     * @return the number of entries written
+     */
+    private int flush()
+    {
+        Slot[] ring = _ring;
+        ByteBuffer[] batch = _batch;
+        int mask = ring.length - 1;
+        long head = _head;
+        int count = 0;
+        while (count < batch.length)
+        {
+            Slot slot = ring[(int)((head + count) & mask)];
+            if (slot.sequence != head + count + 1)
+                break;
+            batch[count++] = slot.buffer;
+        }
+
+        if (count == 0)
+            return 0;
+
+        try
+        {
+            OutputStream out = getOutputStream();
+            if (out instanceof RolloverFileOutputStream)
+            {
+                ((RolloverFileOutputStream)out).write(batch, 0, count);
+            }
+            else if (out != null)
+            {
+                for (int i = 0; i < count; ++i)
+                    BufferUtil.writeTo(batch[i], out);
+                out.flush();
+            }
+            _written.add(count);
+            _batches.increment();
+        }
+        catch (Throwable x)
+        {
+            LOG.warn(x);
+        }
+        finally
+        {
+            for (int i = 0; i < count; ++i)
+            {
+                batch[i] = null;
+                Slot slot = ring[(int)((head + i) & mask)];
+                // Do not keep the buffers grown for large entries.
+                if (slot.large)
+                    slot.release();
+                // Release the slot for the next lap of the producers.
+                slot.sequence = head + i + ring.length;
+            }
+            _head = head + count;
+        }
+        return count;
+    }
+
+    private void reportDropped(boolean force)
+    {
+        long dropped = _dropped.sum();
+        if (dropped <= _droppedReported)
+            return;
+        long now = System.nanoTime();
+        if (!force && now - _droppedReportTime < DROPPED_REPORT_NANOS)
+            return;
+        LOG.warn("Dropped {} request log entries, ring buffer full", dropped - _droppedReported);
+        _droppedReported = dropped;
+        _droppedReportTime = now;
+    }
+
+    private class Slot
+    {
+        private volatile long sequence;
+        private ByteBuffer buffer;
+        // Whether the buffer has been acquired for an entry larger than the slot size.
+        private boolean large;
+        // Only used when the charset is not UTF-8.
+        private CharsetEncoder encoder;
+
+        private Slot(long sequence)
+        {
+            this.sequence = sequence;
+        }
+
+        private void release()
+        {
+            if (buffer != null)
+                _byteBufferPool.release(buffer);
+            buffer = null;
+        }
+
+        private ByteBuffer acquire(int bytes, int size)
+        {
+            ByteBuffer buffer = this.buffer;
+            if (buffer == null || buffer.capacity() < bytes)
+            {
+                release();
+                this.buffer = buffer = _byteBufferPool.acquire(Math.max(bytes, size), true);
+                large = bytes > size;
+            }
+            buffer.clear();
+            return buffer;
+        }
+
+        /**
+         * <p>Encodes the entry in the charset of the log, followed by the line separator.</p>
+         */
+        private void encode(CharSequence entry, int size)
+        {
+            if (StandardCharsets.UTF_8.equals(_charset))
+            {
+                encodeUTF8(entry, size);
+                return;
+            }
+
+            CharsetEncoder encoder = this.encoder;
+            if (encoder == null)
+            {
+                // Replaces malformed and unmappable characters, as the writer of NCSARequestLog does.
+                this.encoder = encoder = _charset.newEncoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+            String separator = StringUtil.__LINE_SEPARATOR;
+            ByteBuffer buffer = acquire((int)Math.ceil((entry.length() + separator.length()) * encoder.maxBytesPerChar()), size);
+            encoder.reset();
+            encoder.encode(CharBuffer.wrap(entry), buffer, false);
+            encoder.encode(CharBuffer.wrap(separator), buffer, true);
+            encoder.flush(buffer);
+            buffer.flip();
+        }
+
+        private void encodeUTF8(CharSequence entry, int size)
+        {
+            int length = entry.length();
+            int bytes = LINE_SEPARATOR.length;
+            for (int i = 0; i < length; ++i)
+            {
+                char c = entry.charAt(i);
+                if (c < 0x80)
+                    bytes += 1;
+                else if (c < 0x800)
+                    bytes += 2;
+                else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(entry.charAt(i + 1)))
+                {
+                    bytes += 4;
+                    ++i;
+                }
+                else
+                    bytes += 3;
+            }
+
+            ByteBuffer buffer = acquire(bytes, size);
+            for (int i = 0; i < length; ++i)
+            {
+                char c = entry.charAt(i);
+                if (c < 0x80)
+                {
+                    buffer.put((byte)c);
+                }
+                else if (c < 0x800)
+                {
+                    buffer.put((byte)(0xC0 | (c >> 6)));
+                    buffer.put((byte)(0x80 | (c & 0x3F)));
+                }
+                else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(entry.charAt(i + 1)))
+                {
+                    int codePoint = Character.toCodePoint(c, entry.charAt(++i));
+                    buffer.put((byte)(0xF0 | (codePoint >> 18)));
+                    buffer.put((byte)(0x80 | ((codePoint >> 12) & 0x3F)));
+                    buffer.put((byte)(0x80 | ((codePoint >> 6) & 0x3F)));
+                    buffer.put((byte)(0x80 | (codePoint & 0x3F)));
+                }
+                else if (Character.isSurrogate(c))
+                {
+                    // Unpaired surrogates are replaced, as String.getBytes() does.
+                    buffer.put((byte)'?');
+                }
+                else
+                {
+                    buffer.put((byte)(0xE0 | (c >> 12)));
+                    buffer.put((byte)(0x80 | ((c >> 6) & 0x3F)));
+                    buffer.put((byte)(0x80 | (c & 0x3F)));
+                }
+            }
+            buffer.put(LINE_SEPARATOR);
+            buffer.flip();
+        }
+    }
+}
@@ -41,11 +41,9 @@ import javax.servlet.http.HttpServletResponse;
 import org.eclipse.jetty.http.DateGenerator;
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpGenerator;
-import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.http.HttpURI;
-import org.eclipse.jetty.http.PreEncodedHttpField;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.ErrorHandler;
 import org.eclipse.jetty.server.handler.HandlerWrapper;
@@ -63,7 +61,6 @@ import org.eclipse.jetty.util.component.Graceful;
 import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
-import org.eclipse.jetty.util.thread.Locker;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.util.thread.ShutdownThread;
 import org.eclipse.jetty.util.thread.ThreadPool;
@@ -91,8 +88,6 @@ public class Server extends HandlerWrapper implements Attributes
     private ErrorHandler _errorHandler;
     private RequestLog _requestLog;
 
-    private final Locker _dateLocker = new Locker();
-    private volatile DateField _dateField;
 
 
     /* ------------------------------------------------------------ */
@@ -325,24 +320,7 @@ public class Server extends HandlerWrapper implements Attributes
     /* ------------------------------------------------------------ */
     public HttpField getDateField()
     {
-        long now=System.currentTimeMillis();
-        long seconds = now/1000;
-        DateField df = _dateField;
-
-        if (df==null || df._seconds!=seconds)
-        {
-            try(Locker.Lock lock = _dateLocker.lock())
-            {
-                df = _dateField;
-                if (df==null || df._seconds!=seconds)
-                {
-                    HttpField field=new PreEncodedHttpField(HttpHeader.DATE,DateGenerator.formatDate(now));
-                    _dateField=new DateField(seconds,field);
-                    return field;
-                }
-            }
-        }
-        return df._dateField;
+        return DateGenerator.getDateField();
     }
 
     /* ------------------------------------------------------------ */
@@ -756,19 +734,4 @@ public class Server extends HandlerWrapper implements Attributes
     {
         System.err.println(getVersion());
     }
-
-    /* ------------------------------------------------------------ */
-    /* ------------------------------------------------------------ */
-    private static class DateField
-    {
-        final long _seconds;
-        final HttpField _dateField;
-        public DateField(long seconds, HttpField dateField)
-        {
-            super();
-            _seconds = seconds;
-            _dateField = dateField;
-        }
-
-    }
 }
@@ -24,12 +24,16 @@ import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
 import java.nio.channels.Channel;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicReference;
@@ -42,11 +46,13 @@ import org.eclipse.jetty.io.ManagedSelector;
 import org.eclipse.jetty.io.SelectorManager;
 import org.eclipse.jetty.io.SocketChannelEndPoint;
 import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.IO;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.Name;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.util.thread.Scheduler;
+import org.eclipse.jetty.util.thread.VirtualThreads;
 
 /**
  * This {@link Connector} implementation is the primary connector for the
@@ -76,10 +82,21 @@ import org.eclipse.jetty.util.thread.Scheduler;
  * The default number of selectors is equal to half of the number of processors available to the JVM,
  * which should allow optimal performance even if all the connections used are performing
  * significant non-blocking work in the callback tasks.
+ * <h2>Reuse Port</h2>
+ * By default all the acceptors accept from a single {@link ServerSocketChannel}.
+ * If {@link #setReusePort(boolean) reusePort} is set and the platform supports {@code SO_REUSEPORT}
+ * (Linux with Java 9 or later), then each acceptor, or each selector if there are no acceptors,
+ * accepts from its own channel bound to the same address, so that the kernel distributes the incoming
+ * connections among the channels rather than serializing the accepts on a shared one; the connections
+ * accepted from a channel are then handled by the selectors that the channel owns: with a channel per
+ * selector, its own selector, and with a channel per acceptor, the selectors whose index modulo the
+ * number of acceptors is the acceptor index, in turn.
  */
 @ManagedObject("HTTP connector using NIO ByteChannels and Selectors")
 public class ServerConnector extends AbstractNetworkConnector
 {
+    private static final SocketOption<Boolean> SO_REUSEPORT = findReusePortOption();
+
     private final SelectorManager _manager;
     private final AtomicReference<Closeable> _acceptor = new AtomicReference<>();
     private volatile ServerSocketChannel _acceptChannel;
@@ -87,6 +104,8 @@ public class ServerConnector extends AbstractNetworkConnector
     private volatile int _localPort = -1;
     private volatile int _acceptQueueSize = 0;
     private volatile boolean _reuseAddress = true;
+    private volatile boolean _reusePort = false;
+    private volatile ServerSocketChannel[] _acceptChannels;
     private volatile int _lingerTime = -1;
 
     /**
@@ -235,15 +254,40 @@ public class ServerConnector extends AbstractNetworkConnector
     @Override
     protected void doStart() throws Exception
     {
+        // The reads of the connections call HttpChannel.handle(), that may block,
+        // so they run in virtual threads if the thread pool is configured with them.
+        if (VirtualThreads.isUseVirtualThreads(getExecutor()))
+            _manager.setUseVirtualThreads(true);
+
         super.doStart();
 
         if (getAcceptors()==0)
         {
-            _acceptChannel.configureBlocking(false);
-            _acceptor.set(_manager.acceptor(_acceptChannel));
+            ServerSocketChannel[] channels = _acceptChannels;
+            if (channels == null)
+                _acceptChannel.configureBlocking(false);
+            else
+                for (ServerSocketChannel channel : channels)
+                    channel.configureBlocking(false);
+            _acceptor.set(newSelectorAcceptor());
         }
     }
 
+    /**
+     * @return a {@link Closeable} that cancels the acceptors registered with the selectors
+     */
+    private Closeable newSelectorAcceptor() throws IOException
+    {
+        ServerSocketChannel[] channels = _acceptChannels;
+        if (channels == null)
+            return _manager.acceptor(_acceptChannel);
+
+        List<Closeable> acceptors = new ArrayList<>(channels.length);
+        for (int i = 0; i < channels.length; ++i)
+            acceptors.add(_manager.acceptor(channels[i], i));
+        return () -> acceptors.forEach(IO::close);
+    }
+
     @Override
     public boolean isOpen()
     {
@@ -305,7 +349,46 @@ public class ServerConnector extends AbstractNetworkConnector
             if (_localPort <= 0)
                 throw new IOException("Server channel not bound");
             addBean(_acceptChannel);
+            openReusePortChannels();
+        }
+    }
+
+    /**
+     * <p>Opens the additional channels bound with {@code SO_REUSEPORT} to the
+     * address of the accept channel, one for each acceptor or for each selector.</p>
+     */
+    private void openReusePortChannels() throws IOException
+    {
+        if (!isReusePort() || !isReusingPort(_acceptChannel))
+            return;
+        int count = getAcceptors() > 0 ? getAcceptors() : _manager.getSelectorCount();
+        if (count <= 1)
+            return;
+
+        ServerSocketChannel[] channels = new ServerSocketChannel[count];
+        channels[0] = _acceptChannel;
+        try
+        {
+            for (int i = 1; i < count; ++i)
+            {
+                ServerSocketChannel channel = ServerSocketChannel.open();
+                channels[i] = channel;
+                channel.setOption(SO_REUSEPORT, true);
+                channel.socket().setReuseAddress(getReuseAddress());
+                channel.socket().bind(_acceptChannel.getLocalAddress(), getAcceptQueueSize());
+                channel.configureBlocking(true);
+            }
         }
+        catch (IOException x)
+        {
+            for (int i = 1; i < count; ++i)
+                IO.close(channels[i]);
+            throw x;
+        }
+
+        for (int i = 1; i < count; ++i)
+            addBean(channels[i]);
+        _acceptChannels = channels;
     }
 
     /**
@@ -331,6 +414,13 @@ public class ServerConnector extends AbstractNetworkConnector
 
             InetSocketAddress bindAddress = getHost() == null ? new InetSocketAddress(getPort()) : new InetSocketAddress(getHost(), getPort());
             serverChannel.socket().setReuseAddress(getReuseAddress());
+            if (isReusePort())
+            {
+                if (SO_REUSEPORT != null && serverChannel.supportedOptions().contains(SO_REUSEPORT))
+                    serverChannel.setOption(SO_REUSEPORT, true);
+                else
+                    LOG.warn("SO_REUSEPORT not supported, {} uses a single channel", this);
+            }
             serverChannel.socket().bind(bindAddress, getAcceptQueueSize());
         }
 
@@ -348,7 +438,19 @@ public class ServerConnector extends AbstractNetworkConnector
     public void close()
     {
         super.close();
-        
+
+        ServerSocketChannel[] channels = _acceptChannels;
+        _acceptChannels = null;
+        if (channels != null)
+        {
+            // The first channel is the accept channel, closed below.
+            for (int i = 1; i < channels.length; ++i)
+            {
+                removeBean(channels[i]);
+                IO.close(channels[i]);
+            }
+        }
+
         ServerSocketChannel serverChannel = _acceptChannel;
         _acceptChannel = null;
         if (serverChannel != null)
@@ -373,20 +475,34 @@ public class ServerConnector extends AbstractNetworkConnector
     @Override
     public void accept(int acceptorID) throws IOException
     {
-        ServerSocketChannel serverChannel = _acceptChannel;
+        ServerSocketChannel[] channels = _acceptChannels;
+        ServerSocketChannel serverChannel = channels == null ? _acceptChannel : channels[acceptorID % channels.length];
         if (serverChannel != null && serverChannel.isOpen())
         {
             SocketChannel channel = serverChannel.accept();
-            accepted(channel);
+            // With a channel per acceptor, each acceptor feeds its own subset of the selectors.
+            if (channels == null)
+                accepted(channel, -1, 0);
+            else
+                accepted(channel, acceptorID % channels.length, channels.length);
         }
     }
 
-    private void accepted(SocketChannel channel) throws IOException
+    /**
+     * @param channel the accepted channel
+     * @param shard the index of the channel the connection was accepted from, or -1 to let the selector manager choose the selector
+     * @param shards the number of channels the connections are accepted from
+     * @see SelectorManager#accept(SelectableChannel, Object, int, int)
+     */
+    private void accepted(SocketChannel channel, int shard, int shards) throws IOException
     {
         channel.configureBlocking(false);
         Socket socket = channel.socket();
         configure(socket);
-        _manager.accept(channel);
+        if (shard < 0)
+            _manager.accept(channel);
+        else
+            _manager.accept(channel, null, shard, shards);
     }
 
     protected void configure(Socket socket)
@@ -485,6 +601,65 @@ public class ServerConnector extends AbstractNetworkConnector
         _reuseAddress = reuseAddress;
     }
 
+    /**
+     * @return whether each acceptor, or each selector if there are no acceptors, has its own
+     * channel bound with {@code SO_REUSEPORT}
+     */
+    @ManagedAttribute("Whether each acceptor or selector has its own channel bound with SO_REUSEPORT")
+    public boolean isReusePort()
+    {
+        return _reusePort;
+    }
+
+    /**
+     * <p>Sets whether each acceptor, or each selector if there are no acceptors, has its own
+     * channel bound with {@code SO_REUSEPORT}.</p>
+     * <p>This is supported on Linux since Java 9; elsewhere the connector logs a
+     * warning and uses a single channel.</p>
+     * <p>The epoll connector enables this by default and binds a native listening socket
+     * for each acceptor. Its native listening sockets are only accepted from by acceptors,
+     * so when constructed with 0 acceptors it uses 1 acceptor instead.</p>
+     *
+     * @param reusePort whether to use a channel per acceptor or selector
+     */
+    public void setReusePort(boolean reusePort)
+    {
+        _reusePort = reusePort;
+    }
+
+    /**
+     * @return the number of channels the connector accepts from
+     */
+    @ManagedAttribute("The number of channels accepting connections")
+    public int getAcceptChannelCount()
+    {
+        ServerSocketChannel[] channels = _acceptChannels;
+        if (channels != null)
+            return channels.length;
+        return _acceptChannel == null ? 0 : 1;
+    }
+
+    private static boolean isReusingPort(ServerSocketChannel channel) throws IOException
+    {
+        return SO_REUSEPORT != null &&
+                channel.supportedOptions().contains(SO_REUSEPORT) &&
+                channel.getOption(SO_REUSEPORT);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SocketOption<Boolean> findReusePortOption()
+    {
+        // StandardSocketOptions.SO_REUSEPORT is only available since Java 9.
+        try
+        {
+            return (SocketOption<Boolean>)StandardSocketOptions.class.getField("SO_REUSEPORT").get(null);
+        }
+        catch (Throwable x)
+        {
+            return null;
+        }
+    }
+
    
     @Override
     public void setAccepting(boolean accepting)
@@ -499,7 +674,7 @@ public class ServerConnector extends AbstractNetworkConnector
             {
                 if (_acceptor.get()==null)
                 {
-                    Closeable acceptor = _manager.acceptor(_acceptChannel);
+                    Closeable acceptor = newSelectorAcceptor();
                     if (!_acceptor.compareAndSet(null,acceptor))
                         acceptor.close();
                 }
@@ -527,7 +702,13 @@ public class ServerConnector extends AbstractNetworkConnector
         @Override
         protected void accepted(SelectableChannel channel) throws IOException
         {
-            ServerConnector.this.accepted((SocketChannel)channel);
+            ServerConnector.this.accepted((SocketChannel)channel, -1, 0);
+        }
+
+        @Override
+        protected void accepted(SelectableChannel channel, int selector) throws IOException
+        {
+            ServerConnector.this.accepted((SocketChannel)channel, selector, getSelectorCount());
         }
 
         @Override
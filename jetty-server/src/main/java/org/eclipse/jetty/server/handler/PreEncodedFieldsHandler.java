@@ -0,0 +1,97 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server.handler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.PreEncodedHttpFieldSet;
+import org.eclipse.jetty.server.Request;
+
+/**
+ * Handler to add a set of constant, pre-encoded fields to the responses of the wrapped handler.
+ * The fields are added before the wrapped handler is called, so it may replace or remove them,
+ * and while they are all present they are generated with a single copy.
+ * They are only added by the initial dispatch of a request, not by its async dispatches.
+ * Can be applied in jetty.xml with
+ * <pre>
+ *   &lt;Get id='handler' name='Handler'/&gt;
+ *   &lt;Set name='Handler'&gt;
+ *     &lt;New id='fieldsHandler' class='org.eclipse.jetty.server.handler.PreEncodedFieldsHandler'&gt;
+ *       &lt;Set name='Handler'&gt;&lt;Ref id='handler'/&gt;&lt;/Set&gt;
+ *       &lt;Call name='addField'&gt;&lt;Arg&gt;X-Frame-Options&lt;/Arg&gt;&lt;Arg&gt;DENY&lt;/Arg&gt;&lt;/Call&gt;
+ *     &lt;/New&gt;
+ *   &lt;/Set&gt;
+ * </pre>
+ * @see PreEncodedHttpFieldSet
+ */
+public class PreEncodedFieldsHandler extends HandlerWrapper
+{
+    private volatile PreEncodedHttpFieldSet _fields = new PreEncodedHttpFieldSet();
+
+    public PreEncodedFieldsHandler()
+    {
+    }
+
+    public PreEncodedFieldsHandler(PreEncodedHttpFieldSet fields)
+    {
+        _fields = fields;
+    }
+
+    public PreEncodedHttpFieldSet getFields()
+    {
+        return _fields;
+    }
+
+    /**
+     * @param fields The fields to add to each response
+     */
+    public void setFields(PreEncodedHttpFieldSet fields)
+    {
+        _fields = fields;
+    }
+
+    /**
+     * Add a field to the set of fields added to each response.
+     * @param name The field name
+     * @param value The field value
+     */
+    public synchronized void addField(String name, String value)
+    {
+        List<HttpField> fields = new ArrayList<>(_fields.getFields());
+        fields.add(new HttpField(name,value));
+        _fields = new PreEncodedHttpFieldSet(fields.toArray(new HttpField[fields.size()]));
+    }
+
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+    {
+        // Async and error dispatches continue the same response, that already has the fields.
+        if (baseRequest.getDispatcherType()==DispatcherType.REQUEST)
+            _fields.addTo(baseRequest.getResponse().getHttpFields());
+        super.handle(target,baseRequest,request,response);
+    }
+}
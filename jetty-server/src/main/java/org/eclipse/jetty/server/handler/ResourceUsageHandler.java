@@ -0,0 +1,485 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.server.handler;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.AsyncContextEvent;
+import org.eclipse.jetty.server.HttpChannelState;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.UserIdentity;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
+
+/**
+ * <p>A handler that accounts the CPU time consumed and the bytes allocated by the
+ * threads that handle each request.</p>
+ * <p>The usage of each dispatch of a request is measured with the {@link ThreadMXBean}
+ * of the JVM and accumulated over the async dispatches of the request. When the request
+ * completes, its usage is recorded in histograms, both overall and per context path and
+ * servlet. Allocated bytes are only available on JVMs that provide
+ * {@code com.sun.management.ThreadMXBean}; CPU time only if the JVM supports measuring
+ * the CPU time of the current thread.</p>
+ * <p>Work that an application performs in its own threads, for example with
+ * {@link javax.servlet.AsyncContext#start(Runnable)}, is not accounted.</p>
+ * <p>If the JVM supports measuring thread CPU time but the measurement is disabled,
+ * it is enabled while this handler is started, and disabled again when the last
+ * started instance stops.</p>
+ * <p>Each context path and servlet pair accounted separately takes about 15KiB for
+ * its histograms, so the number of pairs is bounded by {@link #setMaxUsages(int)}.</p>
+ * <p>The usages are available via JMX and are shown by the {@code StatisticsServlet}.</p>
+ */
+@ManagedObject("Request CPU time and allocation accounting")
+public class ResourceUsageHandler extends HandlerWrapper
+{
+    private static final Logger LOG = Log.getLogger(ResourceUsageHandler.class);
+    private static final String OTHERS = "others";
+    private static final String UNKNOWN = "unknown";
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final MethodHandle ALLOCATED_BYTES;
+
+    static
+    {
+        MethodHandle allocatedBytes = null;
+        try
+        {
+            Class<?> type = Class.forName("com.sun.management.ThreadMXBean");
+            if (type.isInstance(THREADS) && (Boolean)type.getMethod("isThreadAllocatedMemorySupported").invoke(THREADS))
+            {
+                allocatedBytes = MethodHandles.publicLookup()
+                        .findVirtual(type, "getThreadAllocatedBytes", MethodType.methodType(long.class, long.class))
+                        .bindTo(THREADS);
+            }
+        }
+        catch (Throwable x)
+        {
+            LOG.ignore(x);
+        }
+        ALLOCATED_BYTES = allocatedBytes;
+    }
+
+    // The number of started instances, and whether they enabled the thread CPU time measurement.
+    private static int __started;
+    private static boolean __cpuTimeEnabled;
+
+    private final ConcurrentMap<String, Usage> _usages = new ConcurrentHashMap<>();
+    // The usages of the async requests, until they complete.
+    private final ConcurrentMap<Request, RequestUsage> _asyncUsages = new ConcurrentHashMap<>();
+    private final Usage _total = new Usage("*");
+    private int _maxUsages = 64;
+    private final AsyncListener _onCompletion = new AsyncListener()
+    {
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException
+        {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) throws IOException
+        {
+            event.getAsyncContext().addListener(this);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) throws IOException
+        {
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException
+        {
+            HttpChannelState state = ((AsyncContextEvent)event).getHttpChannelState();
+            RequestUsage usage = _asyncUsages.remove(state.getBaseRequest());
+            if (usage != null)
+                complete(usage);
+        }
+    };
+
+    /**
+     * @return the max number of distinct context path and servlet pairs accounted separately
+     */
+    @ManagedAttribute("max number of context path and servlet pairs accounted separately")
+    public int getMaxUsages()
+    {
+        return _maxUsages;
+    }
+
+    /**
+     * <p>Sets the max number of context path and servlet pairs accounted separately;
+     * the requests to other pairs are accounted together. Each pair takes about 15KiB.</p>
+     *
+     * @param maxUsages the max number of context path and servlet pairs accounted separately
+     */
+    public void setMaxUsages(int maxUsages)
+    {
+        _maxUsages = maxUsages;
+    }
+
+    @ManagedAttribute(value = "whether the CPU time of requests is accounted", readonly = true)
+    public boolean isCpuTimeSupported()
+    {
+        return THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+    }
+
+    @ManagedAttribute(value = "whether the bytes allocated by requests are accounted", readonly = true)
+    public boolean isAllocatedBytesSupported()
+    {
+        return ALLOCATED_BYTES != null;
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        synchronized (ResourceUsageHandler.class)
+        {
+            // Only the first instance enables the measurement, and only if it is disabled.
+            if (__started++ == 0 && THREADS.isCurrentThreadCpuTimeSupported() && !THREADS.isThreadCpuTimeEnabled())
+            {
+                try
+                {
+                    THREADS.setThreadCpuTimeEnabled(true);
+                    __cpuTimeEnabled = true;
+                }
+                catch (Throwable x)
+                {
+                    LOG.warn("Could not enable thread CPU time measurement: {}", x.toString());
+                }
+            }
+        }
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+        _asyncUsages.clear();
+        synchronized (ResourceUsageHandler.class)
+        {
+            // Restore the JVM setting when the last instance stops.
+            if (--__started == 0 && __cpuTimeEnabled)
+            {
+                __cpuTimeEnabled = false;
+                try
+                {
+                    THREADS.setThreadCpuTimeEnabled(false);
+                }
+                catch (Throwable x)
+                {
+                    LOG.ignore(x);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+    {
+        long thread = Thread.currentThread().getId();
+        long cpuTime = cpuTime();
+        long allocatedBytes = allocatedBytes(thread);
+        String contextPath = baseRequest.getContextPath();
+        try
+        {
+            super.handle(target, baseRequest, request, response);
+        }
+        finally
+        {
+            HttpChannelState state = baseRequest.getHttpChannelState();
+            boolean initial = state.isInitial();
+            // The usage of an async request is kept by this handler between
+            // dispatches, rather than in a request attribute that would be
+            // visible to the application.
+            RequestUsage usage = initial ? new RequestUsage() : _asyncUsages.get(baseRequest);
+            if (usage != null)
+            {
+                usage._cpuTime += cpuTime() - cpuTime;
+                usage._allocatedBytes += allocatedBytes(thread) - allocatedBytes;
+                String key = getKey(baseRequest, contextPath);
+                if (key != null)
+                    usage._key = key;
+
+                if (state.isAsyncStarted())
+                {
+                    if (initial)
+                    {
+                        _asyncUsages.put(baseRequest, usage);
+                        state.addListener(_onCompletion);
+                    }
+                }
+                else if (initial)
+                {
+                    complete(usage);
+                }
+                // else onCompletion will handle it.
+            }
+        }
+    }
+
+    /**
+     * <p>Returns the key under which a request is accounted, by default the
+     * context path and the name of the servlet that handled the request.</p>
+     * <p>Requests not handled by a servlet are accounted under their context path
+     * only if this handler is within the context, as the context path is reset
+     * when the request leaves the context.</p>
+     *
+     * @param baseRequest the request that has just been dispatched
+     * @param contextPath the context path of the request when the dispatch started
+     * @return the key under which the request is accounted, or null if unknown
+     */
+    protected String getKey(Request baseRequest, String contextPath)
+    {
+        UserIdentity.Scope scope = baseRequest.getUserIdentityScope();
+        if (scope != null)
+            return keyOf(scope.getContextPath(), scope.getName());
+        if (contextPath == null)
+            contextPath = baseRequest.getContextPath();
+        return contextPath == null ? null : keyOf(contextPath, null);
+    }
+
+    private static String keyOf(String contextPath, String servletName)
+    {
+        if (contextPath == null || contextPath.isEmpty())
+            contextPath = "/";
+        return servletName == null ? contextPath : contextPath + " " + servletName;
+    }
+
+    private void complete(RequestUsage usage)
+    {
+        long cpuTime = TimeUnit.NANOSECONDS.toMicros(usage._cpuTime);
+        _total.record(cpuTime, usage._allocatedBytes);
+        String key = usage._key == null ? UNKNOWN : usage._key;
+        Usage keyed = _usages.get(key);
+        if (keyed == null)
+            keyed = newUsage(key);
+        keyed.record(cpuTime, usage._allocatedBytes);
+    }
+
+    private Usage newUsage(String key)
+    {
+        // Synchronized, so that concurrent requests to new keys cannot exceed the max.
+        synchronized (_usages)
+        {
+            Usage usage = _usages.get(key);
+            if (usage == null)
+            {
+                // The others usage is not counted in the max.
+                if (_usages.size() - (_usages.containsKey(OTHERS) ? 1 : 0) >= getMaxUsages())
+                    key = OTHERS;
+                usage = _usages.computeIfAbsent(key, Usage::new);
+            }
+            return usage;
+        }
+    }
+
+    private static long cpuTime()
+    {
+        try
+        {
+            // Returns -1 if measurement is disabled.
+            return Math.max(0, THREADS.getCurrentThreadCpuTime());
+        }
+        catch (UnsupportedOperationException x)
+        {
+            return 0;
+        }
+    }
+
+    private static long allocatedBytes(long thread)
+    {
+        if (ALLOCATED_BYTES == null)
+            return 0;
+        try
+        {
+            return Math.max(0, (long)ALLOCATED_BYTES.invokeExact(thread));
+        }
+        catch (Throwable x)
+        {
+            return 0;
+        }
+    }
+
+    /**
+     * @return the usage of all the requests
+     */
+    public Usage getTotalUsage()
+    {
+        return _total;
+    }
+
+    /**
+     * @return the usages per context path and servlet
+     */
+    public Collection<Usage> getUsages()
+    {
+        return new ArrayList<>(_usages.values());
+    }
+
+    @ManagedAttribute(value = "number of requests accounted", readonly = true)
+    public long getRequests()
+    {
+        return _total.getRequests();
+    }
+
+    @ManagedAttribute(value = "total CPU time of requests (in us)", readonly = true)
+    public long getCpuTimeTotal()
+    {
+        return _total.getCpuTime().getTotal();
+    }
+
+    @ManagedAttribute(value = "max CPU time of a request (in us)", readonly = true)
+    public long getCpuTimeMax()
+    {
+        return _total.getCpuTime().getMax();
+    }
+
+    @ManagedAttribute(value = "total bytes allocated by requests", readonly = true)
+    public long getAllocatedBytesTotal()
+    {
+        return _total.getAllocatedBytes().getTotal();
+    }
+
+    @ManagedAttribute(value = "max bytes allocated by a request", readonly = true)
+    public long getAllocatedBytesMax()
+    {
+        return _total.getAllocatedBytes().getMax();
+    }
+
+    @ManagedAttribute(value = "usages per context path and servlet", readonly = true)
+    public String[] getUsagesSummary()
+    {
+        List<String> summary = new ArrayList<>();
+        for (Usage usage : getUsages())
+            summary.add(usage.toSummary());
+        summary.sort(null);
+        return summary.toArray(new String[summary.size()]);
+    }
+
+    @ManagedOperation(value = "resets statistics", impact = "ACTION")
+    public void statsReset()
+    {
+        synchronized (_usages)
+        {
+            _usages.clear();
+        }
+        _total.reset();
+    }
+
+    /**
+     * <p>The usage accumulated by a request over its dispatches.</p>
+     */
+    private static class RequestUsage
+    {
+        private long _cpuTime;
+        private long _allocatedBytes;
+        private String _key;
+    }
+
+    /**
+     * <p>The CPU time (in microseconds) and allocated bytes histograms of the requests
+     * handled by a context path and servlet.</p>
+     */
+    public static class Usage
+    {
+        private final HistogramStatistic _cpuTime = new HistogramStatistic();
+        private final HistogramStatistic _allocatedBytes = new HistogramStatistic();
+        private final String _key;
+
+        private Usage(String key)
+        {
+            _key = key;
+        }
+
+        /**
+         * @return the context path, followed by the servlet name if the requests were handled by a servlet
+         */
+        public String getKey()
+        {
+            return _key;
+        }
+
+        public long getRequests()
+        {
+            return _cpuTime.getCount();
+        }
+
+        public HistogramStatistic getCpuTime()
+        {
+            return _cpuTime;
+        }
+
+        public HistogramStatistic getAllocatedBytes()
+        {
+            return _allocatedBytes;
+        }
+
+        private void record(long cpuTime, long allocatedBytes)
+        {
+            _cpuTime.set(cpuTime);
+            _allocatedBytes.set(allocatedBytes);
+        }
+
+        private void reset()
+        {
+            _cpuTime.reset();
+            _allocatedBytes.reset();
+        }
+
+        private String toSummary()
+        {
+            return String.format("%s: requests=%d cpu(us) mean=%.1f p99=%d max=%d allocated(B) mean=%.1f p99=%d max=%d",
+                    _key,
+                    getRequests(),
+                    _cpuTime.getMean(),
+                    _cpuTime.getValueAtPercentile(99),
+                    _cpuTime.getMax(),
+                    _allocatedBytes.getMean(),
+                    _allocatedBytes.getValueAtPercentile(99),
+                    _allocatedBytes.getMax());
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x{%s}", getClass().getSimpleName(), hashCode(), toSummary());
+        }
+    }
+}
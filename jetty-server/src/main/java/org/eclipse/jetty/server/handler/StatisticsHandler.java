@@ -46,7 +46,9 @@ import org.eclipse.jetty.util.component.Graceful;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 import org.eclipse.jetty.util.statistic.CounterStatistic;
-import org.eclipse.jetty.util.statistic.SampleStatistic;
+import org.eclipse.jetty.util.statistic.StripedCounterStatistic;
+import org.eclipse.jetty.util.statistic.StripedHistogramStatistic;
+import org.eclipse.jetty.util.statistic.StripedSampleStatistic;
 
 @ManagedObject("Request Statistics Gathering")
 public class StatisticsHandler extends HandlerWrapper implements Graceful
@@ -54,11 +56,15 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
     private static final Logger LOG = Log.getLogger(StatisticsHandler.class);
     private final AtomicLong _statsStartedAt = new AtomicLong();
 
+    // Not striped, as decrement() must return the exact number of requests for the graceful shutdown.
     private final CounterStatistic _requestStats = new CounterStatistic();
-    private final SampleStatistic _requestTimeStats = new SampleStatistic();
-    private final CounterStatistic _dispatchedStats = new CounterStatistic();
-    private final SampleStatistic _dispatchedTimeStats = new SampleStatistic();
-    private final CounterStatistic _asyncWaitStats = new CounterStatistic();
+    private final StripedSampleStatistic _requestTimeStats = new StripedSampleStatistic();
+    private final StripedCounterStatistic _dispatchedStats = new StripedCounterStatistic();
+    private final StripedSampleStatistic _dispatchedTimeStats = new StripedSampleStatistic();
+    private final StripedCounterStatistic _asyncWaitStats = new StripedCounterStatistic();
+    private final StripedHistogramStatistic _requestTimeHistogram = new StripedHistogramStatistic();
+    private final StripedHistogramStatistic _dispatchedTimeHistogram = new StripedHistogramStatistic();
+    private final StripedHistogramStatistic _responsesBytesHistogram = new StripedHistogramStatistic();
 
     private final LongAdder _asyncDispatches = new LongAdder();
     private final LongAdder _expires = new LongAdder();
@@ -103,6 +109,7 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
 
             long d=_requestStats.decrement();
             _requestTimeStats.set(elapsed);
+            _requestTimeHistogram.set(elapsed);
 
             updateResponse(request);
 
@@ -121,7 +128,7 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
     /**
      * Resets the current request statistics.
      */
-    @ManagedOperation(value="resets statistics", impact="ACTION")
+    @ManagedOperation(value="resets statistics, not atomically with respect to requests completed concurrently", impact="ACTION")
     public void statsReset()
     {
         _statsStartedAt.set(System.currentTimeMillis());
@@ -131,6 +138,9 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
         _dispatchedStats.reset();
         _dispatchedTimeStats.reset();
         _asyncWaitStats.reset();
+        _requestTimeHistogram.reset();
+        _dispatchedTimeHistogram.reset();
+        _responsesBytesHistogram.reset();
 
         _asyncDispatches.reset();
         _expires.reset();
@@ -185,6 +195,7 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
 
             _dispatchedStats.decrement();
             _dispatchedTimeStats.set(dispatched);
+            _dispatchedTimeHistogram.set(dispatched);
 
             if (state.isSuspended())
             {
@@ -198,6 +209,7 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
             {
                 long d=_requestStats.decrement();
                 _requestTimeStats.set(dispatched);
+                _requestTimeHistogram.set(dispatched);
                 updateResponse(baseRequest);
                 
                 // If we have no more dispatches, should we signal shutdown?
@@ -243,6 +255,7 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
             // will fall through to not found handler
             _responses4xx.increment();
         _responsesTotalBytes.add(response.getContentCount());
+        _responsesBytesHistogram.set(response.getContentCount());
     }
 
     @Override
@@ -339,6 +352,45 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
         return _requestTimeStats.getStdDev();
     }
 
+    /**
+     * @return the median time (in milliseconds) of request handling
+     * since {@link #statsReset()} was last called.
+     */
+    @ManagedAttribute("median time spent handling requests (in ms)")
+    public long getRequestTimeP50()
+    {
+        return _requestTimeHistogram.getValueAtPercentile(50);
+    }
+
+    /**
+     * @return the 99th percentile of the time (in milliseconds) of request handling
+     * since {@link #statsReset()} was last called.
+     */
+    @ManagedAttribute("99th percentile of the time spent handling requests (in ms)")
+    public long getRequestTimeP99()
+    {
+        return _requestTimeHistogram.getValueAtPercentile(99);
+    }
+
+    /**
+     * @return the 99.9th percentile of the time (in milliseconds) of request handling
+     * since {@link #statsReset()} was last called.
+     */
+    @ManagedAttribute("99.9th percentile of the time spent handling requests (in ms)")
+    public long getRequestTimeP999()
+    {
+        return _requestTimeHistogram.getValueAtPercentile(99.9);
+    }
+
+    /**
+     * @return the histogram of the time (in milliseconds) of request handling
+     * since {@link #statsReset()} was last called.
+     */
+    public StripedHistogramStatistic getRequestTimeHistogram()
+    {
+        return _requestTimeHistogram;
+    }
+
     /**
      * @return the number of dispatches seen by this handler
      * since {@link #statsReset()} was last called, excluding
@@ -416,6 +468,45 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
         return _dispatchedTimeStats.getStdDev();
     }
 
+    /**
+     * @return the median time (in milliseconds) of request dispatch
+     * since {@link #statsReset()} was last called.
+     */
+    @ManagedAttribute("median time spent in dispatch handling (in ms)")
+    public long getDispatchedTimeP50()
+    {
+        return _dispatchedTimeHistogram.getValueAtPercentile(50);
+    }
+
+    /**
+     * @return the 99th percentile of the time (in milliseconds) of request dispatch
+     * since {@link #statsReset()} was last called.
+     */
+    @ManagedAttribute("99th percentile of the time spent in dispatch handling (in ms)")
+    public long getDispatchedTimeP99()
+    {
+        return _dispatchedTimeHistogram.getValueAtPercentile(99);
+    }
+
+    /**
+     * @return the 99.9th percentile of the time (in milliseconds) of request dispatch
+     * since {@link #statsReset()} was last called.
+     */
+    @ManagedAttribute("99.9th percentile of the time spent in dispatch handling (in ms)")
+    public long getDispatchedTimeP999()
+    {
+        return _dispatchedTimeHistogram.getValueAtPercentile(99.9);
+    }
+
+    /**
+     * @return the histogram of the time (in milliseconds) of request dispatch
+     * since {@link #statsReset()} was last called.
+     */
+    public StripedHistogramStatistic getDispatchedTimeHistogram()
+    {
+        return _dispatchedTimeHistogram;
+    }
+
     /**
      * @return the number of requests handled by this handler
      * since {@link #statsReset()} was last called, including
@@ -535,6 +626,42 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
         return _responsesTotalBytes.longValue();
     }
 
+    /**
+     * @return the median bytes of content sent in a response
+     */
+    @ManagedAttribute("median number of bytes of a response")
+    public long getResponsesBytesP50()
+    {
+        return _responsesBytesHistogram.getValueAtPercentile(50);
+    }
+
+    /**
+     * @return the 99th percentile of the bytes of content sent in a response
+     */
+    @ManagedAttribute("99th percentile of the number of bytes of a response")
+    public long getResponsesBytesP99()
+    {
+        return _responsesBytesHistogram.getValueAtPercentile(99);
+    }
+
+    /**
+     * @return the max bytes of content sent in a response
+     */
+    @ManagedAttribute("maximum number of bytes of a response")
+    public long getResponsesBytesMax()
+    {
+        return _responsesBytesHistogram.getMax();
+    }
+
+    /**
+     * @return the histogram of the bytes of content sent in responses
+     * since {@link #statsReset()} was last called.
+     */
+    public StripedHistogramStatistic getResponsesBytesHistogram()
+    {
+        return _responsesBytesHistogram;
+    }
+
     public String toStatsHTML()
     {
         StringBuilder sb = new StringBuilder();
@@ -550,6 +677,7 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
         sb.append("Mean request time: ").append(getRequestTimeMean()).append("<br />\n");
         sb.append("Max request time: ").append(getRequestTimeMax()).append("<br />\n");
         sb.append("Request time standard deviation: ").append(getRequestTimeStdDev()).append("<br />\n");
+        sb.append("Request time percentiles 50/99/99.9: ").append(getRequestTimeP50()).append("/").append(getRequestTimeP99()).append("/").append(getRequestTimeP999()).append("<br />\n");
 
 
         sb.append("<h2>Dispatches:</h2>\n");
@@ -560,6 +688,7 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
         sb.append("Mean dispatched time: ").append(getDispatchedTimeMean()).append("<br />\n");
         sb.append("Max dispatched time: ").append(getDispatchedTimeMax()).append("<br />\n");
         sb.append("Dispatched time standard deviation: ").append(getDispatchedTimeStdDev()).append("<br />\n");
+        sb.append("Dispatched time percentiles 50/99/99.9: ").append(getDispatchedTimeP50()).append("/").append(getDispatchedTimeP99()).append("/").append(getDispatchedTimeP999()).append("<br />\n");
 
 
         sb.append("Total requests suspended: ").append(getAsyncRequests()).append("<br />\n");
@@ -573,6 +702,7 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
         sb.append("4xx responses: ").append(getResponses4xx()).append("<br />\n");
         sb.append("5xx responses: ").append(getResponses5xx()).append("<br />\n");
         sb.append("Bytes sent total: ").append(getResponsesBytesTotal()).append("<br />\n");
+        sb.append("Bytes per response 50/99/max: ").append(getResponsesBytesP50()).append("/").append(getResponsesBytesP99()).append("/").append(getResponsesBytesMax()).append("<br />\n");
 
         return sb.toString();
 
@@ -45,6 +45,9 @@ import org.eclipse.jetty.util.IncludeExclude;
 import org.eclipse.jetty.util.RegexSet;
 import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.URIUtil;
+import org.eclipse.jetty.util.compression.CompressionPool;
+import org.eclipse.jetty.util.compression.DeflaterPool;
+import org.eclipse.jetty.util.compression.InflaterPool;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 
@@ -70,9 +73,12 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     private boolean _checkGzExists = true;
     private boolean _syncFlush = false;
     private int _inflateBufferSize = -1;
+    private int _deflaterPoolCapacity = CompressionPool.DEFAULT_CAPACITY;
+    private int _inflaterPoolCapacity = CompressionPool.DEFAULT_CAPACITY;
     private EnumSet<DispatcherType> _dispatchers = EnumSet.of(DispatcherType.REQUEST);
     // non-static, as other GzipHandler instances may have different configurations
-    private final ThreadLocal<Deflater> _deflater = new ThreadLocal<>();
+    private DeflaterPool _deflaterPool;
+    private InflaterPool _inflaterPool;
     private final IncludeExclude<String> _agentPatterns=new IncludeExclude<>(RegexSet.class);
     private final IncludeExclude<String> _methods = new IncludeExclude<>();
     private final IncludeExclude<String> _paths = new IncludeExclude<>(PathSpecSet.class);
@@ -270,9 +276,21 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     protected void doStart() throws Exception
     {
         _vary=(_agentPatterns.size()>0)?GzipHttpOutputInterceptor.VARY_ACCEPT_ENCODING_USER_AGENT:GzipHttpOutputInterceptor.VARY_ACCEPT_ENCODING;
+        _deflaterPool=new DeflaterPool(_deflaterPoolCapacity,_compressionLevel,true);
+        addBean(_deflaterPool);
+        _inflaterPool=new InflaterPool(_inflaterPoolCapacity,true);
+        addBean(_inflaterPool);
         super.doStart();
     }
 
+    @Override
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+        removeBean(_deflaterPool);
+        removeBean(_inflaterPool);
+    }
+
     public boolean getCheckGzExists()
     {
         return _checkGzExists;
@@ -315,13 +333,7 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
             return null;
         }
         
-        Deflater df = _deflater.get();
-        if (df==null)
-            df=new Deflater(_compressionLevel,true);        
-        else
-            _deflater.set(null);
-        
-        return df;
+        return _deflaterPool.acquire();
     }
     
     public String[] getExcludedAgentPatterns()
@@ -406,6 +418,44 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     {
         _inflateBufferSize = size;
     }
+
+    /**
+     * @return the maximum number of {@link Deflater}s pooled to compress responses
+     */
+    public int getDeflaterPoolCapacity()
+    {
+        return _deflaterPoolCapacity;
+    }
+
+    /**
+     * <p>Sets the maximum number of {@link Deflater}s pooled to compress responses.</p>
+     * <p>Deflaters hold native memory, and are shared by all the threads
+     * of the server: the capacity bounds the native memory retained when
+     * the compressing load goes down. Takes effect when the handler is started.</p>
+     *
+     * @param capacity the maximum number of pooled deflaters, 0 to disable pooling, or -1 for no limit
+     */
+    public void setDeflaterPoolCapacity(int capacity)
+    {
+        _deflaterPoolCapacity = capacity;
+    }
+
+    /**
+     * @return the maximum number of {@link java.util.zip.Inflater}s pooled to inflate requests
+     */
+    public int getInflaterPoolCapacity()
+    {
+        return _inflaterPoolCapacity;
+    }
+
+    /**
+     * @param capacity the maximum number of pooled inflaters, 0 to disable pooling, or -1 for no limit
+     * @see #setDeflaterPoolCapacity(int)
+     */
+    public void setInflaterPoolCapacity(int capacity)
+    {
+        _inflaterPoolCapacity = capacity;
+    }
     
     @Override
     public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
@@ -430,7 +480,7 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
                 // TODO should check ce.contains and then remove just the gzip encoding
                 baseRequest.getHttpFields().remove(HttpHeader.CONTENT_ENCODING);
                 baseRequest.getHttpFields().add(new HttpField("X-Content-Encoding",ce.getValue()));
-                baseRequest.getHttpInput().addInterceptor(new GzipHttpInputInterceptor(baseRequest.getHttpChannel().getByteBufferPool(),_inflateBufferSize));
+                baseRequest.getHttpInput().addInterceptor(new GzipHttpInputInterceptor(_inflaterPool,baseRequest.getHttpChannel().getByteBufferPool(),_inflateBufferSize));
             }
         }
         
@@ -567,13 +617,7 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     @Override
     public void recycle(Deflater deflater)
     {
-        if (_deflater.get()==null)
-        {
-            deflater.reset();
-            _deflater.set(deflater);
-        }
-        else
-            deflater.end();
+        _deflaterPool.release(deflater);
     }
 
     /**
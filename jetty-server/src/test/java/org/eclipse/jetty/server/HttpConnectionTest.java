@@ -861,6 +861,58 @@ public class HttpConnectionTest
         }
     }
 
+    @Test
+    public void testHeaderCacheStatistics() throws Exception
+    {
+        HttpConnectionFactory http = connector.getConnectionFactory(HttpConnectionFactory.class);
+        String request="GET /R1 HTTP/1.1\r\n"+
+                       "Host: localhost\r\n"+
+                       "User-Agent: test\r\n"+
+                       "\r\n";
+        String response=connector.getResponses(request+request+
+                                               "GET /R1 HTTP/1.1\r\n"+
+                                               "Host: localhost\r\n"+
+                                               "User-Agent: test\r\n"+
+                                               "Connection: close\r\n"+
+                                               "\r\n");
+        checkContains(response,0,"Connection: close");
+
+        // The statistics are added when the connection is closed.
+        long end=System.nanoTime()+TimeUnit.SECONDS.toNanos(5);
+        while (http.getHeaderCacheHits()==0 && System.nanoTime()<end)
+            Thread.sleep(10);
+
+        // Host and User-Agent are hit by the second and third requests.
+        assertThat(http.getHeaderCacheHits(),equalTo(4L));
+        assertTrue(http.getHeaderCacheHitRatio()>0.0);
+    }
+
+    @Test
+    public void testLazyFieldValues() throws Exception
+    {
+        connector.getConnectionFactory(HttpConnectionFactory.class).getHttpConfiguration().setLazyFieldValues(true);
+
+        // The values are accessed after the content is read, and the next request parsed from the same buffer.
+        String response=connector.getResponses("POST /R1 HTTP/1.1\r\n"+
+                                               "Host: localhost\r\n"+
+                                               "X-Custom: value1\r\n"+
+                                               "Content-Type: text/plain\r\n"+
+                                               "Content-Length: 5\r\n"+
+                                               "\r\n"+
+                                               "12345"+
+                                               "GET /R2 HTTP/1.1\r\n"+
+                                               "Host: localhost\r\n"+
+                                               "X-Custom: value2\r\n"+
+                                               "Connection: close\r\n"+
+                                               "\r\n");
+        int offset=checkContains(response,0,"HTTP/1.1 200");
+        offset=checkContains(response,offset,"/R1");
+        offset=checkContains(response,offset,"X-Custom: value1");
+        offset=checkContains(response,offset,"HTTP/1.1 200");
+        offset=checkContains(response,offset,"/R2");
+        checkContains(response,offset,"X-Custom: value2");
+    }
+
     /**
      * Creates a request header over 1k in size, by creating a single header entry with an huge value.
      * @throws Exception if test failure
@@ -0,0 +1,149 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.server;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.ResourceHttpContent;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.resource.Resource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HttpOutputFileTransferTest
+{
+    private File file;
+    private byte[] content;
+    private Server server;
+    private ServerConnector connector;
+
+    @Before
+    public void init() throws Exception
+    {
+        content = new byte[8 * 1024 * 1024];
+        new Random(0x5EED).nextBytes(content);
+        file = File.createTempFile("transfer-", ".bin");
+        file.deleteOnExit();
+        try (OutputStream out = new FileOutputStream(file))
+        {
+            out.write(content);
+        }
+
+        server = new Server();
+        HttpConnectionFactory http = new HttpConnectionFactory();
+        http.getHttpConfiguration().setFileTransferThreshold(1024);
+        connector = new ServerConnector(server, http);
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+            {
+                baseRequest.setHandled(true);
+                ResourceHttpContent httpContent = new ResourceHttpContent(Resource.newResource(file), "application/octet-stream", 4096);
+                response.setContentType(httpContent.getContentTypeValue());
+                response.setContentLengthLong(httpContent.getContentLengthValue());
+                baseRequest.getResponse().getHttpOutput().sendContent(httpContent);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void destroy() throws Exception
+    {
+        server.stop();
+    }
+
+    @Test
+    public void testFileTransfer() throws Exception
+    {
+        try (Socket client = new Socket("localhost", connector.getLocalPort()))
+        {
+            OutputStream output = client.getOutputStream();
+            InputStream input = client.getInputStream();
+
+            // Two requests on the same connection, reading slowly
+            // to exercise the path where the socket is congested.
+            for (int i = 0; i < 2; ++i)
+            {
+                output.write("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                output.flush();
+                Thread.sleep(500);
+                assertResponse(input, true);
+            }
+        }
+    }
+
+    @Test
+    public void testHeadIsNotTransferred() throws Exception
+    {
+        try (Socket client = new Socket("localhost", connector.getLocalPort()))
+        {
+            OutputStream output = client.getOutputStream();
+            InputStream input = client.getInputStream();
+
+            output.write("HEAD / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            output.write("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            output.flush();
+            assertResponse(input, false);
+            assertResponse(input, true);
+        }
+    }
+
+    private void assertResponse(InputStream input, boolean hasContent) throws IOException
+    {
+        StringBuilder headers = new StringBuilder();
+        while (!headers.toString().endsWith("\r\n\r\n"))
+        {
+            int b = input.read();
+            Assert.assertTrue(b >= 0);
+            headers.append((char)b);
+        }
+        Assert.assertTrue(headers.toString(), headers.toString().startsWith("HTTP/1.1 200 "));
+        Assert.assertTrue(headers.toString(), headers.toString().contains("Content-Length: " + content.length + "\r\n"));
+
+        if (hasContent)
+        {
+            byte[] received = new byte[content.length];
+            int length = 0;
+            while (length < received.length)
+            {
+                int read = input.read(received, length, received.length - length);
+                Assert.assertTrue(read > 0);
+                length += read;
+            }
+            Assert.assertArrayEquals(content, received);
+        }
+    }
+}
@@ -19,6 +19,7 @@
 package org.eclipse.jetty.server;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.BufferedReader;
@@ -26,6 +27,9 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 import org.eclipse.jetty.http.CompressedContentFormat;
 import org.eclipse.jetty.http.HttpContent;
@@ -34,6 +38,7 @@ import org.eclipse.jetty.http.ResourceHttpContent;
 import org.eclipse.jetty.toolchain.test.AdvancedRunner;
 import org.eclipse.jetty.toolchain.test.OS;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.IO;
 import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.resource.ResourceCollection;
 import org.junit.Test;
@@ -277,6 +282,112 @@ public class ResourceCacheTest
         cache.flushCache();
     }
 
+    @Test
+    public void testScanResistance() throws Exception
+    {
+        File[] files=new File[8];
+        String[] names=new String[files.length];
+        for (int i=0;i<files.length;i++)
+        {
+            files[i]=File.createTempFile("S-"+i+"-",".txt");
+            files[i].deleteOnExit();
+            names[i]=files[i].getName();
+            try (OutputStream out = new FileOutputStream(files[i]))
+            {
+                out.write('0'+i);
+            }
+        }
+        Resource directory=Resource.newResource(files[0].getParentFile().getAbsolutePath());
+
+        CachedContentFactory cache=new CachedContentFactory(null,directory,new MimeTypes(),false,false,CompressedContentFormat.NONE);
+        cache.setMaxCachedFiles(4);
+
+        // Two entries accessed more than once are protected.
+        HttpContent hot0=cache.getContent(names[0],4096);
+        HttpContent hot1=cache.getContent(names[1],4096);
+        assertTrue(hot0==cache.getContent(names[0],4096));
+        assertTrue(hot1==cache.getContent(names[1],4096));
+        assertEquals(2,cache.getHits());
+        assertEquals(2,cache.getMisses());
+
+        // A scan of entries accessed only once does not evict them.
+        for (int i=2;i<files.length;i++)
+            cache.getContent(names[i],4096);
+        assertEquals(4,cache.getCachedFiles());
+        assertEquals(4,cache.getEvictions());
+
+        assertTrue(hot0==cache.getContent(names[0],4096));
+        assertTrue(hot1==cache.getContent(names[1],4096));
+        assertEquals(4,cache.getHits());
+        assertEquals(4.0/12,cache.getHitRatio(),0.001);
+
+        cache.flushCache();
+        assertEquals(0,cache.getCachedFiles());
+    }
+
+    @Test
+    public void testCompressCachedContent() throws Exception
+    {
+        File directory=Files.createTempDirectory("compress").toFile();
+        directory.deleteOnExit();
+        StringBuilder text=new StringBuilder();
+        while (text.length()<8192)
+            text.append("The quick brown fox jumps over the lazy dog. ");
+        for (String name : new String[]{"text.txt","image.png"})
+        {
+            File file=new File(directory,name);
+            file.deleteOnExit();
+            try (OutputStream out = new FileOutputStream(file))
+            {
+                out.write(text.toString().getBytes("UTF-8"));
+            }
+        }
+
+        CachedContentFactory cache=new CachedContentFactory(null,Resource.newResource(directory),new MimeTypes(),false,true,
+                new CompressedContentFormat[]{CompressedContentFormat.GZIP});
+        cache.setCompressCachedContent(true);
+
+        HttpContent content=cache.getContent("text.txt",4096);
+        // The content is only compressed when a request accepts gzip.
+        assertNull(content.getPrecompressedContents());
+        assertEquals(0,cache.getCompressions());
+        ((CachedContentFactory.CachedHttpContent)content).compress();
+        Map<CompressedContentFormat,? extends HttpContent> precompressed=content.getPrecompressedContents();
+        HttpContent gzip=precompressed.get(CompressedContentFormat.GZIP);
+        assertTrue(gzip.getContentLengthValue()<text.length());
+        assertEquals("gzip",gzip.getContentEncodingValue());
+        assertTrue(gzip.getETagValue().endsWith("--gzip\""));
+        assertEquals(gzip.getContentLengthValue(),cache.getCachedSize());
+        assertEquals(1,cache.getCompressions());
+        try (GZIPInputStream in = new GZIPInputStream(gzip.getInputStream()))
+        {
+            assertEquals(text.toString(),IO.toString(in,"UTF-8"));
+        }
+
+        // The content is compressed once and the precompressed contents are not copied per lookup.
+        content=cache.getContent("text.txt",4096);
+        ((CachedContentFactory.CachedHttpContent)content).compress();
+        assertTrue(precompressed==content.getPrecompressedContents());
+        assertTrue(gzip==content.getPrecompressedContents().get(CompressedContentFormat.GZIP));
+        assertEquals(1,cache.getCompressions());
+
+        // Images are not compressed.
+        content=cache.getContent("image.png",4096);
+        ((CachedContentFactory.CachedHttpContent)content).compress();
+        assertNull(content.getPrecompressedContents());
+
+        cache.flushCache();
+        assertEquals(0,cache.getCachedSize());
+
+        // Files larger than the maximum compressible size are not compressed.
+        cache.setMaxCompressibleFileSize(text.length()-1);
+        content=cache.getContent("text.txt",4096);
+        ((CachedContentFactory.CachedHttpContent)content).compress();
+        assertNull(content.getPrecompressedContents());
+        assertEquals(1,cache.getCompressions());
+        cache.flushCache();
+    }
+
     @Test
     public void testNoextension() throws Exception
     {
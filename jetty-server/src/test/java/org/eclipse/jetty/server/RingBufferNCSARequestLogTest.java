@@ -0,0 +1,255 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.server;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class RingBufferNCSARequestLogTest
+{
+    @Test
+    public void testEntriesWrittenToFile() throws Exception
+    {
+        File dir = MavenTestingUtils.getTargetTestingDir(RingBufferNCSARequestLogTest.class.getSimpleName());
+        FS.ensureEmpty(dir);
+
+        Server server = new Server();
+        LocalConnector connector = new LocalConnector(server);
+        server.addConnector(connector);
+        RingBufferNCSARequestLog requestLog = new RingBufferNCSARequestLog(new File(dir, "yyyy_mm_dd.request.log").getAbsolutePath());
+        requestLog.setCapacity(16);
+        requestLog.setSlotSize(16);
+        server.setRequestLog(requestLog);
+        server.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+            {
+                baseRequest.setHandled(true);
+            }
+        });
+        server.start();
+
+        String datedFilename = requestLog.getDatedFilename();
+        int requests = 10;
+        for (int i = 0; i < requests; ++i)
+            connector.getResponse("GET /foo/" + i + " HTTP/1.0\r\n\r\n");
+        // Requests are logged after the response is sent.
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (requestLog.getWrittenCount() < requests && System.nanoTime() < end)
+            Thread.sleep(10);
+        server.stop();
+
+        // Requests are logged after the response is sent, so the order of the lines is not guaranteed.
+        List<String> lines = Files.readAllLines(new File(datedFilename).toPath(), StandardCharsets.UTF_8);
+        assertEquals(requests, lines.size());
+        String log = String.join("\n", lines);
+        for (int i = 0; i < requests; ++i)
+            assertThat(log, containsString("GET /foo/" + i + " HTTP/1.0\" 200 "));
+        assertEquals(requests, requestLog.getWrittenCount());
+        assertEquals(0, requestLog.getDroppedCount());
+    }
+
+    @Test
+    public void testEntriesEncodedInUTF8() throws Exception
+    {
+        // The entries are encoded in UTF-8 only if it is the platform default charset.
+        Assume.assumeTrue(StandardCharsets.UTF_8.equals(Charset.defaultCharset()));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        RingBufferNCSARequestLog requestLog = new RingBufferNCSARequestLog()
+        {
+            @Override
+            protected OutputStream getOutputStream()
+            {
+                return output;
+            }
+        };
+        requestLog.setSlotSize(4);
+        requestLog.start();
+
+        String entry = "GET /caf\u00e9/\u20ac/\uD83D\uDE00";
+        requestLog.write(entry);
+        requestLog.write(new StringBuilder(entry).append('\uD83D'));
+        requestLog.stop();
+
+        String log = new String(output.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals(entry + System.lineSeparator() + entry + "?" + System.lineSeparator(), log);
+    }
+
+    @Test
+    public void testSameEncodingAsNCSARequestLog() throws Exception
+    {
+        File dir = MavenTestingUtils.getTargetTestingDir(RingBufferNCSARequestLogTest.class.getSimpleName() + "-encoding");
+        FS.ensureEmpty(dir);
+
+        String entry = "GET /caf\u00e9/\u20ac/\uD83D\uDE00";
+        NCSARequestLog ncsaLog = new NCSARequestLog(new File(dir, "ncsa.log").getAbsolutePath());
+        RingBufferNCSARequestLog ringLog = new RingBufferNCSARequestLog(new File(dir, "ring.log").getAbsolutePath());
+        for (NCSARequestLog requestLog : new NCSARequestLog[]{ncsaLog, ringLog})
+        {
+            requestLog.start();
+            requestLog.write(entry);
+            requestLog.stop();
+        }
+
+        byte[] expected = (entry + System.lineSeparator()).getBytes(Charset.defaultCharset());
+        assertArrayEquals(expected, Files.readAllBytes(new File(dir, "ncsa.log").toPath()));
+        assertArrayEquals(expected, Files.readAllBytes(new File(dir, "ring.log").toPath()));
+    }
+
+    @Test
+    public void testSlotBuffersArePooled() throws Exception
+    {
+        AtomicInteger acquired = new AtomicInteger();
+        AtomicInteger released = new AtomicInteger();
+        ByteBufferPool pool = new ArrayByteBufferPool()
+        {
+            @Override
+            public ByteBuffer acquire(int size, boolean direct)
+            {
+                acquired.incrementAndGet();
+                return super.acquire(size, direct);
+            }
+
+            @Override
+            public void release(ByteBuffer buffer)
+            {
+                released.incrementAndGet();
+                super.release(buffer);
+            }
+        };
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        RingBufferNCSARequestLog requestLog = new RingBufferNCSARequestLog()
+        {
+            @Override
+            protected OutputStream getOutputStream()
+            {
+                return output;
+            }
+        };
+        requestLog.setCapacity(1);
+        requestLog.setSlotSize(64);
+        requestLog.setByteBufferPool(pool);
+        requestLog.start();
+
+        StringBuilder large = new StringBuilder();
+        while (large.length() < 4096)
+            large.append("GET /large ");
+        requestLog.write(large.toString());
+        // The buffer of the large entry is released once written.
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (released.get() < 1 && System.nanoTime() < end)
+            Thread.sleep(10);
+        assertEquals(1, released.get());
+
+        requestLog.write("GET /small");
+        requestLog.stop();
+
+        assertEquals(2, acquired.get());
+        assertEquals(2, released.get());
+        assertEquals(large + System.lineSeparator() + "GET /small" + System.lineSeparator(), new String(output.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testEntriesDroppedWhenFull() throws Exception
+    {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        OutputStream out = new OutputStream()
+        {
+            @Override
+            public void write(int b) throws IOException
+            {
+                write(new byte[]{(byte)b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException
+            {
+                writing.countDown();
+                try
+                {
+                    proceed.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException x)
+                {
+                    throw new IOException(x);
+                }
+                output.write(b, off, len);
+            }
+        };
+
+        RingBufferNCSARequestLog requestLog = new RingBufferNCSARequestLog()
+        {
+            @Override
+            protected OutputStream getOutputStream()
+            {
+                return out;
+            }
+        };
+        requestLog.setCapacity(3);
+        assertEquals(4, requestLog.getCapacity());
+        requestLog.start();
+
+        // The writer thread blocks writing the first entry, which keeps its slot.
+        requestLog.write("entry0");
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        for (int i = 1; i < 6; ++i)
+            requestLog.write("entry" + i);
+        assertEquals(2, requestLog.getDroppedCount());
+
+        proceed.countDown();
+        requestLog.stop();
+
+        assertEquals(4, requestLog.getWrittenCount());
+        String log = new String(output.toByteArray(), StandardCharsets.UTF_8);
+        for (int i = 0; i < 4; ++i)
+            assertThat(log, containsString("entry" + i));
+    }
+}
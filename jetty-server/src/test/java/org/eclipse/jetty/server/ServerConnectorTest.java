@@ -28,7 +28,9 @@ import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 
 import java.io.IOException;
+import java.io.BufferedReader;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.lang.reflect.Field;
 import java.net.HttpURLConnection;
@@ -38,7 +40,9 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.ServletException;
@@ -46,6 +50,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.io.ManagedSelector;
 import org.eclipse.jetty.io.SocketChannelEndPoint;
 import org.eclipse.jetty.server.handler.AbstractHandler;
 import org.eclipse.jetty.server.handler.DefaultHandler;
@@ -229,6 +234,105 @@ public class ServerConnectorTest
         }
     }
 
+    @Test
+    public void testReusePort_Acceptors() throws Exception
+    {
+        testReusePort(2, 1, 2);
+    }
+
+    @Test
+    public void testReusePort_Selectors() throws Exception
+    {
+        testReusePort(0, 2, 2);
+    }
+
+    @Test
+    public void testReusePort_FewerAcceptorsThanSelectors() throws Exception
+    {
+        Server server = new Server();
+        ServerConnector connector = new ServerConnector(server, 2, 6);
+        connector.setPort(0);
+        connector.setReusePort(true);
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+            {
+                baseRequest.setHandled(true);
+            }
+        });
+
+        List<Socket> sockets = new ArrayList<>();
+        try
+        {
+            server.start();
+            for (int i = 0; i < 48; ++i)
+            {
+                // Keep the connections open so that they stay registered with their selectors.
+                Socket socket = new Socket("localhost", connector.getLocalPort());
+                sockets.add(socket);
+                socket.setSoTimeout(10000);
+                socket.getOutputStream().write("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+                assertThat(reader.readLine(), containsString(" 200 "));
+            }
+
+            Collection<ManagedSelector> selectors = connector.getSelectorManager().getBeans(ManagedSelector.class);
+            assertThat(selectors.size(), is(6));
+            for (ManagedSelector selector : selectors)
+                assertThat(selector.toString(), selector.size(), greaterThan(0));
+        }
+        finally
+        {
+            sockets.forEach(IO::close);
+            server.stop();
+        }
+    }
+
+    private void testReusePort(int acceptors, int selectors, int channels) throws Exception
+    {
+        Server server = new Server();
+        ServerConnector connector = new ServerConnector(server, acceptors, selectors);
+        connector.setPort(0);
+        connector.setReusePort(true);
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+            {
+                baseRequest.setHandled(true);
+            }
+        });
+
+        boolean supported;
+        try (ServerSocketChannel channel = ServerSocketChannel.open())
+        {
+            supported = channel.supportedOptions().stream().anyMatch(option -> "SO_REUSEPORT".equals(option.name()));
+        }
+
+        try
+        {
+            for (int restart = 0; restart < 2; ++restart)
+            {
+                server.start();
+                assertThat(connector.getAcceptChannelCount(), is(supported ? channels : 1));
+
+                URI uri = toServerURI(connector);
+                for (int i = 0; i < 16; ++i)
+                    getResponse(uri);
+
+                server.stop();
+                assertThat(connector.getAcceptChannelCount(), is(0));
+            }
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
     @Test
     public void testAddFirstConnectionFactory() throws Exception
     {
@@ -0,0 +1,109 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server.handler;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PreEncodedFieldsHandlerTest
+{
+    private Server _server;
+    private LocalConnector _local;
+
+    @Before
+    public void before() throws Exception
+    {
+        _server = new Server();
+        _local = new LocalConnector(_server);
+        _server.addConnector(_local);
+
+        PreEncodedFieldsHandler handler = new PreEncodedFieldsHandler();
+        handler.addField("X-Frame-Options","DENY");
+        handler.addField("Cache-Control","no-cache");
+        handler.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+            {
+                baseRequest.setHandled(true);
+                if (request.getParameter("async")!=null && request.getDispatcherType()==DispatcherType.REQUEST)
+                {
+                    request.startAsync().dispatch();
+                    return;
+                }
+                if (request.getParameter("cache")!=null)
+                    response.setHeader("Cache-Control",request.getParameter("cache"));
+                response.setContentType("text/plain");
+                response.getWriter().print("OK");
+            }
+        });
+        _server.setHandler(handler);
+        _server.start();
+    }
+
+    @After
+    public void after() throws Exception
+    {
+        _server.stop();
+    }
+
+    @Test
+    public void testFieldsAdded() throws Exception
+    {
+        String response = _local.getResponse("GET / HTTP/1.0\r\n\r\n");
+        assertThat(response,containsString("200 OK"));
+        assertThat(response,containsString("\r\nX-Frame-Options: DENY\r\nCache-Control: no-cache\r\n"));
+    }
+
+    @Test
+    public void testFieldReplaced() throws Exception
+    {
+        String response = _local.getResponse("GET /?cache=max-age=10 HTTP/1.0\r\n\r\n");
+        assertThat(response,containsString("200 OK"));
+        assertThat(response,containsString("\r\nX-Frame-Options: DENY\r\n"));
+        assertThat(response,containsString("\r\nCache-Control: max-age=10\r\n"));
+        assertThat(response,not(containsString("no-cache")));
+    }
+
+    @Test
+    public void testFieldsAddedOnceWithAsyncDispatch() throws Exception
+    {
+        String response = _local.getResponse("GET /?async=true HTTP/1.0\r\n\r\n");
+        assertThat(response,containsString("200 OK"));
+        assertThat(response,containsString("\r\nX-Frame-Options: DENY\r\nCache-Control: no-cache\r\n"));
+        assertThat(response.indexOf("X-Frame-Options"),is(response.lastIndexOf("X-Frame-Options")));
+        assertThat(response.indexOf("Cache-Control"),is(response.lastIndexOf("Cache-Control")));
+    }
+}
@@ -0,0 +1,282 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.server.handler;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.UserIdentity;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResourceUsageHandlerTest
+{
+    private Server _server;
+    private LocalConnector _connector;
+    private ResourceUsageHandler _usageHandler;
+
+    @Before
+    public void init() throws Exception
+    {
+        _server = new Server();
+        _connector = new LocalConnector(_server);
+        _server.addConnector(_connector);
+        _usageHandler = new ResourceUsageHandler();
+        _server.setHandler(_usageHandler);
+    }
+
+    @After
+    public void destroy() throws Exception
+    {
+        _server.stop();
+        _server.join();
+    }
+
+    @Test
+    public void testAllocatedBytes() throws Exception
+    {
+        Assume.assumeTrue(_usageHandler.isAllocatedBytesSupported());
+
+        _usageHandler.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+            {
+                baseRequest.setHandled(true);
+                byte[] bytes = new byte[1024 * 1024];
+                response.setHeader("X-Length", String.valueOf(bytes.length));
+            }
+        });
+        _server.start();
+
+        String response = _connector.getResponse("GET / HTTP/1.0\r\n\r\n");
+        assertThat(response, containsString(" 200 "));
+
+        awaitRequests(1);
+        assertThat(_usageHandler.getAllocatedBytesMax(), greaterThanOrEqualTo(1024L * 1024L));
+        assertThat(_usageHandler.getCpuTimeTotal(), greaterThanOrEqualTo(0L));
+    }
+
+    @Test
+    public void testAsyncDispatchesAreAccumulated() throws Exception
+    {
+        _usageHandler.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+            {
+                baseRequest.setHandled(true);
+                // Each dispatch allocates half of the total.
+                byte[] bytes = new byte[512 * 1024];
+                response.addHeader("X-Length", String.valueOf(bytes.length));
+                // The usage is not stored in the request attributes.
+                for (String name : Collections.list(request.getAttributeNames()))
+                    assertThat(name, not(startsWith(ResourceUsageHandler.class.getName())));
+                if (request.getAttribute("dispatched") == null)
+                {
+                    request.setAttribute("dispatched", Boolean.TRUE);
+                    AsyncContext asyncContext = request.startAsync();
+                    asyncContext.dispatch();
+                }
+            }
+        });
+        _server.start();
+
+        String response = _connector.getResponse("GET / HTTP/1.0\r\n\r\n");
+        assertThat(response, containsString(" 200 "));
+
+        awaitRequests(1);
+        if (_usageHandler.isAllocatedBytesSupported())
+            assertThat(_usageHandler.getAllocatedBytesMax(), greaterThanOrEqualTo(1024L * 1024L));
+    }
+
+    @Test
+    public void testAsyncCompleteInDispatch() throws Exception
+    {
+        _usageHandler.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+            {
+                baseRequest.setHandled(true);
+                request.startAsync().complete();
+            }
+        });
+        _server.start();
+
+        String response = _connector.getResponse("GET / HTTP/1.0\r\n\r\n");
+        assertThat(response, containsString(" 200 "));
+
+        awaitRequests(1);
+    }
+
+    @Test
+    public void testUsagePerContextAndServlet() throws Exception
+    {
+        ContextHandlerCollection contexts = new ContextHandlerCollection();
+        contexts.addHandler(newContext("/one", "servletA"));
+        contexts.addHandler(newContext("/two", null));
+        _usageHandler.setHandler(contexts);
+        _server.start();
+
+        for (String uri : new String[]{"/one/", "/one/", "/two/"})
+        {
+            String response = _connector.getResponse("GET " + uri + " HTTP/1.0\r\n\r\n");
+            assertThat(response, containsString(" 200 "));
+        }
+
+        Map<String, Long> requests = _usageHandler.getUsages().stream()
+                .collect(Collectors.toMap(ResourceUsageHandler.Usage::getKey, ResourceUsageHandler.Usage::getRequests));
+        // Without a servlet, the context path is not known outside of the context.
+        assertThat(requests.keySet(), containsInAnyOrder("/one servletA", "unknown"));
+        assertEquals(2L, (long)requests.get("/one servletA"));
+        assertEquals(1L, (long)requests.get("unknown"));
+        assertEquals(3, _usageHandler.getRequests());
+    }
+
+    @Test
+    public void testMaxUsages() throws Exception
+    {
+        ContextHandlerCollection contexts = new ContextHandlerCollection();
+        contexts.addHandler(newContext("/one", "servletA"));
+        contexts.addHandler(newContext("/two", "servletB"));
+        _usageHandler.setHandler(contexts);
+        _usageHandler.setMaxUsages(1);
+        _server.start();
+
+        for (String uri : new String[]{"/one/", "/two/", "/two/"})
+        {
+            String response = _connector.getResponse("GET " + uri + " HTTP/1.0\r\n\r\n");
+            assertThat(response, containsString(" 200 "));
+        }
+
+        Map<String, Long> requests = _usageHandler.getUsages().stream()
+                .collect(Collectors.toMap(ResourceUsageHandler.Usage::getKey, ResourceUsageHandler.Usage::getRequests));
+        assertThat(requests.keySet(), containsInAnyOrder("/one servletA", "others"));
+        assertEquals(2L, (long)requests.get("others"));
+    }
+
+    @Test
+    public void testCpuTimeMeasurementIsRestored() throws Exception
+    {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isCurrentThreadCpuTimeSupported());
+        boolean enabled = threads.isThreadCpuTimeEnabled();
+        try
+        {
+            threads.setThreadCpuTimeEnabled(false);
+            _server.start();
+            assertTrue(_usageHandler.isCpuTimeSupported());
+            _server.stop();
+            assertFalse(threads.isThreadCpuTimeEnabled());
+
+            // A measurement enabled by the application is left enabled.
+            threads.setThreadCpuTimeEnabled(true);
+            _server.start();
+            _server.stop();
+            assertTrue(threads.isThreadCpuTimeEnabled());
+        }
+        finally
+        {
+            threads.setThreadCpuTimeEnabled(enabled);
+        }
+    }
+
+    private void awaitRequests(long requests) throws InterruptedException
+    {
+        // Async requests are accounted when they complete, which may be after the response is received.
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (_usageHandler.getRequests() < requests && System.nanoTime() < end)
+            Thread.sleep(10);
+        assertEquals(requests, _usageHandler.getRequests());
+    }
+
+    private ContextHandler newContext(String contextPath, String servletName)
+    {
+        ContextHandler context = new ContextHandler(contextPath);
+        context.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+            {
+                baseRequest.setHandled(true);
+                // Mimic the scope set by the ServletHandler.
+                if (servletName != null)
+                    baseRequest.setUserIdentityScope(new Scope(contextPath, servletName));
+            }
+        });
+        return context;
+    }
+
+    private static class Scope implements UserIdentity.Scope
+    {
+        private final String _contextPath;
+        private final String _name;
+
+        private Scope(String contextPath, String name)
+        {
+            _contextPath = contextPath;
+            _name = name;
+        }
+
+        @Override
+        public String getContextPath()
+        {
+            return _contextPath;
+        }
+
+        @Override
+        public String getName()
+        {
+            return _name;
+        }
+
+        @Override
+        public Map<String, String> getRoleRefMap()
+        {
+            return Collections.emptyMap();
+        }
+    }
+}
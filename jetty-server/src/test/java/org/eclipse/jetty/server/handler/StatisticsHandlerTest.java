@@ -599,6 +599,12 @@ public class StatisticsHandlerTest
         assertTrue(_statsHandler.getDispatchedTimeTotal() < _statsHandler.getRequestTimeTotal());
         assertEquals(_statsHandler.getDispatchedTimeTotal(), _statsHandler.getDispatchedTimeMax());
         assertEquals(_statsHandler.getDispatchedTimeTotal(), _statsHandler.getDispatchedTimeMean(), 0.01);
+
+        // With a single request, the percentiles are the max.
+        assertEquals(_statsHandler.getRequestTimeMax(), _statsHandler.getRequestTimeP50());
+        assertEquals(_statsHandler.getRequestTimeMax(), _statsHandler.getRequestTimeP999());
+        assertEquals(_statsHandler.getDispatchedTimeMax(), _statsHandler.getDispatchedTimeP99());
+        assertEquals(1, _statsHandler.getRequestTimeHistogram().getCount());
     }
 
     /**
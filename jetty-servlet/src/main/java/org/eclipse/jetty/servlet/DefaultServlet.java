@@ -110,6 +110,16 @@ import org.eclipse.jetty.util.resource.ResourceFactory;
  *  maxCachedFileSize The maximum size of a file to cache
  *  maxCachedFiles    The maximum number of files to cache
  *
+ *  compressCachedContent
+ *                    If true and the gzip format is precompressed, cached content
+ *                    without a ".gz" resource is compressed once in memory and
+ *                    served as precompressed content (default false).
+ *                    Content is only compressed for a request that accepts gzip.
+ *
+ *  maxCompressibleFileSize
+ *                    The maximum size of a cached file compressed in memory
+ *                    (default 1MiB).
+ *
  *  useFileMappedBuffer
  *                    If set to true, it will use mapped file buffer to serve static content
  *                    when using NIO connector. Setting this value to false means that
@@ -267,7 +277,13 @@ public class DefaultServlet extends HttpServlet implements ResourceFactory, Welc
                     _cache.setMaxCachedFileSize(max_cached_file_size);
                 if (max_cached_files>=-1)
                     _cache.setMaxCachedFiles(max_cached_files);
+                _cache.setCompressCachedContent(getInitBoolean("compressCachedContent",false));
+                int max_compressible_file_size=getInitInt("maxCompressibleFileSize", -2);
+                if (max_compressible_file_size>=0)
+                    _cache.setMaxCompressibleFileSize(max_compressible_file_size);
                 _servletContext.setAttribute(resourceCache==null?"resourceCache":resourceCache,_cache);
+                // Expose the cache statistics via JMX.
+                _contextHandler.addBean(_cache);
             }
         }
         catch (Exception e)
@@ -492,7 +508,10 @@ public class DefaultServlet extends HttpServlet implements ResourceFactory, Welc
     public void destroy()
     {
         if (_cache!=null)
+        {
             _cache.flushCache();
+            _contextHandler.removeBean(_cache);
+        }
         super.destroy();
     }
 
@@ -38,10 +38,12 @@ import org.eclipse.jetty.server.ConnectorStatistics;
 import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.server.handler.ResourceUsageHandler;
 import org.eclipse.jetty.server.handler.StatisticsHandler;
 import org.eclipse.jetty.util.component.Container;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
 
 public class StatisticsServlet extends HttpServlet
 {
@@ -49,6 +51,7 @@ public class StatisticsServlet extends HttpServlet
 
     boolean _restrictToLocalhost = true; // defaults to true
     private StatisticsHandler _statsHandler;
+    private ResourceUsageHandler _usageHandler;
     private MemoryMXBean _memoryBean;
     private Connector[] _connectors;
 
@@ -70,6 +73,7 @@ public class StatisticsServlet extends HttpServlet
             return;
         }
         
+        _usageHandler = _server.getChildHandlerByClass(ResourceUsageHandler.class);
         _memoryBean = ManagementFactory.getMemoryMXBean();
         _connectors = _server.getConnectors();
 
@@ -104,6 +108,8 @@ public class StatisticsServlet extends HttpServlet
         if (Boolean.valueOf( req.getParameter("statsReset")))
         {
             _statsHandler.statsReset();
+            if (_usageHandler != null)
+                _usageHandler.statsReset();
             return;
         }
 
@@ -151,6 +157,9 @@ public class StatisticsServlet extends HttpServlet
         sb.append("    <requestsTimeMean>").append(_statsHandler.getRequestTimeMean()).append("</requestsTimeMean>\n");
         sb.append("    <requestsTimeMax>").append(_statsHandler.getRequestTimeMax()).append("</requestsTimeMax>\n");
         sb.append("    <requestsTimeStdDev>").append(_statsHandler.getRequestTimeStdDev()).append("</requestsTimeStdDev>\n");
+        sb.append("    <requestsTimeP50>").append(_statsHandler.getRequestTimeP50()).append("</requestsTimeP50>\n");
+        sb.append("    <requestsTimeP99>").append(_statsHandler.getRequestTimeP99()).append("</requestsTimeP99>\n");
+        sb.append("    <requestsTimeP999>").append(_statsHandler.getRequestTimeP999()).append("</requestsTimeP999>\n");
 
         sb.append("    <dispatched>").append(_statsHandler.getDispatched()).append("</dispatched>\n");
         sb.append("    <dispatchedActive>").append(_statsHandler.getDispatchedActive()).append("</dispatchedActive>\n");
@@ -159,6 +168,9 @@ public class StatisticsServlet extends HttpServlet
         sb.append("    <dispatchedTimeMeanMs>").append(_statsHandler.getDispatchedTimeMean()).append("</dispatchedTimeMeanMs>\n");
         sb.append("    <dispatchedTimeMaxMs>").append(_statsHandler.getDispatchedTimeMax()).append("</dispatchedTimeMaxMs>\n");
         sb.append("    <dispatchedTimeStdDevMs>").append(_statsHandler.getDispatchedTimeStdDev()).append("</dispatchedTimeStdDevMs>\n");
+        sb.append("    <dispatchedTimeP50Ms>").append(_statsHandler.getDispatchedTimeP50()).append("</dispatchedTimeP50Ms>\n");
+        sb.append("    <dispatchedTimeP99Ms>").append(_statsHandler.getDispatchedTimeP99()).append("</dispatchedTimeP99Ms>\n");
+        sb.append("    <dispatchedTimeP999Ms>").append(_statsHandler.getDispatchedTimeP999()).append("</dispatchedTimeP999Ms>\n");
  
         sb.append("    <asyncRequests>").append(_statsHandler.getAsyncRequests()).append("</asyncRequests>\n");
         sb.append("    <requestsSuspended>").append(_statsHandler.getAsyncRequestsWaiting()).append("</requestsSuspended>\n");
@@ -174,6 +186,9 @@ public class StatisticsServlet extends HttpServlet
         sb.append("    <responses4xx>").append(_statsHandler.getResponses4xx()).append("</responses4xx>\n");
         sb.append("    <responses5xx>").append(_statsHandler.getResponses5xx()).append("</responses5xx>\n");
         sb.append("    <responsesBytesTotal>").append(_statsHandler.getResponsesBytesTotal()).append("</responsesBytesTotal>\n");
+        sb.append("    <responsesBytesP50>").append(_statsHandler.getResponsesBytesP50()).append("</responsesBytesP50>\n");
+        sb.append("    <responsesBytesP99>").append(_statsHandler.getResponsesBytesP99()).append("</responsesBytesP99>\n");
+        sb.append("    <responsesBytesMax>").append(_statsHandler.getResponsesBytesMax()).append("</responsesBytesMax>\n");
         sb.append("  </responses>\n");
 
         sb.append("  <connections>\n");
@@ -198,6 +213,9 @@ public class StatisticsServlet extends HttpServlet
                 sb.append("      <connectionsDurationMean>").append(connectionStats.getConnectionDurationMean()).append("</connectionsDurationMean>\n");
                 sb.append("      <connectionsDurationMax>").append(connectionStats.getConnectionDurationMax()).append("</connectionsDurationMax>\n");
                 sb.append("      <connectionsDurationStdDev>").append(connectionStats.getConnectionDurationStdDev()).append("</connectionsDurationStdDev>\n");
+                sb.append("      <connectionsDurationP50>").append(connectionStats.getConnectionDurationP50()).append("</connectionsDurationP50>\n");
+                sb.append("      <connectionsDurationP99>").append(connectionStats.getConnectionDurationP99()).append("</connectionsDurationP99>\n");
+                sb.append("      <connectionsDurationP999>").append(connectionStats.getConnectionDurationP999()).append("</connectionsDurationP999>\n");
                 sb.append("      <bytesIn>").append(connectionStats.getReceivedBytes()).append("</bytesIn>\n");
                 sb.append("      <bytesOut>").append(connectionStats.getSentBytes()).append("</connectorStats>\n");
                 sb.append("      <messagesIn>").append(connectionStats.getReceivedMessages()).append("</messagesIn>\n");
@@ -230,6 +248,15 @@ public class StatisticsServlet extends HttpServlet
         }
         sb.append("  </connections>\n");
 
+        if (_usageHandler != null)
+        {
+            sb.append("  <usages>\n");
+            appendXmlUsage(sb, _usageHandler.getTotalUsage());
+            for (ResourceUsageHandler.Usage usage : _usageHandler.getUsages())
+                appendXmlUsage(sb, usage);
+            sb.append("  </usages>\n");
+        }
+
         sb.append("  <memory>\n");
         sb.append("    <heapMemoryUsage>").append(_memoryBean.getHeapMemoryUsage().getUsed()).append("</heapMemoryUsage>\n");
         sb.append("    <nonHeapMemoryUsage>").append(_memoryBean.getNonHeapMemoryUsage().getUsed()).append("</nonHeapMemoryUsage>\n");
@@ -242,6 +269,22 @@ public class StatisticsServlet extends HttpServlet
         pout.write(sb.toString());
     }
 
+    private void appendXmlUsage(StringBuilder sb, ResourceUsageHandler.Usage usage)
+    {
+        HistogramStatistic cpuTime = usage.getCpuTime();
+        HistogramStatistic allocatedBytes = usage.getAllocatedBytes();
+        sb.append("    <usage>\n");
+        sb.append("      <key>").append(usage.getKey()).append("</key>\n");
+        sb.append("      <requests>").append(usage.getRequests()).append("</requests>\n");
+        sb.append("      <cpuTimeMeanUs>").append(cpuTime.getMean()).append("</cpuTimeMeanUs>\n");
+        sb.append("      <cpuTimeP99Us>").append(cpuTime.getValueAtPercentile(99)).append("</cpuTimeP99Us>\n");
+        sb.append("      <cpuTimeMaxUs>").append(cpuTime.getMax()).append("</cpuTimeMaxUs>\n");
+        sb.append("      <allocatedBytesMean>").append(allocatedBytes.getMean()).append("</allocatedBytesMean>\n");
+        sb.append("      <allocatedBytesP99>").append(allocatedBytes.getValueAtPercentile(99)).append("</allocatedBytesP99>\n");
+        sb.append("      <allocatedBytesMax>").append(allocatedBytes.getMax()).append("</allocatedBytesMax>\n");
+        sb.append("    </usage>\n");
+    }
+
     private void sendTextResponse(HttpServletResponse response) throws IOException
     {
         StringBuilder sb = new StringBuilder();
@@ -267,6 +310,9 @@ public class StatisticsServlet extends HttpServlet
                 sb.append("Mean connection duration: ").append(connectionStats.getConnectionDurationMean()).append("<br />\n");
                 sb.append("Max connection duration: ").append(connectionStats.getConnectionDurationMax()).append("<br />\n");
                 sb.append("Connection duration standard deviation: ").append(connectionStats.getConnectionDurationStdDev()).append("<br />\n");
+                sb.append("Connection duration percentiles 50/99/99.9: ").append(connectionStats.getConnectionDurationP50()).append("/").append(connectionStats.getConnectionDurationP99()).append("/").append(connectionStats.getConnectionDurationP999()).append("<br />\n");
+                sb.append("Bytes received per connection 50/99 percentiles: ").append(connectionStats.getReceivedBytesP50()).append("/").append(connectionStats.getReceivedBytesP99()).append("<br />\n");
+                sb.append("Bytes sent per connection 50/99 percentiles: ").append(connectionStats.getSentBytesP50()).append("/").append(connectionStats.getSentBytesP99()).append("<br />\n");
                 sb.append("Total bytes received: ").append(connectionStats.getReceivedBytes()).append("<br />\n");
                 sb.append("Total bytes sent: ").append(connectionStats.getSentBytes()).append("<br />\n");
                 sb.append("Total messages received: ").append(connectionStats.getReceivedMessages()).append("<br />\n");
@@ -296,6 +342,19 @@ public class StatisticsServlet extends HttpServlet
             }
         }
 
+        if (_usageHandler != null)
+        {
+            sb.append("<h2>Resource usage:</h2>\n");
+            sb.append("<table>\n");
+            sb.append("<tr><th>Context and servlet</th><th>Requests</th>")
+                .append("<th>Mean CPU (us)</th><th>99th CPU (us)</th><th>Max CPU (us)</th>")
+                .append("<th>Mean allocated (bytes)</th><th>99th allocated (bytes)</th><th>Max allocated (bytes)</th></tr>\n");
+            appendTextUsage(sb, _usageHandler.getTotalUsage());
+            for (ResourceUsageHandler.Usage usage : _usageHandler.getUsages())
+                appendTextUsage(sb, usage);
+            sb.append("</table>\n");
+        }
+
         sb.append("<h2>Memory:</h2>\n");
         sb.append("Heap memory usage: ").append(_memoryBean.getHeapMemoryUsage().getUsed()).append(" bytes").append("<br />\n");
         sb.append("Non-heap memory usage: ").append(_memoryBean.getNonHeapMemoryUsage().getUsed()).append(" bytes").append("<br />\n");
@@ -304,4 +363,18 @@ public class StatisticsServlet extends HttpServlet
         PrintWriter pout = response.getWriter();
         pout.write(sb.toString());
     }
+
+    private void appendTextUsage(StringBuilder sb, ResourceUsageHandler.Usage usage)
+    {
+        HistogramStatistic cpuTime = usage.getCpuTime();
+        HistogramStatistic allocatedBytes = usage.getAllocatedBytes();
+        sb.append("<tr><td>").append(usage.getKey()).append("</td>");
+        sb.append("<td>").append(usage.getRequests()).append("</td>");
+        sb.append("<td>").append(String.format("%.1f", cpuTime.getMean())).append("</td>");
+        sb.append("<td>").append(cpuTime.getValueAtPercentile(99)).append("</td>");
+        sb.append("<td>").append(cpuTime.getMax()).append("</td>");
+        sb.append("<td>").append(String.format("%.1f", allocatedBytes.getMean())).append("</td>");
+        sb.append("<td>").append(allocatedBytes.getValueAtPercentile(99)).append("</td>");
+        sb.append("<td>").append(allocatedBytes.getMax()).append("</td></tr>\n");
+    }
 }
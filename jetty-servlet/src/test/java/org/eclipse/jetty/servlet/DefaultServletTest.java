@@ -21,15 +21,18 @@ package org.eclipse.jetty.servlet;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.EnumSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
 
 import javax.servlet.DispatcherType;
 import javax.servlet.Filter;
@@ -41,6 +44,10 @@ import javax.servlet.ServletResponse;
 
 import org.eclipse.jetty.http.DateGenerator;
 import org.eclipse.jetty.http.HttpContent;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpTester;
+import org.eclipse.jetty.server.CachedContentFactory;
 import org.eclipse.jetty.server.HttpConfiguration;
 import org.eclipse.jetty.server.LocalConnector;
 import org.eclipse.jetty.server.ResourceContentFactory;
@@ -1047,6 +1054,58 @@ public class DefaultServletTest
         assertResponseContains("ETag: "+etag,response);
     }
 
+    @Test
+    public void testCompressCachedContent() throws Exception
+    {
+        FS.ensureDirExists(docRoot);
+        File file0 = new File(docRoot, "data0.txt");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100; i++)
+            text.append("Hello Text ").append(i % 10).append('\n');
+        createFile(file0, text.toString());
+
+        ServletHolder defholder = context.addServlet(DefaultServlet.class, "/");
+        defholder.setInitParameter("dirAllowed", "false");
+        defholder.setInitParameter("redirectWelcome", "false");
+        defholder.setInitParameter("welcomeServlets", "false");
+        defholder.setInitParameter("precompressed", "gzip=.gz");
+        defholder.setInitParameter("etags", "true");
+        defholder.setInitParameter("compressCachedContent", "true");
+
+        defholder.setInitParameter("maxCachedFiles", "1024");
+        defholder.setInitParameter("maxCachedFileSize", "200000000");
+        defholder.setInitParameter("maxCacheSize", "256000000");
+
+        String response = connector.getResponse("GET /context/data0.txt HTTP/1.0\r\nHost:localhost:8080\r\n\r\n");
+        assertResponseContains("Content-Length: " + text.length(), response);
+        assertResponseContains("Vary: Accept-Encoding",response);
+        assertResponseNotContains("Content-Encoding: gzip",response);
+        // The content is not compressed for a request that does not accept gzip.
+        CachedContentFactory cache = (CachedContentFactory)context.getServletContext().getAttribute("resourceCache");
+        Assert.assertThat(cache.getCompressions(), Matchers.is(0L));
+        int e=response.indexOf("ETag: ");
+        String etag = response.substring(e+6,response.indexOf('"',e+11)+1);
+        String etag_gzip = etag.substring(0,etag.length()-1)+"--gzip\"";
+
+        HttpTester.Response gzip = HttpTester.parseResponse(connector.getResponse("GET /context/data0.txt HTTP/1.0\r\nHost:localhost:8080\r\nAccept-Encoding:gzip\r\n\r\n"));
+        Assert.assertThat(gzip.getStatus(), Matchers.is(HttpStatus.OK_200));
+        Assert.assertThat(gzip.get(HttpHeader.CONTENT_ENCODING), Matchers.is("gzip"));
+        Assert.assertThat(gzip.get(HttpHeader.VARY), Matchers.is("Accept-Encoding"));
+        Assert.assertThat(gzip.get(HttpHeader.ETAG), Matchers.is(etag_gzip));
+        byte[] compressed = gzip.getContentBytes();
+        Assert.assertThat(compressed.length, Matchers.lessThan(text.length()));
+        Assert.assertThat(gzip.getLongField(HttpHeader.CONTENT_LENGTH.asString()), Matchers.is((long)compressed.length));
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed)))
+        {
+            Assert.assertThat(IO.toString(in, "UTF-8"), Matchers.is(text.toString()));
+        }
+        Assert.assertThat(cache.getCompressions(), Matchers.is(1L));
+
+        response = connector.getResponse("GET /context/data0.txt HTTP/1.0\r\nHost:localhost:8080\r\nAccept-Encoding:gzip\r\nIf-None-Match: "+etag_gzip+"\r\n\r\n");
+        assertResponseContains("304 Not Modified", response);
+        assertResponseContains("ETag: "+etag_gzip,response);
+    }
+
     @Test
     public void testBrotli() throws Exception
     {
@@ -23,6 +23,8 @@ import java.io.FileOutputStream;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.text.SimpleDateFormat;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
@@ -325,6 +327,36 @@ public class RolloverFileOutputStream extends FilterOutputStream
         out.write (buf, off, len);
     }
 
+    /* ------------------------------------------------------------ */
+    /**
+     * <p>Writes the remaining bytes of the given buffers to the current file
+     * with a gathering write.</p>
+     * <p>The write is atomic with respect to a rollover: all the bytes are
+     * written to the same file.</p>
+     *
+     * @param buffers the buffers to write
+     * @param offset the index of the first buffer to write
+     * @param length the number of buffers to write
+     * @throws IOException if the write fails or the stream is closed
+     */
+    public void write(ByteBuffer[] buffers, int offset, int length)
+        throws IOException
+    {
+        synchronized (this)
+        {
+            if (!(out instanceof FileOutputStream))
+                throw new IOException("Closed");
+            FileChannel channel = ((FileOutputStream)out).getChannel();
+            int end = offset + length;
+            while (offset < end)
+            {
+                channel.write(buffers, offset, end - offset);
+                while (offset < end && !buffers[offset].hasRemaining())
+                    ++offset;
+            }
+        }
+    }
+
     /* ------------------------------------------------------------ */
     @Override
     public void close()
@@ -0,0 +1,167 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util.compression;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+
+/**
+ * <p>A bounded pool of compression objects, such as {@link java.util.zip.Deflater}
+ * and {@link java.util.zip.Inflater}, that hold native memory.</p>
+ * <p>Objects are created on demand by {@link #acquire()}; when they are
+ * {@link #release(Object) released}, they are reset and pooled if the pool
+ * is running and holds less than {@link #getCapacity() capacity} objects,
+ * otherwise they are ended so that their native memory is freed immediately.
+ * When the pool is stopped, all the pooled objects are ended.</p>
+ *
+ * @param <T> the type of the pooled objects
+ */
+@ManagedObject("A pool of compression objects")
+public abstract class CompressionPool<T> extends AbstractLifeCycle
+{
+    public static final int INFINITE_CAPACITY = -1;
+    /**
+     * The default capacity, of the order of the number of threads that may compress
+     * at the same time, since each pooled object may hold hundreds of KiB of native memory.
+     */
+    public static final int DEFAULT_CAPACITY = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+
+    private final Queue<T> _pool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger _pooled = new AtomicInteger();
+    private final LongAdder _created = new LongAdder();
+    private final LongAdder _discarded = new LongAdder();
+    private final int _capacity;
+
+    /**
+     * @param capacity the maximum number of pooled objects, 0 to disable
+     * pooling, or {@link #INFINITE_CAPACITY} for an unbounded pool
+     */
+    public CompressionPool(int capacity)
+    {
+        _capacity = capacity;
+    }
+
+    protected abstract T newObject();
+
+    protected abstract void reset(T object);
+
+    protected abstract void end(T object);
+
+    /**
+     * @return a pooled object, or a new one if the pool is empty
+     */
+    public T acquire()
+    {
+        T object = _capacity == 0 ? null : _pool.poll();
+        if (object == null)
+        {
+            _created.increment();
+            return newObject();
+        }
+        _pooled.decrementAndGet();
+        return object;
+    }
+
+    /**
+     * @param object the object to return to the pool
+     */
+    public void release(T object)
+    {
+        if (object == null)
+            return;
+
+        if (_capacity != 0 && isRunning())
+        {
+            int pooled = _pooled.incrementAndGet();
+            if (_capacity < 0 || pooled <= _capacity)
+            {
+                reset(object);
+                _pool.offer(object);
+                return;
+            }
+            _pooled.decrementAndGet();
+        }
+        _discarded.increment();
+        end(object);
+    }
+
+    @ManagedAttribute(value = "The maximum number of pooled objects", readonly = true)
+    public int getCapacity()
+    {
+        return _capacity;
+    }
+
+    @ManagedAttribute(value = "The number of pooled objects", readonly = true)
+    public int getPooledCount()
+    {
+        return _pooled.get();
+    }
+
+    @ManagedAttribute(value = "The number of objects created", readonly = true)
+    public long getCreatedCount()
+    {
+        return _created.sum();
+    }
+
+    @ManagedAttribute(value = "The number of objects ended because the pool was full or not running", readonly = true)
+    public long getDiscardedCount()
+    {
+        return _discarded.sum();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStats()
+    {
+        _created.reset();
+        _discarded.reset();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        T object;
+        while ((object = _pool.poll()) != null)
+        {
+            _pooled.decrementAndGet();
+            end(object);
+        }
+        super.doStop();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s,pooled=%d/%d,created=%d,discarded=%d}",
+                getClass().getSimpleName(),
+                hashCode(),
+                getState(),
+                getPooledCount(),
+                getCapacity(),
+                getCreatedCount(),
+                getDiscardedCount());
+    }
+}
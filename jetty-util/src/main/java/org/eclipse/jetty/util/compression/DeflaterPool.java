@@ -0,0 +1,67 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util.compression;
+
+import java.util.zip.Deflater;
+
+/**
+ * <p>A {@link CompressionPool} of {@link Deflater}s.</p>
+ */
+public class DeflaterPool extends CompressionPool<Deflater>
+{
+    private final int _compressionLevel;
+    private final boolean _nowrap;
+
+    /**
+     * @param capacity the maximum number of pooled deflaters
+     * @param compressionLevel the compression level of the deflaters
+     * @param nowrap whether the deflaters use the GZIP compatible compression
+     * @see Deflater#Deflater(int, boolean)
+     */
+    public DeflaterPool(int capacity, int compressionLevel, boolean nowrap)
+    {
+        super(capacity);
+        _compressionLevel = compressionLevel;
+        _nowrap = nowrap;
+    }
+
+    public int getCompressionLevel()
+    {
+        return _compressionLevel;
+    }
+
+    @Override
+    protected Deflater newObject()
+    {
+        return new Deflater(_compressionLevel, _nowrap);
+    }
+
+    @Override
+    protected void reset(Deflater deflater)
+    {
+        deflater.reset();
+    }
+
+    @Override
+    protected void end(Deflater deflater)
+    {
+        deflater.end();
+    }
+}
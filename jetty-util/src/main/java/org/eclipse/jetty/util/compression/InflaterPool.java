@@ -0,0 +1,59 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util.compression;
+
+import java.util.zip.Inflater;
+
+/**
+ * <p>A {@link CompressionPool} of {@link Inflater}s.</p>
+ */
+public class InflaterPool extends CompressionPool<Inflater>
+{
+    private final boolean _nowrap;
+
+    /**
+     * @param capacity the maximum number of pooled inflaters
+     * @param nowrap whether the inflaters use the GZIP compatible compression
+     * @see Inflater#Inflater(boolean)
+     */
+    public InflaterPool(int capacity, boolean nowrap)
+    {
+        super(capacity);
+        _nowrap = nowrap;
+    }
+
+    @Override
+    protected Inflater newObject()
+    {
+        return new Inflater(_nowrap);
+    }
+
+    @Override
+    protected void reset(Inflater inflater)
+    {
+        inflater.reset();
+    }
+
+    @Override
+    protected void end(Inflater inflater)
+    {
+        inflater.end();
+    }
+}
@@ -0,0 +1,184 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util.statistic;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HistogramStatistic
+ * <p>
+ * Provides count, max, mean and percentiles of a sequence of non negative samples, such as latencies.
+ * <p>
+ * Samples are counted in log-linear buckets, in the style of HdrHistogram: each power of two range
+ * is divided in 2<sup>{@value #SUB_BUCKET_BITS}</sup> linear sub-buckets, so that percentiles have a
+ * relative error of at most 1/2<sup>{@value #SUB_BUCKET_BITS}</sup>, whatever the magnitude of the samples.
+ * The histogram has a fixed memory footprint and recording a sample is lock-free.
+ * <p>
+ * Histograms can be merged, for example to aggregate the histograms of several components,
+ * and {@link #getAndReset()} allows to report the samples of successive intervals.
+ */
+public class HistogramStatistic
+{
+    public static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    protected final AtomicLongArray _buckets = new AtomicLongArray(BUCKETS);
+    protected final LongAccumulator _max = new LongAccumulator(Math::max,0L);
+    protected final LongAdder _total = new LongAdder();
+    protected final LongAdder _count = new LongAdder();
+
+    public void reset()
+    {
+        for (int i=0;i<BUCKETS;i++)
+            _buckets.set(i,0);
+        _max.reset();
+        _total.reset();
+        _count.reset();
+    }
+
+    /**
+     * @param sample the sample to record; negative samples are recorded as 0
+     */
+    public void set(long sample)
+    {
+        if (sample<0)
+            sample=0;
+        _buckets.incrementAndGet(bucketOf(sample));
+        _max.accumulate(sample);
+        _total.add(sample);
+        _count.increment();
+    }
+
+    /**
+     * Adds the samples of the given histogram to this histogram.
+     * @param histogram the histogram to merge into this histogram
+     */
+    public void merge(HistogramStatistic histogram)
+    {
+        for (int i=0;i<BUCKETS;i++)
+        {
+            long count = histogram._buckets.get(i);
+            if (count>0)
+                _buckets.addAndGet(i,count);
+        }
+        _max.accumulate(histogram.getMax());
+        _total.add(histogram.getTotal());
+        _count.add(histogram.getCount());
+    }
+
+    /**
+     * Resets this histogram and returns the samples recorded since the previous reset.
+     * <p>
+     * Samples recorded concurrently are either in the returned histogram or in this
+     * histogram, but the max, total and count of the returned histogram may not
+     * account for them.
+     * @return a new histogram with the samples recorded since the previous reset
+     */
+    public HistogramStatistic getAndReset()
+    {
+        HistogramStatistic interval = new HistogramStatistic();
+        for (int i=0;i<BUCKETS;i++)
+        {
+            long count = _buckets.getAndSet(i,0);
+            if (count>0)
+                interval._buckets.set(i,count);
+        }
+        interval._max.accumulate(_max.getThenReset());
+        interval._total.add(_total.sumThenReset());
+        interval._count.add(_count.sumThenReset());
+        return interval;
+    }
+
+    /**
+     * @return the max value
+     */
+    public long getMax()
+    {
+        return _max.get();
+    }
+
+    public long getTotal()
+    {
+        return _total.sum();
+    }
+
+    public long getCount()
+    {
+        return _count.sum();
+    }
+
+    public double getMean()
+    {
+        long count = getCount();
+        return count==0?0.0:(double)getTotal()/count;
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100
+     * @return the highest value equivalent to the value at the given percentile,
+     * or 0 if no samples have been recorded
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        long count = 0;
+        for (int i=0;i<BUCKETS;i++)
+            count+=_buckets.get(i);
+        if (count==0)
+            return 0;
+
+        long rank = Math.max(1,(long)Math.ceil(Math.min(100.0,Math.max(0.0,percentile))*count/100.0));
+        long seen = 0;
+        for (int i=0;i<BUCKETS;i++)
+        {
+            seen+=_buckets.get(i);
+            if (seen>=rank)
+                return Math.min(highestValueOf(i),getMax());
+        }
+        return getMax();
+    }
+
+    static int bucketOf(long value)
+    {
+        if (value<SUB_BUCKETS)
+            return (int)value;
+        int exponent = 63-Long.numberOfLeadingZeros(value);
+        int shift = exponent-SUB_BUCKET_BITS;
+        int sub = (int)(value>>>shift)&(SUB_BUCKETS-1);
+        return (shift+1)*SUB_BUCKETS+sub;
+    }
+
+    static long highestValueOf(int bucket)
+    {
+        if (bucket<SUB_BUCKETS)
+            return bucket;
+        int shift = bucket/SUB_BUCKETS-1;
+        long lowest = (long)(SUB_BUCKETS+bucket%SUB_BUCKETS)<<shift;
+        return lowest+(1L<<shift)-1;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{c=%d,m=%d,t=%d,p50=%d,p99=%d}",this.getClass().getSimpleName(),hashCode(),getCount(),getMax(),getTotal(),getValueAtPercentile(50),getValueAtPercentile(99));
+    }
+}
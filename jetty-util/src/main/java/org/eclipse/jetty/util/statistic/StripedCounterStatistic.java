@@ -0,0 +1,187 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util.statistic;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/* ------------------------------------------------------------ */
+/** Statistics on a counter value, for counters updated by many threads.
+ * <p>
+ * Like {@link CounterStatistic}, keeps total, current and maximum values
+ * of a counter, but spreads the current and total values over stripes,
+ * each in its own cache line, so that concurrent updates do not contend
+ * on the same memory location. The stripe updated is selected by the id
+ * of the updating thread, and an update only writes to that stripe.
+ * <p>
+ * The current and total values are the sums of the stripes. The values
+ * returned by {@link #increment()}, {@link #decrement()} and {@link #add(long)},
+ * and the max value updated from them on every increment, may therefore
+ * include concurrent updates of other stripes, so code that needs an exact
+ * value at the time of an update, for example to detect that the counter
+ * dropped to zero, must use a {@link CounterStatistic}.
+ */
+public class StripedCounterStatistic
+{
+    // 16 longs span 128 bytes, so stripes do not share adjacent cache lines either.
+    private static final int STRIDE = 16;
+    // The offsets of the current and total values in a stripe.
+    private static final int CURRENT = 0;
+    private static final int TOTAL = 1;
+
+    private final LongAccumulator _max = new LongAccumulator(Math::max,0L);
+    private final AtomicLongArray _stripes;
+    private final int _mask;
+
+    /* ------------------------------------------------------------ */
+    public StripedCounterStatistic()
+    {
+        this(2*Runtime.getRuntime().availableProcessors());
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @param stripes the number of stripes, rounded up to a power of 2
+     */
+    public StripedCounterStatistic(int stripes)
+    {
+        int size=1;
+        while (size<stripes)
+            size<<=1;
+        _stripes=new AtomicLongArray(size*STRIDE);
+        _mask=size-1;
+    }
+
+    /* ------------------------------------------------------------ */
+    private int stripe()
+    {
+        return ((int)Thread.currentThread().getId()&_mask)*STRIDE;
+    }
+
+    /* ------------------------------------------------------------ */
+    private long sum(int offset)
+    {
+        long sum=0;
+        for (int i=offset;i<_stripes.length();i+=STRIDE)
+            sum+=_stripes.get(i);
+        return sum;
+    }
+
+    /* ------------------------------------------------------------ */
+    public void reset()
+    {
+        for (int i=TOTAL;i<_stripes.length();i+=STRIDE)
+            _stripes.set(i,0);
+        _max.reset();
+        long current=sum(CURRENT);
+        _max.accumulate(current);
+        if (current>0)
+            _stripes.addAndGet(TOTAL,current);
+    }
+
+    /* ------------------------------------------------------------ */
+    public void reset(final long value)
+    {
+        for (int i=0;i<_stripes.length();i+=STRIDE)
+        {
+            _stripes.set(i+CURRENT,0);
+            _stripes.set(i+TOTAL,0);
+        }
+        _stripes.set(CURRENT,value);
+        _max.reset();
+        if (value>0)
+        {
+            _stripes.set(TOTAL,value);
+            _max.accumulate(value);
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @param delta the amount to add to the count
+     * @return the new value
+     */
+    public long add(final long delta)
+    {
+        int stripe=stripe();
+        _stripes.addAndGet(stripe+CURRENT,delta);
+        long value=sum(CURRENT);
+        if (delta>0)
+        {
+            _stripes.addAndGet(stripe+TOTAL,delta);
+            _max.accumulate(value);
+        }
+        return value;
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * increment the value by one
+     * @return the new value
+     */
+    public long increment()
+    {
+        return add(1);
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * decrement by 1
+     * @return the new value
+     */
+    public long decrement()
+    {
+        _stripes.decrementAndGet(stripe()+CURRENT);
+        return sum(CURRENT);
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @return max value
+     */
+    public long getMax()
+    {
+        return _max.get();
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @return current value
+     */
+    public long getCurrent()
+    {
+        return sum(CURRENT);
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @return total value
+     */
+    public long getTotal()
+    {
+        return sum(TOTAL);
+    }
+
+    /* ------------------------------------------------------------ */
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{c=%d,m=%d,t=%d}",this.getClass().getSimpleName(),hashCode(),getCurrent(),_max.get(),getTotal());
+    }
+}
@@ -0,0 +1,195 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util.statistic;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * StripedHistogramStatistic
+ * <p>
+ * Like {@link HistogramStatistic}, provides count, max, mean and percentiles of a sequence
+ * of non negative samples, but for samples recorded by many threads.
+ * <p>
+ * Each stripe has its own buckets, total and max, laid out so that stripes do not share
+ * cache lines. The stripe updated is selected by the id of the recording thread, and a
+ * sample only touches that stripe: it increments a bucket, adds to the total and, only
+ * when it is a new max for the stripe, updates the max. The count is the sum of the buckets.
+ * <p>
+ * The stripes are merged when read, into a {@link HistogramStatistic} snapshot. Neither
+ * the snapshot nor {@link #getAndReset()} is atomic: a sample recorded concurrently may
+ * be accounted in the bucket but not yet in the total, and {@link #getAndReset()} may move
+ * the bucket of such a sample to the returned histogram while leaving its total here.
+ * <p>
+ * Each stripe takes about 8KiB, so the default number of stripes is the number of
+ * processors, capped at 16.
+ */
+public class StripedHistogramStatistic
+{
+    // The offsets of the total, max and buckets in a stripe.
+    private static final int TOTAL = 0;
+    private static final int MAX = 1;
+    private static final int BUCKET = 2;
+    // Rounded up to a multiple of 16 longs, so stripes do not share adjacent cache lines.
+    private static final int STRIDE = (BUCKET+HistogramStatistic.BUCKETS+15)&~15;
+
+    private final AtomicLongArray _stripes;
+    private final int _mask;
+
+    public StripedHistogramStatistic()
+    {
+        this(Math.min(16,Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @param stripes the number of stripes, rounded up to a power of 2
+     */
+    public StripedHistogramStatistic(int stripes)
+    {
+        int size=1;
+        while (size<stripes)
+            size<<=1;
+        _stripes=new AtomicLongArray(size*STRIDE);
+        _mask=size-1;
+    }
+
+    public void reset()
+    {
+        for (int i=0;i<_stripes.length();i++)
+            _stripes.set(i,0);
+    }
+
+    /**
+     * @param sample the sample to record; negative samples are recorded as 0
+     */
+    public void set(long sample)
+    {
+        if (sample<0)
+            sample=0;
+        int stripe=((int)Thread.currentThread().getId()&_mask)*STRIDE;
+        _stripes.incrementAndGet(stripe+BUCKET+HistogramStatistic.bucketOf(sample));
+        _stripes.addAndGet(stripe+TOTAL,sample);
+        while (true)
+        {
+            long max=_stripes.get(stripe+MAX);
+            if (sample<=max || _stripes.compareAndSet(stripe+MAX,max,sample))
+                break;
+        }
+    }
+
+    /**
+     * @return a histogram with the samples recorded so far
+     */
+    public HistogramStatistic getSnapshot()
+    {
+        return merge(false);
+    }
+
+    /**
+     * Resets this histogram and returns the samples recorded since the previous reset.
+     * <p>
+     * The stripes are reset one value at a time, so this is not atomic with respect to
+     * samples recorded concurrently, which may be split between the returned histogram
+     * and this histogram.
+     * @return a new histogram with the samples recorded since the previous reset
+     */
+    public HistogramStatistic getAndReset()
+    {
+        return merge(true);
+    }
+
+    private HistogramStatistic merge(boolean reset)
+    {
+        HistogramStatistic snapshot=new HistogramStatistic();
+        long count=0;
+        long total=0;
+        long max=0;
+        for (int stripe=0;stripe<_stripes.length();stripe+=STRIDE)
+        {
+            for (int bucket=0;bucket<HistogramStatistic.BUCKETS;bucket++)
+            {
+                long samples=get(stripe+BUCKET+bucket,reset);
+                if (samples>0)
+                {
+                    snapshot._buckets.addAndGet(bucket,samples);
+                    count+=samples;
+                }
+            }
+            total+=get(stripe+TOTAL,reset);
+            max=Math.max(max,get(stripe+MAX,reset));
+        }
+        snapshot._count.add(count);
+        snapshot._total.add(total);
+        snapshot._max.accumulate(max);
+        return snapshot;
+    }
+
+    private long get(int index, boolean reset)
+    {
+        return reset?_stripes.getAndSet(index,0):_stripes.get(index);
+    }
+
+    /**
+     * @return the max value
+     */
+    public long getMax()
+    {
+        long max=0;
+        for (int i=MAX;i<_stripes.length();i+=STRIDE)
+            max=Math.max(max,_stripes.get(i));
+        return max;
+    }
+
+    public long getTotal()
+    {
+        long total=0;
+        for (int i=TOTAL;i<_stripes.length();i+=STRIDE)
+            total+=_stripes.get(i);
+        return total;
+    }
+
+    public long getCount()
+    {
+        return getSnapshot().getCount();
+    }
+
+    public double getMean()
+    {
+        return getSnapshot().getMean();
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100
+     * @return the highest value equivalent to the value at the given percentile,
+     * or 0 if no samples have been recorded
+     * @see HistogramStatistic#getValueAtPercentile(double)
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        return getSnapshot().getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public String toString()
+    {
+        HistogramStatistic snapshot=getSnapshot();
+        return String.format("%s@%x{c=%d,m=%d,t=%d,p50=%d,p99=%d}",this.getClass().getSimpleName(),hashCode(),
+                snapshot.getCount(),snapshot.getMax(),snapshot.getTotal(),snapshot.getValueAtPercentile(50),snapshot.getValueAtPercentile(99));
+    }
+}
@@ -0,0 +1,175 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util.statistic;
+
+/**
+ * StripedSampleStatistic
+ * <p>
+ * Like {@link SampleStatistic}, provides max, total, mean, count, variance and standard
+ * deviation of a sequence of samples, but for samples recorded by many threads.
+ * <p>
+ * Samples are accumulated in stripes, selected by the id of the recording thread, so that
+ * concurrent recordings do not contend on the same memory locations. Each stripe computes
+ * the count, total, mean and sum of squared differences from the mean of its samples with
+ * Welford's on-line algorithm, and the stripes are combined when read with the parallel
+ * algorithm of Chan et al., so the variance is exact rather than approximated.
+ * <p>
+ * A stripe is updated and read atomically, so each sample is either fully accounted
+ * or not at all by the values read.
+ */
+public class StripedSampleStatistic
+{
+    private final Stripe[] _stripes;
+    private final int _mask;
+
+    public StripedSampleStatistic()
+    {
+        this(2*Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param stripes the number of stripes, rounded up to a power of 2
+     */
+    public StripedSampleStatistic(int stripes)
+    {
+        int size=1;
+        while (size<stripes)
+            size<<=1;
+        _stripes=new Stripe[size];
+        for (int i=0;i<size;i++)
+            _stripes[i]=new Stripe();
+        _mask=size-1;
+    }
+
+    public void reset()
+    {
+        for (Stripe stripe : _stripes)
+        {
+            synchronized (stripe)
+            {
+                stripe._count=0;
+                stripe._total=0;
+                stripe._mean=0.0;
+                stripe._m2=0.0;
+                stripe._max=0;
+            }
+        }
+    }
+
+    public void set(final long sample)
+    {
+        Stripe stripe=_stripes[(int)Thread.currentThread().getId()&_mask];
+        synchronized (stripe)
+        {
+            long count=++stripe._count;
+            stripe._total+=sample;
+            double delta=sample-stripe._mean;
+            stripe._mean+=delta/count;
+            stripe._m2+=delta*(sample-stripe._mean);
+            if (sample>stripe._max)
+                stripe._max=sample;
+        }
+    }
+
+    private Stripe snapshot()
+    {
+        Stripe result=new Stripe();
+        for (Stripe stripe : _stripes)
+        {
+            long count;
+            long total;
+            double mean;
+            double m2;
+            long max;
+            synchronized (stripe)
+            {
+                count=stripe._count;
+                total=stripe._total;
+                mean=stripe._mean;
+                m2=stripe._m2;
+                max=stripe._max;
+            }
+            if (count==0)
+                continue;
+            long merged=result._count+count;
+            double delta=mean-result._mean;
+            result._mean+=delta*count/merged;
+            result._m2+=m2+delta*delta*result._count*count/merged;
+            result._count=merged;
+            result._total+=total;
+            result._max=Math.max(result._max,max);
+        }
+        return result;
+    }
+
+    /**
+     * @return the max value
+     */
+    public long getMax()
+    {
+        return snapshot()._max;
+    }
+
+    public long getTotal()
+    {
+        return snapshot()._total;
+    }
+
+    public long getCount()
+    {
+        return snapshot()._count;
+    }
+
+    public double getMean()
+    {
+        Stripe snapshot=snapshot();
+        return (double)snapshot._total/snapshot._count;
+    }
+
+    public double getVariance()
+    {
+        Stripe snapshot=snapshot();
+        return snapshot._count>1?snapshot._m2/(snapshot._count-1):0.0;
+    }
+
+    public double getStdDev()
+    {
+        return Math.sqrt(getVariance());
+    }
+
+    @Override
+    public String toString()
+    {
+        Stripe snapshot=snapshot();
+        return String.format("%s@%x{c=%d,m=%d,t=%d,v=%.2f}",this.getClass().getSimpleName(),hashCode(),snapshot._count,snapshot._max,snapshot._total,
+                snapshot._count>1?snapshot._m2/(snapshot._count-1):0.0);
+    }
+
+    private static class Stripe
+    {
+        private long _count;
+        private long _total;
+        private double _mean;
+        private double _m2;
+        private long _max;
+        // Padding, so that stripes allocated next to each other do not share a cache line.
+        private long _p0, _p1, _p2, _p3, _p4, _p5, _p6, _p7;
+    }
+}
@@ -0,0 +1,372 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util.thread;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.component.Dumpable;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+/**
+ * <p>Implementation of {@link Scheduler} based on a hashed timing wheel.</p>
+ * <p>The wheel is an array of buckets, each holding the tasks that expire
+ * during one tick. A task with a delay longer than a revolution of the wheel
+ * is kept in its bucket for the corresponding number of rounds. Scheduling
+ * and cancelling a task are O(1) operations, regardless of the number of pending
+ * tasks, which makes this scheduler suitable for the timeouts of a large number
+ * of connections, that are rescheduled or cancelled far more often than they expire.</p>
+ * <p>The price is precision: tasks are run by the scheduler thread at the end of the
+ * tick during which they expire, so they may run up to one tick duration late,
+ * but never early.</p>
+ * <p>Scheduled and cancelled tasks are queued, and moved in or out of the wheel by
+ * the scheduler thread at every tick, so that the wheel itself is not shared.
+ * Cancelled tasks are removed from the wheel at the next tick, so that they
+ * can be garbage collected without waiting for their expiration.</p>
+ */
+public class HashedWheelScheduler extends AbstractLifeCycle implements Scheduler, Dumpable
+{
+    private static final Logger LOG = Log.getLogger(HashedWheelScheduler.class);
+
+    private final Queue<WheelTask> _scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<WheelTask> _cancelled = new ConcurrentLinkedQueue<>();
+    private final String _name;
+    private final boolean _daemon;
+    private final long _tickNanos;
+    private final Bucket[] _wheel;
+    private final int _mask;
+    private volatile Thread _thread;
+    private volatile long _startNanos;
+    private long _tick;
+    private int _size;
+
+    public HashedWheelScheduler()
+    {
+        this(null, false);
+    }
+
+    public HashedWheelScheduler(String name, boolean daemon)
+    {
+        this(name, daemon, 10, TimeUnit.MILLISECONDS, 512);
+    }
+
+    /**
+     * @param name the name of the scheduler thread
+     * @param daemon whether the scheduler thread is a daemon thread
+     * @param tickDuration the duration of a tick, that is the resolution of the scheduler
+     * @param unit the unit of the tick duration
+     * @param ticksPerWheel the number of buckets of the wheel, rounded up to a power of two
+     */
+    public HashedWheelScheduler(String name, boolean daemon, long tickDuration, TimeUnit unit, int ticksPerWheel)
+    {
+        if (tickDuration <= 0)
+            throw new IllegalArgumentException("Invalid tick duration " + tickDuration);
+        if (ticksPerWheel <= 0 || ticksPerWheel > 1 << 30)
+            throw new IllegalArgumentException("Invalid ticks per wheel " + ticksPerWheel);
+        _name = name == null ? "Scheduler-" + hashCode() : name;
+        _daemon = daemon;
+        _tickNanos = Math.max(1, unit.toNanos(tickDuration));
+        int buckets = Integer.highestOneBit(ticksPerWheel);
+        if (buckets < ticksPerWheel)
+            buckets <<= 1;
+        _wheel = new Bucket[buckets];
+        for (int i = 0; i < buckets; ++i)
+            _wheel[i] = new Bucket();
+        _mask = buckets - 1;
+    }
+
+    /**
+     * @return the duration of a tick in milliseconds
+     */
+    public long getTickDuration()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(_tickNanos);
+    }
+
+    /**
+     * @return the number of buckets of the wheel
+     */
+    public int getTicksPerWheel()
+    {
+        return _wheel.length;
+    }
+
+    /**
+     * @return the number of tasks in the wheel, as of the last tick
+     */
+    public int getSize()
+    {
+        return _size;
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        _startNanos = System.nanoTime();
+        _tick = 0;
+        Thread thread = new Thread(this::tick, _name);
+        thread.setDaemon(_daemon);
+        _thread = thread;
+        super.doStart();
+        thread.start();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        Thread thread = _thread;
+        _thread = null;
+        if (thread != null)
+        {
+            LockSupport.unpark(thread);
+            if (thread != Thread.currentThread())
+                thread.join();
+        }
+        super.doStop();
+        // Like ScheduledExecutorScheduler, pending tasks are discarded.
+        _scheduled.clear();
+        _cancelled.clear();
+        for (Bucket bucket : _wheel)
+            bucket.clear();
+        _size = 0;
+    }
+
+    @Override
+    public Task schedule(Runnable task, long delay, TimeUnit unit)
+    {
+        if (_thread == null)
+            return () -> false;
+        long deadline = System.nanoTime() - _startNanos + unit.toNanos(Math.max(0, delay));
+        WheelTask wheelTask = new WheelTask(_cancelled, task, deadline);
+        _scheduled.offer(wheelTask);
+        return wheelTask;
+    }
+
+    private void tick()
+    {
+        Thread thread = Thread.currentThread();
+        while (_thread == thread)
+        {
+            long tickDeadline = (_tick + 1) * _tickNanos;
+            long wait = tickDeadline - (System.nanoTime() - _startNanos);
+            if (wait > 0)
+            {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+
+            removeCancelled();
+            addScheduled();
+            expire(_wheel[(int)(_tick & _mask)]);
+            ++_tick;
+        }
+    }
+
+    private void removeCancelled()
+    {
+        while (true)
+        {
+            WheelTask task = _cancelled.poll();
+            if (task == null)
+                return;
+            // Tasks still in the scheduled queue are discarded by addScheduled().
+            if (task._bucket != null)
+            {
+                task._bucket.remove(task);
+                --_size;
+            }
+        }
+    }
+
+    private void addScheduled()
+    {
+        // Bound the work, so that a burst of scheduled tasks does not stall the tick.
+        for (int i = 0; i < 100_000; ++i)
+        {
+            WheelTask task = _scheduled.poll();
+            if (task == null)
+                return;
+            if (task._state != WheelTask.PENDING)
+                continue;
+            long ticks = task._deadline / _tickNanos;
+            task._rounds = (ticks - _tick) / _wheel.length;
+            // Tasks that should have already expired are run at this tick.
+            ticks = Math.max(ticks, _tick);
+            _wheel[(int)(ticks & _mask)].add(task);
+            ++_size;
+        }
+    }
+
+    private void expire(Bucket bucket)
+    {
+        WheelTask task = bucket._head;
+        while (task != null)
+        {
+            WheelTask next = task._next;
+            if (task._rounds <= 0)
+            {
+                bucket.remove(task);
+                --_size;
+                task.expire();
+            }
+            else
+            {
+                --task._rounds;
+            }
+            task = next;
+        }
+    }
+
+    @Override
+    public String dump()
+    {
+        return ContainerLifeCycle.dump(this);
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        ContainerLifeCycle.dumpObject(out, this);
+        Thread thread = _thread;
+        if (thread != null)
+        {
+            List<StackTraceElement> frames = Arrays.asList(thread.getStackTrace());
+            ContainerLifeCycle.dump(out, indent, frames);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s,tick=%dms,wheel=%d,size=%d}",
+                getClass().getSimpleName(),
+                hashCode(),
+                getState(),
+                getTickDuration(),
+                _wheel.length,
+                _size);
+    }
+
+    private static class Bucket
+    {
+        private WheelTask _head;
+        private WheelTask _tail;
+
+        private void add(WheelTask task)
+        {
+            task._bucket = this;
+            task._prev = _tail;
+            if (_tail == null)
+                _head = task;
+            else
+                _tail._next = task;
+            _tail = task;
+        }
+
+        private void remove(WheelTask task)
+        {
+            if (task._prev == null)
+                _head = task._next;
+            else
+                task._prev._next = task._next;
+            if (task._next == null)
+                _tail = task._prev;
+            else
+                task._next._prev = task._prev;
+            task._prev = null;
+            task._next = null;
+            task._bucket = null;
+        }
+
+        private void clear()
+        {
+            while (_head != null)
+                remove(_head);
+        }
+    }
+
+    private static class WheelTask implements Task
+    {
+        private static final AtomicIntegerFieldUpdater<WheelTask> STATE = AtomicIntegerFieldUpdater.newUpdater(WheelTask.class, "_state");
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Queue<WheelTask> _cancelled;
+        private final Runnable _task;
+        private final long _deadline;
+        private volatile int _state;
+        // Fields below are only accessed by the scheduler thread.
+        private long _rounds;
+        private Bucket _bucket;
+        private WheelTask _prev;
+        private WheelTask _next;
+
+        private WheelTask(Queue<WheelTask> cancelled, Runnable task, long deadline)
+        {
+            _cancelled = cancelled;
+            _task = task;
+            _deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel()
+        {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED))
+                return false;
+            _cancelled.offer(this);
+            return true;
+        }
+
+        private void expire()
+        {
+            if (!STATE.compareAndSet(this, PENDING, EXPIRED))
+                return;
+            try
+            {
+                _task.run();
+            }
+            catch (Throwable x)
+            {
+                LOG.warn("Exception while executing task " + _task, x);
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s.%s@%x{%s,deadline=%d}",
+                    HashedWheelScheduler.class.getSimpleName(),
+                    WheelTask.class.getSimpleName(),
+                    hashCode(),
+                    _task,
+                    _deadline);
+        }
+    }
+}
@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -47,7 +48,7 @@ import org.eclipse.jetty.util.log.Logger;
 import org.eclipse.jetty.util.thread.ThreadPool.SizedThreadPool;
 
 @ManagedObject("A thread pool")
-public class QueuedThreadPool extends AbstractLifeCycle implements SizedThreadPool, Dumpable
+public class QueuedThreadPool extends AbstractLifeCycle implements SizedThreadPool, Dumpable, VirtualThreads.Configurable
 {
     private static final Logger LOG = Log.getLogger(QueuedThreadPool.class);
 
@@ -66,6 +67,7 @@ public class QueuedThreadPool extends AbstractLifeCycle implements SizedThreadPo
     private boolean _daemon = false;
     private boolean _detailedDump = false;
     private int _lowThreadsThreshold = 1;
+    private volatile Executor _virtualThreadsExecutor;
 
     public QueuedThreadPool()
     {
@@ -374,6 +376,31 @@ public class QueuedThreadPool extends AbstractLifeCycle implements SizedThreadPo
         _lowThreadsThreshold = lowThreadsThreshold;
     }
 
+    @Override
+    public Executor getVirtualThreadsExecutor()
+    {
+        return _virtualThreadsExecutor;
+    }
+
+    /**
+     * <p>Sets the executor of virtual threads used to run the tasks that may block,
+     * see {@link VirtualThreads}.</p>
+     *
+     * @param executor the executor of virtual threads, or null to not use virtual threads
+     */
+    @Override
+    public void setVirtualThreadsExecutor(Executor executor)
+    {
+        _virtualThreadsExecutor = executor;
+    }
+
+    @Override
+    @ManagedAttribute("whether tasks that may block are run in virtual threads")
+    public boolean isUseVirtualThreads()
+    {
+        return _virtualThreadsExecutor != null;
+    }
+
     @Override
     public void execute(Runnable job)
     {
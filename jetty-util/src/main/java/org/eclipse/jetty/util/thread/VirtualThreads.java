@@ -0,0 +1,185 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util.thread;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+/**
+ * <p>Utility class to use virtual threads, when the JVM supports them.</p>
+ * <p>Virtual threads are detected and created via reflection, so that this
+ * class can be compiled and used with JVMs that do not support them.</p>
+ * <p>Thread pools that implement {@link Configurable} may be configured with
+ * an executor of virtual threads, that is used by the server to run the handling of
+ * requests, that may block in servlets, while the selector and producer threads remain
+ * platform threads of the thread pool. Execution strategies only use it when they are
+ * explicitly constructed to do so, as those of the selectors of server connectors are.</p>
+ */
+public class VirtualThreads
+{
+    private static final Logger LOG = Log.getLogger(VirtualThreads.class);
+    private static final Executor executor = probeVirtualThreadsExecutor();
+    private static final Method isVirtualThread = probeIsVirtualThread();
+
+    private static Executor probeVirtualThreadsExecutor()
+    {
+        try
+        {
+            Method method = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (Executor)method.invoke(null);
+        }
+        catch (Throwable x)
+        {
+            // Not supported, or supported only as a preview feature that is not enabled.
+            if (LOG.isDebugEnabled())
+                LOG.debug("Virtual threads not supported", x);
+            return null;
+        }
+    }
+
+    private static Method probeIsVirtualThread()
+    {
+        try
+        {
+            return Thread.class.getMethod("isVirtual");
+        }
+        catch (Throwable x)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * @return whether the JVM supports virtual threads
+     */
+    public static boolean areSupported()
+    {
+        return executor != null;
+    }
+
+    /**
+     * @return an executor that runs each task in a new virtual thread,
+     * or null if virtual threads are not supported
+     */
+    public static Executor getDefaultVirtualThreadsExecutor()
+    {
+        return executor;
+    }
+
+    /**
+     * <p>Runs the given task in a new virtual thread.</p>
+     *
+     * @param task the task to run
+     * @throws RejectedExecutionException if virtual threads are not supported
+     */
+    public static void executeOnVirtualThread(Runnable task)
+    {
+        if (executor == null)
+            throw new RejectedExecutionException("Virtual threads not supported");
+        executor.execute(task);
+    }
+
+    /**
+     * @return whether the current thread is a virtual thread
+     */
+    public static boolean isVirtualThread()
+    {
+        try
+        {
+            return isVirtualThread != null && (Boolean)isVirtualThread.invoke(Thread.currentThread());
+        }
+        catch (Throwable x)
+        {
+            LOG.ignore(x);
+            return false;
+        }
+    }
+
+    /**
+     * @param executor the thread pool
+     * @return the executor of virtual threads configured on the given thread pool,
+     * or null if the thread pool does not use virtual threads
+     */
+    public static Executor getVirtualThreadsExecutor(Executor executor)
+    {
+        if (executor instanceof Configurable)
+            return ((Configurable)executor).getVirtualThreadsExecutor();
+        return null;
+    }
+
+    /**
+     * @param executor the thread pool
+     * @return whether the given thread pool is configured to use virtual threads
+     */
+    public static boolean isUseVirtualThreads(Executor executor)
+    {
+        return getVirtualThreadsExecutor(executor) != null;
+    }
+
+    /**
+     * <p>Implemented by thread pools that can be configured to run
+     * the tasks that may block in virtual threads.</p>
+     */
+    public interface Configurable
+    {
+        /**
+         * @return the executor of virtual threads, or null if virtual threads are not used
+         */
+        Executor getVirtualThreadsExecutor();
+
+        /**
+         * @param executor the executor of virtual threads, or null to not use virtual threads
+         */
+        void setVirtualThreadsExecutor(Executor executor);
+
+        /**
+         * @return whether virtual threads are used
+         */
+        default boolean isUseVirtualThreads()
+        {
+            return getVirtualThreadsExecutor() != null;
+        }
+
+        /**
+         * <p>Sets whether to run the tasks that may block in virtual threads.</p>
+         * <p>If virtual threads are not supported by the JVM, a warning
+         * is logged and the platform threads of the thread pool are used.</p>
+         *
+         * @param useVirtualThreads whether to use virtual threads
+         */
+        default void setUseVirtualThreads(boolean useVirtualThreads)
+        {
+            if (useVirtualThreads && !areSupported())
+            {
+                LOG.warn("Virtual threads not supported by {} {}, using platform threads", System.getProperty("java.vm.name"), System.getProperty("java.version"));
+                useVirtualThreads = false;
+            }
+            setVirtualThreadsExecutor(useVirtualThreads ? getDefaultVirtualThreadsExecutor() : null);
+        }
+    }
+
+    private VirtualThreads()
+    {
+    }
+}
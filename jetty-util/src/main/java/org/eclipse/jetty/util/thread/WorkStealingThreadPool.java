@@ -0,0 +1,846 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util.thread;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.annotation.Name;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.component.Dumpable;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.statistic.StripedHistogramStatistic;
+import org.eclipse.jetty.util.thread.ThreadPool.SizedThreadPool;
+
+/**
+ * <p>A {@link SizedThreadPool} where each thread has its own job deque, and idle threads
+ * steal jobs from the deques of busy threads, so that there is no single job queue
+ * contended by all the threads.</p>
+ * <p>Jobs submitted by a pool thread are queued in the deque of that thread: jobs that are
+ * {@link Invocable.InvocationType#NON_BLOCKING non blocking} are queued at the head of
+ * the deque, where the thread takes its next job, so that they run soon and on warm caches;
+ * other jobs are queued at the tail of the deque, where idle threads steal from, so that they
+ * are not delayed by the jobs of the submitting thread.
+ * Jobs submitted by other threads, for example selector threads, are spread over a number of
+ * submission queues based on the submitting thread.</p>
+ * <p>When a job is queued and no woken up thread is already searching for jobs, an idle thread
+ * is woken up or, if there is none, a new thread is started up to the max number of threads,
+ * as {@link QueuedThreadPool} does. Threads idle for longer than the idle timeout are stopped,
+ * down to the min number of threads.</p>
+ * <p>The time jobs spend queued is recorded and exposed as statistics.</p>
+ */
+@ManagedObject("A work stealing thread pool")
+public class WorkStealingThreadPool extends AbstractLifeCycle implements SizedThreadPool, Dumpable, VirtualThreads.Configurable
+{
+    private static final Logger LOG = Log.getLogger(WorkStealingThreadPool.class);
+
+    private final AtomicInteger _threadsStarted = new AtomicInteger();
+    private final AtomicInteger _threadsIdle = new AtomicInteger();
+    private final AtomicInteger _searching = new AtomicInteger();
+    private final AtomicLong _lastShrink = new AtomicLong();
+    private final Set<Thread> _threads = ConcurrentHashMap.newKeySet();
+    private final Deque<Worker> _idleWorkers = new ConcurrentLinkedDeque<>();
+    private final ThreadLocal<Worker> _currentWorker = new ThreadLocal<>();
+    private final LongAdder _queued = new LongAdder();
+    private final LongAdder _stolen = new LongAdder();
+    private final StripedHistogramStatistic _queueLatency = new StripedHistogramStatistic();
+    private final Object _joinLock = new Object();
+    private final Queue<Job>[] _submissions;
+    private final ThreadGroup _threadGroup;
+    private volatile Worker[] _workers = new Worker[0];
+    private String _name = "wstp" + hashCode();
+    private int _idleTimeout;
+    private int _maxThreads;
+    private int _minThreads;
+    private int _priority = Thread.NORM_PRIORITY;
+    private boolean _daemon = false;
+    private int _lowThreadsThreshold = 1;
+    private volatile Executor _virtualThreadsExecutor;
+
+    public WorkStealingThreadPool()
+    {
+        this(200);
+    }
+
+    public WorkStealingThreadPool(@Name("maxThreads") int maxThreads)
+    {
+        this(maxThreads, 8);
+    }
+
+    public WorkStealingThreadPool(@Name("maxThreads") int maxThreads, @Name("minThreads") int minThreads)
+    {
+        this(maxThreads, minThreads, 60000);
+    }
+
+    public WorkStealingThreadPool(@Name("maxThreads") int maxThreads, @Name("minThreads") int minThreads, @Name("idleTimeout") int idleTimeout)
+    {
+        this(maxThreads, minThreads, idleTimeout, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public WorkStealingThreadPool(@Name("maxThreads") int maxThreads, @Name("minThreads") int minThreads, @Name("idleTimeout") int idleTimeout, @Name("threadGroup") ThreadGroup threadGroup)
+    {
+        setMinThreads(minThreads);
+        setMaxThreads(maxThreads);
+        setIdleTimeout(idleTimeout);
+        setStopTimeout(5000);
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int submissions = Integer.highestOneBit(Math.max(1, cpus));
+        _submissions = new Queue[submissions];
+        for (int i = 0; i < submissions; ++i)
+            _submissions[i] = new ConcurrentLinkedQueue<>();
+        _threadGroup = threadGroup;
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        super.doStart();
+        _threadsStarted.set(0);
+        startThreads(_minThreads);
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+
+        // Wake up the idle threads, so that they notice they must exit.
+        for (Worker worker : _workers)
+            LockSupport.unpark(worker._thread);
+
+        // Try to let the jobs complete naturally for half our stop time.
+        long timeout = getStopTimeout();
+        long stopby = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) / 2;
+        for (Thread thread : _threads)
+        {
+            long canwait = TimeUnit.NANOSECONDS.toMillis(stopby - System.nanoTime());
+            if (canwait > 0)
+                thread.join(canwait);
+        }
+
+        // Interrupt the remaining threads and wait again for the other half of our stop time.
+        if (_threadsStarted.get() > 0)
+            for (Thread thread : _threads)
+                thread.interrupt();
+        stopby = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) / 2;
+        for (Thread thread : _threads)
+        {
+            long canwait = TimeUnit.NANOSECONDS.toMillis(stopby - System.nanoTime());
+            if (canwait > 0)
+                thread.join(canwait);
+        }
+
+        for (Thread unstopped : _threads)
+            LOG.warn("{} Couldn't stop {}", this, unstopped);
+
+        for (Queue<Job> submissions : _submissions)
+            submissions.clear();
+        _idleWorkers.clear();
+        _queued.reset();
+        _searching.set(0);
+
+        synchronized (_joinLock)
+        {
+            _joinLock.notifyAll();
+        }
+    }
+
+    /**
+     * @param daemon whether the pool threads are daemon threads
+     * @see Thread#setDaemon(boolean)
+     */
+    public void setDaemon(boolean daemon)
+    {
+        _daemon = daemon;
+    }
+
+    /**
+     * @return whether the pool threads are daemon threads
+     */
+    @ManagedAttribute("thread pool uses daemon threads")
+    public boolean isDaemon()
+    {
+        return _daemon;
+    }
+
+    /**
+     * Set the maximum thread idle time.
+     * Threads that are idle for longer than this period may be stopped.
+     *
+     * @param idleTimeout Max idle time in ms.
+     */
+    public void setIdleTimeout(int idleTimeout)
+    {
+        _idleTimeout = idleTimeout;
+    }
+
+    /**
+     * @return Max idle time in ms.
+     */
+    @ManagedAttribute("maximum time a thread may be idle in ms")
+    public int getIdleTimeout()
+    {
+        return _idleTimeout;
+    }
+
+    @Override
+    public void setMaxThreads(int maxThreads)
+    {
+        _maxThreads = maxThreads;
+        if (_minThreads > _maxThreads)
+            _minThreads = _maxThreads;
+    }
+
+    @Override
+    @ManagedAttribute("maximum number of threads in the pool")
+    public int getMaxThreads()
+    {
+        return _maxThreads;
+    }
+
+    @Override
+    public void setMinThreads(int minThreads)
+    {
+        _minThreads = minThreads;
+
+        if (_minThreads > _maxThreads)
+            _maxThreads = _minThreads;
+
+        int threads = _threadsStarted.get();
+        if (isStarted() && threads < _minThreads)
+            startThreads(_minThreads - threads);
+    }
+
+    @Override
+    @ManagedAttribute("minimum number of threads in the pool")
+    public int getMinThreads()
+    {
+        return _minThreads;
+    }
+
+    /**
+     * @param name Name of this thread pool to use when naming threads.
+     */
+    public void setName(String name)
+    {
+        if (isRunning())
+            throw new IllegalStateException("started");
+        _name = name;
+    }
+
+    @ManagedAttribute("name of the thread pool")
+    public String getName()
+    {
+        return _name;
+    }
+
+    /**
+     * @param priority the priority of the pool threads
+     */
+    public void setThreadsPriority(int priority)
+    {
+        _priority = priority;
+    }
+
+    @ManagedAttribute("priority of threads in the pool")
+    public int getThreadsPriority()
+    {
+        return _priority;
+    }
+
+    @ManagedAttribute("threshold at which the pool is low on threads")
+    public int getLowThreadsThreshold()
+    {
+        return _lowThreadsThreshold;
+    }
+
+    public void setLowThreadsThreshold(int lowThreadsThreshold)
+    {
+        _lowThreadsThreshold = lowThreadsThreshold;
+    }
+
+    @Override
+    public Executor getVirtualThreadsExecutor()
+    {
+        return _virtualThreadsExecutor;
+    }
+
+    @Override
+    public void setVirtualThreadsExecutor(Executor executor)
+    {
+        _virtualThreadsExecutor = executor;
+    }
+
+    @Override
+    @ManagedAttribute("whether tasks that may block are run in virtual threads")
+    public boolean isUseVirtualThreads()
+    {
+        return _virtualThreadsExecutor != null;
+    }
+
+    /**
+     * @return the number of jobs queued waiting for a thread
+     */
+    @ManagedAttribute("size of the job queues")
+    public int getQueueSize()
+    {
+        return (int)Math.max(0, _queued.sum());
+    }
+
+    @ManagedAttribute("number of jobs stolen from the queue of another thread")
+    public long getStolenJobs()
+    {
+        return _stolen.sum();
+    }
+
+    /**
+     * @return the statistic of the time jobs are queued, in nanoseconds
+     */
+    public StripedHistogramStatistic getQueueLatency()
+    {
+        return _queueLatency;
+    }
+
+    @ManagedAttribute("number of jobs run")
+    public long getJobs()
+    {
+        return _queueLatency.getSnapshot().getCount();
+    }
+
+    @ManagedAttribute("mean time jobs are queued in us")
+    public double getQueueLatencyMean()
+    {
+        return _queueLatency.getSnapshot().getMean() / 1000;
+    }
+
+    @ManagedAttribute("50th percentile of the time jobs are queued in us")
+    public long getQueueLatency50()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(_queueLatency.getSnapshot().getValueAtPercentile(50));
+    }
+
+    @ManagedAttribute("99th percentile of the time jobs are queued in us")
+    public long getQueueLatency99()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(_queueLatency.getSnapshot().getValueAtPercentile(99));
+    }
+
+    @ManagedAttribute("max time jobs are queued in us")
+    public long getQueueLatencyMax()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(_queueLatency.getSnapshot().getMax());
+    }
+
+    @ManagedOperation(value = "resets the statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _queueLatency.reset();
+        _stolen.reset();
+    }
+
+    @Override
+    public void execute(Runnable job)
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("queue {}", job);
+        if (!isRunning())
+        {
+            LOG.warn("{} rejected {}", this, job);
+            throw new RejectedExecutionException(job.toString());
+        }
+
+        Job queued = new Job(job);
+        Worker worker = _currentWorker.get();
+        if (worker != null)
+        {
+            if (Invocable.getInvocationType(job) == Invocable.InvocationType.NON_BLOCKING)
+                worker._jobs.offerFirst(queued);
+            else
+                worker._jobs.offerLast(queued);
+        }
+        else
+        {
+            _submissions[(int)Thread.currentThread().getId() & (_submissions.length - 1)].offer(queued);
+        }
+        _queued.increment();
+
+        signal();
+    }
+
+    /**
+     * <p>Wakes up an idle thread or, if there is none, starts a new thread
+     * if the max number of threads has not been reached.</p>
+     */
+    private void signal()
+    {
+        // A thread already searching for jobs will find the job, and wake up
+        // another thread if there are more jobs, see Worker.searched(Job).
+        if (_searching.get() > 0)
+            return;
+        while (true)
+        {
+            Worker worker = _idleWorkers.poll();
+            if (worker == null)
+                break;
+            if (worker.wakeUp())
+                return;
+        }
+        startThread(true);
+    }
+
+    /**
+     * Blocks until the thread pool is {@link LifeCycle#stop stopped}.
+     */
+    @Override
+    public void join() throws InterruptedException
+    {
+        synchronized (_joinLock)
+        {
+            while (isRunning())
+                _joinLock.wait();
+        }
+
+        while (isStopping())
+            Thread.sleep(1);
+    }
+
+    @Override
+    @ManagedAttribute("number of threads in the pool")
+    public int getThreads()
+    {
+        return _threadsStarted.get();
+    }
+
+    @Override
+    @ManagedAttribute("number of idle threads in the pool")
+    public int getIdleThreads()
+    {
+        return _threadsIdle.get();
+    }
+
+    @ManagedAttribute("number of busy threads in the pool")
+    public int getBusyThreads()
+    {
+        return getThreads() - getIdleThreads();
+    }
+
+    /**
+     * <p>Returns whether this thread pool is low on threads, with the same formula as {@link QueuedThreadPool#isLowOnThreads()}.</p>
+     *
+     * @return whether the pool is low on threads
+     * @see #getLowThreadsThreshold()
+     */
+    @Override
+    @ManagedAttribute(value = "thread pool is low on threads", readonly = true)
+    public boolean isLowOnThreads()
+    {
+        return getMaxThreads() - getThreads() + getIdleThreads() - getQueueSize() <= getLowThreadsThreshold();
+    }
+
+    private boolean startThreads(int threadsToStart)
+    {
+        while (threadsToStart > 0)
+        {
+            if (!startThread(false))
+                return false;
+            --threadsToStart;
+        }
+        return true;
+    }
+
+    /**
+     * @param searching whether the new thread searches for jobs on behalf of a submitter
+     * @return whether a thread has been started
+     */
+    private boolean startThread(boolean searching)
+    {
+        while (isRunning())
+        {
+            int threads = _threadsStarted.get();
+            if (threads >= _maxThreads)
+                return false;
+
+            if (!_threadsStarted.compareAndSet(threads, threads + 1))
+                continue;
+
+            boolean started = false;
+            try
+            {
+                Worker worker = new Worker(searching);
+                Thread thread = newThread(worker);
+                thread.setDaemon(isDaemon());
+                thread.setPriority(getThreadsPriority());
+                thread.setName(_name + "-" + thread.getId());
+                worker._thread = thread;
+                _threads.add(thread);
+                addWorker(worker);
+                if (searching)
+                    _searching.incrementAndGet();
+
+                thread.start();
+                started = true;
+                return true;
+            }
+            finally
+            {
+                if (!started)
+                {
+                    _threadsStarted.decrementAndGet();
+                    if (searching)
+                        _searching.decrementAndGet();
+                }
+            }
+        }
+        return false;
+    }
+
+    protected Thread newThread(Runnable runnable)
+    {
+        return new Thread(_threadGroup, runnable);
+    }
+
+    /**
+     * <p>Runs the given job in the {@link Thread#currentThread() current thread}.</p>
+     * <p>Subclasses may override to perform pre/post actions before/after the job is run.</p>
+     *
+     * @param job the job to run
+     */
+    protected void runJob(Runnable job)
+    {
+        job.run();
+    }
+
+    private synchronized void addWorker(Worker worker)
+    {
+        Worker[] workers = Arrays.copyOf(_workers, _workers.length + 1);
+        workers[workers.length - 1] = worker;
+        _workers = workers;
+    }
+
+    private synchronized void removeWorker(Worker worker)
+    {
+        List<Worker> workers = new ArrayList<>(Arrays.asList(_workers));
+        workers.remove(worker);
+        _workers = workers.toArray(new Worker[workers.size()]);
+    }
+
+    private Job steal(Worker thief)
+    {
+        Worker[] workers = _workers;
+        int length = workers.length;
+        if (length == 0)
+            return null;
+        int start = ThreadLocalRandom.current().nextInt(length);
+        for (int i = 0; i < length; ++i)
+        {
+            Worker victim = workers[(start + i) % length];
+            if (victim == thief)
+                continue;
+            Job job = victim._jobs.pollLast();
+            if (job != null)
+            {
+                _stolen.increment();
+                return job;
+            }
+        }
+        return null;
+    }
+
+    private boolean shrink()
+    {
+        int size = _threadsStarted.get();
+        if (size <= _minThreads)
+            return false;
+        long last = _lastShrink.get();
+        long now = System.nanoTime();
+        if (last != 0 && (now - last) <= TimeUnit.MILLISECONDS.toNanos(_idleTimeout))
+            return false;
+        return _lastShrink.compareAndSet(last, now) && _threadsStarted.compareAndSet(size, size - 1);
+    }
+
+    @Override
+    @ManagedOperation("dumps thread pool state")
+    public String dump()
+    {
+        return ContainerLifeCycle.dump(this);
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        List<Object> threads = new ArrayList<>();
+        for (Worker worker : _workers)
+        {
+            Thread thread = worker._thread;
+            StackTraceElement[] trace = thread.getStackTrace();
+            threads.add(thread.getId() + " " + thread.getName() + " " + worker + " " + thread.getState() + " @ " + (trace.length > 0 ? trace[0] : "???"));
+        }
+        ContainerLifeCycle.dumpObject(out, this);
+        ContainerLifeCycle.dump(out, indent, threads);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%s{%s,%d<=%d<=%d,i=%d,q=%d}", getClass().getName(), _name, getState(), getMinThreads(), getThreads(), getMaxThreads(), getIdleThreads(), getQueueSize());
+    }
+
+    private static class Job
+    {
+        private final Runnable _task;
+        private final long _queued = System.nanoTime();
+
+        private Job(Runnable task)
+        {
+            _task = task;
+        }
+    }
+
+    private class Worker implements Runnable
+    {
+        private static final int ACTIVE = 0;
+        private static final int IDLE = 1;
+        private static final int SIGNALLED = 2;
+        private static final int EXITING = 3;
+
+        private final Deque<Job> _jobs = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger _state = new AtomicInteger(ACTIVE);
+        private final int _submission = ThreadLocalRandom.current().nextInt(_submissions.length);
+        private volatile Thread _thread;
+        private boolean _searcher;
+
+        private Worker(boolean searching)
+        {
+            _searcher = searching;
+        }
+
+        private boolean wakeUp()
+        {
+            if (!_state.compareAndSet(IDLE, SIGNALLED))
+                return false;
+            _searching.incrementAndGet();
+            LockSupport.unpark(_thread);
+            return true;
+        }
+
+        /**
+         * <p>Called by a signalled thread when it is done searching for jobs.</p>
+         * <p>If a job was found and there are more jobs, another idle thread is woken up,
+         * so that the signals of submitters that saw a searching thread are not lost.</p>
+         */
+        private void searched(Job job)
+        {
+            if (_searching.decrementAndGet() == 0 && job != null && getQueueSize() > 0)
+                signal();
+        }
+
+        private Job poll()
+        {
+            Job job = _jobs.pollFirst();
+            if (job == null)
+            {
+                for (int i = 0; i < _submissions.length; ++i)
+                {
+                    job = _submissions[(_submission + i) & (_submissions.length - 1)].poll();
+                    if (job != null)
+                        break;
+                }
+            }
+            if (job == null)
+                job = steal(this);
+            if (job != null)
+                _queued.decrement();
+            return job;
+        }
+
+        private void run(Job job)
+        {
+            _queueLatency.set(System.nanoTime() - job._queued);
+            if (LOG.isDebugEnabled())
+                LOG.debug("run {}", job._task);
+            try
+            {
+                runJob(job._task);
+            }
+            catch (Throwable x)
+            {
+                LOG.warn(x);
+            }
+            if (LOG.isDebugEnabled())
+                LOG.debug("ran {}", job._task);
+            // Clear the interrupted status, which must not leak to the next job.
+            Thread.interrupted();
+        }
+
+        /**
+         * @return a job to run, or null if the thread must exit
+         */
+        private Job idle()
+        {
+            _threadsIdle.incrementAndGet();
+            try
+            {
+                while (true)
+                {
+                    _state.set(IDLE);
+                    _idleWorkers.offerFirst(this);
+
+                    // Jobs may have been queued before this worker was advertised as idle.
+                    Job job = poll();
+                    if (job != null || !isRunning())
+                    {
+                        if (!_state.compareAndSet(IDLE, ACTIVE))
+                        {
+                            // Signalled in the meantime.
+                            _state.set(ACTIVE);
+                            searched(job);
+                        }
+                        return job;
+                    }
+
+                    while (_state.get() == IDLE)
+                    {
+                        if (!isRunning())
+                        {
+                            if (_state.compareAndSet(IDLE, ACTIVE))
+                                return null;
+                            break;
+                        }
+
+                        if (_idleTimeout <= 0)
+                        {
+                            LockSupport.park(this);
+                        }
+                        else
+                        {
+                            long idleNanos = TimeUnit.MILLISECONDS.toNanos(_idleTimeout);
+                            long begin = System.nanoTime();
+                            LockSupport.parkNanos(this, idleNanos);
+                            if (System.nanoTime() - begin >= idleNanos && _state.get() == IDLE && shrink())
+                            {
+                                if (_state.compareAndSet(IDLE, EXITING))
+                                    return null;
+                                // Signalled just now: do not exit, as the job needs a thread.
+                                _threadsStarted.incrementAndGet();
+                            }
+                        }
+                    }
+
+                    // Signalled, search for the job on behalf of the signaller.
+                    _state.set(ACTIVE);
+                    job = poll();
+                    searched(job);
+                    if (job != null || !isRunning())
+                        return job;
+                }
+            }
+            finally
+            {
+                _threadsIdle.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            _currentWorker.set(this);
+            try
+            {
+                while (isRunning())
+                {
+                    Job job = poll();
+                    if (_searcher)
+                    {
+                        // Started to search for jobs on behalf of a submitter.
+                        _searcher = false;
+                        searched(job);
+                    }
+                    if (job == null)
+                        job = idle();
+                    if (job == null)
+                        break;
+                    run(job);
+                }
+            }
+            finally
+            {
+                if (_searcher)
+                    _searching.decrementAndGet();
+                boolean shrunk = _state.get() == EXITING;
+                _state.set(EXITING);
+                removeWorker(this);
+                // Jobs left in the deque are moved to a submission queue, so that they are not lost.
+                while (true)
+                {
+                    Job job = _jobs.pollFirst();
+                    if (job == null)
+                        break;
+                    _submissions[_submission].offer(job);
+                }
+                if (!shrunk)
+                    _threadsStarted.decrementAndGet();
+                _threads.remove(Thread.currentThread());
+                _currentWorker.remove();
+                // Jobs moved from the deque, if any, need a thread.
+                if (isRunning() && getQueueSize() > 0)
+                    signal();
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            switch (_state.get())
+            {
+                case IDLE:
+                    return "IDLE";
+                case SIGNALLED:
+                    return "SIGNALLED";
+                case EXITING:
+                    return "EXITING";
+                default:
+                    return "ACTIVE q=" + _jobs.size();
+            }
+        }
+    }
+}
@@ -0,0 +1,295 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util.thread.strategy;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.thread.Invocable;
+import org.eclipse.jetty.util.thread.ReservedThreadExecutor;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.eclipse.jetty.util.thread.VirtualThreads;
+
+/**
+ * <p>An {@link EatWhatYouKill} strategy that chooses between Execute Produce Consume (EPC)
+ * and Produce Execute Consume (PEC) for the tasks that may block based on measurements,
+ * rather than only on the availability of a reserved thread.</p>
+ * <p>Both modes run the task for the same time, so only the latency of the dispatch
+ * differs: EPC stalls the production until a reserved thread takes it over, while PEC
+ * keeps producing but the task waits in the executor queue. The strategy samples both:</p>
+ * <ul>
+ * <li>for EPC, the time for the reserved thread to resume producing;</li>
+ * <li>for PEC, the time the task spends queued in the executor.</li>
+ * </ul>
+ * <p>The mode with the lowest latency is used for the following tasks, switching only when
+ * the difference exceeds 10%, to avoid flapping. One task every {@link #getExplorePeriod()}
+ * uses the other mode, so that its measurements remain current. The producing thread
+ * compares the measurements every few tasks, while it holds the strategy lock anyway.
+ * Regardless of the measurements, EPC is used when the executor is low on threads and
+ * PEC when no reserved thread is available.</p>
+ * <p>Each instance adapts independently, so that each selector of a connector
+ * adapts to the load of its own connections.</p>
+ */
+@ManagedObject("adaptive execution strategy")
+public class AdaptiveExecutionStrategy extends EatWhatYouKill
+{
+    private static final Logger LOG = Log.getLogger(AdaptiveExecutionStrategy.class);
+    private static final int UPDATE_PERIOD = 8;
+
+    private final LongAdder _explored = new LongAdder();
+    private final LongAdder _switches = new LongAdder();
+    private final Average _handoff = new Average();
+    private final Average _executeQueue = new Average();
+    private final ThreadPool _threadPool;
+    private volatile int _explorePeriod = 16;
+    private volatile boolean _preferExecute;
+    private int _blockingTasks;
+    private boolean _timed;
+    private long _handoffStarted;
+
+    public AdaptiveExecutionStrategy(Producer producer, Executor executor)
+    {
+        this(producer, executor, new ReservedThreadExecutor(executor, 1));
+    }
+
+    public AdaptiveExecutionStrategy(Producer producer, Executor executor, int maxReserved)
+    {
+        this(producer, executor, new ReservedThreadExecutor(executor, maxReserved));
+    }
+
+    public AdaptiveExecutionStrategy(Producer producer, Executor executor, ReservedThreadExecutor producers)
+    {
+        this(producer, executor, producers, false);
+    }
+
+    /**
+     * @param producer the task producer
+     * @param executor the executor of the tasks
+     * @param producers the reserved threads that may take over production
+     * @param virtualThreads whether the tasks that may block are executed in the virtual
+     * threads of the executor, if it is {@link VirtualThreads#isUseVirtualThreads(Executor) configured} with them
+     */
+    public AdaptiveExecutionStrategy(Producer producer, Executor executor, ReservedThreadExecutor producers, boolean virtualThreads)
+    {
+        super(producer, executor, producers, virtualThreads);
+        _threadPool = executor instanceof ThreadPool ? (ThreadPool)executor : null;
+    }
+
+    /**
+     * @return the number of blocking tasks every which a task uses the mode that is not preferred
+     */
+    @ManagedAttribute("number of blocking tasks every which a task uses the mode that is not preferred")
+    public int getExplorePeriod()
+    {
+        return _explorePeriod;
+    }
+
+    /**
+     * @param explorePeriod the number of blocking tasks every which a task uses the mode
+     * that is not preferred, or 0 to never explore
+     */
+    public void setExplorePeriod(int explorePeriod)
+    {
+        _explorePeriod = explorePeriod;
+    }
+
+    @Override
+    protected boolean isExecutePreferred(Runnable task)
+    {
+        int explorePeriod = _explorePeriod;
+        boolean explore = explorePeriod > 0 && ++_blockingTasks % explorePeriod == 0;
+        if (explore)
+            _explored.increment();
+        // Measure every task that explores, and every other task otherwise.
+        _timed = explore || (_blockingTasks & 1) == 0;
+        if (_blockingTasks % UPDATE_PERIOD == 0)
+            update();
+        if (_threadPool != null && _threadPool.isLowOnThreads())
+            return false;
+        return _preferExecute != explore;
+    }
+
+    @Override
+    protected void onProducerHandoff()
+    {
+        _handoffStarted = nanoTime();
+    }
+
+    @Override
+    protected void onProducing()
+    {
+        if (_handoffStarted != 0)
+        {
+            _handoff.add(nanoTime() - _handoffStarted);
+            _handoffStarted = 0;
+        }
+    }
+
+    @Override
+    protected Runnable newExecutedTask(Runnable task)
+    {
+        return _timed ? new TimedTask(task) : task;
+    }
+
+    /**
+     * <p>Chooses the preferred mode for blocking tasks from the measurements.</p>
+     * <p>Called by the producing thread with the strategy locked.</p>
+     */
+    private void update()
+    {
+        if (_handoff.isEmpty() || _executeQueue.isEmpty())
+            return;
+        long consume = _handoff.get();
+        long execute = _executeQueue.get();
+        boolean preferExecute = _preferExecute;
+        if (preferExecute && consume * 10 < execute * 9)
+            preferExecute = false;
+        else if (!preferExecute && execute * 10 < consume * 9)
+            preferExecute = true;
+        if (preferExecute != _preferExecute)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("{} switching to {}, EPC={}ns PEC={}ns", this, preferExecute ? "PEC" : "EPC", consume, execute);
+            _preferExecute = preferExecute;
+            _switches.increment();
+        }
+    }
+
+    long nanoTime()
+    {
+        return System.nanoTime();
+    }
+
+    @ManagedAttribute(value = "mode used for blocking tasks, EPC or PEC", readonly = true)
+    public String getMode()
+    {
+        return _preferExecute ? "PEC" : "EPC";
+    }
+
+    @ManagedAttribute(value = "number of switches between modes", readonly = true)
+    public long getModeSwitches()
+    {
+        return _switches.longValue();
+    }
+
+    @ManagedAttribute(value = "number of blocking tasks that used the mode that is not preferred", readonly = true)
+    public long getBlockingTasksExplored()
+    {
+        return _explored.longValue();
+    }
+
+    @ManagedAttribute(value = "average time for production to resume after consuming a task in us", readonly = true)
+    public long getProducerHandoffTime()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(_handoff.get());
+    }
+
+    @ManagedAttribute(value = "average time an executed task is queued in us", readonly = true)
+    public long getExecuteQueueTime()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(_executeQueue.get());
+    }
+
+    @Override
+    @ManagedOperation(value = "resets the task counts and measurements", impact = "ACTION")
+    public void reset()
+    {
+        super.reset();
+        _explored.reset();
+        _switches.reset();
+        _handoff.reset();
+        _executeQueue.reset();
+    }
+
+    @Override
+    public String toStringLocked()
+    {
+        return super.toStringLocked() + "/" + getMode();
+    }
+
+    /**
+     * <p>An exponentially weighted moving average of durations in nanoseconds,
+     * where each new sample weights 1/8.</p>
+     */
+    private static class Average
+    {
+        private volatile long _value = -1;
+
+        private void add(long sample)
+        {
+            long value = _value;
+            // Races between threads may lose a sample, which is acceptable for an average.
+            _value = value < 0 ? sample : value + ((sample - value) >> 3);
+        }
+
+        private long get()
+        {
+            return Math.max(0, _value);
+        }
+
+        private boolean isEmpty()
+        {
+            return _value < 0;
+        }
+
+        private void reset()
+        {
+            _value = -1;
+        }
+    }
+
+    /**
+     * <p>Wraps an executed task to measure the time it is queued.</p>
+     */
+    private class TimedTask implements Runnable, Invocable
+    {
+        private final Runnable _task;
+        private final long _queued = nanoTime();
+
+        private TimedTask(Runnable task)
+        {
+            _task = task;
+        }
+
+        @Override
+        public void run()
+        {
+            _executeQueue.add(nanoTime() - _queued);
+            _task.run();
+        }
+
+        @Override
+        public InvocationType getInvocationType()
+        {
+            return Invocable.getInvocationType(_task);
+        }
+
+        @Override
+        public String toString()
+        {
+            return _task.toString();
+        }
+    }
+}
@@ -35,6 +35,7 @@ import org.eclipse.jetty.util.thread.Invocable.InvocationType;
 import org.eclipse.jetty.util.thread.Locker;
 import org.eclipse.jetty.util.thread.Locker.Lock;
 import org.eclipse.jetty.util.thread.ReservedThreadExecutor;
+import org.eclipse.jetty.util.thread.VirtualThreads;
 
 /**
  * <p>A strategy where the thread that produces will run the resulting task if it 
@@ -60,6 +61,12 @@ import org.eclipse.jetty.util.thread.ReservedThreadExecutor;
  * the task and immediately continue producing.  When operating in this pattern, the
  * sub-strategy is called ProduceExecuteConsume (PEC).
  * </p>
+ * <p>If the strategy is constructed to use virtual threads and the executor is
+ * configured with {@link VirtualThreads virtual threads}, tasks that have not
+ * indicated they are non-blocking are always executed in a virtual thread with
+ * the PEC sub-strategy, so that the producing thread, for example a selector
+ * thread, remains a platform thread that keeps producing.
+ * </p>
  */
 @ManagedObject("eat what you kill execution strategy")
 public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrategy, Runnable
@@ -75,6 +82,7 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
     private final Producer _producer;
     private final Executor _executor;
     private final ReservedThreadExecutor _producers;
+    private final Executor _virtualThreads;
     private State _state = State.IDLE;
 
     public EatWhatYouKill(Producer producer, Executor executor)
@@ -88,10 +96,23 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
     }
         
     public EatWhatYouKill(Producer producer, Executor executor, ReservedThreadExecutor producers)
+    {
+        this(producer,executor,producers,false);
+    }
+
+    /**
+     * @param producer the task producer
+     * @param executor the executor of the tasks
+     * @param producers the reserved threads that may take over production
+     * @param virtualThreads whether the tasks that may block are executed in the virtual
+     * threads of the executor, if it is {@link VirtualThreads#isUseVirtualThreads(Executor) configured} with them
+     */
+    public EatWhatYouKill(Producer producer, Executor executor, ReservedThreadExecutor producers, boolean virtualThreads)
     {
         _producer = producer;
         _executor = executor;
         _producers = producers;
+        _virtualThreads = virtualThreads ? VirtualThreads.getVirtualThreadsExecutor(executor) : null;
         addBean(_producer);
         if (LOG.isDebugEnabled())
             LOG.debug("{} created", this);
@@ -152,6 +173,7 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
                     // Enter PRODUCING
                     _state = State.PRODUCING;
                     producing = true;
+                    onProducing();
                     break;
                     
                 case PRODUCING:
@@ -215,11 +237,19 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
                     consume = true;
                     _nonBlocking.increment();
                 }
+                else if (_virtualThreads != null)
+                {
+                    // PRODUCE EXECUTE CONSUME in a virtual thread!
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("{} PEC virtual t={}", this, task);
+                    consume = false;
+                    _executed.increment();
+                }
                 else
                 {
                     try (Lock locked = _locker.lock())
                     {
-                        if (_producers.tryExecute(this))
+                        if (!isExecutePreferred(task) && _producers.tryExecute(this))
                         {
                             // EXECUTE PRODUCE CONSUME!
                             // We have executed a new Producer, so we can EWYK consume
@@ -227,6 +257,7 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
                             producing = false;
                             consume = true;
                             _blocking.increment();
+                            onProducerHandoff();
                         }
                         else
                         {
@@ -245,8 +276,10 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
                 {
                     if (consume)
                         task.run();
+                    else if (_virtualThreads != null)
+                        _virtualThreads.execute(task);
                     else
-                        _executor.execute(task);
+                        _executor.execute(newExecutedTask(task));
                 }
                 catch (RejectedExecutionException e)
                 {
@@ -273,6 +306,47 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         return producing;
     }
 
+    /**
+     * <p>Chooses between the sub-strategies for a task that may block, when there is
+     * no virtual thread to run it. Called with the strategy locked by the producing thread.</p>
+     * <p>This implementation returns false, so that the task is consumed whenever a
+     * reserved thread can take over the production.</p>
+     *
+     * @param task the task that may block
+     * @return true to execute the task and keep producing (PEC), false to consume the
+     * task if a reserved thread can take over the production (EPC)
+     */
+    protected boolean isExecutePreferred(Runnable task)
+    {
+        return false;
+    }
+
+    /**
+     * <p>Called with the strategy locked when a thread starts producing.</p>
+     */
+    protected void onProducing()
+    {
+    }
+
+    /**
+     * <p>Called with the strategy locked when a reserved thread has been dispatched
+     * to take over the production, just before the producing thread consumes a task (EPC).</p>
+     */
+    protected void onProducerHandoff()
+    {
+    }
+
+    /**
+     * <p>Called by the producing thread when a task that may block is executed (PEC).</p>
+     *
+     * @param task the task that may block
+     * @return the task to execute, which may wrap the given task
+     */
+    protected Runnable newExecutedTask(Runnable task)
+    {
+        return task;
+    }
+
     @ManagedAttribute(value = "number of non blocking tasks consumed", readonly = true)
     public long getNonBlockingTasksConsumed()
     {
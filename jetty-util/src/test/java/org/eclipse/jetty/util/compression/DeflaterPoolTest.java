@@ -0,0 +1,85 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util.compression;
+
+import java.util.zip.Deflater;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DeflaterPoolTest
+{
+    @Test
+    public void testReuse() throws Exception
+    {
+        DeflaterPool pool = new DeflaterPool(1, Deflater.BEST_SPEED, true);
+        pool.start();
+
+        Deflater deflater1 = pool.acquire();
+        deflater1.setInput(new byte[]{1, 2, 3});
+        Deflater deflater2 = pool.acquire();
+        Assert.assertNotSame(deflater1, deflater2);
+        Assert.assertEquals(2, pool.getCreatedCount());
+
+        pool.release(deflater1);
+        Assert.assertEquals(1, pool.getPooledCount());
+        // The pool is full, the deflater is ended.
+        pool.release(deflater2);
+        Assert.assertEquals(1, pool.getPooledCount());
+        Assert.assertEquals(1, pool.getDiscardedCount());
+
+        Deflater deflater = pool.acquire();
+        Assert.assertSame(deflater1, deflater);
+        // The deflater has been reset.
+        Assert.assertTrue(deflater.needsInput());
+        Assert.assertEquals(0, pool.getPooledCount());
+        Assert.assertEquals(2, pool.getCreatedCount());
+
+        pool.stop();
+    }
+
+    @Test
+    public void testNotPooledWhenStopped() throws Exception
+    {
+        DeflaterPool pool = new DeflaterPool(CompressionPool.DEFAULT_CAPACITY, Deflater.DEFAULT_COMPRESSION, true);
+        pool.start();
+        pool.release(pool.acquire());
+        Assert.assertEquals(1, pool.getPooledCount());
+
+        pool.stop();
+        Assert.assertEquals(0, pool.getPooledCount());
+
+        pool.release(pool.acquire());
+        Assert.assertEquals(0, pool.getPooledCount());
+        Assert.assertEquals(1, pool.getDiscardedCount());
+    }
+
+    @Test
+    public void testNoPooling() throws Exception
+    {
+        DeflaterPool pool = new DeflaterPool(0, Deflater.DEFAULT_COMPRESSION, true);
+        pool.start();
+        Deflater deflater = pool.acquire();
+        pool.release(deflater);
+        Assert.assertNotSame(deflater, pool.acquire());
+        Assert.assertEquals(0, pool.getPooledCount());
+        pool.stop();
+    }
+}
@@ -0,0 +1,119 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util.statistic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HistogramStatisticTest
+{
+    @Test
+    public void testBuckets()
+    {
+        long previous = -1;
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 1000, 1_000_000, Long.MAX_VALUE / 3, Long.MAX_VALUE})
+        {
+            int bucket = HistogramStatistic.bucketOf(value);
+            long highest = HistogramStatistic.highestValueOf(bucket);
+            assertTrue("value=" + value, highest >= value);
+            assertTrue("value=" + value, highest - value <= value >> HistogramStatistic.SUB_BUCKET_BITS);
+            assertTrue("value=" + value, highest > previous);
+            previous = highest;
+        }
+        assertEquals(Long.MAX_VALUE, HistogramStatistic.highestValueOf(HistogramStatistic.bucketOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testPercentiles()
+    {
+        HistogramStatistic stats = new HistogramStatistic();
+        assertEquals(0, stats.getValueAtPercentile(99));
+
+        for (int i = 1; i <= 10_000; i++)
+            stats.set(i);
+
+        assertEquals(10_000, stats.getCount());
+        assertEquals(10_000, stats.getMax());
+        assertEquals(5000.5, stats.getMean(), 0.01);
+        assertNear(5000, stats.getValueAtPercentile(50));
+        assertNear(9900, stats.getValueAtPercentile(99));
+        assertNear(9990, stats.getValueAtPercentile(99.9));
+        assertEquals(10_000, stats.getValueAtPercentile(100));
+
+        stats.reset();
+        assertEquals(0, stats.getCount());
+        assertEquals(0, stats.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void testMerge()
+    {
+        HistogramStatistic low = new HistogramStatistic();
+        HistogramStatistic high = new HistogramStatistic();
+        for (int i = 1; i <= 5_000; i++)
+        {
+            low.set(i);
+            high.set(5_000 + i);
+        }
+
+        HistogramStatistic merged = new HistogramStatistic();
+        merged.merge(low);
+        merged.merge(high);
+
+        assertEquals(10_000, merged.getCount());
+        assertEquals(10_000, merged.getMax());
+        assertEquals(5000.5, merged.getMean(), 0.01);
+        assertNear(5000, merged.getValueAtPercentile(50));
+        assertNear(9900, merged.getValueAtPercentile(99));
+        // The merged histograms are unchanged.
+        assertEquals(5_000, low.getCount());
+        assertEquals(5_000, low.getMax());
+    }
+
+    @Test
+    public void testGetAndReset()
+    {
+        HistogramStatistic stats = new HistogramStatistic();
+        for (int i = 1; i <= 100; i++)
+            stats.set(i);
+
+        HistogramStatistic first = stats.getAndReset();
+        assertEquals(100, first.getCount());
+        assertEquals(100, first.getMax());
+        assertEquals(100, first.getValueAtPercentile(100));
+        assertEquals(0, stats.getCount());
+        assertEquals(0, stats.getMax());
+        assertEquals(0, stats.getValueAtPercentile(50));
+
+        stats.set(1000);
+        HistogramStatistic second = stats.getAndReset();
+        assertEquals(1, second.getCount());
+        assertEquals(1000, second.getMax());
+        assertNear(1000, second.getValueAtPercentile(50));
+    }
+
+    private void assertNear(long expected, long actual)
+    {
+        assertTrue("expected=" + expected + " actual=" + actual, actual >= expected);
+        assertTrue("expected=" + expected + " actual=" + actual, actual - expected <= expected >> HistogramStatistic.SUB_BUCKET_BITS);
+    }
+}
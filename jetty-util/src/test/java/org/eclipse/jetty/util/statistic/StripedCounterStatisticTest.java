@@ -0,0 +1,111 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util.statistic;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.CyclicBarrier;
+
+import org.junit.Test;
+
+public class StripedCounterStatisticTest
+{
+    @Test
+    public void testCounter()
+    {
+        StripedCounterStatistic count = new StripedCounterStatistic(8);
+
+        assertThat(count.getCurrent(),equalTo(0L));
+        assertThat(count.getMax(),equalTo(0L));
+        assertThat(count.getTotal(),equalTo(0L));
+
+        count.increment();
+        count.increment();
+        count.decrement();
+        count.add(4);
+        count.add(-2);
+
+        assertThat(count.getCurrent(),equalTo(3L));
+        assertThat(count.getTotal(),equalTo(6L));
+
+        count.reset();
+        assertThat(count.getCurrent(),equalTo(3L));
+        assertThat(count.getMax(),equalTo(3L));
+        assertThat(count.getTotal(),equalTo(3L));
+
+        count.reset(0);
+        assertThat(count.getCurrent(),equalTo(0L));
+        assertThat(count.getMax(),equalTo(0L));
+        assertThat(count.getTotal(),equalTo(0L));
+    }
+
+    @Test
+    public void testMaxIsExact()
+    {
+        StripedCounterStatistic count = new StripedCounterStatistic(8);
+
+        for (int i=0;i<3;i++)
+            assertThat(count.increment(),equalTo(i+1L));
+        for (int i=3;i-->0;)
+            assertThat(count.decrement(),equalTo((long)i));
+        assertThat(count.getMax(),equalTo(3L));
+
+        assertThat(count.add(5),equalTo(5L));
+        assertThat(count.add(-5),equalTo(0L));
+        assertThat(count.getMax(),equalTo(5L));
+    }
+
+    @Test
+    public void testCounterContended() throws Exception
+    {
+        StripedCounterStatistic counter = new StripedCounterStatistic(4);
+        int threads=16;
+        int loops=10000;
+        CyclicBarrier barrier=new CyclicBarrier(threads);
+        Thread[] workers=new Thread[threads];
+        for (int t=0;t<threads;t++)
+        {
+            workers[t]=new Thread(() ->
+            {
+                try
+                {
+                    barrier.await();
+                }
+                catch (Exception x)
+                {
+                    throw new RuntimeException(x);
+                }
+                for (int l=0;l<loops;l++)
+                {
+                    counter.increment();
+                    counter.decrement();
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers)
+            worker.join();
+
+        assertThat(counter.getCurrent(),equalTo(0L));
+        assertThat(counter.getTotal(),equalTo((long)threads*loops));
+        assertThat(counter.getMax(),lessThanOrEqualTo((long)threads));
+    }
+}
@@ -0,0 +1,119 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util.statistic;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.CyclicBarrier;
+
+import org.junit.Test;
+
+public class StripedHistogramStatisticTest
+{
+    @Test
+    public void testPercentiles()
+    {
+        StripedHistogramStatistic stats = new StripedHistogramStatistic(4);
+        HistogramStatistic expected = new HistogramStatistic();
+        assertEquals(0, stats.getValueAtPercentile(99));
+
+        for (int i = 1; i <= 10_000; i++)
+        {
+            stats.set(i);
+            expected.set(i);
+        }
+
+        assertEquals(10_000, stats.getCount());
+        assertEquals(10_000, stats.getMax());
+        assertEquals(expected.getTotal(), stats.getTotal());
+        assertEquals(5000.5, stats.getMean(), 0.01);
+        for (double percentile : new double[]{50, 99, 99.9, 100})
+            assertEquals(expected.getValueAtPercentile(percentile), stats.getValueAtPercentile(percentile));
+
+        stats.reset();
+        assertEquals(0, stats.getCount());
+        assertEquals(0, stats.getMax());
+        assertEquals(0, stats.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void testGetAndReset()
+    {
+        StripedHistogramStatistic stats = new StripedHistogramStatistic(4);
+        for (int i = 1; i <= 100; i++)
+            stats.set(i);
+
+        HistogramStatistic interval = stats.getAndReset();
+        assertEquals(100, interval.getCount());
+        assertEquals(100, interval.getMax());
+        assertEquals(5050, interval.getTotal());
+        assertEquals(0, stats.getCount());
+        assertEquals(0, stats.getTotal());
+
+        stats.set(7);
+        interval = stats.getAndReset();
+        assertEquals(1, interval.getCount());
+        assertEquals(7, interval.getMax());
+    }
+
+    @Test
+    public void testStripesAreMerged() throws Exception
+    {
+        StripedHistogramStatistic stats = new StripedHistogramStatistic(8);
+        int threads = 8;
+        int samples = 1000;
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++)
+        {
+            // Each thread records values in a different range.
+            long base = 1000 * t;
+            workers[t] = new Thread(() ->
+            {
+                try
+                {
+                    barrier.await();
+                }
+                catch (Exception x)
+                {
+                    throw new RuntimeException(x);
+                }
+                for (int i = 0; i < samples; i++)
+                    stats.set(base + i);
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers)
+            worker.join();
+
+        HistogramStatistic expected = new HistogramStatistic();
+        for (int t = 0; t < threads; t++)
+        {
+            for (int i = 0; i < samples; i++)
+                expected.set(1000 * t + i);
+        }
+
+        assertEquals(threads * samples, stats.getCount());
+        assertEquals(expected.getTotal(), stats.getTotal());
+        assertEquals(expected.getMax(), stats.getMax());
+        assertEquals(expected.getValueAtPercentile(50), stats.getValueAtPercentile(50));
+        assertEquals(expected.getValueAtPercentile(99), stats.getValueAtPercentile(99));
+    }
+}
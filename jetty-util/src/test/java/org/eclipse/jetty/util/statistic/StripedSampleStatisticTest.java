@@ -0,0 +1,94 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util.statistic;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.CyclicBarrier;
+
+import org.junit.Test;
+
+public class StripedSampleStatisticTest
+{
+    @Test
+    public void testData()
+    {
+        StripedSampleStatistic stats = new StripedSampleStatistic(4);
+        long[] data = {100, 100, 100, 100, 100, 100, 100, 100, 90, 110, 95, 105, 97, 103};
+        for (long x : data)
+            stats.set(x);
+
+        assertEquals(data.length, stats.getCount());
+        assertEquals(1400, stats.getTotal());
+        assertEquals(110, stats.getMax());
+        assertEquals(100.0, stats.getMean(), 0.0001);
+        // Sample standard deviation.
+        assertEquals(Math.sqrt((10 * 10 + 10 * 10 + 5 * 5 + 5 * 5 + 3 * 3 + 3 * 3) / 13.0), stats.getStdDev(), 0.0001);
+
+        stats.reset();
+        assertEquals(0, stats.getCount());
+        assertEquals(0, stats.getTotal());
+        assertEquals(0.0, stats.getVariance(), 0.0);
+    }
+
+    @Test
+    public void testStripesAreMerged() throws Exception
+    {
+        StripedSampleStatistic stats = new StripedSampleStatistic(8);
+        int threads = 8;
+        int samples = 1000;
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++)
+        {
+            // Each thread records values around a different mean.
+            long base = 100 * (t + 1);
+            workers[t] = new Thread(() ->
+            {
+                try
+                {
+                    barrier.await();
+                }
+                catch (Exception x)
+                {
+                    throw new RuntimeException(x);
+                }
+                for (int i = 0; i < samples; i++)
+                    stats.set(base + (i % 2 == 0 ? -1 : 1));
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers)
+            worker.join();
+
+        StripedSampleStatistic expected = new StripedSampleStatistic(1);
+        for (int t = 0; t < threads; t++)
+        {
+            for (int i = 0; i < samples; i++)
+                expected.set(100 * (t + 1) + (i % 2 == 0 ? -1 : 1));
+        }
+
+        assertEquals(threads * samples, stats.getCount());
+        assertEquals(expected.getTotal(), stats.getTotal());
+        assertEquals(expected.getMax(), stats.getMax());
+        assertEquals(expected.getMean(), stats.getMean(), 0.0001);
+        assertEquals(expected.getStdDev(), stats.getStdDev(), 0.0001);
+    }
+}
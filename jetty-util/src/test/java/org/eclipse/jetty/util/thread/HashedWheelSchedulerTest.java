@@ -0,0 +1,129 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util.thread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HashedWheelSchedulerTest
+{
+    private HashedWheelScheduler _scheduler;
+
+    private void start(long tickMillis, int ticksPerWheel) throws Exception
+    {
+        _scheduler = new HashedWheelScheduler(null, true, tickMillis, TimeUnit.MILLISECONDS, ticksPerWheel);
+        _scheduler.start();
+    }
+
+    @After
+    public void after() throws Exception
+    {
+        if (_scheduler != null)
+            _scheduler.stop();
+    }
+
+    @Test
+    public void testTicksPerWheelRoundedToPowerOfTwo() throws Exception
+    {
+        start(5, 100);
+        Assert.assertEquals(128, _scheduler.getTicksPerWheel());
+        Assert.assertEquals(5, _scheduler.getTickDuration());
+    }
+
+    @Test
+    public void testDelayLongerThanWheelRevolution() throws Exception
+    {
+        // A revolution of the wheel is 8ms, so the task stays in its bucket for several rounds.
+        start(1, 8);
+        CountDownLatch latch = new CountDownLatch(1);
+        long begin = System.nanoTime();
+        _scheduler.schedule(latch::countDown, 100, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        Assert.assertThat(elapsed, Matchers.greaterThanOrEqualTo(100L));
+    }
+
+    @Test
+    public void testTasksRunInDeadlineOrder() throws Exception
+    {
+        start(1, 16);
+        int count = 20;
+        List<Integer> order = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(count);
+        for (int i = count; i-- > 0;)
+        {
+            int index = i;
+            _scheduler.schedule(() ->
+            {
+                order.add(index);
+                latch.countDown();
+            }, 10 * i, TimeUnit.MILLISECONDS);
+        }
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < count; ++i)
+            Assert.assertEquals(i, (int)order.get(i));
+    }
+
+    @Test
+    public void testCancelledTasksRemovedFromWheel() throws Exception
+    {
+        start(1, 64);
+        AtomicInteger executed = new AtomicInteger();
+        List<Scheduler.Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 10_000; ++i)
+            tasks.add(_scheduler.schedule(executed::incrementAndGet, 1, TimeUnit.HOURS));
+
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (_scheduler.getSize() < tasks.size() && System.nanoTime() < end)
+            Thread.sleep(10);
+        Assert.assertEquals(tasks.size(), _scheduler.getSize());
+
+        for (Scheduler.Task task : tasks)
+            Assert.assertTrue(task.cancel());
+        for (Scheduler.Task task : tasks)
+            Assert.assertFalse(task.cancel());
+
+        end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (_scheduler.getSize() > 0 && System.nanoTime() < end)
+            Thread.sleep(10);
+        Assert.assertEquals(0, _scheduler.getSize());
+        Assert.assertEquals(0, executed.get());
+    }
+
+    @Test
+    public void testScheduleWhenStopped() throws Exception
+    {
+        start(1, 8);
+        _scheduler.stop();
+        AtomicInteger executed = new AtomicInteger();
+        Scheduler.Task task = _scheduler.schedule(executed::incrementAndGet, 0, TimeUnit.MILLISECONDS);
+        Assert.assertFalse(task.cancel());
+        Thread.sleep(50);
+        Assert.assertEquals(0, executed.get());
+    }
+}
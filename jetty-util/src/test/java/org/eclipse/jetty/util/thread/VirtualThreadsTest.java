@@ -0,0 +1,184 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util.thread;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jetty.util.log.StacklessLogging;
+import org.eclipse.jetty.util.thread.strategy.EatWhatYouKill;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class VirtualThreadsTest
+{
+    @Test
+    public void testNotSupported() throws Exception
+    {
+        Assume.assumeFalse(VirtualThreads.areSupported());
+
+        QueuedThreadPool pool = new QueuedThreadPool();
+        try (StacklessLogging stackless = new StacklessLogging(VirtualThreads.class))
+        {
+            pool.setUseVirtualThreads(true);
+        }
+        Assert.assertFalse(pool.isUseVirtualThreads());
+        Assert.assertFalse(VirtualThreads.isUseVirtualThreads(pool));
+        Assert.assertFalse(VirtualThreads.isVirtualThread());
+    }
+
+    @Test
+    public void testSupported() throws Exception
+    {
+        Assume.assumeTrue(VirtualThreads.areSupported());
+
+        QueuedThreadPool pool = new QueuedThreadPool();
+        pool.setUseVirtualThreads(true);
+        Assert.assertTrue(pool.isUseVirtualThreads());
+
+        AtomicBoolean virtual = new AtomicBoolean();
+        CountDownLatch latch = new CountDownLatch(1);
+        pool.getVirtualThreadsExecutor().execute(() ->
+        {
+            virtual.set(VirtualThreads.isVirtualThread());
+            latch.countDown();
+        });
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(virtual.get());
+        Assert.assertFalse(VirtualThreads.isVirtualThread());
+    }
+
+    @Test
+    public void testEatWhatYouKillExecutesBlockingTasksInVirtualThreads() throws Exception
+    {
+        QueuedThreadPool pool = new QueuedThreadPool();
+        AtomicInteger virtualExecutions = new AtomicInteger();
+        // Any executor may stand for the virtual threads executor.
+        pool.setVirtualThreadsExecutor(task ->
+        {
+            virtualExecutions.incrementAndGet();
+            new Thread(task).start();
+        });
+        pool.start();
+        try
+        {
+            AtomicReference<Thread> producerThread = new AtomicReference<>();
+            AtomicReference<Thread> nonBlockingThread = new AtomicReference<>();
+            CountDownLatch latch = new CountDownLatch(3);
+            Runnable blocking = latch::countDown;
+            Runnable nonBlocking = new NonBlockingTask(() ->
+            {
+                nonBlockingThread.set(Thread.currentThread());
+                latch.countDown();
+            });
+            Queue<Runnable> tasks = new ArrayDeque<>(Arrays.asList(blocking, nonBlocking, blocking));
+            EatWhatYouKill strategy = new EatWhatYouKill(() ->
+            {
+                producerThread.set(Thread.currentThread());
+                synchronized (tasks)
+                {
+                    return tasks.poll();
+                }
+            }, pool, new ReservedThreadExecutor(pool, 1), true);
+            strategy.start();
+
+            strategy.produce();
+
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(2, virtualExecutions.get());
+            Assert.assertEquals(2, strategy.getBlockingTasksExecuted());
+            Assert.assertEquals(0, strategy.getBlockingTasksConsumed());
+            // The producer remains the producer, and consumes non blocking tasks.
+            Assert.assertSame(Thread.currentThread(), producerThread.get());
+            Assert.assertSame(Thread.currentThread(), nonBlockingThread.get());
+            strategy.stop();
+        }
+        finally
+        {
+            pool.stop();
+        }
+    }
+
+    @Test
+    public void testEatWhatYouKillDoesNotUseVirtualThreadsByDefault() throws Exception
+    {
+        QueuedThreadPool pool = new QueuedThreadPool();
+        AtomicInteger virtualExecutions = new AtomicInteger();
+        pool.setVirtualThreadsExecutor(task ->
+        {
+            virtualExecutions.incrementAndGet();
+            new Thread(task).start();
+        });
+        pool.start();
+        try
+        {
+            CountDownLatch latch = new CountDownLatch(2);
+            Runnable blocking = latch::countDown;
+            Queue<Runnable> tasks = new ArrayDeque<>(Arrays.asList(blocking, blocking));
+            EatWhatYouKill strategy = new EatWhatYouKill(() ->
+            {
+                synchronized (tasks)
+                {
+                    return tasks.poll();
+                }
+            }, pool);
+            strategy.start();
+
+            strategy.produce();
+
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(0, virtualExecutions.get());
+            strategy.stop();
+        }
+        finally
+        {
+            pool.stop();
+        }
+    }
+
+    private static class NonBlockingTask implements Runnable, Invocable
+    {
+        private final Runnable _task;
+
+        private NonBlockingTask(Runnable task)
+        {
+            _task = task;
+        }
+
+        @Override
+        public void run()
+        {
+            _task.run();
+        }
+
+        @Override
+        public InvocationType getInvocationType()
+        {
+            return InvocationType.NON_BLOCKING;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util.thread;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WorkStealingThreadPoolTest
+{
+    private WorkStealingThreadPool _pool;
+
+    private WorkStealingThreadPool start(int maxThreads, int minThreads, int idleTimeout) throws Exception
+    {
+        _pool = new WorkStealingThreadPool(maxThreads, minThreads, idleTimeout);
+        _pool.start();
+        return _pool;
+    }
+
+    @After
+    public void after() throws Exception
+    {
+        if (_pool != null)
+            _pool.stop();
+    }
+
+    @Test
+    public void testJobsFromExternalAndPoolThreads() throws Exception
+    {
+        start(8, 2, 60000);
+        int jobs = 1000;
+        CountDownLatch latch = new CountDownLatch(2 * jobs);
+        for (int i = 0; i < jobs; ++i)
+        {
+            _pool.execute(() ->
+            {
+                // A job submitted by a pool thread goes to the deque of that thread.
+                _pool.execute(latch::countDown);
+                latch.countDown();
+            });
+        }
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Assert.assertThat(_pool.getThreads(), Matchers.lessThanOrEqualTo(8));
+        Assert.assertEquals(0, _pool.getQueueSize());
+        Assert.assertEquals(2 * jobs, _pool.getJobs());
+    }
+
+    @Test
+    public void testJobQueuedByBlockedThreadIsStolen() throws Exception
+    {
+        start(4, 4, 60000);
+        CountDownLatch stolen = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        _pool.execute(() ->
+        {
+            // Queued in the deque of this thread, that then blocks
+            // waiting for the job: it must be run by another thread.
+            _pool.execute(stolen::countDown);
+            try
+            {
+                if (stolen.await(5, TimeUnit.SECONDS))
+                    done.countDown();
+            }
+            catch (InterruptedException x)
+            {
+                throw new RuntimeException(x);
+            }
+        });
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Assert.assertThat(_pool.getStolenJobs(), Matchers.greaterThanOrEqualTo(1L));
+    }
+
+    @Test
+    public void testNonBlockingJobRunsBeforeBlockingJobs() throws Exception
+    {
+        start(1, 1, 60000);
+        StringBuilder order = new StringBuilder();
+        CountDownLatch latch = new CountDownLatch(1);
+        _pool.execute(() ->
+        {
+            _pool.execute(() -> order.append("B"));
+            _pool.execute(new NonBlockingJob(() -> order.append("N")));
+            _pool.execute(latch::countDown);
+        });
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals("NB", order.toString());
+    }
+
+    @Test
+    public void testGrowAndShrink() throws Exception
+    {
+        start(6, 2, 500);
+        waitForThreads(2);
+
+        int jobs = 6;
+        CountDownLatch started = new CountDownLatch(jobs);
+        CountDownLatch proceed = new CountDownLatch(1);
+        for (int i = 0; i < jobs; ++i)
+        {
+            _pool.execute(() ->
+            {
+                started.countDown();
+                try
+                {
+                    proceed.await();
+                }
+                catch (InterruptedException x)
+                {
+                    throw new RuntimeException(x);
+                }
+            });
+        }
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(6, _pool.getThreads());
+        Assert.assertEquals(6, _pool.getBusyThreads());
+        Assert.assertTrue(_pool.isLowOnThreads());
+
+        // Cannot grow beyond the max threads.
+        CountDownLatch queued = new CountDownLatch(1);
+        _pool.execute(queued::countDown);
+        Assert.assertEquals(6, _pool.getThreads());
+        Assert.assertEquals(1, _pool.getQueueSize());
+
+        proceed.countDown();
+        Assert.assertTrue(queued.await(5, TimeUnit.SECONDS));
+
+        // Idle threads are stopped down to the min threads.
+        waitForThreads(2);
+        Thread.sleep(1000);
+        Assert.assertEquals(2, _pool.getThreads());
+    }
+
+    @Test
+    public void testException() throws Exception
+    {
+        start(4, 4, 60000);
+        CountDownLatch latch = new CountDownLatch(1);
+        _pool.execute(() ->
+        {
+            throw new IllegalStateException("Thrown by testException");
+        });
+        _pool.execute(latch::countDown);
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(4, _pool.getThreads());
+    }
+
+    @Test
+    public void testReservedThreadExecutor() throws Exception
+    {
+        start(8, 1, 60000);
+        ReservedThreadExecutor reserved = new ReservedThreadExecutor(_pool, -1);
+        reserved.start();
+        try
+        {
+            Assert.assertThat(reserved.getCapacity(), Matchers.greaterThanOrEqualTo(1));
+            CountDownLatch latch = new CountDownLatch(1);
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!reserved.tryExecute(latch::countDown) && System.nanoTime() < end)
+                Thread.sleep(10);
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            reserved.stop();
+        }
+    }
+
+    @Test
+    public void testStopInterruptsBlockedJob() throws Exception
+    {
+        start(2, 2, 60000);
+        _pool.setStopTimeout(500);
+        AtomicInteger interrupted = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        _pool.execute(() ->
+        {
+            started.countDown();
+            try
+            {
+                Thread.sleep(60000);
+            }
+            catch (InterruptedException x)
+            {
+                interrupted.incrementAndGet();
+            }
+        });
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        _pool.stop();
+        Assert.assertEquals(1, interrupted.get());
+        Assert.assertEquals(0, _pool.getThreads());
+    }
+
+    private static class NonBlockingJob implements Runnable, Invocable
+    {
+        private final Runnable _job;
+
+        private NonBlockingJob(Runnable job)
+        {
+            _job = job;
+        }
+
+        @Override
+        public void run()
+        {
+            _job.run();
+        }
+
+        @Override
+        public InvocationType getInvocationType()
+        {
+            return InvocationType.NON_BLOCKING;
+        }
+    }
+
+    private void waitForThreads(int threads) throws InterruptedException
+    {
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (_pool.getThreads() != threads && System.nanoTime() < end)
+            Thread.sleep(50);
+        Assert.assertEquals(threads, _pool.getThreads());
+    }
+}
@@ -0,0 +1,154 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util.thread.strategy;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.thread.ExecutionStrategy.Producer;
+import org.eclipse.jetty.util.thread.ReservedThreadExecutor;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * <p>Drives the strategy from a single thread with a simulated clock: the executor
+ * runs tasks in place after advancing the clock by the queue latency, and the reserved
+ * threads are run by the test after advancing the clock by the handoff latency.</p>
+ */
+public class AdaptiveExecutionStrategyTest
+{
+    private final Queue<Runnable> _handoffs = new ArrayDeque<>();
+    private long _clock = 1;
+    private long _handoffLatency;
+    private long _queueLatency;
+    private int _tasks;
+    private int _run;
+    private AdaptiveExecutionStrategy _strategy;
+
+    @After
+    public void after() throws Exception
+    {
+        if (_strategy != null)
+            _strategy.stop();
+    }
+
+    private void start() throws Exception
+    {
+        Producer producer = () ->
+        {
+            if (_tasks <= 0)
+                return null;
+            _tasks--;
+            return () -> _run++;
+        };
+        Executor executor = task ->
+        {
+            _clock += _queueLatency;
+            task.run();
+        };
+        ReservedThreadExecutor producers = new ReservedThreadExecutor(executor, 1)
+        {
+            @Override
+            public boolean tryExecute(Runnable task)
+            {
+                _handoffs.offer(() ->
+                {
+                    _clock += _handoffLatency;
+                    task.run();
+                });
+                return true;
+            }
+        };
+        _strategy = new AdaptiveExecutionStrategy(producer, executor, producers)
+        {
+            @Override
+            long nanoTime()
+            {
+                return _clock;
+            }
+        };
+        _strategy.setExplorePeriod(4);
+        _strategy.start();
+    }
+
+    private void produce(int tasks)
+    {
+        _tasks += tasks;
+        _strategy.produce();
+        Runnable handoff;
+        while ((handoff = _handoffs.poll()) != null)
+            handoff.run();
+        assertThat(_tasks, is(0));
+    }
+
+    @Test
+    public void testSlowProducerHandoffSwitchesToExecute() throws Exception
+    {
+        _handoffLatency = TimeUnit.MILLISECONDS.toNanos(20);
+        _queueLatency = TimeUnit.MICROSECONDS.toNanos(50);
+        start();
+
+        produce(200);
+
+        assertThat(_run, is(200));
+        assertThat(_strategy.getMode(), is("PEC"));
+        assertThat(_strategy.getModeSwitches(), is(1L));
+        assertThat(_strategy.getBlockingTasksExecuted(), greaterThan(_strategy.getBlockingTasksConsumed()));
+        assertThat(_strategy.getBlockingTasksConsumed() + _strategy.getBlockingTasksExecuted(), is(200L));
+    }
+
+    @Test
+    public void testSlowExecutorKeepsConsuming() throws Exception
+    {
+        _handoffLatency = TimeUnit.MICROSECONDS.toNanos(50);
+        _queueLatency = TimeUnit.MILLISECONDS.toNanos(20);
+        start();
+
+        produce(200);
+
+        assertThat(_run, is(200));
+        assertThat(_strategy.getMode(), is("EPC"));
+        assertThat(_strategy.getModeSwitches(), is(0L));
+        assertThat(_strategy.getBlockingTasksConsumed(), greaterThan(_strategy.getBlockingTasksExecuted()));
+        assertThat(_strategy.getBlockingTasksExplored(), greaterThan(0L));
+    }
+
+    @Test
+    public void testSwitchesBackWhenExecutorSlowsDown() throws Exception
+    {
+        _handoffLatency = TimeUnit.MILLISECONDS.toNanos(20);
+        _queueLatency = TimeUnit.MICROSECONDS.toNanos(50);
+        start();
+        produce(200);
+        assertThat(_strategy.getMode(), is("PEC"));
+
+        _queueLatency = TimeUnit.MILLISECONDS.toNanos(40);
+        produce(200);
+
+        assertThat(_run, is(400));
+        assertThat(_strategy.getMode(), is("EPC"));
+        assertThat(_strategy.getModeSwitches(), is(2L));
+    }
+}
@@ -50,7 +50,8 @@ public class ExecutionStrategyTest
         return Arrays.asList(new Object[][]{
             {ProduceExecuteConsume.class},
             {ExecuteProduceConsume.class},
-            {EatWhatYouKill.class}
+            {EatWhatYouKill.class},
+            {AdaptiveExecutionStrategy.class}
         });
     }
 
@@ -114,6 +114,8 @@ public class WebSocketClient extends ContainerLifeCycle implements WebSocketCont
         this.containerScope = new SimpleContainerScope(WebSocketPolicy.newClientPolicy(),new MappedByteBufferPool(),objectFactory);
         this.httpClient = httpClient;
         this.extensionRegistry = new WebSocketExtensionFactory(containerScope);
+        addBean(this.extensionRegistry.getDeflaterPool());
+        addBean(this.extensionRegistry.getInflaterPool());
         this.eventDriverFactory = new EventDriverFactory(containerScope);
         this.sessionFactory = new WebSocketSessionFactory(containerScope);
     }
@@ -234,6 +236,8 @@ public class WebSocketClient extends ContainerLifeCycle implements WebSocketCont
         this.containerScope = new SimpleContainerScope(WebSocketPolicy.newClientPolicy(), bufferPool, objectFactory);
 
         this.extensionRegistry = new WebSocketExtensionFactory(containerScope);
+        addBean(this.extensionRegistry.getDeflaterPool());
+        addBean(this.extensionRegistry.getInflaterPool());
 
         this.eventDriverFactory = new EventDriverFactory(containerScope);
         this.sessionFactory = new WebSocketSessionFactory(containerScope);
@@ -292,6 +296,8 @@ public class WebSocketClient extends ContainerLifeCycle implements WebSocketCont
         }
         
         this.extensionRegistry = new WebSocketExtensionFactory(containerScope);
+        addBean(this.extensionRegistry.getDeflaterPool());
+        addBean(this.extensionRegistry.getInflaterPool());
         
         this.eventDriverFactory = eventDriverFactory;
         this.sessionFactory = sessionFactory;
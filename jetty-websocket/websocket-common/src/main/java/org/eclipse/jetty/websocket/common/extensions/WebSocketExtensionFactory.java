@@ -18,16 +18,24 @@
 
 package org.eclipse.jetty.websocket.common.extensions;
 
+import java.util.zip.Deflater;
+
 import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.compression.CompressionPool;
+import org.eclipse.jetty.util.compression.DeflaterPool;
+import org.eclipse.jetty.util.compression.InflaterPool;
 import org.eclipse.jetty.websocket.api.WebSocketException;
 import org.eclipse.jetty.websocket.api.extensions.Extension;
 import org.eclipse.jetty.websocket.api.extensions.ExtensionConfig;
 import org.eclipse.jetty.websocket.api.extensions.ExtensionFactory;
+import org.eclipse.jetty.websocket.common.extensions.compress.CompressExtension;
 import org.eclipse.jetty.websocket.common.scopes.WebSocketContainerScope;
 
 public class WebSocketExtensionFactory extends ExtensionFactory
 {
     private WebSocketContainerScope container;
+    private final DeflaterPool deflaterPool = new DeflaterPool(CompressionPool.DEFAULT_CAPACITY, Deflater.DEFAULT_COMPRESSION, true);
+    private final InflaterPool inflaterPool = new InflaterPool(CompressionPool.DEFAULT_CAPACITY, true);
 
     public WebSocketExtensionFactory(WebSocketContainerScope container)
     {
@@ -35,6 +43,28 @@ public class WebSocketExtensionFactory extends ExtensionFactory
         this.container = container;
     }
 
+    /**
+     * <p>The pool of {@link Deflater}s shared by the compression extensions.</p>
+     * <p>The pool must be started, typically as a bean of the container, to pool deflaters.</p>
+     *
+     * @return the pool of deflaters
+     */
+    public DeflaterPool getDeflaterPool()
+    {
+        return deflaterPool;
+    }
+
+    /**
+     * <p>The pool of {@link java.util.zip.Inflater}s shared by the compression extensions.</p>
+     * <p>The pool must be started, typically as a bean of the container, to pool inflaters.</p>
+     *
+     * @return the pool of inflaters
+     */
+    public InflaterPool getInflaterPool()
+    {
+        return inflaterPool;
+    }
+
     @Override
     public Extension newInstance(ExtensionConfig config)
     {
@@ -64,6 +94,12 @@ public class WebSocketExtensionFactory extends ExtensionFactory
                 aext.init(container);
                 aext.setConfig(config);
             }
+            if (ext instanceof CompressExtension)
+            {
+                CompressExtension cext = (CompressExtension)ext;
+                cext.setDeflaterPool(deflaterPool);
+                cext.setInflaterPool(inflaterPool);
+            }
             return ext;
         }
         catch (InstantiationException | IllegalAccessException e)
@@ -30,6 +30,8 @@ import java.util.zip.ZipException;
 
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.IteratingCallback;
+import org.eclipse.jetty.util.compression.DeflaterPool;
+import org.eclipse.jetty.util.compression.InflaterPool;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 import org.eclipse.jetty.websocket.api.BatchMode;
@@ -74,6 +76,8 @@ public abstract class CompressExtension extends AbstractExtension
 
     private final Queue<FrameEntry> entries = new ArrayDeque<>();
     private final IteratingCallback flusher = new Flusher();
+    private DeflaterPool deflaterPool;
+    private InflaterPool inflaterPool;
     private Deflater deflaterImpl;
     private Inflater inflaterImpl;
     protected AtomicInteger decompressCount = new AtomicInteger(0);
@@ -86,11 +90,30 @@ public abstract class CompressExtension extends AbstractExtension
         rsvUse = getRsvUseMode();
     }
 
+    /**
+     * @param deflaterPool the pool to acquire the {@link Deflater} from, or null to create a new one
+     */
+    public void setDeflaterPool(DeflaterPool deflaterPool)
+    {
+        this.deflaterPool = deflaterPool;
+    }
+
+    /**
+     * @param inflaterPool the pool to acquire the {@link Inflater} from, or null to create a new one
+     */
+    public void setInflaterPool(InflaterPool inflaterPool)
+    {
+        this.inflaterPool = inflaterPool;
+    }
+
     public Deflater getDeflater()
     {
         if (deflaterImpl == null)
         {
-            deflaterImpl = new Deflater(Deflater.DEFAULT_COMPRESSION,NOWRAP);
+            if (deflaterPool == null)
+                deflaterImpl = new Deflater(Deflater.DEFAULT_COMPRESSION,NOWRAP);
+            else
+                deflaterImpl = deflaterPool.acquire();
         }
         return deflaterImpl;
     }
@@ -99,7 +122,10 @@ public abstract class CompressExtension extends AbstractExtension
     {
         if (inflaterImpl == null)
         {
-            inflaterImpl = new Inflater(NOWRAP);
+            if (inflaterPool == null)
+                inflaterImpl = new Inflater(NOWRAP);
+            else
+                inflaterImpl = inflaterPool.acquire();
         }
         return inflaterImpl;
     }
@@ -375,9 +401,21 @@ public abstract class CompressExtension extends AbstractExtension
     protected void doStop() throws Exception
     {
         if(deflaterImpl != null)
-            deflaterImpl.end();
+        {
+            if (deflaterPool == null)
+                deflaterImpl.end();
+            else
+                deflaterPool.release(deflaterImpl);
+            deflaterImpl = null;
+        }
         if(inflaterImpl != null)
-            inflaterImpl.end();
+        {
+            if (inflaterPool == null)
+                inflaterImpl.end();
+            else
+                inflaterPool.release(inflaterImpl);
+            inflaterImpl = null;
+        }
         super.doStop();
     }
 
@@ -174,6 +174,8 @@ public class WebSocketServerFactory extends ContainerLifeCycle implements WebSoc
         
         addBean(scheduler);
         addBean(bufferPool);
+        addBean(extensionFactory.getDeflaterPool());
+        addBean(extensionFactory.getInflaterPool());
     }
     
     public void addSessionListener(WebSocketSession.Listener listener)